@@ -0,0 +1,110 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.benchmarks.client;
+
+import java.util.concurrent.TimeUnit;
+
+import io.liveoak.client.DefaultClient;
+import io.liveoak.client.impl.ClientResourceResponseImpl;
+import io.liveoak.spi.RequestContext;
+import io.liveoak.spi.ResourceRequest;
+import io.liveoak.spi.client.ClientResourceResponse;
+import io.liveoak.spi.state.ResourceState;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of internal requests made through {@link DefaultClient}, over local channels and in-VM.
+ *
+ * <p>The container side answers every request straight away, so only the cost of getting the request
+ * to the pipeline and the response back to the caller is measured.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@Threads(8)
+public class ClientBenchmark {
+
+    @Param({"local", "in-vm"})
+    public String mode;
+
+    @Param({"1", "4"})
+    public int channels;
+
+    private DefaultClient client;
+    private EventLoopGroup serverGroup;
+
+    @Setup
+    public void setup() throws Exception {
+        System.setProperty(DefaultClient.CHANNELS_PROPERTY, String.valueOf(this.channels));
+        this.client = new DefaultClient();
+
+        if (DefaultClient.MODE_IN_VM.equals(this.mode)) {
+            this.client.connectInVM((pipeline) -> pipeline.addLast(new ImmediateResponder()));
+            return;
+        }
+
+        LocalAddress address = new LocalAddress("client-benchmark-" + System.nanoTime());
+        this.serverGroup = new NioEventLoopGroup();
+        new ServerBootstrap()
+                .channel(LocalServerChannel.class)
+                .group(this.serverGroup)
+                .localAddress(address)
+                .childHandler(new ChannelInitializer<LocalChannel>() {
+                    protected void initChannel(LocalChannel ch) throws Exception {
+                        ch.pipeline().addLast(new ImmediateResponder());
+                    }
+                })
+                .bind().sync();
+        this.client.connect(address);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        this.client.close();
+        if (this.serverGroup != null) {
+            this.serverGroup.shutdownGracefully().sync();
+        }
+    }
+
+    @Benchmark
+    public ResourceState read() throws Exception {
+        return this.client.read(new RequestContext.Builder().build(), "/benchmark/resource");
+    }
+
+    @ChannelHandler.Sharable
+    private static class ImmediateResponder extends SimpleChannelInboundHandler<ResourceRequest> {
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, ResourceRequest request) throws Exception {
+            ctx.writeAndFlush(new ClientResourceResponseImpl(request, ClientResourceResponse.ResponseType.OK, request.resourcePath().toString(), null));
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.benchmarks.codec;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
+import io.liveoak.common.codec.DefaultResourceState;
+import io.liveoak.common.codec.ResourceCodec;
+import io.liveoak.common.codec.StateEncoder;
+import io.liveoak.common.codec.driver.StateEncodingDriver;
+import io.liveoak.common.codec.json.JSONDecoder;
+import io.liveoak.common.codec.json.JSONEncoder;
+import io.liveoak.spi.RequestContext;
+import io.liveoak.spi.state.ResourceState;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the per-call encode path (reflective encoder instantiation, a new
+ * <code>JsonFactory</code> and an unpooled buffer per encode) with {@link ResourceCodec}'s
+ * recycled encoders writing into pooled buffers.
+ *
+ * <p>Run with <code>-prof gc</code> to compare allocation rates.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@Threads(4)
+public class ResourceCodecBenchmark {
+
+    @Param({"1", "50"})
+    public int members;
+
+    private ResourceState state;
+    private RequestContext requestContext;
+    private ResourceCodec codec;
+    private ByteBuf body;
+
+    @Setup
+    public void setup() throws Exception {
+        this.state = new DefaultResourceState("people");
+        ((DefaultResourceState) this.state).uri(new URI("/testApp/storage/people"));
+        for (int i = 0; i < this.members; ++i) {
+            DefaultResourceState member = new DefaultResourceState("person-" + i);
+            member.uri(new URI("/testApp/storage/people/person-" + i));
+            member.putProperty("name", "Person " + i);
+            member.putProperty("age", 20 + i);
+            member.putProperty("active", i % 2 == 0);
+            this.state.addMember(member);
+        }
+        this.requestContext = new RequestContext.Builder().build();
+        this.codec = new ResourceCodec(JSONEncoder.class, new JSONDecoder());
+
+        ByteBuf encoded = this.codec.encode(this.requestContext, this.state);
+        this.body = Unpooled.unreleasableBuffer(Unpooled.copiedBuffer(encoded));
+        encoded.release();
+    }
+
+    @Benchmark
+    public int encodePerCall() throws Exception {
+        ByteBuf buffer = Unpooled.buffer();
+        StateEncoder encoder = LegacyJSONEncoder.class.newInstance();
+        encoder.initialize(buffer);
+        StateEncodingDriver driver = new StateEncodingDriver(this.requestContext, encoder, this.state);
+        driver.encode();
+        driver.close();
+        int size = buffer.readableBytes();
+        buffer.release();
+        return size;
+    }
+
+    @Benchmark
+    public int encodeRecycledPooled() throws Exception {
+        ByteBuf buffer = this.codec.encode(PooledByteBufAllocator.DEFAULT, this.requestContext, this.state);
+        int size = buffer.readableBytes();
+        buffer.release();
+        return size;
+    }
+
+    @Benchmark
+    public ResourceState decodeSharedFactory() throws Exception {
+        return this.codec.decode(this.body.duplicate());
+    }
+
+    /**
+     * Reproduces the former cost of building a <code>JsonFactory</code> and a pretty printer on every encode.
+     */
+    public static class LegacyJSONEncoder extends JSONEncoder {
+        @Override
+        protected JsonGenerator createGenerator(ByteBuf buffer) throws IOException {
+            JsonGenerator generator = new JsonFactory().createGenerator(new ByteBufOutputStream(buffer));
+            generator.setPrettyPrinter(new DefaultPrettyPrinter("\\n"));
+            return generator;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.benchmarks.pgsql;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import io.liveoak.pgsql.pool.ConnectionPool;
+import io.liveoak.pgsql.pool.PoolSettings;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.postgresql.ds.PGSimpleDataSource;
+
+/**
+ * Latency of a REST-style table read through {@link ConnectionPool}, with and without cached server-side
+ * prepared statements.
+ *
+ * <p>Needs a local postgresql instance, configured with the same <code>pgsql.server</code>, <code>pgsql.port</code>,
+ * <code>pgsql.db</code>, <code>pgsql.user</code> and <code>pgsql.password</code> system properties as the
+ * pgsql module tests. The benchmark creates and drops an <code>xlo_bench</code> schema.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@Threads(4)
+public class ConnectionPoolBenchmark {
+
+    private static final int ROWS = 10000;
+
+    private static final String SELECT = "SELECT * FROM xlo_bench.items WHERE category=? ORDER BY name LIMIT ? OFFSET ?";
+
+    @Param({"false", "true"})
+    public boolean cachedStatements;
+
+    private ConnectionPool pool;
+
+    @Setup
+    public void setup() throws Exception {
+        try (Connection c = dataSource(0).getConnection(); Statement s = c.createStatement()) {
+            s.execute("DROP SCHEMA IF EXISTS xlo_bench CASCADE");
+            s.execute("CREATE SCHEMA xlo_bench");
+            s.execute("CREATE TABLE xlo_bench.items (id integer PRIMARY KEY, name varchar(64), category varchar(16))");
+            s.execute("CREATE INDEX items_category ON xlo_bench.items (category, name)");
+            s.execute("INSERT INTO xlo_bench.items SELECT i, 'item ' || i, 'c' || (i % 10) FROM generate_series(1, " + ROWS + ") i");
+            s.execute("ANALYZE xlo_bench.items");
+        }
+
+        PoolSettings settings = this.cachedStatements
+                ? new PoolSettings(4, 4, 30000, 0, 0, 64, 1)
+                : new PoolSettings(4, 4, 30000, 0, 0, 0, 0);
+        this.pool = new ConnectionPool("benchmark", dataSource(settings.prepareThreshold()), settings);
+        this.pool.start();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        this.pool.close();
+        try (Connection c = dataSource(0).getConnection(); Statement s = c.createStatement()) {
+            s.execute("DROP SCHEMA xlo_bench CASCADE");
+        }
+    }
+
+    @Benchmark
+    public int readPage() throws Exception {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int rows = 0;
+        try (Connection c = this.pool.getConnection(); PreparedStatement ps = c.prepareStatement(SELECT)) {
+            ps.setString(1, "c" + random.nextInt(10));
+            ps.setInt(2, 20);
+            ps.setInt(3, random.nextInt(50) * 20);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    rs.getString(2);
+                    ++rows;
+                }
+            }
+        }
+        return rows;
+    }
+
+    private static PGSimpleDataSource dataSource(int prepareThreshold) {
+        PGSimpleDataSource ds = new PGSimpleDataSource();
+        ds.setServerName(System.getProperty("pgsql.server", "localhost"));
+        ds.setPortNumber(Integer.parseInt(System.getProperty("pgsql.port", "5432")));
+        ds.setDatabaseName(System.getProperty("pgsql.db", "test"));
+        ds.setUser(System.getProperty("pgsql.user", "test"));
+        ds.setPassword(System.getProperty("pgsql.password", "test"));
+        ds.setPrepareThreshold(prepareThreshold);
+        return ds;
+    }
+}
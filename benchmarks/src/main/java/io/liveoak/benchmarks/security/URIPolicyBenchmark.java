@@ -0,0 +1,135 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.benchmarks.security;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import io.liveoak.common.security.AuthzDecision;
+import io.liveoak.common.security.DefaultSecurityContext;
+import io.liveoak.common.util.ObjectsTree;
+import io.liveoak.security.policy.uri.impl.RolesContainer;
+import io.liveoak.security.policy.uri.impl.URIPolicyMatcher;
+import io.liveoak.security.policy.uri.impl.URIPolicyRule;
+import io.liveoak.spi.RequestContext;
+import io.liveoak.spi.RequestType;
+import io.liveoak.spi.ResourcePath;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of a URI policy decision: the compiled {@link URIPolicyMatcher} against walking an
+ * {@link ObjectsTree} of rules and checking them one by one, as the policy used to.
+ *
+ * <p>Rules are spread over 10 applications. Each collection has a wildcard rule for readers, a wildcard
+ * rule for writers with a denied role, and an exact rule for a single resource.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@Threads(4)
+public class URIPolicyBenchmark {
+
+    private static final int APPS = 10;
+    private static final int RULES_PER_COLLECTION = 3;
+
+    @Param({"1000", "10000"})
+    public int rules;
+
+    private URIPolicyMatcher matcher;
+    private ObjectsTree<URIPolicyRule> rulesTree;
+    private RequestContext[] requests;
+
+    @Setup
+    public void setup() {
+        URIPolicyMatcher.Builder builder = new URIPolicyMatcher.Builder();
+        this.rulesTree = new ObjectsTree<>();
+
+        int collections = Math.max(1, this.rules / (APPS * RULES_PER_COLLECTION));
+        for (int app = 0; app < APPS; ++app) {
+            for (int collection = 0; collection < collections; ++collection) {
+                String base = "/app" + app + "/storage/collection" + collection;
+                add(builder, rule(base + "/*", Arrays.asList("READ"), Arrays.asList("reader", "writer"), null));
+                add(builder, rule(base + "/*", Arrays.asList("CREATE", "UPDATE", "DELETE"), Arrays.asList("writer"), Arrays.asList("banned")));
+                add(builder, rule(base + "/item0", Arrays.asList("*"), Arrays.asList("admin"), null));
+            }
+        }
+        this.matcher = builder.build();
+
+        String[][] roles = {{"reader"}, {"writer"}, {"writer", "banned"}, {"admin"}, {}};
+        this.requests = new RequestContext[1024];
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < this.requests.length; ++i) {
+            DefaultSecurityContext securityContext = new DefaultSecurityContext();
+            securityContext.setSubject("user" + random.nextInt(100));
+            securityContext.setRoles(new HashSet<>(Arrays.asList(roles[random.nextInt(roles.length)])));
+            this.requests[i] = new RequestContext.Builder()
+                    .resourcePath(new ResourcePath("/app" + random.nextInt(APPS) + "/storage/collection" + random.nextInt(collections)
+                            + "/item" + random.nextInt(4)))
+                    .requestType(RequestType.values()[random.nextInt(RequestType.values().length)])
+                    .securityContext(securityContext);
+        }
+    }
+
+    private void add(URIPolicyMatcher.Builder builder, URIPolicyRule rule) {
+        builder.add(rule);
+        this.rulesTree.addObject(rule, rule.getResourcePath());
+    }
+
+    private static URIPolicyRule rule(String pattern, List<String> requestTypes, List<String> allowedRoles, List<String> deniedRoles) {
+        RolesContainer rolesContainer = new RolesContainer().addAllAllowedRoles(allowedRoles).addAllDeniedRoles(deniedRoles);
+        return new URIPolicyRule(new ResourcePath(pattern), requestTypes, rolesContainer);
+    }
+
+    @Benchmark
+    public AuthzDecision compiled() {
+        RequestContext req = this.requests[ThreadLocalRandom.current().nextInt(this.requests.length)];
+        return this.matcher.decide(req.resourcePath(), req.requestType(), req.securityContext());
+    }
+
+    @Benchmark
+    public AuthzDecision treeWalk() {
+        RequestContext req = this.requests[ThreadLocalRandom.current().nextInt(this.requests.length)];
+        List<URIPolicyRule> matched = this.rulesTree.objects(req.resourcePath()).collect(Collectors.toList());
+
+        AuthzDecision decision = null;
+        ResourcePath lastResourcePath = null;
+        for (URIPolicyRule rule : matched) {
+            if (decision == null || rule.getResourcePath().equals(lastResourcePath)) {
+                AuthzDecision current = checkPermissions(rule, req);
+                lastResourcePath = rule.getResourcePath();
+                decision = decision == null ? current : current.mergeDecision(decision);
+            }
+        }
+        return decision != null ? decision : AuthzDecision.IGNORE;
+    }
+
+    private static AuthzDecision checkPermissions(URIPolicyRule rule, RequestContext req) {
+        for (String requestType : rule.getRequestTypes()) {
+            if (req.requestType().matches(requestType)) {
+                return rule.getRolesContainer().isRequestAllowed(req);
+            }
+        }
+        return AuthzDecision.IGNORE;
+    }
+}
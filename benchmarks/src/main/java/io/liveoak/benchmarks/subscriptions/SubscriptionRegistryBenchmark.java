@@ -0,0 +1,139 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.benchmarks.subscriptions;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import io.liveoak.container.subscriptions.SubscriptionRegistry;
+import io.liveoak.spi.ResourcePath;
+import io.liveoak.spi.ResourceResponse;
+import io.liveoak.spi.container.Subscription;
+import io.liveoak.spi.resource.async.Resource;
+import io.liveoak.spi.security.SecurityContext;
+import io.liveoak.spi.state.ResourceState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Cost of matching a changed resource against the subscription registry.
+ *
+ * <p>Subscriptions are spread over 10 applications with 100 collections each, one per resource,
+ * plus a collection-level and a wildcard subscription per collection. <code>churn</code>
+ * measures the cost of subscribing and unsubscribing against the populated registry.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class SubscriptionRegistryBenchmark {
+
+    private static final int APPS = 10;
+    private static final int COLLECTIONS = 100;
+
+    @Param({"100000"})
+    public int subscriptions;
+
+    private SubscriptionRegistry registry;
+    private ResourcePath[] paths;
+
+    @Setup
+    public void setup() {
+        this.registry = new SubscriptionRegistry();
+        int perCollection = Math.max(1, this.subscriptions / (APPS * COLLECTIONS));
+        for (int app = 0; app < APPS; ++app) {
+            for (int collection = 0; collection < COLLECTIONS; ++collection) {
+                String base = "/app" + app + "/storage/collection" + collection;
+                this.registry.add(new BenchmarkSubscription(base));
+                this.registry.add(new BenchmarkSubscription(base + "/*"));
+                for (int i = 0; i < perCollection; ++i) {
+                    this.registry.add(new BenchmarkSubscription(base + "/item" + i));
+                }
+            }
+        }
+
+        this.paths = new ResourcePath[1024];
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < this.paths.length; ++i) {
+            this.paths[i] = new ResourcePath("/app" + random.nextInt(APPS) + "/storage/collection" + random.nextInt(COLLECTIONS)
+                    + "/item" + random.nextInt(perCollection));
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void match(Blackhole blackhole) {
+        ResourcePath path = this.paths[ThreadLocalRandom.current().nextInt(this.paths.length)];
+        this.registry.match(path, blackhole::consume);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void churn() {
+        BenchmarkSubscription subscription = new BenchmarkSubscription(
+                this.paths[ThreadLocalRandom.current().nextInt(this.paths.length)].toString());
+        this.registry.add(subscription);
+        this.registry.remove(subscription);
+    }
+
+    private static class BenchmarkSubscription implements Subscription {
+
+        BenchmarkSubscription(String path) {
+            this.resourcePath = new ResourcePath(path);
+        }
+
+        @Override
+        public String id() {
+            return this.resourcePath.toString();
+        }
+
+        @Override
+        public ResourcePath resourcePath() {
+            return this.resourcePath;
+        }
+
+        @Override
+        public boolean isSecure() {
+            return false;
+        }
+
+        @Override
+        public SecurityContext securityContext() {
+            return null;
+        }
+
+        @Override
+        public void sendAuthzError(ResourceState errorState, Resource resource, int status) throws Exception {
+        }
+
+        @Override
+        public void resourceCreated(ResourceResponse resourceResponse) throws Exception {
+        }
+
+        @Override
+        public void resourceUpdated(ResourceResponse resourceResponse) throws Exception {
+        }
+
+        @Override
+        public void resourceDeleted(ResourceResponse resourceResponse) throws Exception {
+        }
+
+        private final ResourcePath resourcePath;
+    }
+}
@@ -5,6 +5,8 @@
  */
 package io.liveoak.filesystem.aggregating;
 
+import java.io.File;
+
 import io.liveoak.filesystem.FileResource;
 import io.liveoak.filesystem.FileSystemAdminResource;
 import io.liveoak.filesystem.FilesystemResource;
@@ -12,6 +14,7 @@ import io.liveoak.spi.RequestContext;
 import io.liveoak.spi.resource.async.DelegatingResponder;
 import io.liveoak.spi.resource.async.Resource;
 import io.liveoak.spi.resource.async.Responder;
+import org.jboss.logging.Logger;
 import org.vertx.java.core.Vertx;
 
 /**
@@ -19,16 +22,30 @@ import org.vertx.java.core.Vertx;
  */
 public class AggregatingFilesystemResource extends FilesystemResource {
 
-    public AggregatingFilesystemResource(FileSystemAdminResource adminResource, String id, Vertx vertx) {
+    public AggregatingFilesystemResource(FileSystemAdminResource adminResource, String id, Vertx vertx, AssetCache cache) {
         super(adminResource, id, vertx);
+        this.cache = cache;
+    }
+
+    public AssetCache cache() {
+        return this.cache;
     }
 
     @Override
     public void readMember(RequestContext ctx, String originalId, Responder originalResponder) {
+        // a built asset is only kept while neither its files nor a plain file of the same name change
+        if (originalId.indexOf('/') < 0 && originalId.indexOf('\\') < 0) {
+            AssetCache.Asset asset = this.cache.cached(new File(file(), originalId + AssetCache.MANIFEST_EXTENSION));
+            if (asset != null) {
+                originalResponder.resourceRead(new AggregatingResource(this, originalId, asset));
+                return;
+            }
+        }
+
         super.readMember(ctx, originalId, new DelegatingResponder(originalResponder) {
             @Override
             public void noSuchResource(String id) {
-                String aggrId = originalId + ".aggr";
+                String aggrId = originalId + AssetCache.MANIFEST_EXTENSION;
 
                 AggregatingFilesystemResource.super.readMember(ctx, aggrId, new DelegatingResponder(originalResponder) {
                     @Override
@@ -39,7 +56,14 @@ public class AggregatingFilesystemResource extends FilesystemResource {
                     @Override
                     public void resourceRead(Resource resource) {
                         if (resource instanceof FileResource) {
-                            super.resourceRead(new AggregatingResource(AggregatingFilesystemResource.this, originalId, (FileResource) resource));
+                            cache.get(((FileResource) resource).file()).whenComplete((asset, failure) -> {
+                                if (failure != null) {
+                                    log.debug("Failed to aggregate: " + ctx.resourcePath(), failure);
+                                    internalError(failure);
+                                } else {
+                                    super.resourceRead(new AggregatingResource(AggregatingFilesystemResource.this, originalId, asset));
+                                }
+                            });
                         } else {
                             super.noSuchResource(originalId);
                         }
@@ -49,5 +73,7 @@ public class AggregatingFilesystemResource extends FilesystemResource {
         });
     }
 
+    private final AssetCache cache;
 
+    private static final Logger log = Logger.getLogger(AggregatingFilesystemResource.class);
 }
@@ -5,31 +5,23 @@
  */
 package io.liveoak.filesystem.aggregating;
 
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileReader;
-import java.util.LinkedList;
-import java.util.List;
-
-import io.liveoak.filesystem.FileResource;
 import io.liveoak.spi.MediaType;
 import io.liveoak.spi.RequestContext;
 import io.liveoak.spi.resource.async.BinaryContentSink;
 import io.liveoak.spi.resource.async.BinaryResource;
 import io.liveoak.spi.resource.async.Resource;
 import io.liveoak.spi.resource.async.Responder;
-import org.jboss.logging.Logger;
-import org.vertx.java.core.buffer.Buffer;
+import io.netty.buffer.ByteBuf;
 
 /**
  * @author Bob McWhirter
  */
 public class AggregatingResource implements BinaryResource {
 
-    public AggregatingResource(Resource parent, String id, FileResource manifest) {
+    public AggregatingResource(Resource parent, String id, AssetCache.Asset asset) {
         this.parent = parent;
         this.id = id;
-        this.manifest = manifest;
+        this.asset = asset;
     }
 
     @Override
@@ -41,62 +33,28 @@ public class AggregatingResource implements BinaryResource {
 
     @Override
     public long contentLength() {
-        List<File> files = getFilesList();
-        long total = 0;
-        for (File file: files) {
-            total += file.length();
-        }
-        return total;
+        return this.asset.contentLength();
     }
 
+    @Override
+    public long lastModified() {
+        return this.asset.lastModified();
+    }
 
-    private List<File> getFilesList() {
-        if (filesList == null) {
-            List<File> list = new LinkedList<>();
-
-            File file = this.manifest.file();
-            try {
-                BufferedReader reader = new BufferedReader(new FileReader(file));
-                try {
-                    String line = null;
-                    while ((line = reader.readLine()) != null) {
-                        line = line.trim();
-                        if (line.equals("") || line.startsWith("//")) {
-                            continue;
-                        }
-                        if (line.startsWith("require")) {
-                            String rest = line.substring("require".length()).trim();
-                            File sub = new File(file.getParent(), rest);
-                            list.add(sub);
-                        } else if (line.startsWith("optional")) {
-                            String rest = line.substring("optional".length()).trim();
-                            File sub = new File(file.getParent(), rest);
-                            if (sub.exists()) {
-                                list.add(sub);
-                            }
-                        }
-                    }
-                } finally {
-                    reader.close();
-                }
-            } catch (Exception e) {
-                log.debug("Failed to parse aggregating resource file: " + file, e);
-            }
-            filesList = list;
-        }
+    @Override
+    public String entityTag() {
+        return this.asset.entityTag();
+    }
 
-        return filesList;
+    @Override
+    public ByteBuf encodedContent(String contentCoding) {
+        return this.asset.encodedContent(contentCoding);
     }
 
     @Override
     public void readContent(RequestContext ctx, BinaryContentSink sink) {
         try {
-            for (File file: getFilesList()) {
-                Buffer buffer = manifest.vertx().fileSystem().readFileSync(file.getPath());
-                sink.accept(buffer.getByteBuf());
-            }
-        } catch (Exception e) {
-            log.debug("Failed to serve content: " + ctx.resourcePath(), e);
+            sink.accept(this.asset.content());
         } finally {
             sink.close();
         }
@@ -119,8 +77,5 @@ public class AggregatingResource implements BinaryResource {
 
     private Resource parent;
     private String id;
-    private FileResource manifest;
-    private List<File> filesList;
-
-    private static final Logger log = Logger.getLogger(AggregatingResource.class);
+    private AssetCache.Asset asset;
 }
@@ -0,0 +1,547 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.filesystem.aggregating;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.jboss.logging.Logger;
+
+/**
+ * Aggregated assets, built once from their <code>.aggr</code> manifests and held in memory.
+ *
+ * <p>An asset is the concatenation of the files its manifest lists, in a single direct buffer, along with
+ * gzip and deflate encodings of it. Assets are built off the event loop, by <code>liveoak.aggregating.build-threads</code>
+ * threads (2 by default), and kept until the manifest or any file it lists changes, as reported by a
+ * {@link WatchService}. The least recently used assets are dropped once they take up more than
+ * <code>liveoak.aggregating.cache-max-bytes</code> (64 MiB by default).</p>
+ *
+ * <p>Watch events arrive some time after the change. So that a change is never served stale in the meantime, a
+ * cache hit also compares the modification times of the asset's files with those it was built from.</p>
+ *
+ * <p>The threads and the watch service belong to the cache, and are stopped by {@link #close()}.</p>
+ */
+public class AssetCache {
+
+    public static final String PREFIX = "liveoak.aggregating.";
+
+    public static final long DEFAULT_MAX_BYTES = 64 * 1024 * 1024;
+
+    public static final int DEFAULT_BUILD_THREADS = 2;
+
+    public static final String GZIP = "gzip";
+
+    public static final String DEFLATE = "deflate";
+
+    public static final String MANIFEST_EXTENSION = ".aggr";
+
+    public static class Asset {
+
+        Asset(ByteBuffer content, ByteBuffer gzip, ByteBuffer deflate, long lastModified, long crc) {
+            this.content = Unpooled.unreleasableBuffer(Unpooled.wrappedBuffer(content));
+            this.gzip = gzip != null ? Unpooled.unreleasableBuffer(Unpooled.wrappedBuffer(gzip)) : null;
+            this.deflate = deflate != null ? Unpooled.unreleasableBuffer(Unpooled.wrappedBuffer(deflate)) : null;
+            this.lastModified = lastModified;
+            this.entityTag = "\"" + Long.toHexString(content.remaining()) + "-" + Long.toHexString(crc) + "\"";
+            this.lastAccess = System.nanoTime();
+        }
+
+        /**
+         * @return a view of the content, which may be written and released by any number of readers at once
+         */
+        public ByteBuf content() {
+            this.lastAccess = System.nanoTime();
+            return this.content.duplicate();
+        }
+
+        /**
+         * @return a view of the content in the given coding, or null if it is not held in that coding
+         */
+        public ByteBuf encodedContent(String contentCoding) {
+            ByteBuf encoded = GZIP.equals(contentCoding) ? this.gzip : DEFLATE.equals(contentCoding) ? this.deflate : null;
+            if (encoded == null) {
+                return null;
+            }
+            this.lastAccess = System.nanoTime();
+            return encoded.duplicate();
+        }
+
+        public long contentLength() {
+            return this.content.readableBytes();
+        }
+
+        public long lastModified() {
+            return this.lastModified;
+        }
+
+        public String entityTag() {
+            return this.entityTag;
+        }
+
+        long size() {
+            return this.content.capacity()
+                    + (this.gzip != null ? this.gzip.capacity() : 0)
+                    + (this.deflate != null ? this.deflate.capacity() : 0);
+        }
+
+        private final ByteBuf content;
+        private final ByteBuf gzip;
+        private final ByteBuf deflate;
+        private final long lastModified;
+        private final String entityTag;
+        private volatile long lastAccess;
+        private boolean admitted;
+        private boolean watched = true;
+        private Map<Path, Long> stamps = Collections.emptyMap();
+    }
+
+    public AssetCache() {
+        this(Long.getLong(PREFIX + "cache-max-bytes", DEFAULT_MAX_BYTES),
+                Integer.getInteger(PREFIX + "build-threads", DEFAULT_BUILD_THREADS));
+    }
+
+    public AssetCache(long maxBytes, int buildThreads) {
+        this.maxBytes = maxBytes;
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, buildThreads), (r) -> {
+            Thread thread = new Thread(r, "liveoak-aggregator-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Retrieve the asset of a manifest, building it if it is not cached yet.
+     *
+     * @param manifest The <code>.aggr</code> manifest file
+     * @return The asset, completed once it is built
+     */
+    public CompletableFuture<Asset> get(File manifest) {
+        Path path = key(manifest);
+        CompletableFuture<Asset> future = current(path);
+        if (future != null) {
+            return future;
+        }
+        CompletableFuture<Asset> created = new CompletableFuture<>();
+        future = this.assets.putIfAbsent(path, created);
+        if (future != null) {
+            return future;
+        }
+        this.executor.execute(() -> {
+            try {
+                Asset asset = build(path);
+                admit(path, created, asset);
+                created.complete(asset);
+            } catch (Throwable t) {
+                evict(path, created);
+                created.completeExceptionally(t);
+            }
+        });
+        return created;
+    }
+
+    /**
+     * Retrieve the asset of a manifest, only if it is already built.
+     *
+     * @return The asset, or null
+     */
+    public Asset cached(File manifest) {
+        CompletableFuture<Asset> future = current(key(manifest));
+        if (future == null || !future.isDone() || future.isCompletedExceptionally()) {
+            return null;
+        }
+        return future.join();
+    }
+
+    /**
+     * The cached asset of a manifest, unless any of its files has changed since it was built.
+     */
+    private CompletableFuture<Asset> current(Path manifest) {
+        CompletableFuture<Asset> future = this.assets.get(manifest);
+        if (future == null || !future.isDone() || future.isCompletedExceptionally()) {
+            return future;
+        }
+        for (Map.Entry<Path, Long> stamp : future.join().stamps.entrySet()) {
+            if (stamp(stamp.getKey()) != stamp.getValue()) {
+                log.debugf("Invalidating %s, as %s changed", manifest, stamp.getKey());
+                evict(manifest, future);
+                return null;
+            }
+        }
+        return future;
+    }
+
+    /**
+     * Drop every asset whose manifest is below the given directory.
+     */
+    public void invalidateAll(File directory) {
+        Path root = key(directory);
+        for (Path manifest : new ArrayList<>(this.assets.keySet())) {
+            if (manifest.startsWith(root)) {
+                invalidate(manifest);
+            }
+        }
+    }
+
+    public synchronized long size() {
+        return this.bytes;
+    }
+
+    synchronized int watchedDirectories() {
+        return this.watched.size();
+    }
+
+    public void close() {
+        this.executor.shutdownNow();
+        synchronized (this) {
+            if (this.watchService != null) {
+                try {
+                    this.watchService.close();
+                } catch (IOException e) {
+                    log.debug("Failed to close the watch service", e);
+                }
+                this.watchService = null;
+            }
+            this.assets.clear();
+            this.dependents.clear();
+            this.dependencies.clear();
+            this.watched.clear();
+            this.bytes = 0;
+        }
+    }
+
+    private Asset build(Path manifest) throws IOException {
+        long start = System.nanoTime();
+        List<Path> required = new ArrayList<>();
+        List<Path> optional = new ArrayList<>();
+        parse(manifest, required, optional);
+
+        // watch and stamp everything before reading it, so that no change goes unnoticed
+        Map<Path, Long> stamps = new HashMap<>();
+        boolean watched = depend(manifest, manifest, stamps);
+        // a plain file of the same name would take the place of the asset
+        String name = manifest.getFileName().toString();
+        if (name.endsWith(MANIFEST_EXTENSION)) {
+            watched &= depend(manifest.resolveSibling(name.substring(0, name.length() - MANIFEST_EXTENSION.length())), manifest, stamps);
+        }
+        for (Path path : required) {
+            watched &= depend(path, manifest, stamps);
+        }
+        for (Path path : optional) {
+            watched &= depend(path, manifest, stamps);
+        }
+
+        long lastModified = Files.getLastModifiedTime(manifest).toMillis();
+        List<byte[]> parts = new ArrayList<>();
+        int length = 0;
+        for (Path path : required) {
+            byte[] part = Files.readAllBytes(path);
+            lastModified = Math.max(lastModified, Files.getLastModifiedTime(path).toMillis());
+            parts.add(part);
+            length += part.length;
+        }
+        for (Path path : optional) {
+            try {
+                byte[] part = Files.readAllBytes(path);
+                lastModified = Math.max(lastModified, Files.getLastModifiedTime(path).toMillis());
+                parts.add(part);
+                length += part.length;
+            } catch (NoSuchFileException e) {
+                // optional
+            }
+        }
+
+        ByteBuffer content = ByteBuffer.allocateDirect(length);
+        CRC32 crc = new CRC32();
+        for (byte[] part : parts) {
+            content.put(part);
+            crc.update(part);
+        }
+        content.flip();
+
+        Asset asset = new Asset(content,
+                encode(parts, length, (out) -> new GZIPOutputStream(out) {
+                    {
+                        this.def.setLevel(Deflater.BEST_COMPRESSION);
+                    }
+                }),
+                encode(parts, length, (out) -> new DeflaterOutputStream(out) {
+                    {
+                        this.def.setLevel(Deflater.BEST_COMPRESSION);
+                    }
+                }),
+                lastModified, crc.getValue());
+        asset.watched = watched;
+        asset.stamps = stamps;
+
+        log.debugf("Built %s (%d bytes) in %.1f ms", manifest, length, (System.nanoTime() - start) / 1000000.0);
+        return asset;
+    }
+
+    private void parse(Path manifest, List<Path> required, List<Path> optional) throws IOException {
+        Path dir = manifest.getParent();
+        try (BufferedReader reader = Files.newBufferedReader(manifest, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.equals("") || line.startsWith("//")) {
+                    continue;
+                }
+                if (line.startsWith("require")) {
+                    required.add(dir.resolve(line.substring("require".length()).trim()).normalize());
+                } else if (line.startsWith("optional")) {
+                    optional.add(dir.resolve(line.substring("optional".length()).trim()).normalize());
+                }
+            }
+        }
+    }
+
+    private interface EncoderFactory {
+        DeflaterOutputStream create(OutputStream out) throws IOException;
+    }
+
+    /**
+     * @return the encoded content, or null if encoding does not make it any smaller
+     */
+    private static ByteBuffer encode(List<byte[]> parts, int length, EncoderFactory factory) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(Math.max(64, length / 4));
+        try (DeflaterOutputStream out = factory.create(bytes)) {
+            for (byte[] part : parts) {
+                out.write(part);
+            }
+        }
+        if (bytes.size() >= length) {
+            return null;
+        }
+        ByteBuffer encoded = ByteBuffer.allocateDirect(bytes.size());
+        encoded.put(bytes.toByteArray());
+        encoded.flip();
+        return encoded;
+    }
+
+    /**
+     * Record that a manifest depends on a path, with its modification time, and watch its directory.
+     *
+     * @return false if the directory cannot be watched
+     */
+    private synchronized boolean depend(Path path, Path manifest, Map<Path, Long> stamps) {
+        stamps.put(path, stamp(path));
+        this.dependents.computeIfAbsent(path, (p) -> Collections.newSetFromMap(new ConcurrentHashMap<>())).add(manifest);
+        this.dependencies.computeIfAbsent(manifest, (m) -> new HashSet<>()).add(path);
+        Path dir = path.getParent();
+        if (this.watched.containsKey(dir)) {
+            return true;
+        }
+        try {
+            if (this.watchService == null) {
+                this.watchService = dir.getFileSystem().newWatchService();
+                Thread watcher = new Thread(this::watch, "liveoak-aggregator-watcher");
+                watcher.setDaemon(true);
+                watcher.start();
+            }
+            this.watched.put(dir, dir.register(this.watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_DELETE));
+            return true;
+        } catch (IOException e) {
+            log.debug("Not caching aggregated assets which depend on unwatchable directory: " + dir, e);
+            return false;
+        }
+    }
+
+    /**
+     * Forget what a manifest depends on once its asset is gone, and stop watching directories nothing depends on any more.
+     */
+    private synchronized void release(Path manifest) {
+        if (this.assets.containsKey(manifest)) {
+            // being built again, with the same dependencies
+            return;
+        }
+        Set<Path> paths = this.dependencies.remove(manifest);
+        if (paths == null) {
+            return;
+        }
+        Set<Path> dirs = new HashSet<>();
+        for (Path path : paths) {
+            this.dependents.computeIfPresent(path, (p, manifests) -> {
+                manifests.remove(manifest);
+                return manifests.isEmpty() ? null : manifests;
+            });
+            dirs.add(path.getParent());
+        }
+        for (Path path : this.dependents.keySet()) {
+            dirs.remove(path.getParent());
+        }
+        for (Path dir : dirs) {
+            WatchKey key = this.watched.remove(dir);
+            if (key != null) {
+                key.cancel();
+            }
+        }
+    }
+
+    private void watch() {
+        WatchService watchService;
+        synchronized (this) {
+            watchService = this.watchService;
+        }
+        while (true) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            Path dir = (Path) key.watchable();
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    changedAll(dir);
+                } else {
+                    changed(dir.resolve((Path) event.context()));
+                }
+            }
+            if (!key.reset()) {
+                // the directory itself is gone
+                this.watched.remove(dir, key);
+                changedAll(dir);
+            }
+        }
+    }
+
+    private void changed(Path path) {
+        Set<Path> manifests = this.dependents.remove(path);
+        if (manifests != null) {
+            for (Path manifest : manifests) {
+                log.debugf("Invalidating %s, as %s changed", manifest, path);
+                invalidate(manifest);
+            }
+        }
+    }
+
+    private void changedAll(Path dir) {
+        for (Path path : new ArrayList<>(this.dependents.keySet())) {
+            if (dir.equals(path.getParent())) {
+                changed(path);
+            }
+        }
+    }
+
+    private void invalidate(Path manifest) {
+        CompletableFuture<Asset> future = this.assets.get(manifest);
+        if (future != null) {
+            evict(manifest, future);
+        }
+    }
+
+    private synchronized void admit(Path manifest, CompletableFuture<Asset> future, Asset asset) {
+        if (!asset.watched || this.assets.get(manifest) != future) {
+            // changed while it was being built, or cannot be kept up to date
+            this.assets.remove(manifest, future);
+            release(manifest);
+            return;
+        }
+        asset.admitted = true;
+        this.bytes += asset.size();
+        if (this.bytes > this.maxBytes) {
+            trim();
+        }
+    }
+
+    private synchronized void evict(Path manifest, CompletableFuture<Asset> future) {
+        if (!this.assets.remove(manifest, future)) {
+            return;
+        }
+        if (future.isDone() && !future.isCompletedExceptionally()) {
+            Asset asset = future.join();
+            if (asset.admitted) {
+                asset.admitted = false;
+                this.bytes -= asset.size();
+            }
+        }
+        release(manifest);
+    }
+
+    /**
+     * Evict the least recently used assets until the rest fit in the budget.
+     */
+    private void trim() {
+        Map<CompletableFuture<Asset>, Long> lastAccess = new HashMap<>();
+        List<Map.Entry<Path, CompletableFuture<Asset>>> built = new ArrayList<>();
+        for (Map.Entry<Path, CompletableFuture<Asset>> entry : this.assets.entrySet()) {
+            CompletableFuture<Asset> future = entry.getValue();
+            if (future.isDone() && !future.isCompletedExceptionally()) {
+                // readers keep touching them, so sort by a snapshot
+                lastAccess.put(future, future.join().lastAccess);
+                built.add(entry);
+            }
+        }
+        built.sort((a, b) -> Long.compare(lastAccess.get(a.getValue()), lastAccess.get(b.getValue())));
+        for (Map.Entry<Path, CompletableFuture<Asset>> entry : built) {
+            if (this.bytes <= this.maxBytes) {
+                break;
+            }
+            evict(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * @return the modification time of a file, or -1 if it does not exist
+     */
+    private static long stamp(Path path) {
+        try {
+            return Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private static Path key(File file) {
+        return file.toPath().toAbsolutePath().normalize();
+    }
+
+    private final long maxBytes;
+    private final ExecutorService executor;
+    private final Map<Path, CompletableFuture<Asset>> assets = new ConcurrentHashMap<>();
+    private final Map<Path, Set<Path>> dependents = new ConcurrentHashMap<>();
+    private final Map<Path, Set<Path>> dependencies = new HashMap<>();
+    private final Map<Path, WatchKey> watched = new ConcurrentHashMap<>();
+    private WatchService watchService;
+    private long bytes;
+
+    private static final Logger log = Logger.getLogger(AssetCache.class);
+}
@@ -3,11 +3,14 @@ package io.liveoak.filesystem.aggregating.extension;
 import java.io.File;
 
 import io.liveoak.filesystem.FileSystemAdminResource;
+import io.liveoak.filesystem.aggregating.AssetCache;
 import io.liveoak.filesystem.aggregating.service.AggregatingFilesystemResourceService;
+import io.liveoak.filesystem.aggregating.service.AssetCacheService;
 import io.liveoak.filesystem.extension.FilesystemExtension;
 import io.liveoak.filesystem.service.FileSystemAdminResourceService;
 import io.liveoak.spi.Services;
 import io.liveoak.spi.extension.ApplicationExtensionContext;
+import io.liveoak.spi.extension.SystemExtensionContext;
 import org.jboss.msc.service.ServiceName;
 import org.vertx.java.core.Vertx;
 
@@ -16,6 +19,14 @@ import org.vertx.java.core.Vertx;
  */
 public class AggregatingFilesystemExtension extends FilesystemExtension {
 
+    public static final ServiceName ASSET_CACHE_NAME = Services.LIVEOAK.append("aggregating-filesystem", "asset-cache");
+
+    @Override
+    public void extend(SystemExtensionContext context) throws Exception {
+        super.extend(context);
+        context.target().addService(ASSET_CACHE_NAME, new AssetCacheService()).install();
+    }
+
     @Override
     public void extend(ApplicationExtensionContext context) throws Exception {
         File initialDir = new File(context.application().directory(), context.resourceId());
@@ -31,6 +42,7 @@ public class AggregatingFilesystemExtension extends FilesystemExtension {
         context.target().addService(Services.resource(context.application().id(), context.resourceId()), publicResource)
                 .addDependency(Services.VERTX, Vertx.class, publicResource.vertxInjector())
                 .addDependency(privateResourceServiceName, FileSystemAdminResource.class, publicResource.adminResourceInjector())
+                .addDependency(ASSET_CACHE_NAME, AssetCache.class, publicResource.assetCacheInjector())
                 .install();
 
         context.mountPublic(Services.resource(context.application().id(), context.resourceId()));
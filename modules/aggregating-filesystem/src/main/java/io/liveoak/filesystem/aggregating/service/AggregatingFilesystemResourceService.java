@@ -1,9 +1,13 @@
 package io.liveoak.filesystem.aggregating.service;
 
 import io.liveoak.filesystem.aggregating.AggregatingFilesystemResource;
+import io.liveoak.filesystem.aggregating.AssetCache;
 import io.liveoak.filesystem.service.FilesystemResourceService;
+import org.jboss.msc.inject.Injector;
 import org.jboss.msc.service.StartContext;
 import org.jboss.msc.service.StartException;
+import org.jboss.msc.service.StopContext;
+import org.jboss.msc.value.InjectedValue;
 
 /**
  * @author Bob McWhirter
@@ -19,6 +23,20 @@ public class AggregatingFilesystemResourceService extends FilesystemResourceServ
         this.resource = new AggregatingFilesystemResource(
                 this.adminResourceInjector.getValue(),
                 this.id,
-                this.vertxInjector.getValue());
+                this.vertxInjector.getValue(),
+                this.assetCacheInjector.getValue());
     }
+
+    @Override
+    public void stop(StopContext context) {
+        AggregatingFilesystemResource resource = (AggregatingFilesystemResource) this.resource;
+        resource.cache().invalidateAll(resource.file());
+        super.stop(context);
+    }
+
+    public Injector<AssetCache> assetCacheInjector() {
+        return this.assetCacheInjector;
+    }
+
+    private InjectedValue<AssetCache> assetCacheInjector = new InjectedValue<>();
 }
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.filesystem.aggregating.service;
+
+import io.liveoak.filesystem.aggregating.AssetCache;
+import org.jboss.msc.service.Service;
+import org.jboss.msc.service.StartContext;
+import org.jboss.msc.service.StartException;
+import org.jboss.msc.service.StopContext;
+
+/**
+ * The asset cache shared by all aggregating filesystem resources, closed along with the extension.
+ */
+public class AssetCacheService implements Service<AssetCache> {
+
+    @Override
+    public void start(StartContext context) throws StartException {
+        this.cache = new AssetCache();
+    }
+
+    @Override
+    public void stop(StopContext context) {
+        this.cache.close();
+        this.cache = null;
+    }
+
+    @Override
+    public AssetCache getValue() throws IllegalStateException, IllegalArgumentException {
+        return this.cache;
+    }
+
+    private AssetCache cache;
+}
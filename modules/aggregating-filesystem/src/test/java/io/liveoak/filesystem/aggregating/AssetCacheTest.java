@@ -0,0 +1,220 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.filesystem.aggregating;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import io.netty.buffer.ByteBuf;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.fest.assertions.Fail.fail;
+
+public class AssetCacheTest {
+
+    @After
+    public void after() throws Exception {
+        this.cache.close();
+        File[] files = this.dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        this.dir.delete();
+    }
+
+    @Test
+    public void buildsOnceWithEncodings() throws Exception {
+        File manifest = write("bundle.js.aggr", "// bundle\nrequire first.js\noptional missing.js\nrequire second.js\n");
+        String first = repeat("var first = 1;\n", 200);
+        write("first.js", first);
+        write("second.js", "var second = 2;\n");
+
+        AssetCache.Asset asset = this.cache.get(manifest).get(10, TimeUnit.SECONDS);
+        String expected = first + "var second = 2;\n";
+        assertThat(string(asset.content())).isEqualTo(expected);
+        assertThat(asset.contentLength()).isEqualTo(expected.length());
+        assertThat(asset.entityTag()).startsWith("\"" + Long.toHexString(expected.length()) + "-");
+        assertThat(asset.lastModified() > 0).isTrue();
+
+        // every reader gets its own view
+        ByteBuf content = asset.content();
+        content.skipBytes(10);
+        content.release();
+        assertThat(string(asset.content())).isEqualTo(expected);
+
+        assertThat(decode(new GZIPInputStream(stream(asset.encodedContent(AssetCache.GZIP))))).isEqualTo(expected);
+        assertThat(decode(new InflaterInputStream(stream(asset.encodedContent(AssetCache.DEFLATE))))).isEqualTo(expected);
+        assertThat(asset.encodedContent("br")).isNull();
+
+        assertThat(this.cache.cached(manifest)).isSameAs(asset);
+        assertThat(this.cache.get(manifest).get()).isSameAs(asset);
+        assertThat(this.cache.size()).isEqualTo(asset.size());
+    }
+
+    @Test
+    public void smallContentIsNotEncoded() throws Exception {
+        File manifest = write("small.js.aggr", "require small.js\n");
+        write("small.js", "1;");
+
+        AssetCache.Asset asset = this.cache.get(manifest).get(10, TimeUnit.SECONDS);
+        assertThat(string(asset.content())).isEqualTo("1;");
+        assertThat(asset.encodedContent(AssetCache.GZIP)).isNull();
+    }
+
+    @Test
+    public void invalidatedByChanges() throws Exception {
+        File manifest = write("bundle.js.aggr", "require first.js\noptional second.js\n");
+        write("first.js", "first\n");
+
+        AssetCache.Asset asset = this.cache.get(manifest).get(10, TimeUnit.SECONDS);
+        assertThat(string(asset.content())).isEqualTo("first\n");
+
+        // an optional file appearing
+        write("second.js", "second\n");
+        awaitInvalidated(manifest);
+        assertThat(string(this.cache.get(manifest).get(10, TimeUnit.SECONDS).content())).isEqualTo("first\nsecond\n");
+
+        write("first.js", "changed\n");
+        awaitInvalidated(manifest);
+        assertThat(string(this.cache.get(manifest).get(10, TimeUnit.SECONDS).content())).isEqualTo("changed\nsecond\n");
+    }
+
+    @Test
+    public void revalidatedOnHit() throws Exception {
+        File manifest = write("bundle.js.aggr", "require first.js\noptional second.js\n");
+        write("first.js", "first\n");
+        assertThat(string(this.cache.get(manifest).get(10, TimeUnit.SECONDS).content())).isEqualTo("first\n");
+
+        // noticed straight away, without waiting for the watch service
+        write("second.js", "second\n");
+        assertThat(this.cache.cached(manifest)).isNull();
+        assertThat(string(this.cache.get(manifest).get(10, TimeUnit.SECONDS).content())).isEqualTo("first\nsecond\n");
+    }
+
+    @Test
+    public void failedBuildsAreNotCached() throws Exception {
+        File manifest = write("broken.js.aggr", "require missing.js\n");
+
+        try {
+            this.cache.get(manifest).get(10, TimeUnit.SECONDS);
+            fail("Built without a required file");
+        } catch (ExecutionException e) {
+            // expected
+        }
+        assertThat(this.cache.cached(manifest)).isNull();
+
+        write("missing.js", "found\n");
+        assertThat(string(this.cache.get(manifest).get(10, TimeUnit.SECONDS).content())).isEqualTo("found\n");
+    }
+
+    @Test
+    public void leastRecentlyUsedAreEvicted() throws Exception {
+        this.cache.close();
+        this.cache = new AssetCache(3000, 1);
+
+        File a = write("a.js.aggr", "require a.js\n");
+        write("a.js", repeat("a", 2000));
+        File b = write("b.js.aggr", "require b.js\n");
+        write("b.js", repeat("b", 2000));
+
+        this.cache.get(a).get(10, TimeUnit.SECONDS);
+        this.cache.get(b).get(10, TimeUnit.SECONDS);
+
+        assertThat(this.cache.cached(a)).isNull();
+        assertThat(this.cache.cached(b)).isNotNull();
+        assertThat(this.cache.size() <= 3000).isTrue();
+    }
+
+    @Test
+    public void stopsWatchingOnceAssetsAreGone() throws Exception {
+        File sub = new File(this.dir, "sub");
+        sub.mkdir();
+        File a = write("a.js.aggr", "require sub/a.js\n");
+        write("sub/a.js", "a\n");
+        File b = write("b.js.aggr", "require b.js\n");
+        write("b.js", "b\n");
+
+        this.cache.get(a).get(10, TimeUnit.SECONDS);
+        this.cache.get(b).get(10, TimeUnit.SECONDS);
+        assertThat(this.cache.watchedDirectories()).isEqualTo(2);
+
+        write("sub/a.js", "changed\n");
+        awaitInvalidated(a);
+        assertThat(this.cache.watchedDirectories()).isEqualTo(1);
+
+        this.cache.invalidateAll(this.dir);
+        assertThat(this.cache.watchedDirectories()).isEqualTo(0);
+        new File(sub, "a.js").delete();
+        sub.delete();
+    }
+
+    private void awaitInvalidated(File manifest) throws InterruptedException {
+        // some platforms poll for changes every few seconds
+        long deadline = System.currentTimeMillis() + 30000;
+        while (this.cache.cached(manifest) != null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertThat(this.cache.cached(manifest)).isNull();
+    }
+
+    private File write(String name, String content) throws IOException {
+        File file = new File(this.dir, name);
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static String repeat(String s, int times) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < times; ++i) {
+            builder.append(s);
+        }
+        return builder.toString();
+    }
+
+    private static String string(ByteBuf buf) {
+        return buf.toString(StandardCharsets.UTF_8);
+    }
+
+    private static InputStream stream(ByteBuf buf) {
+        byte[] bytes = new byte[buf.readableBytes()];
+        buf.readBytes(bytes);
+        return new ByteArrayInputStream(bytes);
+    }
+
+    private static String decode(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = in.read(buffer)) >= 0) {
+            out.write(buffer, 0, read);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private final File dir = createDir();
+    private AssetCache cache = new AssetCache(AssetCache.DEFAULT_MAX_BYTES, 2);
+
+    private static File createDir() {
+        try {
+            return Files.createTempDirectory("asset-cache").toFile();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -5,10 +5,13 @@
  */
 package io.liveoak.analytics;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
 import io.liveoak.container.analytics.AnalyticsExtensionConfig;
+import io.liveoak.container.analytics.AnalyticsService;
 import io.liveoak.spi.RequestContext;
 import io.liveoak.spi.resource.RootResource;
 import io.liveoak.spi.resource.SynchronousResource;
@@ -24,9 +27,11 @@ public class AnalyticsExtensionConfigResource implements RootResource, Synchrono
     private String id;
 
     private AnalyticsExtensionConfig config = new AnalyticsExtensionConfig();
+    private AnalyticsService analyticsService;
 
-    public AnalyticsExtensionConfigResource(String id) {
+    public AnalyticsExtensionConfigResource(String id, AnalyticsService analyticsService) {
         this.id = id;
+        this.analyticsService = analyticsService;
     }
 
     @Override
@@ -71,6 +76,11 @@ public class AnalyticsExtensionConfigResource implements RootResource, Synchrono
         }
     }
 
+    @Override
+    public Collection<Resource> members(RequestContext ctx) throws Exception {
+        return Collections.singletonList(new AnalyticsPipelineResource(this, analyticsService));
+    }
+
     public AnalyticsExtensionConfig config() {
         return config;
     }
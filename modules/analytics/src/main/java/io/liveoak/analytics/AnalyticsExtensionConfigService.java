@@ -28,7 +28,7 @@ public class AnalyticsExtensionConfigService implements Service<AnalyticsExtensi
 
     @Override
     public void start(StartContext context) throws StartException {
-        rootResource = new AnalyticsExtensionConfigResource(id);
+        rootResource = new AnalyticsExtensionConfigResource(id, analyticsServiceInjector().getValue());
         analyticsServiceInjector().getValue().globalConfig(rootResource.config());
     }
 
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.analytics;
+
+import java.util.Map;
+
+import io.liveoak.container.analytics.AnalyticsService;
+import io.liveoak.spi.RequestContext;
+import io.liveoak.spi.resource.SynchronousResource;
+import io.liveoak.spi.resource.async.Resource;
+
+/**
+ * Counters of the analytics event pipeline: events accepted and rejected by the queue, rolled up,
+ * sent, spilled to disk, replayed and dropped.
+ */
+public class AnalyticsPipelineResource implements SynchronousResource {
+
+    public static final String ID = "pipeline";
+
+    private final Resource parent;
+    private final AnalyticsService analyticsService;
+
+    public AnalyticsPipelineResource(Resource parent, AnalyticsService analyticsService) {
+        this.parent = parent;
+        this.analyticsService = analyticsService;
+    }
+
+    @Override
+    public Resource parent() {
+        return parent;
+    }
+
+    @Override
+    public String id() {
+        return ID;
+    }
+
+    @Override
+    public Map<String, ?> properties(RequestContext ctx) throws Exception {
+        return analyticsService.stats();
+    }
+}
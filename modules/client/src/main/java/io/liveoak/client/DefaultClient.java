@@ -6,10 +6,15 @@
 package io.liveoak.client;
 
 import java.net.SocketAddress;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
 import io.liveoak.common.DefaultResourceRequest;
@@ -24,12 +29,14 @@ import io.liveoak.spi.RequestType;
 import io.liveoak.spi.exceptions.ResourceAlreadyExistsException;
 import io.liveoak.spi.exceptions.ResourceException;
 import io.liveoak.spi.exceptions.ResourceNotFoundException;
+import io.liveoak.spi.exceptions.ServiceUnavailableException;
 import io.liveoak.spi.ResourcePath;
 import io.liveoak.spi.ResourceRequest;
 import io.liveoak.spi.exceptions.UpdateNotSupportedException;
 import io.liveoak.spi.client.Client;
 import io.liveoak.spi.client.ClientResourceResponse;
 import io.liveoak.spi.state.ResourceState;
+import io.netty.channel.ChannelPipeline;
 import org.jboss.logging.Logger;
 
 /**
@@ -38,18 +45,55 @@ import org.jboss.logging.Logger;
  */
 public class DefaultClient implements Client {
 
+    /**
+     * How the container is reached: <code>in-vm</code> (the default) or <code>local</code>.
+     */
+    public static final String MODE_PROPERTY = "liveoak.client.mode";
+    public static final String MODE_IN_VM = "in-vm";
+    public static final String MODE_LOCAL = "local";
+
+    /**
+     * Number of local channels, each on its own event loop. Defaults to the number of processors.
+     */
+    public static final String CHANNELS_PROPERTY = "liveoak.client.channels";
+
+    /**
+     * Most threads running callbacks at once. Beyond that, callbacks wait in a queue.
+     */
+    public static final String CALLBACK_THREADS_PROPERTY = "liveoak.client.callback-threads";
+
+    /**
+     * Most callbacks waiting for a thread. Beyond that, callbacks are answered as unavailable.
+     */
+    public static final String CALLBACK_QUEUE_SIZE_PROPERTY = "liveoak.client.callback-queue-size";
+
+    /**
+     * Milliseconds the synchronous calls wait for a response, or 0 to wait for as long as it takes.
+     */
+    public static final String TIMEOUT_PROPERTY = "liveoak.client.timeout";
+
+    public static final int DEFAULT_CALLBACK_THREADS = 64;
+    public static final int DEFAULT_CALLBACK_QUEUE_SIZE = 10000;
+    public static final long DEFAULT_TIMEOUT = 60000;
+
     public DefaultClient() {
+        this.timeout = Math.max(0, Long.getLong(TIMEOUT_PROPERTY, DEFAULT_TIMEOUT));
+    }
+
+    public static boolean inVM() {
+        return MODE_IN_VM.equalsIgnoreCase(System.getProperty(MODE_PROPERTY, MODE_IN_VM));
     }
 
     /**
      * Connect to local channel.
-     * Utilizes a cached thread pool for processing callbacks
+     * Utilizes a bounded thread pool for processing callbacks
      *
      * @param address
      * @throws Exception
      */
     public void connect(SocketAddress address) throws Exception {
-        connect(address, Executors.newCachedThreadPool());
+        this.ownedExecutor = callbackExecutor();
+        connect(address, this.ownedExecutor);
     }
 
     /**
@@ -62,12 +106,58 @@ public class DefaultClient implements Client {
      */
     public void connect(SocketAddress address, ExecutorService executor) throws Exception {
         log.debug("connect local client");
-        this.connection = new LocalConnection(this, executor);
+        int channels = Integer.getInteger(CHANNELS_PROPERTY, Runtime.getRuntime().availableProcessors());
+        this.connection = new LocalConnection(this, executor, Math.max(1, channels));
         this.connection.connect(address);
     }
 
+    /**
+     * Connect straight to the container's local pipeline, without a channel in between.
+     *
+     * @param pipelineInitializer Sets up the container's handlers on the pipeline.
+     * @throws Exception
+     */
+    public void connectInVM(Consumer<ChannelPipeline> pipelineInitializer) throws Exception {
+        this.ownedExecutor = callbackExecutor();
+        connectInVM(pipelineInitializer, this.ownedExecutor);
+    }
+
+    public void connectInVM(Consumer<ChannelPipeline> pipelineInitializer, ExecutorService executor) throws Exception {
+        log.debug("connect in-vm client");
+        this.connection = new InVMConnection(pipelineInitializer, executor);
+        this.connection.connect(null);
+    }
+
     public void close() {
         this.connection.close();
+        if (this.ownedExecutor != null) {
+            this.ownedExecutor.shutdown();
+        }
+    }
+
+    /**
+     * Bounded pool for callbacks, with a bounded queue. Callbacks never run on the thread delivering the
+     * response, which may be an event loop. When the queue is full, or the client is closed, the callback
+     * is refused and answered as unavailable by whoever delivered the response.
+     */
+    static ExecutorService callbackExecutor() {
+        int threads = Math.max(1, Integer.getInteger(CALLBACK_THREADS_PROPERTY, DEFAULT_CALLBACK_THREADS));
+        int queueSize = Math.max(1, Integer.getInteger(CALLBACK_QUEUE_SIZE_PROPERTY, DEFAULT_CALLBACK_QUEUE_SIZE));
+        AtomicInteger counter = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueSize), (r) -> {
+            Thread thread = new Thread(r, "liveoak-client-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, (r, e) -> {
+            if (e.isShutdown()) {
+                log.debug("Client closed, refusing a response callback");
+            } else {
+                log.error("All " + e.getMaximumPoolSize() + " client callback threads are busy and " + queueSize + " callbacks are queued, refusing a response callback");
+            }
+            throw new RejectedExecutionException("Client callbacks are saturated or closed");
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
     }
 
     /**
@@ -110,16 +200,7 @@ public class DefaultClient implements Client {
             }
         });
 
-        try {
-            ResourceState resourceState = future.get();
-            return resourceState;
-        } catch (ExecutionException e) {
-            e.getCause().fillInStackTrace();
-            if (e.getCause() instanceof ResourceException) {
-                throw (ResourceException) e.getCause();
-            }
-            throw e;
-        }
+        return await(future, path);
     }
 
     /**
@@ -159,18 +240,7 @@ public class DefaultClient implements Client {
             }
         });
 
-        try {
-            ResourceState resourceState = future.get();
-            return resourceState;
-        } catch (ExecutionException e) {
-            if (e.getCause() != null) {
-                e.getCause().fillInStackTrace();
-            }
-            if (e.getCause() instanceof ResourceException) {
-                throw (ResourceException) e.getCause();
-            }
-            throw e;
-        }
+        return await(future, path);
     }
 
     /**
@@ -223,16 +293,7 @@ public class DefaultClient implements Client {
             }
         });
 
-        try {
-            ResourceState resourceState = future.get();
-            return resourceState;
-        } catch (ExecutionException e) {
-            e.getCause().fillInStackTrace();
-            if (e.getCause() instanceof ResourceException) {
-                throw (ResourceException) e.getCause();
-            }
-            throw e;
-        }
+        return await(future, path);
     }
 
     /**
@@ -272,11 +333,21 @@ public class DefaultClient implements Client {
             }
         });
 
+        return await(future, path);
+    }
+
+    private ResourceState await(CompletableFuture<ResourceState> future, String path) throws Exception {
         try {
-            ResourceState resourceState = future.get();
-            return resourceState;
+            if (this.timeout == 0) {
+                return future.get();
+            }
+            return future.get(this.timeout, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new ServiceUnavailableException(path, "No response within " + this.timeout + "ms");
         } catch (ExecutionException e) {
-            e.getCause().fillInStackTrace();
+            if (e.getCause() != null) {
+                e.getCause().fillInStackTrace();
+            }
             if (e.getCause() instanceof ResourceException) {
                 throw (ResourceException) e.getCause();
             }
@@ -313,6 +384,9 @@ public class DefaultClient implements Client {
             case DELETE_NOT_SUPPORTED:
                 future.completeExceptionally(new DeleteNotSupportedException(response.path()));
                 break;
+            case SERVICE_UNAVAILABLE:
+                future.completeExceptionally(new ServiceUnavailableException(response.path(), response.state()));
+                break;
             case INTERNAL_ERROR:
                 future.completeExceptionally(new ResourceException(response.path(), "Internal error", response.state()));
                 break;
@@ -321,7 +395,9 @@ public class DefaultClient implements Client {
         }
     }
 
+    private final long timeout;
     private Connection connection;
+    private ExecutorService ownedExecutor;
 
     private static final Logger log = Logger.getLogger(DefaultClient.class);
 }
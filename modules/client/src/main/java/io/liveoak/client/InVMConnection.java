@@ -0,0 +1,62 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.client;
+
+import java.net.SocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+
+import io.liveoak.client.protocol.InVMResponseHandler;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.embedded.EmbeddedChannel;
+
+/**
+ * Connection which hands requests straight to the container's local pipeline, on the calling thread.
+ *
+ * <p>The pipeline is set up the same way as for a local channel, but lives on an {@link EmbeddedChannel},
+ * whose event loop counts every thread as its own. Requests and responses therefore travel through the
+ * handlers without being queued to an event loop. Only the response callbacks are handed to the executor,
+ * so a callback never runs inside the request that produced it.</p>
+ *
+ * <p>The handlers of the pipeline may run on several threads at once; the container's local handlers keep
+ * no per-channel state.</p>
+ */
+public class InVMConnection implements Connection {
+
+    public InVMConnection(Consumer<ChannelPipeline> pipelineInitializer, ExecutorService executor) {
+        this.pipelineInitializer = pipelineInitializer;
+        this.responseHandler = new InVMResponseHandler(executor);
+    }
+
+    /**
+     * Set up the pipeline. An in-VM connection has no use for the address.
+     */
+    @Override
+    public void connect(SocketAddress address) throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel(this.responseHandler);
+        // drop the handler which collects whatever reaches the end of an embedded pipeline
+        channel.pipeline().removeLast();
+        this.pipelineInitializer.accept(channel.pipeline());
+        this.channel = channel;
+    }
+
+    @Override
+    public void close() {
+        if (this.channel != null) {
+            this.channel.close();
+        }
+    }
+
+    @Override
+    public void write(ClientRequest request) {
+        this.responseHandler.register(request);
+        this.channel.pipeline().fireChannelRead(request.resourceRequest());
+    }
+
+    private final Consumer<ChannelPipeline> pipelineInitializer;
+    private final InVMResponseHandler responseHandler;
+    private EmbeddedChannel channel;
+}
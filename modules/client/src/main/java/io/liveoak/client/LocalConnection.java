@@ -2,6 +2,7 @@ package io.liveoak.client;
 
 import java.net.SocketAddress;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import io.liveoak.client.protocol.LocalResponseHandler;
 import io.netty.bootstrap.Bootstrap;
@@ -14,15 +15,23 @@ import io.netty.channel.local.LocalChannel;
 import io.netty.channel.nio.NioEventLoopGroup;
 
 /**
+ * Connection over a pool of local channels, one per event loop, so concurrent requests are not
+ * serialized through a single channel.
+ *
  * @author Bob McWhirter
  * @author Ken Finnigan
  */
 public class LocalConnection implements Connection {
 
     public LocalConnection(DefaultClient client, ExecutorService executor) {
+        this(client, executor, 1);
+    }
+
+    public LocalConnection(DefaultClient client, ExecutorService executor, int channels) {
         this.client = client;
-        this.group = new NioEventLoopGroup();
+        this.group = new NioEventLoopGroup(channels);
         this.executor = executor;
+        this.channels = new Channel[channels];
     }
 
     @Override
@@ -32,10 +41,12 @@ public class LocalConnection implements Connection {
                 .group(this.group)
                 .handler(createHandler());
 
-        ChannelFuture future = bootstrap.connect(address);
-        future.sync();
-
-        this.channel = future.channel();
+        // each connect() registers with the next event loop of the group
+        for (int i = 0; i < this.channels.length; ++i) {
+            ChannelFuture future = bootstrap.connect(address);
+            future.sync();
+            this.channels[i] = future.channel();
+        }
     }
 
     @Override
@@ -45,7 +56,17 @@ public class LocalConnection implements Connection {
 
     @Override
     public void write(ClientRequest request) {
-        this.channel.writeAndFlush(request);
+        channel().writeAndFlush(request);
+    }
+
+    protected Channel channel() {
+        // a request made from one of our own event loops stays on it
+        for (Channel channel : this.channels) {
+            if (channel.eventLoop().inEventLoop()) {
+                return channel;
+            }
+        }
+        return this.channels[(this.next.getAndIncrement() & Integer.MAX_VALUE) % this.channels.length];
     }
 
     protected ChannelHandler createHandler() {
@@ -59,6 +80,7 @@ public class LocalConnection implements Connection {
 
     private DefaultClient client;
     private EventLoopGroup group;
-    private Channel channel;
+    private final Channel[] channels;
+    private final AtomicInteger next = new AtomicInteger();
     private ExecutorService executor;
 }
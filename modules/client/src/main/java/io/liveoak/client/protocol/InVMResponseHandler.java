@@ -0,0 +1,58 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.client.protocol;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+
+import io.liveoak.client.ClientRequest;
+import io.liveoak.client.impl.ClientResourceResponseImpl;
+import io.liveoak.spi.client.ClientResourceResponse;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.util.ReferenceCountUtil;
+
+/**
+ * Head of an in-VM pipeline: completes responses as they are written, instead of passing them to a channel.
+ */
+@ChannelHandler.Sharable
+public class InVMResponseHandler extends ChannelDuplexHandler {
+
+    public InVMResponseHandler(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    public void register(ClientRequest request) {
+        this.handlers.put(request.resourceRequest().requestId(), request.handler());
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        if (msg instanceof ClientResourceResponseImpl) {
+            promise.setSuccess();
+            Consumer<ClientResourceResponse> handler = this.handlers.remove(((ClientResourceResponseImpl) msg).inReplyTo().requestId());
+            if (handler != null) {
+                ResponseCallbacks.deliver(this.executor, handler, (ClientResourceResponseImpl) msg);
+            }
+        } else {
+            ReferenceCountUtil.release(msg);
+            promise.setFailure(new UnsupportedOperationException("Cannot write " + msg.getClass().getName() + " to an in-VM connection"));
+        }
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) throws Exception {
+        // nothing ever reaches the channel
+    }
+
+    private final Map<UUID, Consumer<ClientResourceResponse>> handlers = new ConcurrentHashMap<>();
+    private final ExecutorService executor;
+}
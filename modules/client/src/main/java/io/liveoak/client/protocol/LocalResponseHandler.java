@@ -42,7 +42,7 @@ public class LocalResponseHandler extends ChannelDuplexHandler {
             ResourceRequest inReplyTo = ((ClientResourceResponseImpl) msg).inReplyTo();
             Consumer<ClientResourceResponse> handler = this.handlers.remove(inReplyTo.requestId());
             if (handler != null) {
-                this.executor.execute(() -> handler.accept((ClientResourceResponse) msg));
+                ResponseCallbacks.deliver(this.executor, handler, (ClientResourceResponseImpl) msg);
             }
         } else {
             super.channelRead(ctx, msg);
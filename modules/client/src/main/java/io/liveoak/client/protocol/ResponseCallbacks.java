@@ -0,0 +1,35 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.client.protocol;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+import io.liveoak.client.impl.ClientResourceResponseImpl;
+import io.liveoak.spi.client.ClientResourceResponse;
+
+/**
+ * Hands responses to their callbacks on the client's executor.
+ */
+final class ResponseCallbacks {
+
+    private ResponseCallbacks() {
+    }
+
+    /**
+     * Run the callback on the executor. If the executor refuses it, because it is saturated or shut down, the
+     * callback is answered with {@link ClientResourceResponse.ResponseType#SERVICE_UNAVAILABLE} on the calling
+     * thread instead, so that nobody waits for a response which never comes.
+     */
+    static void deliver(Executor executor, Consumer<ClientResourceResponse> handler, ClientResourceResponseImpl response) {
+        try {
+            executor.execute(() -> handler.accept(response));
+        } catch (RejectedExecutionException e) {
+            handler.accept(new ClientResourceResponseImpl(response.inReplyTo(), ClientResourceResponse.ResponseType.SERVICE_UNAVAILABLE, response.path(), null));
+        }
+    }
+}
@@ -65,6 +65,18 @@ public class DefaultResourceResponse implements ResourceResponse {
         return this.resource;
     }
 
+    /**
+     * Mark this response to be encoded directly from its resource by the protocol
+     * encoder, instead of materializing its state first.
+     */
+    public void streaming(boolean streaming) {
+        this.streaming = streaming;
+    }
+
+    public boolean streaming() {
+        return this.streaming;
+    }
+
     public String toString() {
         return "[DefaultResourceResponse: type=" + this.responseType + "; object=" + this.resource + "]";
     }
@@ -73,4 +85,5 @@ public class DefaultResourceResponse implements ResourceResponse {
     private ResponseType responseType;
     private ResourceState state;
     private Resource resource;
+    private boolean streaming;
 }
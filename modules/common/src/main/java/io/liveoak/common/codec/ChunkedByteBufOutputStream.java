@@ -0,0 +1,108 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.common.codec;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.function.Consumer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+
+/**
+ * An output stream which writes into fixed-size buffers taken from an allocator,
+ * handing each buffer off to a consumer as soon as it is full.
+ *
+ * <p>Ownership of every emitted buffer passes to the consumer. The last, partially
+ * filled buffer is never emitted automatically; it is retrieved through {@link #remainder()}
+ * once writing is done, so that the caller can decide how to terminate the stream.</p>
+ */
+public class ChunkedByteBufOutputStream extends OutputStream {
+
+    public ChunkedByteBufOutputStream(ByteBufAllocator allocator, int chunkSize, Consumer<ByteBuf> chunkConsumer) {
+        this.allocator = allocator;
+        this.chunkSize = chunkSize;
+        this.chunkConsumer = chunkConsumer;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        current().writeByte(b);
+        emitIfFull();
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            ByteBuf buf = current();
+            int count = Math.min(len, buf.writableBytes());
+            buf.writeBytes(b, off, count);
+            off += count;
+            len -= count;
+            emitIfFull();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.closed = true;
+    }
+
+    /**
+     * @return The number of chunks handed off to the consumer so far.
+     */
+    public int emittedChunks() {
+        return this.emittedChunks;
+    }
+
+    /**
+     * Take ownership of the trailing, partially filled buffer.
+     *
+     * @return The trailing buffer, or {@code null} if nothing is pending.
+     */
+    public ByteBuf remainder() {
+        ByteBuf remainder = this.buffer;
+        this.buffer = null;
+        return remainder;
+    }
+
+    /**
+     * Release any pending buffer without handing it off.
+     */
+    public void discard() {
+        if (this.buffer != null) {
+            this.buffer.release();
+            this.buffer = null;
+        }
+    }
+
+    private ByteBuf current() throws IOException {
+        if (this.closed) {
+            throw new IOException("Stream closed");
+        }
+        if (this.buffer == null) {
+            this.buffer = this.allocator.buffer(this.chunkSize, this.chunkSize);
+        }
+        return this.buffer;
+    }
+
+    private void emitIfFull() {
+        if (this.buffer.writableBytes() == 0) {
+            ByteBuf full = this.buffer;
+            this.buffer = null;
+            ++this.emittedChunks;
+            this.chunkConsumer.accept(full);
+        }
+    }
+
+    private final ByteBufAllocator allocator;
+    private final int chunkSize;
+    private final Consumer<ByteBuf> chunkConsumer;
+
+    private ByteBuf buffer;
+    private int emittedChunks;
+    private boolean closed;
+}
@@ -9,9 +9,16 @@ import io.liveoak.common.codec.driver.StateEncodingDriver;
 import io.liveoak.spi.RequestContext;
 import io.liveoak.spi.state.ResourceState;
 import io.netty.buffer.ByteBuf;
-import io.netty.buffer.Unpooled;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.UnpooledByteBufAllocator;
 
 /**
+ * Encodes and decodes resource state for a single media-type.
+ *
+ * <p>Encoders are recycled per thread; {@link StateEncoder#initialize(ByteBuf)} must fully
+ * reset an encoder for it to be reused. An encoder which fails is discarded rather than
+ * recycled.</p>
+ *
  * @author Bob McWhirter
  * @author <a href="http://community.jboss.org/people/kenfinni">Ken Finnigan</a>
  */
@@ -31,12 +38,33 @@ public class ResourceCodec {
     }
 
     public ByteBuf encode(RequestContext ctx, ResourceState resourceState) throws Exception {
-        ByteBuf buffer = Unpooled.buffer();
-        StateEncoder encoder = this.encoderClass.newInstance();
-        encoder.initialize(buffer);
-        StateEncodingDriver driver = new StateEncodingDriver(ctx, encoder, resourceState);
-        driver.encode();
-        driver.close();
+        return encode(UnpooledByteBufAllocator.DEFAULT, ctx, resourceState);
+    }
+
+    /**
+     * Encode into a buffer taken from the given allocator. The caller owns the returned buffer.
+     */
+    public ByteBuf encode(ByteBufAllocator allocator, RequestContext ctx, ResourceState resourceState) throws Exception {
+        StateEncoder encoder = this.idleEncoder.get();
+        if (encoder != null) {
+            // taken; a nested encode on this thread gets its own instance
+            this.idleEncoder.set(null);
+        } else {
+            encoder = this.encoderClass.newInstance();
+        }
+
+        ByteBuf buffer = allocator.buffer();
+        try {
+            encoder.initialize(buffer);
+            StateEncodingDriver driver = new StateEncodingDriver(ctx, encoder, resourceState);
+            driver.encode();
+            driver.close();
+        } catch (Throwable t) {
+            buffer.release();
+            throw t;
+        }
+
+        this.idleEncoder.set(encoder);
         return buffer;
     }
 
@@ -46,5 +74,6 @@ public class ResourceCodec {
 
     private final Class<? extends StateEncoder> encoderClass;
     private final ResourceDecoder decoder;
+    private final ThreadLocal<StateEncoder> idleEncoder = new ThreadLocal<>();
 
 }
@@ -21,7 +21,9 @@ import io.liveoak.spi.resource.async.BinaryResource;
 import io.liveoak.spi.resource.async.Resource;
 import io.liveoak.spi.state.ResourceState;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
 import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
 import org.jboss.logging.Logger;
 
 /**
@@ -50,6 +52,10 @@ public class ResourceCodecManager {
     }
 
     public EncodingResult encode(RequestContext ctx, MediaTypeMatcher mediaTypeMatcher, ResourceResponse response) throws Exception {
+        return encode(UnpooledByteBufAllocator.DEFAULT, ctx, mediaTypeMatcher, response);
+    }
+
+    public EncodingResult encode(ByteBufAllocator allocator, RequestContext ctx, MediaTypeMatcher mediaTypeMatcher, ResourceResponse response) throws Exception {
         Resource resource = response.resource();
         if (resource instanceof BinaryResource) {
             MediaType match = mediaTypeMatcher.findBestMatch(Collections.singletonList(((BinaryResource) resource).mediaType()));
@@ -82,7 +88,7 @@ public class ResourceCodecManager {
             throw new UnsupportedMediaTypeException(mediaTypeMatcher);
         }
 
-        return new EncodingResult(bestMatch, codec.encode(ctx, response.state()));
+        return new EncodingResult(bestMatch, codec.encode(allocator, ctx, response.state()));
     }
 
     public List<MediaType> mediaTypes() {
@@ -1,5 +1,6 @@
 package io.liveoak.common.codec;
 
+import io.liveoak.spi.ReturnFields;
 import io.liveoak.spi.resource.async.Resource;
 
 /**
@@ -7,4 +8,15 @@ import io.liveoak.spi.resource.async.Resource;
  */
 public interface ResourceEncoder extends Encoder<Resource> {
 
+    /**
+     * Start a resource, with the return fields in effect for it.
+     *
+     * <p>Encoders which produce an intermediate state may ignore the return fields, since
+     * explicit exclusions are applied when that state is encoded. Encoders writing final
+     * output directly must honour them.</p>
+     */
+    default void startResource(Resource resource, ReturnFields returnFields) throws Exception {
+        startResource(resource);
+    }
+
 }
@@ -5,6 +5,7 @@
  */
 package io.liveoak.common.codec.driver;
 
+import java.util.ArrayDeque;
 import java.util.function.BiFunction;
 
 import io.liveoak.spi.LiveOak;
@@ -15,6 +16,10 @@ import io.liveoak.spi.resource.async.ResourceSink;
 import org.jboss.logging.Logger;
 
 /**
+ * Encodes members as the resource hands them to the sink, rather than once it completes, so a
+ * resource which streams its members is never held in memory as a whole. Members accepted while
+ * the previous one is still being encoded wait their turn.
+ *
  * @author Bob McWhirter
  */
 public class MembersEncodingDriver extends ResourceEncodingDriver {
@@ -31,10 +36,47 @@ public class MembersEncodingDriver extends ResourceEncodingDriver {
         if (requestContext().returnFields().included(LiveOak.MEMBERS) && requestContext().pagination().limit() > 0) {
             resource().readMembers(requestContext(), new MyResourceSink());
         } else {
+            completed = true;
             encodeNext();
         }
     }
 
+    @Override
+    public void encodeNext() throws Exception {
+        EncodingDriver next;
+        synchronized (this) {
+            next = pending.pollFirst();
+            if (next == null) {
+                encoding = false;
+                if (!completed) {
+                    // more members may still be coming
+                    return;
+                }
+            }
+        }
+        if (next != null) {
+            next.encode();
+        } else {
+            close();
+        }
+    }
+
+    private void member(EncodingDriver driver) {
+        synchronized (this) {
+            if (encoding) {
+                pending.add(driver);
+                return;
+            }
+            encoding = true;
+        }
+        try {
+            driver.encode();
+        } catch (Exception e) {
+            log.error("Encoder exception: ", e);
+            failed = e;
+        }
+    }
+
     @Override
     public void close() throws Exception {
         if (hasMembers) {
@@ -47,7 +89,7 @@ public class MembersEncodingDriver extends ResourceEncodingDriver {
 
         @Override
         public void accept(Resource resource) {
-            if (!returnFields().included(LiveOak.MEMBERS)) {
+            if (!returnFields().included(LiveOak.MEMBERS) || failed != null) {
                 return;
             }
             if (!hasMembers) {
@@ -62,11 +104,11 @@ public class MembersEncodingDriver extends ResourceEncodingDriver {
                 hasMembers = true;
             }
             if (resource instanceof StatusResource) {
-                addChildDriver(new ResourceEncodingDriver(MembersEncodingDriver.this, resource, ReturnFields.ALL, replaceConfigFunction()));
+                member(new ResourceEncodingDriver(MembersEncodingDriver.this, resource, ReturnFields.ALL, replaceConfigFunction()));
             } else if (returnFields().child(LiveOak.MEMBERS).isEmpty()) {
-                addChildDriver(new ValueEncodingDriver(MembersEncodingDriver.this, resource));
+                member(new ValueEncodingDriver(MembersEncodingDriver.this, resource));
             } else {
-                addChildDriver(new ResourceEncodingDriver(MembersEncodingDriver.this, resource, returnFields().child(LiveOak.MEMBERS), replaceConfigFunction()));
+                member(new ResourceEncodingDriver(MembersEncodingDriver.this, resource, returnFields().child(LiveOak.MEMBERS), replaceConfigFunction()));
             }
         }
 
@@ -77,8 +119,17 @@ public class MembersEncodingDriver extends ResourceEncodingDriver {
 
         @Override
         public void complete() {
+            if (error == null) {
+                error = failed;
+            }
             try {
-                if (error == null) {
+                boolean idle;
+                synchronized (MembersEncodingDriver.this) {
+                    completed = true;
+                    idle = !encoding;
+                }
+                // otherwise the member being encoded closes this driver when done
+                if (error == null && idle) {
                     encodeNext();
                 }
             } catch (Exception e) {
@@ -100,6 +151,10 @@ public class MembersEncodingDriver extends ResourceEncodingDriver {
     }
 
     private boolean hasMembers;
+    private final ArrayDeque<EncodingDriver> pending = new ArrayDeque<>();
+    private boolean encoding;
+    private boolean completed;
+    private volatile Throwable failed;
 
     private static final Logger log = Logger.getLogger(MembersEncodingDriver.class);
 }
@@ -7,6 +7,8 @@ package io.liveoak.common.codec.driver;
 
 import java.util.function.BiFunction;
 
+import io.liveoak.common.codec.Encoder;
+import io.liveoak.common.codec.ResourceEncoder;
 import io.liveoak.spi.ReturnFields;
 import io.liveoak.spi.resource.async.Resource;
 
@@ -29,12 +31,21 @@ public class ResourceEncodingDriver extends AbstractEncodingDriver {
 
     @Override
     public void encode() throws Exception {
-        encoder().startResource(resource());
+        startResource();
         addChildDriver(new PropertiesEncodingDriver(this, resource(), returnFields(), replaceConfigFunction()));
         addChildDriver(new MembersEncodingDriver(this, resource(), returnFields(), replaceConfigFunction()));
         encodeNext();
     }
 
+    protected void startResource() throws Exception {
+        Encoder encoder = encoder();
+        if (encoder instanceof ResourceEncoder) {
+            ((ResourceEncoder) encoder).startResource(resource(), returnFields());
+        } else {
+            encoder.startResource(resource());
+        }
+    }
+
     @Override
     public void close() throws Exception {
         encoder().endResource(resource());
@@ -25,9 +25,7 @@ public class HTMLEncoder implements StateEncoder {
 
     @Override
     public void initialize(ByteBuf buffer) throws Exception {
-        XMLOutputFactory factory = XMLOutputFactory.newInstance();
-        this.writer = factory.createXMLEventWriter(new ByteBufOutputStream(buffer));
-        this.eventFactory = XMLEventFactory.newFactory();
+        this.writer = OUTPUT_FACTORY.createXMLEventWriter(new ByteBufOutputStream(buffer));
 
         startTag("html");
         startTag("head");
@@ -60,6 +58,7 @@ public class HTMLEncoder implements StateEncoder {
         endTag("html");
         this.writer.flush();
         this.writer.close();
+        this.writer = null;
     }
 
     protected void text(String text) throws XMLStreamException {
@@ -289,6 +288,9 @@ public class HTMLEncoder implements StateEncoder {
                 "}\n";
     }
 
+    // looked up once; factory discovery is far more expensive than the encoding itself
+    private static final XMLOutputFactory OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+
     private XMLEventWriter writer;
-    private XMLEventFactory eventFactory;
+    private final XMLEventFactory eventFactory = XMLEventFactory.newFactory();
 }
@@ -38,20 +38,25 @@ public class JSONDecoder implements ResourceDecoder {
 
     @Override
     public ResourceState decode(ByteBuf resource) throws IOException {
-        return decode(() -> factory().createParser(new ByteBufInputStream(resource)));
+        return decode(() -> FACTORY.createParser(new ByteBufInputStream(resource)));
     }
 
     public ResourceState decode(File resource) throws IOException {
-        return decode(() -> factory().configure(JsonParser.Feature.ALLOW_COMMENTS, true).createParser(resource));
+        return decode(() -> FILE_FACTORY.createParser(resource));
     }
 
-    private JsonFactory factory() {
+    private static JsonFactory factory(boolean allowComments) {
         JsonFactory factory = new JsonFactory();
         factory.configure(JsonParser.Feature.ALLOW_SINGLE_QUOTES, true);
         factory.configure(JsonParser.Feature.ALLOW_UNQUOTED_FIELD_NAMES, true);
+        factory.configure(JsonParser.Feature.ALLOW_COMMENTS, allowComments);
         return factory;
     }
 
+    // factories are thread-safe once configured, so they are shared by all decoders
+    private static final JsonFactory FACTORY = factory(false);
+    private static final JsonFactory FILE_FACTORY = factory(true);
+
     private ResourceState decode(Callable<JsonParser> parserCallable) throws IOException {
         JsonParser parser;
         try {
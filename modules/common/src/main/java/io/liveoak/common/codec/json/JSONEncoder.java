@@ -34,16 +34,23 @@ public class JSONEncoder implements StateEncoder {
 
     @Override
     public void initialize(ByteBuf buffer) throws Exception {
-        JsonFactory factory = new JsonFactory();
-        ByteBufOutputStream out = new ByteBufOutputStream(buffer);
-        this.generator = factory.createGenerator(out);
-        this.generator.setPrettyPrinter(new DefaultPrettyPrinter("\\n"));
+        this.generator = createGenerator(buffer);
+    }
+
+    /**
+     * Create the generator writing into a buffer, from the shared factory.
+     */
+    protected JsonGenerator createGenerator(ByteBuf buffer) throws IOException {
+        JsonGenerator generator = FACTORY.createGenerator(new ByteBufOutputStream(buffer));
+        generator.setPrettyPrinter(this.prettyPrinter);
+        return generator;
     }
 
     @Override
     public void close() throws Exception {
         this.generator.flush();
         this.generator.close();
+        this.generator = null;
     }
 
     // ----------------------------------------
@@ -238,6 +245,10 @@ public class JSONEncoder implements StateEncoder {
         return sb.toString();
     }
 
+    /** Thread-safe once configured; shares Jackson's buffer recycling across encoders. */
+    static final JsonFactory FACTORY = new JsonFactory();
+
     private boolean inhibitIds = false;
+    private final DefaultPrettyPrinter prettyPrinter = new DefaultPrettyPrinter("\\n");
     private JsonGenerator generator;
 }
@@ -0,0 +1,246 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.common.codec.json;
+
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
+import io.liveoak.common.codec.NonEncodableValueException;
+import io.liveoak.common.codec.ResourceEncoder;
+import io.liveoak.spi.LiveOak;
+import io.liveoak.spi.ReturnFields;
+import io.liveoak.spi.resource.async.Resource;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufOutputStream;
+
+/**
+ * Encodes resources straight to JSON as the encoding driver walks them,
+ * without building an intermediate {@link io.liveoak.spi.state.ResourceState} tree.
+ *
+ * <p>The output matches what {@link JSONEncoder} produces for the state
+ * that {@link io.liveoak.common.codec.state.ResourceStateEncoder} would have built
+ * from the same resources.</p>
+ */
+public class JSONResourceEncoder implements ResourceEncoder {
+
+    public JSONResourceEncoder() {
+    }
+
+    @Override
+    public void initialize(ByteBuf buffer) throws Exception {
+        initialize(new ByteBufOutputStream(buffer));
+    }
+
+    public void initialize(OutputStream out) throws Exception {
+        this.generator = JSONEncoder.FACTORY.createGenerator(out);
+        this.generator.setPrettyPrinter(new DefaultPrettyPrinter("\\n"));
+    }
+
+    @Override
+    public void close() throws Exception {
+        this.generator.flush();
+        this.generator.close();
+    }
+
+    // ----------------------------------------
+
+    @Override
+    public void startResource(Resource resource) throws Exception {
+        startResource(resource, ReturnFields.ALL);
+    }
+
+    @Override
+    public void startResource(Resource resource, ReturnFields returnFields) throws Exception {
+        this.generator.writeStartObject();
+
+        String id = resource.id();
+        URI uri = resource.uri();
+        if (id != null && uri == null) {
+            throw new IllegalStateException("Resource has id() but not uri(): " + id);
+        }
+
+        if (returnFields != null && returnFields.excluded(LiveOak.ID)) {
+            id = null;
+        }
+        if (returnFields != null && returnFields.excluded(LiveOak.SELF)) {
+            uri = null;
+        }
+
+        if (id != null) {
+            this.generator.writeFieldName(LiveOak.ID);
+            this.generator.writeString(id);
+        }
+        if (uri != null) {
+            writeSelf(uri);
+        }
+    }
+
+    @Override
+    public void endResource(Resource resource) throws Exception {
+        this.generator.writeEndObject();
+    }
+
+    @Override
+    public void startProperties() throws Exception {
+        // not needed
+    }
+
+    @Override
+    public void endProperties() throws Exception {
+        // not needed
+    }
+
+    // ----------------------------------------
+
+    @Override
+    public void startProperty(String propertyName) throws Exception {
+        this.generator.writeFieldName(propertyName);
+        this.depth.push(Context.PROPERTY);
+    }
+
+    @Override
+    public void endProperty(String propertyName) throws Exception {
+        this.depth.pop();
+    }
+
+    // ----------------------------------------
+
+    @Override
+    public void startList() throws Exception {
+        this.generator.writeStartArray();
+        this.depth.push(Context.LIST);
+    }
+
+    @Override
+    public void endList() throws Exception {
+        this.depth.pop();
+        this.generator.writeEndArray();
+    }
+
+    // ----------------------------------------
+
+    @Override
+    public void startMembers() throws Exception {
+        this.generator.writeFieldName(LiveOak.MEMBERS);
+        this.generator.writeStartArray();
+        this.depth.push(Context.MEMBERS);
+    }
+
+    @Override
+    public void endMembers() throws Exception {
+        this.depth.pop();
+        this.generator.writeEndArray();
+    }
+
+    // ----------------------------------------
+
+    @Override
+    public void writeValue(String value) throws Exception {
+        this.generator.writeString(value);
+    }
+
+    @Override
+    public void writeValue(Integer value) throws Exception {
+        this.generator.writeNumber(value);
+    }
+
+    @Override
+    public void writeValue(Double value) throws Exception {
+        this.generator.writeNumber(value);
+    }
+
+    @Override
+    public void writeValue(Long value) throws Exception {
+        this.generator.writeNumber(value);
+    }
+
+    @Override
+    public void writeValue(Boolean value) throws Exception {
+        this.generator.writeBoolean(value);
+    }
+
+    @Override
+    public void writeValue(Date value) throws Exception {
+        this.generator.writeNumber(value.getTime());
+    }
+
+    @Override
+    public void writeNullValue() throws Exception {
+        this.generator.writeNull();
+    }
+
+    @Override
+    public void writeValue(Map value) throws Exception {
+        this.generator.writeStartObject();
+        for (Object key : value.keySet()) {
+            this.generator.writeFieldName(key.toString());
+            writeObject(value.get(key));
+        }
+        this.generator.writeEndObject();
+    }
+
+    @Override
+    public void writeLink(Resource resource) throws Exception {
+        // Members are linked by id and uri, while properties and list elements
+        // are plain references carrying only the uri.
+        this.generator.writeStartObject();
+        if (this.depth.peek() == Context.MEMBERS && resource.id() != null) {
+            this.generator.writeFieldName(LiveOak.ID);
+            this.generator.writeString(resource.id());
+        }
+        if (resource.uri() != null) {
+            writeSelf(resource.uri());
+        }
+        this.generator.writeEndObject();
+    }
+
+    protected void writeObject(Object value) throws Exception {
+        if (value instanceof String) {
+            writeValue((String) value);
+        } else if (value instanceof Integer) {
+            writeValue((Integer) value);
+        } else if (value instanceof Double) {
+            writeValue((Double) value);
+        } else if (value instanceof Long) {
+            writeValue((Long) value);
+        } else if (value instanceof Boolean) {
+            writeValue((Boolean) value);
+        } else if (value instanceof Collection) {
+            this.generator.writeStartArray();
+            for (Object each : (Collection) value) {
+                writeObject(each);
+            }
+            this.generator.writeEndArray();
+        } else if (value == null) {
+            writeNullValue();
+        } else {
+            throw new NonEncodableValueException(value);
+        }
+    }
+
+    private void writeSelf(URI uri) throws Exception {
+        this.generator.writeFieldName(LiveOak.SELF);
+        this.generator.writeStartObject();
+        this.generator.writeFieldName(LiveOak.HREF);
+        this.generator.writeString(uri.toString());
+        this.generator.writeEndObject();
+    }
+
+    private enum Context {
+        PROPERTY,
+        LIST,
+        MEMBERS
+    }
+
+    private final ArrayDeque<Context> depth = new ArrayDeque<>();
+    private JsonGenerator generator;
+}
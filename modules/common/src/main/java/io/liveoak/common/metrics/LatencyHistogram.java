@@ -0,0 +1,127 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.common.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with log-linear buckets, in microseconds.
+ *
+ * <p>Values below 32 have a bucket each. Above that, every power of two is split in 32 buckets, so a
+ * reported value is at most about 3% above the recorded one. Values over roughly 19 hours are counted
+ * in the last bucket. Recording is a few atomic increments and never allocates.</p>
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int MAX_EXPONENT = 36;
+
+    static final long MAX_VALUE = (1L << MAX_EXPONENT) - 1;
+    static final int BUCKETS = index(MAX_VALUE) + 1;
+
+    public void record(long micros) {
+        long value = Math.min(Math.max(micros, 0), MAX_VALUE);
+        this.counts.incrementAndGet(index(value));
+        this.count.increment();
+        this.sum.add(value);
+        this.max.accumulate(value);
+    }
+
+    public long count() {
+        return this.count.sum();
+    }
+
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; ++i) {
+            counts[i] = this.counts.get(i);
+            total += counts[i];
+        }
+        return new Snapshot(counts, total, this.sum.sum(), this.max.get());
+    }
+
+    static int index(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        int sub = (int) (value >>> shift) - SUB_BUCKETS;
+        return SUB_BUCKETS + shift * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * The largest value counted in the bucket.
+     */
+    static long upperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+        int sub = (index - SUB_BUCKETS) % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + sub + 1) << shift) - 1;
+    }
+
+    /**
+     * Consistent enough view of the histogram at one point in time.
+     */
+    public static class Snapshot {
+
+        Snapshot(long[] counts, long count, long sum, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        public long count() {
+            return this.count;
+        }
+
+        public long sum() {
+            return this.sum;
+        }
+
+        public long max() {
+            return this.max;
+        }
+
+        public double mean() {
+            return this.count == 0 ? 0 : (double) this.sum / this.count;
+        }
+
+        /**
+         * The value below which the given fraction of the recorded values fall, or 0 if nothing was recorded.
+         */
+        public long percentile(double fraction) {
+            if (this.count == 0) {
+                return 0;
+            }
+            long target = Math.max(1, (long) Math.ceil(fraction * this.count));
+            long seen = 0;
+            for (int i = 0; i < this.counts.length; ++i) {
+                seen += this.counts[i];
+                if (seen >= target) {
+                    return Math.min(upperBound(i), this.max);
+                }
+            }
+            return this.max;
+        }
+
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+    }
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Long::max, 0);
+}
@@ -0,0 +1,248 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.common.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.liveoak.spi.RequestType;
+import io.liveoak.spi.ResourcePath;
+
+/**
+ * Request latency, error and in-flight counts per interceptor chain, path prefix and request type.
+ *
+ * <p>A request is accounted to the prefix of its path made of the first
+ * <code>liveoak.metrics.path-depth</code> segments (2 by default, the application and the resource
+ * below it). At most <code>liveoak.metrics.max-paths</code> prefixes are tracked; once there are that
+ * many, a request to a new prefix is accounted to its longest tracked ancestor. Looking up the series
+ * of a known prefix does not allocate.</p>
+ */
+public class RequestMetrics {
+
+    public static final String PATH_DEPTH_PROPERTY = "liveoak.metrics.path-depth";
+    public static final String MAX_PATHS_PROPERTY = "liveoak.metrics.max-paths";
+
+    public static final int DEFAULT_PATH_DEPTH = 2;
+    public static final int DEFAULT_MAX_PATHS = 1000;
+
+    private static final RequestMetrics INSTANCE = new RequestMetrics(Integer.getInteger(PATH_DEPTH_PROPERTY, DEFAULT_PATH_DEPTH),
+            Integer.getInteger(MAX_PATHS_PROPERTY, DEFAULT_MAX_PATHS));
+
+    /**
+     * The metrics shared by every interceptor chain, and exposed at <code>/admin/system/metrics</code>.
+     */
+    public static RequestMetrics instance() {
+        return INSTANCE;
+    }
+
+    public RequestMetrics(int pathDepth, int maxPaths) {
+        this.pathDepth = pathDepth;
+        this.maxPaths = maxPaths;
+    }
+
+    public Series series(String chain, ResourcePath resourcePath, RequestType type) {
+        Node node = this.chains.get(chain);
+        if (node == null) {
+            node = this.chains.computeIfAbsent(chain, (name) -> new Node(name, "/"));
+        }
+
+        List<ResourcePath.Segment> segments = resourcePath.segments();
+        int depth = Math.min(segments.size(), this.pathDepth);
+        for (int i = 0; i < depth; ++i) {
+            String name = segments.get(i).name();
+            Node child = node.children.get(name);
+            if (child == null) {
+                child = addChild(node, name);
+                if (child == null) {
+                    break;
+                }
+            }
+            node = child;
+        }
+        return node.series(type);
+    }
+
+    private Node addChild(Node parent, String name) {
+        if (this.paths.get() >= this.maxPaths) {
+            return null;
+        }
+        return parent.children.computeIfAbsent(name, (n) -> {
+            this.paths.incrementAndGet();
+            return new Node(parent.chain, parent.path.equals("/") ? "/" + n : parent.path + "/" + n);
+        });
+    }
+
+    /**
+     * Every series which has seen a request, ordered by chain and path.
+     */
+    public List<Series> series() {
+        List<Series> result = new ArrayList<>();
+        this.chains.values().forEach((node) -> node.collect(result));
+        result.sort((a, b) -> {
+            int c = a.chain().compareTo(b.chain());
+            if (c == 0) {
+                c = a.path().compareTo(b.path());
+            }
+            return c != 0 ? c : a.type().compareTo(b.type());
+        });
+        return result;
+    }
+
+    /**
+     * All series in the Prometheus text exposition format. Latencies are summaries, in seconds.
+     */
+    public String toPrometheus() {
+        StringBuilder out = new StringBuilder();
+        List<Series> all = series();
+        List<LatencyHistogram.Snapshot> snapshots = new ArrayList<>(all.size());
+        for (Series series : all) {
+            snapshots.add(series.latency().snapshot());
+        }
+
+        out.append("# HELP liveoak_request_duration_seconds Time from a request entering an interceptor chain until its response is disposed.\n");
+        out.append("# TYPE liveoak_request_duration_seconds summary\n");
+        for (int i = 0; i < all.size(); ++i) {
+            Series series = all.get(i);
+            LatencyHistogram.Snapshot snapshot = snapshots.get(i);
+            for (double quantile : QUANTILES) {
+                out.append("liveoak_request_duration_seconds{").append(series.labels()).append(",quantile=\"").append(quantile).append("\"} ")
+                        .append(seconds(snapshot.percentile(quantile))).append('\n');
+            }
+            out.append("liveoak_request_duration_seconds_sum{").append(series.labels()).append("} ").append(seconds(snapshot.sum())).append('\n');
+            out.append("liveoak_request_duration_seconds_count{").append(series.labels()).append("} ").append(snapshot.count()).append('\n');
+        }
+
+        out.append("# HELP liveoak_request_errors_total Requests answered with an error.\n");
+        out.append("# TYPE liveoak_request_errors_total counter\n");
+        for (Series series : all) {
+            out.append("liveoak_request_errors_total{").append(series.labels()).append("} ").append(series.errors()).append('\n');
+        }
+
+        out.append("# HELP liveoak_requests_in_flight Requests which entered an interceptor chain and were not answered yet.\n");
+        out.append("# TYPE liveoak_requests_in_flight gauge\n");
+        for (Series series : all) {
+            out.append("liveoak_requests_in_flight{").append(series.labels()).append("} ").append(series.inFlight()).append('\n');
+        }
+        return out.toString();
+    }
+
+    private static String seconds(long micros) {
+        return String.format(Locale.ROOT, "%.6f", micros / 1000000.0);
+    }
+
+    private static final double[] QUANTILES = {0.5, 0.99, 0.999};
+
+    public static class Series {
+
+        Series(String chain, String path, RequestType type) {
+            this.chain = chain;
+            this.path = path;
+            this.type = type;
+            this.labels = "chain=\"" + escape(chain) + "\",path=\"" + escape(path) + "\",type=\"" + type + "\"";
+        }
+
+        /**
+         * A request was accepted into the chain.
+         *
+         * @return the start time to pass to {@link #completed}
+         */
+        public long started() {
+            this.inFlight.increment();
+            return System.nanoTime();
+        }
+
+        public void completed(long startNanos, boolean error) {
+            this.inFlight.decrement();
+            this.latency.record((System.nanoTime() - startNanos) / 1000);
+            if (error) {
+                this.errors.increment();
+            }
+        }
+
+        public String chain() {
+            return this.chain;
+        }
+
+        public String path() {
+            return this.path;
+        }
+
+        public RequestType type() {
+            return this.type;
+        }
+
+        public long errors() {
+            return this.errors.sum();
+        }
+
+        public long inFlight() {
+            return this.inFlight.sum();
+        }
+
+        public LatencyHistogram latency() {
+            return this.latency;
+        }
+
+        String labels() {
+            return this.labels;
+        }
+
+        private static String escape(String value) {
+            return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+        }
+
+        private final String chain;
+        private final String path;
+        private final RequestType type;
+        private final String labels;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder inFlight = new LongAdder();
+    }
+
+    private static final class Node {
+
+        Node(String chain, String path) {
+            this.chain = chain;
+            this.path = path;
+        }
+
+        Series series(RequestType type) {
+            Series series = this.series.get(type.ordinal());
+            if (series == null) {
+                this.series.compareAndSet(type.ordinal(), null, new Series(this.chain, this.path, type));
+                series = this.series.get(type.ordinal());
+            }
+            return series;
+        }
+
+        void collect(List<Series> result) {
+            for (int i = 0; i < this.series.length(); ++i) {
+                Series series = this.series.get(i);
+                if (series != null) {
+                    result.add(series);
+                }
+            }
+            this.children.values().forEach((child) -> child.collect(result));
+        }
+
+        final String chain;
+        final String path;
+        final Map<String, Node> children = new ConcurrentHashMap<>();
+        final AtomicReferenceArray<Series> series = new AtomicReferenceArray<>(RequestType.values().length);
+    }
+
+    private final int pathDepth;
+    private final int maxPaths;
+    private final AtomicInteger paths = new AtomicInteger();
+    private final Map<String, Node> chains = new ConcurrentHashMap<>();
+}
@@ -22,6 +22,16 @@ public class AuthzConstants {
     // Attribute where authzDecision of policy response will be saved
     public static final String ATTR_AUTHZ_POLICY_RESULT = "ATTR_AUTHZ_POLICY_RESULT";
 
+    // Bulk variants of the above, holding lists with one entry per resource to authorize
+    public static final String ATTR_REQUEST_CONTEXTS = "ATTR_REQUEST_CONTEXTS";
+    public static final String ATTR_REQUEST_RESOURCE_STATES = "ATTR_REQUEST_RESOURCE_STATES";
+    public static final String ATTR_RESPONSE_RESOURCE_STATES = "ATTR_RESPONSE_RESOURCE_STATES";
+    public static final String ATTR_AUTHZ_RESULTS = "ATTR_AUTHZ_RESULTS";
+    public static final String ATTR_AUTHZ_POLICY_RESULTS = "ATTR_AUTHZ_POLICY_RESULTS";
+
+    // Attribute where a policy states whether its decisions depend only on subject, roles, resource path and request type
+    public static final String ATTR_AUTHZ_POLICY_CACHEABLE = "ATTR_AUTHZ_POLICY_CACHEABLE";
+
     public static final String AUTHZ_CHECK_RESOURCE_ID = "authzCheck";
 
 }
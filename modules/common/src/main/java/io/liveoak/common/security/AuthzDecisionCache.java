@@ -0,0 +1,159 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.common.security;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.liveoak.spi.RequestContext;
+import io.liveoak.spi.RequestType;
+import io.liveoak.spi.security.SecurityContext;
+
+/**
+ * Short-lived cache of authorization decisions, keyed by subject, roles, resource path and request type.
+ *
+ * <p>Only decisions which depend on nothing else may be cached; policies say so through
+ * {@link AuthzConstants#ATTR_AUTHZ_POLICY_CACHEABLE}. Policies call {@link #invalidateAll()} whenever
+ * their configuration or data changes, which empties every cache.</p>
+ *
+ * <p>The time to live is read from the <code>liveoak.authz.cache-ttl-ms</code> system property, and
+ * defaults to 2 seconds. A value of 0 disables caching.</p>
+ */
+public class AuthzDecisionCache {
+
+    public static final String TTL_PROPERTY = "liveoak.authz.cache-ttl-ms";
+
+    public static final int DEFAULT_MAX_ENTRIES = 10000;
+
+    public AuthzDecisionCache() {
+        this(Long.getLong(TTL_PROPERTY, 2000), DEFAULT_MAX_ENTRIES);
+    }
+
+    public AuthzDecisionCache(long ttlMillis, int maxEntries) {
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Discard the decisions of every cache, for example because a policy changed.
+     */
+    public static void invalidateAll() {
+        GENERATION.incrementAndGet();
+    }
+
+    public boolean isEnabled() {
+        return this.ttlNanos > 0;
+    }
+
+    /**
+     * @return cached decision, or null if there is none
+     */
+    public Boolean get(RequestContext ctx) {
+        if (!isEnabled()) {
+            return null;
+        }
+        Entry entry = this.entries.get(new Key(ctx));
+        if (entry == null) {
+            return null;
+        }
+        if (entry.generation != GENERATION.get() || System.nanoTime() - entry.expires > 0) {
+            this.entries.remove(entry.key, entry);
+            return null;
+        }
+        return entry.authorized;
+    }
+
+    public void put(RequestContext ctx, boolean authorized) {
+        if (!isEnabled()) {
+            return;
+        }
+        if (this.entries.size() >= this.maxEntries) {
+            // simplest bound there is; the entries are short-lived anyway
+            this.entries.clear();
+        }
+        Key key = new Key(ctx);
+        this.entries.put(key, new Entry(key, authorized, GENERATION.get(), System.nanoTime() + this.ttlNanos));
+    }
+
+    public void clear() {
+        this.entries.clear();
+    }
+
+    private static final class Key {
+
+        Key(RequestContext ctx) {
+            SecurityContext securityContext = ctx.securityContext();
+            if (securityContext != null) {
+                this.realm = securityContext.getRealm();
+                this.subject = securityContext.getSubject();
+                this.roles = securityContext.getRoles() == null ? Collections.emptySet() : new TreeSet<>(securityContext.getRoles());
+            } else {
+                this.realm = null;
+                this.subject = null;
+                this.roles = Collections.emptySet();
+            }
+            this.path = ctx.resourcePath() == null ? null : ctx.resourcePath().toString();
+            this.requestType = ctx.requestType();
+            this.hash = Objects.hash(this.realm, this.subject, this.roles, this.path, this.requestType);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key that = (Key) o;
+            return this.hash == that.hash
+                    && this.requestType == that.requestType
+                    && Objects.equals(this.path, that.path)
+                    && Objects.equals(this.subject, that.subject)
+                    && Objects.equals(this.realm, that.realm)
+                    && this.roles.equals(that.roles);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+
+        private final String realm;
+        private final String subject;
+        private final Set<String> roles;
+        private final String path;
+        private final RequestType requestType;
+        private final int hash;
+    }
+
+    private static final class Entry {
+
+        Entry(Key key, boolean authorized, long generation, long expires) {
+            this.key = key;
+            this.authorized = authorized;
+            this.generation = generation;
+            this.expires = expires;
+        }
+
+        final Key key;
+        final boolean authorized;
+        final long generation;
+        final long expires;
+    }
+
+    private static final AtomicLong GENERATION = new AtomicLong();
+
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+}
@@ -20,6 +20,21 @@ public final class SecurityHelper {
 
     public static void auth(Client client, DefaultSecurityContext securityContext, String applicationId, String token, Runnable success,
                             Runnable noSuchResource, Consumer<Object> notAuthorized, Consumer<Throwable> handleError) {
+        auth(client, TokenCache.instance(), securityContext, applicationId, token, success, noSuchResource, notAuthorized, handleError);
+    }
+
+    /**
+     * Fill the security context from the token, verified by the application's auth resource unless the cache already knows it.
+     */
+    public static void auth(Client client, TokenCache tokenCache, DefaultSecurityContext securityContext, String applicationId, String token,
+                            Runnable success, Runnable noSuchResource, Consumer<Object> notAuthorized, Consumer<Throwable> handleError) {
+
+        if (tokenCache.fill(applicationId, token, securityContext)) {
+            if (success != null) {
+                success.run();
+            }
+            return;
+        }
 
         final RequestContext tokenRequestContext = new RequestContext.Builder().build();
 
@@ -56,6 +71,9 @@ public final class SecurityHelper {
                         roles.addAll((Collection<? extends String>) state.getProperty("roles"));
                         securityContext.setRoles(roles);
 
+                        Date expiresAt = (Date) state.getProperty("expires-at");
+                        tokenCache.put(applicationId, token, securityContext, expiresAt != null ? expiresAt.getTime() : 0);
+
                         if (success != null) {
                             success.run();
                         }
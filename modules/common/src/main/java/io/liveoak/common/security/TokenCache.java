@@ -0,0 +1,209 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.common.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.liveoak.spi.security.UserProfile;
+
+/**
+ * Bounded cache of verified bearer tokens, so a token used for many requests is verified once.
+ *
+ * <p>Entries are keyed by application and a SHA-256 hash of the token, never by the token itself. An
+ * entry lives until the token expires, but no longer than <code>liveoak.auth.token-cache.max-ttl-ms</code>
+ * (5 minutes by default), so changes to a realm are picked up eventually. At most
+ * <code>liveoak.auth.token-cache.max-entries</code> tokens are kept, evicting the least recently used.
+ * A max-entries of 0 disables the cache. Only tokens which passed verification are cached.</p>
+ */
+public class TokenCache {
+
+    public static final String MAX_ENTRIES_PROPERTY = "liveoak.auth.token-cache.max-entries";
+    public static final String MAX_TTL_PROPERTY = "liveoak.auth.token-cache.max-ttl-ms";
+
+    public static final int DEFAULT_MAX_ENTRIES = 10000;
+    public static final long DEFAULT_MAX_TTL = 300000;
+
+    private static final TokenCache INSTANCE = new TokenCache(Integer.getInteger(MAX_ENTRIES_PROPERTY, DEFAULT_MAX_ENTRIES),
+            Long.getLong(MAX_TTL_PROPERTY, DEFAULT_MAX_TTL));
+
+    /**
+     * The cache shared by every entry point which authenticates bearer tokens.
+     */
+    public static TokenCache instance() {
+        return INSTANCE;
+    }
+
+    public TokenCache(int maxEntries, long maxTtlMillis) {
+        this.maxEntries = maxEntries;
+        this.maxTtlMillis = maxTtlMillis;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > TokenCache.this.maxEntries) {
+                    TokenCache.this.evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public boolean isEnabled() {
+        return this.maxEntries > 0;
+    }
+
+    /**
+     * Fill the security context from a cached token.
+     *
+     * @return true on a hit, false if the token has to be verified
+     */
+    public boolean fill(String applicationId, String token, DefaultSecurityContext securityContext) {
+        if (!isEnabled()) {
+            return false;
+        }
+
+        String key = key(applicationId, token);
+        Entry entry;
+        synchronized (this.entries) {
+            entry = this.entries.get(key);
+            if (entry != null && System.currentTimeMillis() >= entry.expires) {
+                this.entries.remove(key);
+                this.expirations.increment();
+                entry = null;
+            }
+        }
+
+        if (entry == null) {
+            this.misses.increment();
+            return false;
+        }
+        this.hits.increment();
+
+        securityContext.setOriginal(token);
+        securityContext.setRealm(entry.realm);
+        securityContext.setSubject(entry.subject);
+        securityContext.setLastVerified(entry.lastVerified);
+        securityContext.setUser(entry.user);
+        // Each context gets its own copy, as the roles are mutable through it
+        securityContext.setRoles(new HashSet<>(entry.roles));
+        return true;
+    }
+
+    /**
+     * Remember a verified token.
+     *
+     * @param expiresAt when the token expires, in milliseconds since the epoch, or 0 if it does not
+     */
+    public void put(String applicationId, String token, DefaultSecurityContext securityContext, long expiresAt) {
+        if (!isEnabled()) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        long expires = now + this.maxTtlMillis;
+        if (expiresAt > 0) {
+            expires = Math.min(expires, expiresAt);
+        }
+        if (expires <= now) {
+            return;
+        }
+
+        Entry entry = new Entry(securityContext, expires);
+        String key = key(applicationId, token);
+        synchronized (this.entries) {
+            this.entries.put(key, entry);
+        }
+    }
+
+    public void clear() {
+        synchronized (this.entries) {
+            this.entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (this.entries) {
+            return this.entries.size();
+        }
+    }
+
+    public long hits() {
+        return this.hits.sum();
+    }
+
+    public long misses() {
+        return this.misses.sum();
+    }
+
+    public long evictions() {
+        return this.evictions.sum();
+    }
+
+    public long expirations() {
+        return this.expirations.sum();
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("size", size());
+        result.put("max-entries", this.maxEntries);
+        result.put("hits", hits());
+        result.put("misses", misses());
+        result.put("evictions", evictions());
+        result.put("expirations", expirations());
+        return result;
+    }
+
+    static String key(String applicationId, String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(token.getBytes(StandardCharsets.UTF_8));
+            return applicationId + ":" + Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class Entry {
+
+        Entry(DefaultSecurityContext securityContext, long expires) {
+            this.realm = securityContext.getRealm();
+            this.subject = securityContext.getSubject();
+            this.lastVerified = securityContext.lastVerified();
+            this.user = securityContext.getUser();
+            Collection<String> roles = securityContext.getRoles();
+            this.roles = roles == null ? Collections.emptySet() : Collections.unmodifiableSet(new HashSet<>(roles));
+            this.expires = expires;
+        }
+
+        final String realm;
+        final String subject;
+        final long lastVerified;
+        final UserProfile user;
+        final Set<String> roles;
+        final long expires;
+    }
+
+    private final int maxEntries;
+    private final long maxTtlMillis;
+    private final LinkedHashMap<String, Entry> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+}
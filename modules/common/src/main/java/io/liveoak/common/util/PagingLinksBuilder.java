@@ -19,6 +19,8 @@ public class PagingLinksBuilder {
     private int count = -1;
     private int totalCount = -1;
     private URI uri;
+    private boolean keyset;
+    private String nextCursor;
 
     public PagingLinksBuilder(RequestContext ctx) {
         this.ctx = ctx;
@@ -39,6 +41,18 @@ public class PagingLinksBuilder {
         return this;
     }
 
+    /**
+     * Page by continuation token rather than by offset. Links carry a <code>cursor</code> parameter
+     * instead of <code>offset</code>, and there are no prev / last links.
+     *
+     * @param nextCursor token of the next page, or null if this is the last page
+     */
+    public PagingLinksBuilder cursor(String nextCursor) {
+        this.keyset = true;
+        this.nextCursor = nextCursor;
+        return this;
+    }
+
     public List<SynchronousResource> build() {
         try {
             return generatePagingLinks();
@@ -54,7 +68,7 @@ public class PagingLinksBuilder {
 
         MapResource link;
         for (String name: ctx.resourceParams().names()) {
-            if ("offset".equals(name) || "limit".equals(name)) {
+            if ("offset".equals(name) || "limit".equals(name) || (keyset && CURSOR.equals(name))) {
                 continue;
             }
             List<String> values = ctx.resourceParams().values(name);
@@ -65,6 +79,10 @@ public class PagingLinksBuilder {
         int offset = ctx.pagination().offset();
         int limit = ctx.pagination().limit();
 
+        if (keyset) {
+            return generateCursorLinks(uriBuilder, limit);
+        }
+
         int lastPageOffset = 0;
         if (totalCount > 0 & limit != 0) {
             int mod = totalCount % limit;
@@ -123,4 +141,35 @@ public class PagingLinksBuilder {
         }
         return links;
     }
+
+    protected List<SynchronousResource> generateCursorLinks(UriBuilder uriBuilder, int limit) throws URISyntaxException {
+        LinkedList<SynchronousResource> links = new LinkedList<>();
+
+        MapResource link;
+        if (ctx.resourceParams().contains(CURSOR)) {
+            String cursor = ctx.resourceParams().value(CURSOR);
+            if (cursor != null && !cursor.isEmpty()) {
+                link = new MapResource();
+                link.put("rel", "first");
+                link.put(LiveOak.HREF, uriBuilder.copy()
+                        .addParam(CURSOR, "")
+                        .addParam("limit", limit)
+                        .build());
+                links.add(link);
+            }
+        }
+
+        if (nextCursor != null) {
+            link = new MapResource();
+            link.put("rel", "next");
+            link.put(LiveOak.HREF, uriBuilder.copy()
+                    .addParam(CURSOR, nextCursor)
+                    .addParam("limit", limit)
+                    .build());
+            links.add(link);
+        }
+        return links;
+    }
+
+    private static final String CURSOR = "cursor";
 }
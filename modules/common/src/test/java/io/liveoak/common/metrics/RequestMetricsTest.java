@@ -0,0 +1,82 @@
+package io.liveoak.common.metrics;
+
+import java.util.List;
+
+import io.liveoak.spi.RequestType;
+import io.liveoak.spi.ResourcePath;
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class RequestMetricsTest {
+
+    @Test
+    public void testHistogramBuckets() throws Exception {
+        for (long value : new long[]{0, 1, 31, 32, 33, 63, 64, 65, 1000, 123456789, LatencyHistogram.MAX_VALUE}) {
+            int index = LatencyHistogram.index(value);
+            assertThat(LatencyHistogram.upperBound(index)).isGreaterThanOrEqualTo(value);
+            if (index > 0) {
+                assertThat(LatencyHistogram.upperBound(index - 1)).isLessThan(value);
+            }
+            // within about 3%
+            assertThat(LatencyHistogram.upperBound(index) - value).isLessThanOrEqualTo(value / 32);
+        }
+        assertThat(LatencyHistogram.index(LatencyHistogram.MAX_VALUE)).isEqualTo(LatencyHistogram.BUCKETS - 1);
+    }
+
+    @Test
+    public void testPercentiles() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; ++i) {
+            histogram.record(i * 100);
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertThat(snapshot.count()).isEqualTo(1000);
+        assertThat(snapshot.max()).isEqualTo(100000);
+        assertThat(snapshot.percentile(0.5)).isGreaterThanOrEqualTo(50000).isLessThanOrEqualTo(51600);
+        assertThat(snapshot.percentile(0.99)).isGreaterThanOrEqualTo(99000).isLessThanOrEqualTo(100000);
+        assertThat(snapshot.percentile(1.0)).isEqualTo(100000);
+        assertThat(new LatencyHistogram().snapshot().percentile(0.5)).isEqualTo(0);
+    }
+
+    @Test
+    public void testSeriesByPathPrefix() throws Exception {
+        RequestMetrics metrics = new RequestMetrics(2, 3);
+
+        RequestMetrics.Series series = metrics.series("http", new ResourcePath("/app/storage/items/1"), RequestType.READ);
+        assertThat(series.path()).isEqualTo("/app/storage");
+        assertThat(metrics.series("http", new ResourcePath("/app/storage/items/2"), RequestType.READ)).isSameAs(series);
+        assertThat(metrics.series("http", new ResourcePath("/app/storage"), RequestType.UPDATE)).isNotSameAs(series);
+        assertThat(metrics.series("http", new ResourcePath("/"), RequestType.READ).path()).isEqualTo("/");
+
+        // over the limit, new prefixes are accounted to the closest tracked ancestor
+        assertThat(metrics.series("http", new ResourcePath("/app/other"), RequestType.READ).path()).isEqualTo("/app/other");
+        assertThat(metrics.series("http", new ResourcePath("/app/more"), RequestType.READ).path()).isEqualTo("/app");
+        assertThat(metrics.series("http", new ResourcePath("/another"), RequestType.READ).path()).isEqualTo("/");
+
+        long start = series.started();
+        assertThat(series.inFlight()).isEqualTo(1);
+        series.completed(start, true);
+        assertThat(series.inFlight()).isEqualTo(0);
+        assertThat(series.errors()).isEqualTo(1);
+        assertThat(series.latency().count()).isEqualTo(1);
+
+        List<RequestMetrics.Series> all = metrics.series();
+        assertThat(all.get(0).path()).isEqualTo("/");
+    }
+
+    @Test
+    public void testPrometheus() throws Exception {
+        RequestMetrics metrics = new RequestMetrics(2, 100);
+        RequestMetrics.Series series = metrics.series("http", new ResourcePath("/app/storage"), RequestType.CREATE);
+        series.completed(series.started(), false);
+
+        String text = metrics.toPrometheus();
+        assertThat(text).contains("# TYPE liveoak_request_duration_seconds summary\n");
+        assertThat(text).contains("liveoak_request_duration_seconds{chain=\"http\",path=\"/app/storage\",type=\"CREATE\",quantile=\"0.99\"} ");
+        assertThat(text).contains("liveoak_request_duration_seconds_count{chain=\"http\",path=\"/app/storage\",type=\"CREATE\"} 1\n");
+        assertThat(text).contains("liveoak_request_errors_total{chain=\"http\",path=\"/app/storage\",type=\"CREATE\"} 0\n");
+        assertThat(text).contains("liveoak_requests_in_flight{chain=\"http\",path=\"/app/storage\",type=\"CREATE\"} 0\n");
+    }
+}
@@ -0,0 +1,57 @@
+package io.liveoak.common.security;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import io.liveoak.spi.RequestContext;
+import io.liveoak.spi.RequestType;
+import io.liveoak.spi.ResourcePath;
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class AuthzDecisionCacheTest {
+
+    @Test
+    public void testKeyedBySubjectRolesPathAndType() throws Exception {
+        AuthzDecisionCache cache = new AuthzDecisionCache(60000, 100);
+        cache.put(request("john", "/app/todos/1", RequestType.READ, "user", "admin"), true);
+
+        // roles in a different order are the same roles
+        assertThat(cache.get(request("john", "/app/todos/1", RequestType.READ, "admin", "user"))).isTrue();
+
+        assertThat(cache.get(request("bob", "/app/todos/1", RequestType.READ, "user", "admin"))).isNull();
+        assertThat(cache.get(request("john", "/app/todos/2", RequestType.READ, "user", "admin"))).isNull();
+        assertThat(cache.get(request("john", "/app/todos/1", RequestType.UPDATE, "user", "admin"))).isNull();
+        assertThat(cache.get(request("john", "/app/todos/1", RequestType.READ, "user"))).isNull();
+    }
+
+    @Test
+    public void testInvalidateAll() throws Exception {
+        AuthzDecisionCache cache = new AuthzDecisionCache(60000, 100);
+        cache.put(request("john", "/app/todos/1", RequestType.READ, "user"), false);
+        assertThat(cache.get(request("john", "/app/todos/1", RequestType.READ, "user"))).isFalse();
+
+        AuthzDecisionCache.invalidateAll();
+        assertThat(cache.get(request("john", "/app/todos/1", RequestType.READ, "user"))).isNull();
+    }
+
+    @Test
+    public void testExpires() throws Exception {
+        AuthzDecisionCache cache = new AuthzDecisionCache(10, 100);
+        cache.put(request("john", "/app/todos/1", RequestType.READ, "user"), true);
+        Thread.sleep(50);
+        assertThat(cache.get(request("john", "/app/todos/1", RequestType.READ, "user"))).isNull();
+    }
+
+    private RequestContext request(String subject, String path, RequestType type, String... roles) {
+        DefaultSecurityContext securityContext = new DefaultSecurityContext();
+        securityContext.setRealm("liveoak-apps");
+        securityContext.setSubject(subject);
+        securityContext.setRoles(new HashSet<>(Arrays.asList(roles)));
+        return new RequestContext.Builder()
+                .securityContext(securityContext)
+                .resourcePath(new ResourcePath(path))
+                .requestType(type);
+    }
+}
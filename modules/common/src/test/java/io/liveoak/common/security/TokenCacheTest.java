@@ -0,0 +1,90 @@
+package io.liveoak.common.security;
+
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import io.liveoak.spi.client.Client;
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class TokenCacheTest {
+
+    @Test
+    public void testFillsSecurityContextOnHit() throws Exception {
+        TokenCache cache = new TokenCache(100, 60000);
+        cache.put("/app", "token-1", verified("john", "user", "admin"), 0);
+
+        DefaultSecurityContext securityContext = new DefaultSecurityContext();
+        assertThat(cache.fill("/app", "token-1", securityContext)).isTrue();
+        assertThat(securityContext.getRealm()).isEqualTo("liveoak-apps");
+        assertThat(securityContext.getSubject()).isEqualTo("john");
+        assertThat(securityContext.getRoles()).containsOnly("user", "admin");
+        assertThat(securityContext.getToken()).isEqualTo("token-1");
+        assertThat(securityContext.getUser().name()).isEqualTo("John");
+
+        // the same token for another application was not verified by it
+        assertThat(cache.fill("/other", "token-1", new DefaultSecurityContext())).isFalse();
+        assertThat(cache.fill("/app", "token-2", new DefaultSecurityContext())).isFalse();
+
+        assertThat(cache.hits()).isEqualTo(1);
+        assertThat(cache.misses()).isEqualTo(2);
+    }
+
+    @Test
+    public void testHonoursExpiry() throws Exception {
+        TokenCache cache = new TokenCache(100, 60000);
+
+        cache.put("/app", "expired", verified("john"), System.currentTimeMillis() - 1000);
+        assertThat(cache.size()).isEqualTo(0);
+
+        cache.put("/app", "short-lived", verified("john"), System.currentTimeMillis() + 50);
+        assertThat(cache.fill("/app", "short-lived", new DefaultSecurityContext())).isTrue();
+        Thread.sleep(100);
+        assertThat(cache.fill("/app", "short-lived", new DefaultSecurityContext())).isFalse();
+        assertThat(cache.expirations()).isEqualTo(1);
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() throws Exception {
+        TokenCache cache = new TokenCache(2, 60000);
+        cache.put("/app", "token-1", verified("john"), 0);
+        cache.put("/app", "token-2", verified("bob"), 0);
+        cache.fill("/app", "token-1", new DefaultSecurityContext());
+        cache.put("/app", "token-3", verified("mary"), 0);
+
+        assertThat(cache.evictions()).isEqualTo(1);
+        assertThat(cache.fill("/app", "token-1", new DefaultSecurityContext())).isTrue();
+        assertThat(cache.fill("/app", "token-2", new DefaultSecurityContext())).isFalse();
+        assertThat(cache.fill("/app", "token-3", new DefaultSecurityContext())).isTrue();
+    }
+
+    @Test
+    public void testAuthSkipsVerificationOnHit() throws Exception {
+        TokenCache cache = new TokenCache(100, 60000);
+        cache.put("/app", "token-1", verified("john", "user"), 0);
+
+        // any call on the client would fail
+        Client client = (Client) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{Client.class}, (proxy, method, args) -> {
+            throw new AssertionError("Token verified again");
+        });
+
+        DefaultSecurityContext securityContext = new DefaultSecurityContext();
+        AtomicBoolean success = new AtomicBoolean();
+        SecurityHelper.auth(client, cache, securityContext, "/app", "token-1", () -> success.set(true), null, null, null);
+
+        assertThat(success.get()).isTrue();
+        assertThat(securityContext.getSubject()).isEqualTo("john");
+    }
+
+    private static DefaultSecurityContext verified(String subject, String... roles) {
+        DefaultSecurityContext securityContext = new DefaultSecurityContext();
+        securityContext.setRealm("liveoak-apps");
+        securityContext.setSubject(subject);
+        securityContext.setRoles(new HashSet<>(Arrays.asList(roles)));
+        securityContext.setUser(new DefaultUserProfile().name("John"));
+        return securityContext;
+    }
+}
@@ -319,6 +319,61 @@ public class PagingLinksTest {
 
 
 
+    @Test
+    public void testWithCursor() throws Exception {
+
+        URI uri = uri();
+        Sorting sorting = sorting();
+        Pagination pagination = new DefaultPagination(0, 10);
+
+        // first page
+        RequestContext ctx = createContext(pagination, params(), sorting);
+        List<SynchronousResource> links = new PagingLinksBuilder(ctx)
+                .uri(uri)
+                .cursor("abc")
+                .build();
+
+        assertThat(links.size()).isEqualTo(1);
+        Map<String, ?> props = links.get(0).properties(ctx);
+        assertThat(props.get("rel")).isEqualTo("next");
+        assertThat(props.get("href").toString()).isEqualTo(uri + "&cursor=abc&limit=10");
+
+
+        // next page, the previous cursor is replaced
+        ResourceParams params = new DefaultResourceParams.Builder()
+                .add("q", "{user.name:'John'}")
+                .add("sort", "-lastName")
+                .add("xyz", "custom")
+                .add("cursor", "abc")
+                .build();
+
+        ctx = createContext(pagination, params, sorting);
+        links = new PagingLinksBuilder(ctx)
+                .uri(uri)
+                .cursor("def")
+                .build();
+
+        assertThat(links.size()).isEqualTo(2);
+        props = links.get(0).properties(ctx);
+        assertThat(props.get("rel")).isEqualTo("first");
+        assertThat(props.get("href").toString()).isEqualTo(uri + "&cursor=&limit=10");
+
+        props = links.get(1).properties(ctx);
+        assertThat(props.get("rel")).isEqualTo("next");
+        assertThat(props.get("href").toString()).isEqualTo(uri + "&cursor=def&limit=10");
+
+
+        // last page
+        links = new PagingLinksBuilder(ctx)
+                .uri(uri)
+                .cursor(null)
+                .build();
+
+        assertThat(links.size()).isEqualTo(1);
+        props = links.get(0).properties(ctx);
+        assertThat(props.get("rel")).isEqualTo("first");
+    }
+
     protected URI uri() throws URISyntaxException {
         return new URI("/testApp/service/collection?q=%7Buser.name%3A%27John%27%7D&sort=-lastName&xyz=custom");
     }
@@ -5,6 +5,8 @@
  */
 package io.liveoak.container;
 
+import java.util.concurrent.RejectedExecutionException;
+
 import io.liveoak.common.DefaultResourceErrorResponse;
 import io.liveoak.spi.ResourceErrorResponse;
 import io.liveoak.spi.ResourceRequest;
@@ -14,6 +16,7 @@ import io.liveoak.spi.exceptions.NotAuthorizedException;
 import io.liveoak.spi.exceptions.PropertyException;
 import io.liveoak.spi.exceptions.ResourceAlreadyExistsException;
 import io.liveoak.spi.exceptions.ResourceNotFoundException;
+import io.liveoak.spi.exceptions.ServiceUnavailableException;
 import io.netty.channel.ChannelDuplexHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.http.DefaultFullHttpResponse;
@@ -30,6 +33,10 @@ public class ErrorHandler extends ChannelDuplexHandler {
     }
 
     public static void handleError(ChannelHandlerContext ctx, ResourceRequest inReplyTo, Throwable t) {
+        ctx.writeAndFlush(errorResponse(inReplyTo, t));
+    }
+
+    public static ResourceErrorResponse errorResponse(ResourceRequest inReplyTo, Throwable t) {
         ResourceErrorResponse.ErrorType errorType;
         Logger.Level level = Logger.Level.TRACE;
 
@@ -45,6 +52,9 @@ public class ErrorHandler extends ChannelDuplexHandler {
             errorType = ResourceErrorResponse.ErrorType.RESOURCE_ALREADY_EXISTS;
         } else if (t instanceof PropertyException) {
             errorType = ResourceErrorResponse.ErrorType.NOT_ACCEPTABLE;
+        } else if (t instanceof ServiceUnavailableException || t instanceof RejectedExecutionException) {
+            errorType = ResourceErrorResponse.ErrorType.SERVICE_UNAVAILABLE;
+            level = Logger.Level.DEBUG;
         } else {
             errorType = ResourceErrorResponse.ErrorType.INTERNAL_ERROR;
             level = Logger.Level.WARN;
@@ -52,7 +62,7 @@ public class ErrorHandler extends ChannelDuplexHandler {
 
         log.log(level, errorType, t);
 
-        ctx.writeAndFlush(new DefaultResourceErrorResponse(inReplyTo, errorType, t.getMessage(), t));
+        return new DefaultResourceErrorResponse(inReplyTo, errorType, t.getMessage(), t);
     }
 
     @Override
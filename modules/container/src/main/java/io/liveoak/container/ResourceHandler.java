@@ -5,17 +5,16 @@
  */
 package io.liveoak.container;
 
-import java.util.concurrent.Executor;
-
 import io.liveoak.container.tenancy.GlobalContext;
 import io.liveoak.container.traversal.TraversingResponder;
+import io.liveoak.container.workers.WorkerPool;
 import io.liveoak.spi.ResourceRequest;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
 
 public class ResourceHandler extends SimpleChannelInboundHandler<ResourceRequest> {
 
-    public ResourceHandler(GlobalContext globalContext, Executor workerPool) {
+    public ResourceHandler(GlobalContext globalContext, WorkerPool workerPool) {
         this.globalContext = globalContext;
         this.workerPool = workerPool;
     }
@@ -27,6 +26,6 @@ public class ResourceHandler extends SimpleChannelInboundHandler<ResourceRequest
     }
 
     private GlobalContext globalContext;
-    private Executor workerPool;
+    private WorkerPool workerPool;
 
 }
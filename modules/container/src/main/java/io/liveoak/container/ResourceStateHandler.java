@@ -5,12 +5,15 @@
  */
 package io.liveoak.container;
 
-import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Predicate;
 
 import io.liveoak.client.impl.ClientResourceResponseImpl;
+import io.liveoak.common.DefaultResourceResponse;
 import io.liveoak.common.codec.driver.RootEncodingDriver;
 import io.liveoak.common.codec.state.ResourceStateEncoder;
 import io.liveoak.container.protocols.RequestCompleteEvent;
+import io.liveoak.container.workers.WorkerPool;
 import io.liveoak.spi.ResourceErrorResponse;
 import io.liveoak.spi.ResourceRequest;
 import io.liveoak.spi.ResourceResponse;
@@ -32,22 +35,40 @@ public class ResourceStateHandler extends ChannelOutboundHandlerAdapter {
 
     private static final Logger log = Logger.getLogger(ResourceStateHandler.class);
 
-    private Executor workerPool;
+    private WorkerPool workerPool;
+    private Predicate<ResourceResponse> streamingPolicy;
 
-    public ResourceStateHandler(Executor workerPool) {
+    public ResourceStateHandler(WorkerPool workerPool) {
+        this(workerPool, null);
+    }
+
+    public ResourceStateHandler(WorkerPool workerPool, Predicate<ResourceResponse> streamingPolicy) {
         this.workerPool = workerPool;
+        this.streamingPolicy = streamingPolicy;
     }
 
     @Override
     public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
         if (msg instanceof ResourceResponse && !(msg instanceof ResourceErrorResponse)) {
             ResourceResponse response = (ResourceResponse) msg;
+
+            if (this.streamingPolicy != null && this.streamingPolicy.test(response)) {
+                // leave encoding to the protocol encoder, which writes straight from the resource
+                ((DefaultResourceResponse) response).streaming(true);
+                ctx.writeAndFlush(response, promise);
+                return;
+            }
+
             Runnable action = () -> {
                 encode(ctx, response, promise);
             };
 
             if (response.resource() instanceof BlockingResource) {
-                this.workerPool.execute(action);
+                try {
+                    this.workerPool.executorFor(response.inReplyTo()).execute(action);
+                } catch (RejectedExecutionException e) {
+                    handleError(ctx, response.inReplyTo(), e);
+                }
             } else {
                 action.run();
             }
@@ -5,15 +5,18 @@
  */
 package io.liveoak.container.analytics;
 
-import java.io.BufferedOutputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.util.LinkedList;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
 import org.jboss.logging.Logger;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
@@ -22,6 +25,19 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectWriter;
 
 /**
+ * Ships analytics events to rhq-metrics.
+ *
+ * <p>Events are handed over through a bounded queue; when it is full an event is dropped and counted,
+ * so a producer never waits. A single processor thread drains the queue every flush interval, rolls up
+ * events which only differ in timing and size, and posts them as one batch. While rhq-metrics is not
+ * configured or fails, batches go to an {@link AnalyticsSpill} and are replayed, oldest first, once it
+ * takes events again. Every event is still written to the <code>io.liveoak.container.analytics.Analytics.log</code>
+ * category, from the processor thread.</p>
+ *
+ * <p>Settings are read from system properties prefixed with <code>liveoak.analytics.</code>:
+ * <code>queue-size</code>, <code>batch-size</code>, <code>flush-interval-ms</code>, <code>rollup</code>,
+ * <code>spill-dir</code>, <code>spill-segment-size</code> and <code>spill-max-bytes</code>.</p>
+ *
  * @author <a href="mailto:marko.strukelj@gmail.com">Marko Strukelj</a>
  */
 public class Analytics {
@@ -29,128 +45,305 @@ public class Analytics {
     private static final Logger log = Logger.getLogger(Analytics.class);
     private static final Logger consoleLog = Logger.getLogger(Analytics.class.getName() + ".log");
 
-    private final int MAX = 1000;
+    public static final String PREFIX = "liveoak.analytics.";
 
-    private ConcurrentLinkedQueue<AnalyticsEvent> events = new ConcurrentLinkedQueue<>();
+    public static final int DEFAULT_QUEUE_SIZE = 10000;
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+    public static final long DEFAULT_FLUSH_INTERVAL = 1000;
+    public static final int DEFAULT_SEGMENT_SIZE = 4 * 1024 * 1024;
+    public static final long DEFAULT_SPILL_MAX_BYTES = 64L * 1024 * 1024;
 
-    private AnalyticsExtensionConfig config;
+    private static final long MAX_BACKOFF = 60000;
+
+    private final BlockingQueue<AnalyticsEvent> events;
+    private final int batchSize;
+    private final long flushInterval;
+    private final boolean rollup;
+    private final AnalyticsSpill spill;
+    private final AnalyticsSender sender = new AnalyticsSender();
+
+    private volatile AnalyticsExtensionConfig config;
     private AnalyticsProcessor thread;
-    private ObjectMapper mapper;
+    private ObjectWriter writer;
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private volatile long rolledUp;
+    private volatile long sent;
+    private volatile long spilled;
+    private volatile long replayed;
+    private volatile long failedBatches;
 
     public Analytics() {
+        this(System.getProperties());
+    }
+
+    public Analytics(Properties props) {
+        this(Integer.parseInt(props.getProperty(PREFIX + "queue-size", String.valueOf(DEFAULT_QUEUE_SIZE))),
+                Integer.parseInt(props.getProperty(PREFIX + "batch-size", String.valueOf(DEFAULT_BATCH_SIZE))),
+                Long.parseLong(props.getProperty(PREFIX + "flush-interval-ms", String.valueOf(DEFAULT_FLUSH_INTERVAL))),
+                Boolean.parseBoolean(props.getProperty(PREFIX + "rollup", "true")),
+                new AnalyticsSpill(new File(props.getProperty(PREFIX + "spill-dir", defaultSpillDir(props))),
+                        Integer.parseInt(props.getProperty(PREFIX + "spill-segment-size", String.valueOf(DEFAULT_SEGMENT_SIZE))),
+                        Long.parseLong(props.getProperty(PREFIX + "spill-max-bytes", String.valueOf(DEFAULT_SPILL_MAX_BYTES)))));
+    }
+
+    public Analytics(int queueSize, int batchSize, long flushInterval, boolean rollup, AnalyticsSpill spill) {
+        this.events = new ArrayBlockingQueue<>(queueSize);
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.rollup = rollup;
+        this.spill = spill;
+
         JsonFactory factory = new JsonFactory();
-        mapper = new ObjectMapper(factory);
+        ObjectMapper mapper = new ObjectMapper(factory);
         mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        this.writer = mapper.writer();
     }
 
+    private static String defaultSpillDir(Properties props) {
+        String dataDir = props.getProperty("jboss.server.data.dir");
+        if (dataDir != null) {
+            return dataDir + File.separator + "analytics";
+        }
+        return props.getProperty("java.io.tmpdir") + File.separator + "liveoak-analytics";
+    }
+
+    /**
+     * Queue an event for shipping. Never blocks.
+     */
     public void event(AnalyticsEvent event) {
-        events.add(event);
-        consoleLog.info(event);
+        if (events.offer(event)) {
+            accepted.increment();
+        } else {
+            rejected.increment();
+        }
     }
 
     public void start() {
+        try {
+            spill.open();
+        } catch (IOException e) {
+            log.error("Could not open analytics spill, events will be dropped while rhq-metrics is not available", e);
+        }
+
         // start event processing thread
         thread = new AnalyticsProcessor();
         thread.start();
     }
 
     public void stop() {
-        // stop event processing thread
+        // stop event processing thread, it spills whatever is left
         thread.finish();
+        try {
+            thread.join(10000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 
     public void config(AnalyticsExtensionConfig config) {
         this.config = config;
     }
 
+    public Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("queued", events.size());
+        result.put("accepted", accepted.sum());
+        result.put("rejected", rejected.sum());
+        result.put("rolled-up", rolledUp);
+        result.put("sent", sent);
+        result.put("spilled", spilled);
+        result.put("replayed", replayed);
+        result.put("dropped", spill.dropped());
+        result.put("failed-batches", failedBatches);
+        result.put("spill-segments", spill.segments());
+        return result;
+    }
+
     private class AnalyticsProcessor extends Thread {
 
         volatile boolean finish = false;
 
+        private long retryAt;
+        private long backoff;
+
+        AnalyticsProcessor() {
+            super("liveoak-analytics");
+            setDaemon(true);
+        }
+
         public void run() {
+            List<AnalyticsEvent> drained = new ArrayList<>(batchSize);
             while (!finish) {
-
-                LinkedList<AnalyticsEvent> batch = new LinkedList<>();
-                AnalyticsEvent event = null;
-                for (int count = 0; config != null && count < MAX && (event = events.poll()) != null; count ++) {
-                    batch.add(event);
+                try {
+                    collect(drained);
+                } catch (InterruptedException e) {
+                    // finishing
                 }
-
-                if (batch.size() > 0) {
-                    sendToService(batch);
+                if (!drained.isEmpty()) {
+                    process(drained);
+                    drained.clear();
+                } else {
+                    replay();
                 }
+            }
 
-                try {
-                    if (!finish) {
-                        Thread.sleep(1000);
-                    }
-                } catch (InterruptedException e) {
-                    throw new RuntimeException("Interrupted!");
+            // keep what is left for the next run
+            events.drainTo(drained);
+            if (!drained.isEmpty()) {
+                spill(serialize(rollup(drained)));
+            }
+        }
+
+        /**
+         * Wait up to a flush interval for a batch to fill up.
+         */
+        private void collect(List<AnalyticsEvent> drained) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + flushInterval;
+            while (drained.size() < batchSize && !finish) {
+                long wait = deadline - System.currentTimeMillis();
+                if (wait <= 0) {
+                    break;
                 }
+                AnalyticsEvent event = events.poll(wait, TimeUnit.MILLISECONDS);
+                if (event == null) {
+                    break;
+                }
+                drained.add(event);
+                events.drainTo(drained, batchSize - drained.size());
             }
         }
 
-        private void sendToService(LinkedList<AnalyticsEvent> batch) {
+        private void process(List<AnalyticsEvent> drained) {
+            if (consoleLog.isInfoEnabled()) {
+                for (AnalyticsEvent event : drained) {
+                    consoleLog.info(event);
+                }
+            }
 
-            try {
-                URL url = new URL(config.rhqMetricsUrl());
-                HttpURLConnection con = (HttpURLConnection) url.openConnection();
-                con.setRequestMethod("POST");
-                con.setRequestProperty("Content-Type", "application/json");
-                con.setDoOutput(true);
+            List<byte[]> batch = serialize(rollup(drained));
+            if (!replay()) {
+                spill(batch);
+                return;
+            }
+            ship(batch, false);
+        }
 
-                ByteArrayOutputStream buffed = new ByteArrayOutputStream();
-                OutputStream os = new BufferedOutputStream(con.getOutputStream());
+        /**
+         * Ship spilled events, if any.
+         *
+         * @return true if nothing is left in the spill, and events may be shipped directly
+         */
+        private boolean replay() {
+            if (!available()) {
+                return false;
+            }
+            while (!spill.isEmpty() && !finish) {
+                List<byte[]> records;
                 try {
-                    ObjectWriter writer = mapper.writer().withDefaultPrettyPrinter();
-                    writer.writeValue(buffed, batch);
+                    records = spill.peek();
+                } catch (IOException e) {
+                    log.error("Could not read analytics spill segment, dropping it", e);
+                    spill.remove();
+                    continue;
+                }
+                if (!records.isEmpty() && !ship(records, true)) {
+                    return false;
+                }
+                spill.remove();
+            }
+            return spill.isEmpty();
+        }
 
-                    os.write(buffed.toByteArray());
-                } finally {
-                    os.close();
+        private boolean ship(List<byte[]> records, boolean spilled) {
+            AnalyticsExtensionConfig cfg = config;
+            if (cfg == null) {
+                if (!spilled) {
+                    spill(records);
                 }
+                return false;
+            }
 
-                int status = con.getResponseCode();
-                if (status != 200) {
-                    ByteArrayOutputStream baos = new ByteArrayOutputStream();
-                    InputStream result = con.getErrorStream();
-                    if (result != null) {
-                        try {
-                            copy(result, baos);
-                        } catch (Exception ignored) {
-                            log.warn("[IGNORED] Failed to read HTTP response from rhq-metrics: ", ignored);
-                        }
-                    }
-
-                    log.error("Failed to post " + batch.size() + " analytics events to rhq-metrics (" + url + "): " + status + " " + con.getResponseMessage()
-                            + "\n" + new String(baos.toByteArray(), "utf-8"));
+            if (sender.send(cfg.rhqMetricsUrl(), records)) {
+                sent += records.size();
+                if (spilled) {
+                    replayed += records.size();
                 }
+                backoff = 0;
+                return true;
+            }
 
-            } catch (Exception e) {
-                // determine if error might be recoverable
-                // if not, log the error, and return
-                log.error("Failure during analytics event queue processing: ", e);
+            failedBatches++;
+            backoff = backoff == 0 ? flushInterval : Math.min(backoff * 2, MAX_BACKOFF);
+            retryAt = System.currentTimeMillis() + backoff;
+            if (!spilled) {
+                spill(records);
             }
+            return false;
+        }
+
+        private boolean available() {
+            return config != null && System.currentTimeMillis() >= retryAt;
         }
 
-        private void copy(InputStream is, OutputStream os) throws IOException {
-            byte [] buff = new byte[8*1024];
-            int rc;
-            try {
-                while ((rc = is.read(buff)) != -1) {
-                    os.write(buff, 0, rc);
+        private void spill(List<byte[]> records) {
+            // an interrupt from finish() would close the spill's file channels
+            Thread.interrupted();
+            spilled += spill.append(records);
+        }
+
+        private List<AnalyticsEvent> rollup(List<AnalyticsEvent> drained) {
+            if (!rollup) {
+                return drained;
+            }
+            Map<RollupKey, AnalyticsEvent> rolled = new LinkedHashMap<>();
+            for (AnalyticsEvent event : drained) {
+                AnalyticsEvent existing = rolled.putIfAbsent(new RollupKey(event), event);
+                if (existing != null) {
+                    existing.rollup(event);
+                    rolledUp++;
                 }
-            } finally {
+            }
+            return new ArrayList<>(rolled.values());
+        }
+
+        private List<byte[]> serialize(List<AnalyticsEvent> batch) {
+            List<byte[]> records = new ArrayList<>(batch.size());
+            for (AnalyticsEvent event : batch) {
                 try {
-                    is.close();
-                } catch(Exception ignored) {
+                    records.add(writer.writeValueAsBytes(event));
+                } catch (IOException e) {
+                    log.error("Could not serialize analytics event: " + event, e);
                 }
-                os.close();
             }
+            return records;
         }
 
         void finish() {
             finish = true;
+            interrupt();
         }
     }
+
+    private static class RollupKey {
+
+        RollupKey(AnalyticsEvent event) {
+            this.event = event;
+            this.hash = event.rollupHash();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof RollupKey && event.sameAs(((RollupKey) obj).event);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        private final AnalyticsEvent event;
+        private final int hash;
+    }
 }
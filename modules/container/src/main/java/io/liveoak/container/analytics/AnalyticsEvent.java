@@ -7,8 +7,15 @@ package io.liveoak.container.analytics;
 
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
+import java.util.Objects;
 
 /**
+ * A request or notification, as reported to rhq-metrics.
+ *
+ * <p>Events which only differ in timing and size may be rolled up into one before they are shipped.
+ * A rolled up event has the timestamp of the first event, a count, and the sums of the bytes and
+ * durations of all the events it stands for.</p>
+ *
  * @author <a href="mailto:marko.strukelj@gmail.com">Marko Strukelj</a>
  */
 public class AnalyticsEvent {
@@ -25,6 +32,7 @@ public class AnalyticsEvent {
     private long duration;
     private boolean apiRequest;
     private String notification;
+    private int count = 1;
 
     public void setUri(String uri) {
         this.uri = uri;
@@ -114,6 +122,39 @@ public class AnalyticsEvent {
         return notification;
     }
 
+    public void setCount(int count) {
+        this.count = count;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Whether the event can be rolled up with the other one.
+     */
+    public boolean sameAs(AnalyticsEvent other) {
+        return status == other.status
+                && apiRequest == other.apiRequest
+                && Objects.equals(uri, other.uri)
+                && Objects.equals(method, other.method)
+                && Objects.equals(application, other.application)
+                && Objects.equals(notification, other.notification)
+                && Objects.equals(userId, other.userId)
+                && Objects.equals(clientAddress, other.clientAddress);
+    }
+
+    public int rollupHash() {
+        return Objects.hash(status, apiRequest, uri, method, application, notification, userId, clientAddress);
+    }
+
+    public void rollup(AnalyticsEvent other) {
+        count += other.count;
+        requestBytes += other.requestBytes;
+        responseBytes += other.responseBytes;
+        duration += other.duration;
+    }
+
     public void clientAddress(SocketAddress addr) {
         if (addr instanceof InetSocketAddress) {
             this.clientAddress = ((InetSocketAddress) addr).getHostString();
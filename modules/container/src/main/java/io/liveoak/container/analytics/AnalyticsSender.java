@@ -0,0 +1,102 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.container.analytics;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.jboss.logging.Logger;
+
+/**
+ * Posts batches of serialized events to rhq-metrics as a compact JSON array.
+ *
+ * <p>The request is sent with a fixed length and every response is read to the end, so the JDK keeps
+ * the connection alive and re-uses it for the next batch.</p>
+ */
+public class AnalyticsSender {
+
+    private static final byte[] OPEN = {'['};
+    private static final byte[] SEPARATOR = {','};
+    private static final byte[] CLOSE = {']'};
+
+    /**
+     * @return true if rhq-metrics took the events
+     */
+    public boolean send(String url, List<byte[]> records) {
+        int length = 2 + Math.max(0, records.size() - 1);
+        for (byte[] record : records) {
+            length += record.length;
+        }
+
+        try {
+            HttpURLConnection con = (HttpURLConnection) new URL(url).openConnection();
+            con.setRequestMethod("POST");
+            con.setRequestProperty("Content-Type", "application/json");
+            con.setDoOutput(true);
+            con.setFixedLengthStreamingMode(length);
+            con.setConnectTimeout(CONNECT_TIMEOUT);
+            con.setReadTimeout(READ_TIMEOUT);
+
+            try (OutputStream os = con.getOutputStream()) {
+                os.write(OPEN);
+                for (int i = 0; i < records.size(); ++i) {
+                    if (i > 0) {
+                        os.write(SEPARATOR);
+                    }
+                    os.write(records.get(i));
+                }
+                os.write(CLOSE);
+            }
+
+            int status = con.getResponseCode();
+            if (status / 100 == 2) {
+                drain(con.getInputStream(), null);
+                return true;
+            }
+
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            drain(con.getErrorStream(), body);
+            log.errorf("Failed to post %d analytics events to rhq-metrics (%s): %d %s\n%s", records.size(), url, status,
+                    con.getResponseMessage(), new String(body.toByteArray(), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            log.errorf("Failed to post %d analytics events to rhq-metrics (%s): %s", records.size(), url, e);
+        }
+        return false;
+    }
+
+    private static void drain(InputStream is, ByteArrayOutputStream into) {
+        if (is == null) {
+            return;
+        }
+        byte[] buff = new byte[8 * 1024];
+        int rc;
+        try {
+            while ((rc = is.read(buff)) != -1) {
+                if (into != null) {
+                    into.write(buff, 0, rc);
+                }
+            }
+        } catch (IOException ignored) {
+            log.debug("[IGNORED] Failed to read HTTP response from rhq-metrics: ", ignored);
+        } finally {
+            try {
+                is.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private static final int CONNECT_TIMEOUT = 5000;
+    private static final int READ_TIMEOUT = 30000;
+
+    private static final Logger log = Logger.getLogger(AnalyticsSender.class);
+}
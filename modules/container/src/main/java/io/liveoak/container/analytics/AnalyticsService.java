@@ -5,6 +5,7 @@
  */
 package io.liveoak.container.analytics;
 
+import java.util.Collections;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -74,6 +75,11 @@ public class AnalyticsService implements Service<AnalyticsService> {
         }
     }
 
+    public Map<String, Object> stats() {
+        Analytics current = analytics;
+        return current != null ? current.stats() : Collections.emptyMap();
+    }
+
     public boolean enabled() {
         return globalConfig != null && globalConfig.enabled();
     }
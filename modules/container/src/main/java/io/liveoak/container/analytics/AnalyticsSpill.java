@@ -0,0 +1,189 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.container.analytics;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.jboss.logging.Logger;
+
+/**
+ * Local spill of serialized analytics events, for while rhq-metrics can not take them.
+ *
+ * <p>Events are appended to memory-mapped segment files of a fixed size, as a length followed by the
+ * bytes of each event. Segments are replayed oldest first and deleted once shipped, so events survive
+ * a restart. When the segments would take more than the configured maximum, the oldest segment is
+ * dropped. Not thread-safe; only the analytics processor thread uses it.</p>
+ */
+public class AnalyticsSpill {
+
+    private static final String PREFIX = "events-";
+    private static final String SUFFIX = ".seg";
+
+    public AnalyticsSpill(File dir, int segmentSize, long maxBytes) {
+        this.dir = dir;
+        this.segmentSize = segmentSize;
+        this.maxSegments = Math.max(2, (int) (maxBytes / segmentSize));
+    }
+
+    /**
+     * Pick up segments left over by a previous run.
+     */
+    public void open() throws IOException {
+        if (!this.dir.isDirectory() && !this.dir.mkdirs()) {
+            throw new IOException("Could not create analytics spill directory: " + this.dir);
+        }
+        File[] files = this.dir.listFiles((d, name) -> name.startsWith(PREFIX) && name.endsWith(SUFFIX));
+        if (files != null) {
+            Arrays.sort(files, (a, b) -> Long.compare(sequence(a), sequence(b)));
+            for (File file : files) {
+                this.segments.add(file);
+                this.nextSequence = Math.max(this.nextSequence, sequence(file) + 1);
+            }
+        }
+        if (!this.segments.isEmpty()) {
+            log.infof("Found %d analytics spill segments to replay in %s", this.segments.size(), this.dir);
+        }
+    }
+
+    /**
+     * Append serialized events.
+     *
+     * @return the number of events written
+     */
+    public int append(List<byte[]> records) {
+        int written = 0;
+        for (int i = 0; i < records.size(); i++) {
+            byte[] record = records.get(i);
+            if (record.length + 4 > this.segmentSize) {
+                this.dropped++;
+                continue;
+            }
+            try {
+                if (this.current == null || this.current.remaining() < record.length + 4) {
+                    roll();
+                }
+                this.current.putInt(record.length);
+                this.current.put(record);
+                written++;
+            } catch (IOException e) {
+                log.error("Could not spill analytics events to " + this.dir, e);
+                // this one and the rest; oversize ones before it are counted already
+                this.dropped += records.size() - i;
+                this.current = null;
+                break;
+            }
+        }
+        if (this.current != null) {
+            this.current.force();
+        }
+        return written;
+    }
+
+    public boolean isEmpty() {
+        return this.segments.isEmpty();
+    }
+
+    /**
+     * Serialized events of the oldest segment. The segment stays in place until it is {@link #remove}d.
+     */
+    public List<byte[]> peek() throws IOException {
+        File file = this.segments.peekFirst();
+        if (file == null) {
+            return null;
+        }
+        if (file.equals(this.currentFile)) {
+            // no more writes to a segment which is being replayed
+            this.current.force();
+            this.current = null;
+            this.currentFile = null;
+        }
+        return read(file);
+    }
+
+    /**
+     * Delete the oldest segment, once it was shipped.
+     */
+    public void remove() {
+        File file = this.segments.pollFirst();
+        if (file != null && !file.delete()) {
+            log.warnf("Could not delete analytics spill segment %s", file);
+        }
+    }
+
+    public int segments() {
+        return this.segments.size();
+    }
+
+    public long dropped() {
+        return this.dropped;
+    }
+
+    private void roll() throws IOException {
+        if (this.current != null) {
+            this.current.force();
+        }
+        while (this.segments.size() >= this.maxSegments) {
+            File oldest = this.segments.pollFirst();
+            this.dropped += read(oldest).size();
+            if (!oldest.delete()) {
+                log.warnf("Could not delete analytics spill segment %s", oldest);
+            }
+        }
+
+        File file = new File(this.dir, PREFIX + this.nextSequence++ + SUFFIX);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            this.current = channel.map(FileChannel.MapMode.READ_WRITE, 0, this.segmentSize);
+        }
+        this.currentFile = file;
+        this.segments.addLast(file);
+    }
+
+    private static List<byte[]> read(File file) throws IOException {
+        List<byte[]> records = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            while (buffer.remaining() >= 4) {
+                int length = buffer.getInt();
+                // the unused tail of a segment is zeroed
+                if (length <= 0 || length > buffer.remaining()) {
+                    break;
+                }
+                byte[] record = new byte[length];
+                buffer.get(record);
+                records.add(record);
+            }
+        }
+        return records;
+    }
+
+    private static long sequence(File file) {
+        String name = file.getName();
+        try {
+            return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private final File dir;
+    private final int segmentSize;
+    private final int maxSegments;
+    private final ArrayDeque<File> segments = new ArrayDeque<>();
+    private long nextSequence;
+    private MappedByteBuffer current;
+    private File currentFile;
+    private long dropped;
+
+    private static final Logger log = Logger.getLogger(AnalyticsSpill.class);
+}
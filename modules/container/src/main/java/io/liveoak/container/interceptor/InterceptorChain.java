@@ -1,6 +1,5 @@
 package io.liveoak.container.interceptor;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import io.liveoak.spi.ResourceRequest;
@@ -12,9 +11,13 @@ import io.netty.channel.ChannelHandlerContext;
 import org.jboss.logging.Logger;
 
 /**
+ * Runs a request or response through an array of interceptors.
+ *
+ * <p>The chain is its own context, so passing a request through it allocates nothing but the chain.</p>
+ *
  * @author Bob McWhirter
  */
-public class InterceptorChain {
+public class InterceptorChain implements InboundInterceptorContext, OutboundInterceptorContext {
 
 
     private enum Direction {
@@ -23,19 +26,34 @@ public class InterceptorChain {
     }
 
     public InterceptorChain(ChannelHandlerContext ctx, List<Interceptor> interceptors, ResourceRequest request) {
+        this(ctx, interceptors.toArray(new Interceptor[interceptors.size()]), request);
+    }
+
+    public InterceptorChain(ChannelHandlerContext ctx, List<Interceptor> interceptors, ResourceResponse response) {
+        this(ctx, interceptors.toArray(new Interceptor[interceptors.size()]), response);
+    }
+
+    /**
+     * The array is not copied and must not change while the chain runs.
+     */
+    public InterceptorChain(ChannelHandlerContext ctx, Interceptor[] interceptors, ResourceRequest request) {
         this.ctx = ctx;
-        this.interceptors = new ArrayList(interceptors);
+        this.interceptors = interceptors;
         this.request = request;
         this.direction = Direction.INBOUND;
     }
 
-    public InterceptorChain(ChannelHandlerContext ctx, List<Interceptor> interceptors, ResourceResponse response) {
+    /**
+     * The array is not copied and must not change while the chain runs.
+     */
+    public InterceptorChain(ChannelHandlerContext ctx, Interceptor[] interceptors, ResourceResponse response) {
         this.ctx = ctx;
-        this.interceptors = new ArrayList(interceptors);
+        this.interceptors = interceptors;
         this.response = response;
         this.direction = Direction.OUTBOUND;
     }
 
+    @Override
     public ResourceRequest request() {
         if (this.request != null) {
             return this.request;
@@ -43,6 +61,7 @@ public class InterceptorChain {
         return this.response.inReplyTo();
     }
 
+    @Override
     public ResourceResponse response() {
         return this.response;
     }
@@ -55,20 +74,19 @@ public class InterceptorChain {
 
     public void fireOutbound() {
         this.direction = Direction.OUTBOUND;
-        this.current = this.interceptors.size() - 1;
+        this.current = this.interceptors.length - 1;
         fireCurrentOutbound();
     }
 
     private void fireCurrentInbound() {
-        if (this.current > (this.interceptors.size() - 1)) {
+        if (this.current > (this.interceptors.length - 1)) {
             this.ctx.fireChannelRead(this.request);
             return;
         }
 
-        InboundInterceptorContext context = new InboundInterceptorContextImpl(this);
-        Interceptor interceptor = this.interceptors.get(this.current);
+        Interceptor interceptor = this.interceptors[this.current];
         try {
-            interceptor.onInbound(context);
+            interceptor.onInbound(this);
         } catch (Exception e) {
             log.error("", e);
         }
@@ -80,15 +98,15 @@ public class InterceptorChain {
             return;
         }
 
-        OutboundInterceptorContext context = new OutboundInterceptorContextImpl(this);
-        Interceptor interceptor = this.interceptors.get(this.current);
+        Interceptor interceptor = this.interceptors[this.current];
         try {
-            interceptor.onOutbound(context);
+            interceptor.onOutbound(this);
         } catch (Exception e) {
             log.error("", e);
         }
     }
 
+    @Override
     public void forward() {
         if (this.direction == Direction.INBOUND) {
             ++this.current;
@@ -99,16 +117,19 @@ public class InterceptorChain {
         }
     }
 
+    @Override
     public void forward(ResourceRequest request) {
         this.request = request;
         forward();
     }
 
+    @Override
     public void forward(ResourceResponse response) {
         this.response = response;
         forward();
     }
 
+    @Override
     public void replyWith(ResourceResponse response) {
         this.direction = Direction.OUTBOUND;
         this.response = response;
@@ -119,7 +140,7 @@ public class InterceptorChain {
     private ResourceResponse response;
 
     private final ChannelHandlerContext ctx;
-    private final ArrayList<Interceptor> interceptors;
+    private final Interceptor[] interceptors;
     private int current = 0;
     private Direction direction;
 
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.container.interceptor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.liveoak.container.interceptor.extension.InterceptorConfigEntry;
+import io.liveoak.container.interceptor.extension.InterceptorsConfig;
+import io.liveoak.spi.RequestType;
+import io.liveoak.spi.ResourcePath;
+import io.liveoak.spi.ResourceRequest;
+import io.liveoak.spi.container.interceptor.Interceptor;
+import org.jboss.logging.Logger;
+
+/**
+ * Immutable, compiled form of the interceptors configuration.
+ *
+ * <p>Each chain is a trie of the configured resource path prefixes. Every node holds, per request type,
+ * the interceptors which apply to a request below that node, in configuration order. Selecting the
+ * interceptors for a request walks the trie to the deepest node along the request path and does not
+ * allocate.</p>
+ *
+ * <p>Compiled once for each change of the configuration or the registered interceptors.</p>
+ */
+final class InterceptorChains {
+
+    static final Interceptor[] EMPTY = new Interceptor[0];
+
+    static final InterceptorChains NONE = new InterceptorChains(Collections.emptyMap());
+
+    private static final int ALL_TYPES = (1 << RequestType.values().length) - 1;
+
+    private final Map<String, Chain> chains;
+
+    private InterceptorChains(Map<String, Chain> chains) {
+        this.chains = chains;
+    }
+
+    /**
+     * Interceptors of the chain which apply to the request, or all of them if there is no request.
+     */
+    Interceptor[] interceptors(String chainName, ResourceRequest request) {
+        Chain chain = this.chains.get(chainName);
+        if (chain == null) {
+            return EMPTY;
+        }
+        if (request == null) {
+            return chain.all;
+        }
+
+        Node node = chain.root;
+        List<ResourcePath.Segment> segments = request.resourcePath().segments();
+        for (int i = 0; i < segments.size(); ++i) {
+            Node child = node.children.get(segments.get(i).name());
+            if (child == null) {
+                break;
+            }
+            node = child;
+        }
+        return node.byType[request.requestType().ordinal()];
+    }
+
+    static InterceptorChains compile(InterceptorsConfig config, Map<String, Interceptor> interceptors) {
+        Map<String, Chain> chains = new HashMap<>();
+        for (String chainName : config.getChainNames()) {
+            List<Entry> entries = new ArrayList<>();
+            for (InterceptorConfigEntry configEntry : config.getChainConfig(chainName)) {
+                String interceptorName = configEntry.getInterceptorName();
+                Interceptor interceptor = interceptors.get(interceptorName);
+                if (interceptor == null) {
+                    log.warnf("No interceptor under key '%s'", interceptorName);
+                    continue;
+                }
+                entries.add(new Entry(interceptor, configEntry));
+            }
+            chains.put(chainName, compile(entries));
+        }
+        return new InterceptorChains(chains);
+    }
+
+    private static Chain compile(List<Entry> entries) {
+        BuildNode root = new BuildNode();
+        for (Entry entry : entries) {
+            if (entry.prefix != null) {
+                BuildNode node = root;
+                for (ResourcePath.Segment segment : entry.prefix) {
+                    node = node.children.computeIfAbsent(segment.name(), (name) -> new BuildNode());
+                }
+            }
+        }
+
+        Interceptor[] all = new Interceptor[entries.size()];
+        for (int i = 0; i < all.length; ++i) {
+            all[i] = entries.get(i).interceptor;
+        }
+        return new Chain(compile(root, new ArrayList<>(), entries), all);
+    }
+
+    private static Node compile(BuildNode node, List<String> path, List<Entry> entries) {
+        Interceptor[][] byType = new Interceptor[RequestType.values().length][];
+        for (RequestType type : RequestType.values()) {
+            List<Interceptor> selected = new ArrayList<>();
+            for (Entry entry : entries) {
+                if ((entry.types & (1 << type.ordinal())) != 0 && entry.appliesBelow(path)) {
+                    selected.add(entry.interceptor);
+                }
+            }
+            byType[type.ordinal()] = selected.isEmpty() ? EMPTY : selected.toArray(new Interceptor[selected.size()]);
+        }
+
+        Map<String, Node> children = new HashMap<>();
+        for (Map.Entry<String, BuildNode> child : node.children.entrySet()) {
+            path.add(child.getKey());
+            children.put(child.getKey(), compile(child.getValue(), path, entries));
+            path.remove(path.size() - 1);
+        }
+        return new Node(children.isEmpty() ? Collections.emptyMap() : children, byType);
+    }
+
+    private static final class Chain {
+
+        Chain(Node root, Interceptor[] all) {
+            this.root = root;
+            this.all = all;
+        }
+
+        final Node root;
+        final Interceptor[] all;
+    }
+
+    private static final class Node {
+
+        Node(Map<String, Node> children, Interceptor[][] byType) {
+            this.children = children;
+            this.byType = byType;
+        }
+
+        final Map<String, Node> children;
+        final Interceptor[][] byType;
+    }
+
+    private static final class Entry {
+
+        Entry(Interceptor interceptor, InterceptorConfigEntry configEntry) {
+            this.interceptor = interceptor;
+            this.prefix = configEntry.getResourcePathMapping() != null ? new ResourcePath(configEntry.getResourcePathMapping()).segments() : null;
+
+            String typeMapping = configEntry.getRequestTypeMapping();
+            int types = ALL_TYPES;
+            if (typeMapping != null) {
+                types = 0;
+                for (RequestType type : RequestType.values()) {
+                    if (type.matches(typeMapping)) {
+                        types |= 1 << type.ordinal();
+                    }
+                }
+            }
+            this.types = types;
+        }
+
+        /**
+         * Whether the prefix is the given path or one of its ancestors.
+         */
+        boolean appliesBelow(List<String> path) {
+            if (this.prefix == null) {
+                return true;
+            }
+            if (this.prefix.size() > path.size()) {
+                return false;
+            }
+            for (int i = 0; i < this.prefix.size(); ++i) {
+                if (!this.prefix.get(i).name().equals(path.get(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        final Interceptor interceptor;
+        final List<ResourcePath.Segment> prefix;
+        final int types;
+    }
+
+    private static class BuildNode {
+        final Map<String, BuildNode> children = new HashMap<>();
+    }
+
+    private static final Logger log = Logger.getLogger(InterceptorChains.class);
+}
@@ -1,16 +1,12 @@
 package io.liveoak.container.interceptor;
 
 import java.io.IOException;
-import java.util.LinkedList;
-import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicReference;
 
-import io.liveoak.container.interceptor.extension.InterceptorConfigEntry;
 import io.liveoak.container.interceptor.extension.InterceptorsConfig;
-import io.liveoak.spi.ResourcePath;
 import io.liveoak.spi.ResourceRequest;
 import io.liveoak.spi.ResourceResponse;
 import io.liveoak.spi.container.interceptor.Interceptor;
@@ -29,6 +25,7 @@ public class InterceptorManagerImpl implements InterceptorManager {
     @Override
     public synchronized void register(String interceptorName, Interceptor interceptor) {
         this.interceptors.put(interceptorName, interceptor);
+        recompile();
     }
 
     @Override
@@ -39,12 +36,14 @@ public class InterceptorManagerImpl implements InterceptorManager {
                 break;
             }
         }
+        recompile();
     }
 
     @Override
-    public void setInterceptorsConfig(ResourceState resourceState) throws IOException {
+    public synchronized void setInterceptorsConfig(ResourceState resourceState) throws IOException {
         InterceptorsConfig result = InterceptorsConfig.createConfigFromResourceState(resourceState);
         this.interceptorsConfig.set(result);
+        recompile();
         if (log.isDebugEnabled()) {
             log.debugf("Interceptors configuration updated: %s", interceptorsConfig);
         }
@@ -58,60 +57,47 @@ public class InterceptorManagerImpl implements InterceptorManager {
 
     @Override
     public void fireInbound(String chainName, ChannelHandlerContext ctx, ResourceRequest request) {
-        List<Interceptor> interceptors = getInterceptors(chainName, request);
+        Interceptor[] interceptors = this.chains.interceptors(chainName, request);
         InterceptorChain chain = new InterceptorChain(ctx, interceptors, request);
         chain.fireInbound();
     }
 
     @Override
     public void fireOutbound(String chainName, ChannelHandlerContext ctx, ResourceResponse response) {
-        List<Interceptor> interceptors = getInterceptors(chainName, response.inReplyTo());
+        Interceptor[] interceptors = this.chains.interceptors(chainName, response.inReplyTo());
         InterceptorChain chain = new InterceptorChain(ctx, interceptors, response);
         chain.fireOutbound();
     }
 
     @Override
     public void fireComplete(String chainName, UUID requestId) {
-        List<Interceptor> interceptors = getInterceptors(chainName, null);
-        for (Interceptor each : interceptors) {
+        for (Interceptor each : this.chains.interceptors(chainName, null)) {
             each.onComplete(requestId);
         }
     }
 
-    private List<Interceptor> getInterceptors(String chainName, ResourceRequest request) {
-        List<Interceptor> result = new LinkedList<>();
-
-        List<InterceptorConfigEntry> chainConfigEntries = interceptorsConfig.get().getChainConfig(chainName);
-        for (InterceptorConfigEntry configEntry : chainConfigEntries) {
-
-            String interceptorName = configEntry.getInterceptorName();
-            Interceptor interceptor = interceptors.get(interceptorName);
-            if (interceptor == null) {
-                log.warnf("No interceptor under key '%s'", interceptorName);
-                continue;
-            }
-
-            // Verify resourcePath matches
-            if (configEntry.getResourcePathMapping() != null && request != null) {
-                ResourcePath interceptorResPath = new ResourcePath(configEntry.getResourcePathMapping());
-                if (!interceptorResPath.isParentOf(request.resourcePath())) {
-                    continue;
-                }
-            }
-
-            // Verify requestType matches
-            if (configEntry.getRequestTypeMapping() != null && request != null) {
-                if (!request.requestType().matches(configEntry.getRequestTypeMapping())) {
-                    continue;
-                }
+    @Override
+    public boolean requiresResponseState(String chainName, ResourceRequest request) {
+        for (Interceptor each : this.chains.interceptors(chainName, request)) {
+            if (each.requiresResponseState()) {
+                return true;
             }
-
-            result.add(interceptor);
         }
+        return false;
+    }
+
+    Interceptor[] interceptors(String chainName, ResourceRequest request) {
+        return this.chains.interceptors(chainName, request);
+    }
 
-        return result;
+    /**
+     * Rebuild the compiled chains. Requests in flight keep the chains they started with.
+     */
+    private void recompile() {
+        this.chains = InterceptorChains.compile(this.interceptorsConfig.get(), this.interceptors);
     }
 
     private AtomicReference<InterceptorsConfig> interceptorsConfig = new AtomicReference<>(new InterceptorsConfig());
     private Map<String, Interceptor> interceptors = new ConcurrentHashMap<>();
+    private volatile InterceptorChains chains = InterceptorChains.NONE;
 }
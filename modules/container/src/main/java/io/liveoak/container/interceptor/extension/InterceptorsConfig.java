@@ -16,6 +16,7 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * @author <a href="mailto:mposolda@redhat.com">Marek Posolda</a>
@@ -28,6 +29,10 @@ public class InterceptorsConfig {
         interceptorChainConfigs.put(name, chainConfigEntry);
     }
 
+    public Set<String> getChainNames() {
+        return interceptorChainConfigs.keySet();
+    }
+
     public List<InterceptorConfigEntry> getChainConfig(String name) {
         List<InterceptorConfigEntry> chainConfig =  interceptorChainConfigs.get(name);
         return chainConfig!=null ? chainConfig : Collections.EMPTY_LIST;
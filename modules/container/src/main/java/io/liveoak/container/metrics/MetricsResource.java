@@ -0,0 +1,79 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.container.metrics;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import io.liveoak.common.metrics.LatencyHistogram;
+import io.liveoak.common.metrics.RequestMetrics;
+import io.liveoak.spi.RequestContext;
+import io.liveoak.spi.resource.RootResource;
+import io.liveoak.spi.resource.SynchronousResource;
+import io.liveoak.spi.resource.async.Resource;
+
+/**
+ * Exposes request metrics at <code>/admin/system/metrics</code>, per chain and then per path prefix
+ * and request type. Latencies are in milliseconds. The same metrics are available in the Prometheus
+ * text format at <code>/admin/system/metrics/prometheus</code>.
+ */
+public class MetricsResource implements RootResource, SynchronousResource {
+
+    public static final String ID = "metrics";
+
+    public MetricsResource(RequestMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void parent(Resource parent) {
+        this.parent = parent;
+    }
+
+    @Override
+    public Resource parent() {
+        return this.parent;
+    }
+
+    @Override
+    public String id() {
+        return ID;
+    }
+
+    @Override
+    public Map<String, ?> properties(RequestContext ctx) throws Exception {
+        Map<String, Map<String, Object>> result = new LinkedHashMap<>();
+        for (RequestMetrics.Series series : this.metrics.series()) {
+            result.computeIfAbsent(series.chain(), (name) -> new LinkedHashMap<>())
+                    .put(series.path() + " " + series.type(), toMap(series));
+        }
+        return result;
+    }
+
+    @Override
+    public Collection<Resource> members(RequestContext ctx) throws Exception {
+        return Collections.singletonList(new PrometheusResource(this, this.metrics));
+    }
+
+    private static Map<String, Object> toMap(RequestMetrics.Series series) {
+        LatencyHistogram.Snapshot latency = series.latency().snapshot();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("count", latency.count());
+        result.put("errors", series.errors());
+        result.put("in-flight", series.inFlight());
+        result.put("mean-ms", latency.mean() / 1000);
+        result.put("p50-ms", latency.percentile(0.5) / 1000.0);
+        result.put("p99-ms", latency.percentile(0.99) / 1000.0);
+        result.put("p999-ms", latency.percentile(0.999) / 1000.0);
+        result.put("max-ms", latency.max() / 1000.0);
+        return result;
+    }
+
+    private final RequestMetrics metrics;
+    private Resource parent;
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.container.metrics;
+
+import java.nio.charset.StandardCharsets;
+
+import io.liveoak.common.metrics.RequestMetrics;
+import io.liveoak.spi.MediaType;
+import io.liveoak.spi.RequestContext;
+import io.liveoak.spi.resource.async.BinaryContentSink;
+import io.liveoak.spi.resource.async.BinaryResource;
+import io.liveoak.spi.resource.async.Resource;
+import io.netty.buffer.Unpooled;
+
+/**
+ * Request metrics in the Prometheus text exposition format, rendered once per request of this resource.
+ */
+public class PrometheusResource implements BinaryResource {
+
+    public static final String ID = "prometheus";
+
+    public PrometheusResource(Resource parent, RequestMetrics metrics) {
+        this.parent = parent;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Resource parent() {
+        return this.parent;
+    }
+
+    @Override
+    public String id() {
+        return ID;
+    }
+
+    @Override
+    public MediaType mediaType() {
+        return MediaType.TEXT;
+    }
+
+    @Override
+    public long contentLength() {
+        return content().length;
+    }
+
+    @Override
+    public void readContent(RequestContext ctx, BinaryContentSink sink) throws Exception {
+        sink.accept(Unpooled.wrappedBuffer(content()));
+        sink.close();
+    }
+
+    private byte[] content() {
+        if (this.content == null) {
+            this.content = this.metrics.toPrometheus().getBytes(StandardCharsets.UTF_8);
+        }
+        return this.content;
+    }
+
+    private final Resource parent;
+    private final RequestMetrics metrics;
+    private byte[] content;
+}
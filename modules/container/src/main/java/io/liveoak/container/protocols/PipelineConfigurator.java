@@ -18,9 +18,12 @@ import io.liveoak.container.interceptor.InterceptorHandler;
 import io.liveoak.container.interceptor.InterceptorManagerImpl;
 import io.liveoak.container.protocols.http.CORSHandler;
 import io.liveoak.container.protocols.http.CORSPreflightOptionsHandler;
+import io.liveoak.container.protocols.http.CompressionPolicy;
 import io.liveoak.container.protocols.http.HttpRequestBodyHandler;
 import io.liveoak.container.protocols.http.HttpResourceRequestDecoder;
 import io.liveoak.container.protocols.http.HttpResourceResponseEncoder;
+import io.liveoak.container.protocols.http.SelectiveHttpContentCompressor;
+import io.liveoak.container.protocols.http.StreamingResponsePolicy;
 import io.liveoak.container.protocols.local.LocalResourceResponseEncoder;
 import io.liveoak.container.protocols.websocket.WebSocketHandshakerHandler;
 import io.liveoak.container.protocols.websocket.WebSocketStompFrameDecoder;
@@ -28,6 +31,7 @@ import io.liveoak.container.protocols.websocket.WebSocketStompFrameEncoder;
 import io.liveoak.container.subscriptions.SecuredStompServerContext;
 import io.liveoak.container.subscriptions.SubscriptionWatcher;
 import io.liveoak.container.tenancy.GlobalContext;
+import io.liveoak.container.workers.WorkerPool;
 import io.liveoak.spi.client.Client;
 import io.liveoak.spi.container.SubscriptionManager;
 import io.liveoak.stomp.common.StompFrameDecoder;
@@ -44,13 +48,10 @@ import io.liveoak.stomp.server.protocol.SubscribeHandler;
 import io.liveoak.stomp.server.protocol.UnsubscribeHandler;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelPipeline;
-import io.netty.handler.codec.http.HttpContentCompressor;
 import io.netty.handler.codec.http.HttpObjectAggregator;
 import io.netty.handler.codec.http.HttpRequestDecoder;
 import io.netty.handler.codec.http.HttpResponseEncoder;
 
-import java.util.concurrent.Executor;
-
 /**
  * @author Bob McWhirter
  */
@@ -91,11 +92,11 @@ public class PipelineConfigurator {
         return this.subscriptionManager;
     }
 
-    public void workerPool(Executor workerPool) {
+    public void workerPool(WorkerPool workerPool) {
         this.workerPool = workerPool;
     }
 
-    public Executor workerPool() {
+    public WorkerPool workerPool() {
         return this.workerPool;
     }
 
@@ -217,10 +218,10 @@ public class PipelineConfigurator {
         pipeline.addLast("cors-preflight-handler", new CORSPreflightOptionsHandler());
         //pipeline.addLast( new DebugHandler( "server-post-cors" ) );
 
-        pipeline.addLast("deflater", new HttpContentCompressor(1));
+        pipeline.addLast("deflater", new SelectiveHttpContentCompressor(1, CompressionPolicy.instance()));
 
         pipeline.addLast("http-resource-decoder", new HttpResourceRequestDecoder(this.codecManager));
-        pipeline.addLast("http-resource-encoder", new HttpResourceResponseEncoder(this.codecManager));
+        pipeline.addLast("http-resource-encoder", new HttpResourceResponseEncoder(this.codecManager, this.workerPool));
         pipeline.addLast("http-request-body-handler", new HttpRequestBodyHandler());
         pipeline.addLast("interceptor", new InterceptorHandler("http", this.interceptorManager));
         pipeline.addLast("request-context-disposer", new RequestContextDisposerHandler());
@@ -230,7 +231,7 @@ public class PipelineConfigurator {
 
         pipeline.addLast("subscription-watcher", new SubscriptionWatcher(this.subscriptionManager));
         //pipeline.addLast( new DebugHandler( "server-debug" ) );
-        pipeline.addLast("resource-state-handler", new ResourceStateHandler(this.workerPool));
+        pipeline.addLast("resource-state-handler", new ResourceStateHandler(this.workerPool, new StreamingResponsePolicy("http", this.codecManager, this.interceptorManager)));
         pipeline.addLast("object-handler", new ResourceHandler(this.globalContext, this.workerPool));
         pipeline.addLast("error-handler", new ErrorHandler());
     }
@@ -251,6 +252,6 @@ public class PipelineConfigurator {
     private ResourceCodecManager codecManager;
     private SubscriptionManager subscriptionManager;
     private InterceptorManagerImpl interceptorManager;
-    private Executor workerPool;
+    private WorkerPool workerPool;
 
 }
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.container.protocols.http;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpResponse;
+
+/**
+ * Decides which HTTP responses are worth compressing.
+ *
+ * <p>Text, JSON, XML, JavaScript and SVG content is compressed. Content which is already compressed,
+ * such as most images, audio, video, fonts and archives, is not, nor are partial responses or bodies
+ * smaller than <code>liveoak.http.compression-min-size</code> bytes (1024 by default).</p>
+ */
+public class CompressionPolicy {
+
+    public static final String PREFIX = "liveoak.http.";
+
+    public static final int DEFAULT_MIN_SIZE = 1024;
+
+    public static final String GZIP = "gzip";
+
+    public static final String DEFLATE = "deflate";
+
+    private static final Set<String> COMPRESSIBLE_SUBTYPES = new HashSet<>(Arrays.asList(
+            "json", "javascript", "ecmascript", "x-javascript", "xml", "xhtml+xml", "svg+xml", "rss+xml", "atom+xml",
+            "vnd.ms-fontobject", "x-font-ttf", "x-font-otf", "font-sfnt"));
+
+    private static final String[] CODINGS = {GZIP, DEFLATE};
+
+    private static final Set<String> COMPRESSIBLE_SUFFIXES = new HashSet<>(Arrays.asList("json", "xml"));
+
+    public static CompressionPolicy instance() {
+        return INSTANCE;
+    }
+
+    public CompressionPolicy(int minSize) {
+        this.minSize = minSize;
+    }
+
+    /**
+     * @param contentType   the value of a <code>Content-Type</code> header, or null
+     * @param contentLength the length of the body, or -1 if not known
+     */
+    public boolean shouldCompress(String contentType, long contentLength) {
+        if (contentLength >= 0 && contentLength < this.minSize) {
+            return false;
+        }
+        return compressible(contentType);
+    }
+
+    public boolean shouldCompress(HttpResponse response) {
+        HttpHeaders headers = response.headers();
+        if (headers.contains(HttpHeaders.Names.CONTENT_RANGE)) {
+            return false;
+        }
+        long contentLength = -1;
+        String value = headers.get(HttpHeaders.Names.CONTENT_LENGTH);
+        if (value != null) {
+            try {
+                contentLength = Long.parseLong(value);
+            } catch (NumberFormatException e) {
+                // compress as if unknown
+            }
+        }
+        // responses without a declared type are our own encoded JSON
+        String contentType = headers.get(HttpHeaders.Names.CONTENT_TYPE);
+        return shouldCompress(contentType != null ? contentType : "application/json", contentLength);
+    }
+
+    /**
+     * @return true if the client accepts a content coding we can compress with
+     */
+    public static boolean accepted(String acceptEncoding) {
+        return preferredCoding(acceptEncoding) != null;
+    }
+
+    /**
+     * Choose the content coding to compress with, from an <code>Accept-Encoding</code> header.
+     *
+     * <p>The coding with the highest quality wins, gzip if gzip and deflate are equally acceptable.</p>
+     *
+     * @return <code>gzip</code>, <code>deflate</code>, or null if the client accepts neither
+     */
+    public static String preferredCoding(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return null;
+        }
+        float gzip = -1;
+        float deflate = -1;
+        float any = -1;
+        for (String element : acceptEncoding.toLowerCase(Locale.ENGLISH).split(",")) {
+            String[] parts = element.split(";");
+            String coding = parts[0].trim();
+            float q = 1;
+            for (int i = 1; i < parts.length; ++i) {
+                String param = parts[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        q = Float.parseFloat(param.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzip = Math.max(gzip, q);
+            } else if (coding.equals("deflate")) {
+                deflate = Math.max(deflate, q);
+            } else if (coding.equals("*")) {
+                any = Math.max(any, q);
+            }
+        }
+        // codings which are not listed take the quality of *
+        if (gzip < 0) {
+            gzip = any;
+        }
+        if (deflate < 0) {
+            deflate = any;
+        }
+        if (gzip <= 0 && deflate <= 0) {
+            return null;
+        }
+        return gzip >= deflate ? GZIP : DEFLATE;
+    }
+
+    /**
+     * The entity tag of content sent with a content coding, which must differ from that of the identity content.
+     *
+     * @param etag   the quoted entity tag of the identity content, optionally weak
+     * @param coding the content coding, such as <code>gzip</code>
+     * @return the entity tag with the coding appended inside the quotes
+     */
+    public static String codedEntityTag(String etag, String coding) {
+        if (etag == null || !etag.endsWith("\"") || coding == null) {
+            return etag;
+        }
+        return etag.substring(0, etag.length() - 1) + "-" + coding + "\"";
+    }
+
+    /**
+     * Undo {@link #codedEntityTag(String, String)}, so that tags of any coding of the same content compare equal.
+     */
+    public static String identityEntityTag(String etag) {
+        for (String coding : CODINGS) {
+            String suffix = "-" + coding + "\"";
+            if (etag.endsWith(suffix)) {
+                return etag.substring(0, etag.length() - suffix.length()) + "\"";
+            }
+        }
+        return etag;
+    }
+
+    static boolean compressible(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        String type = contentType.toLowerCase(Locale.ENGLISH);
+        int semiLoc = type.indexOf(';');
+        if (semiLoc >= 0) {
+            type = type.substring(0, semiLoc);
+        }
+        type = type.trim();
+
+        int slashLoc = type.indexOf('/');
+        if (slashLoc < 0) {
+            return false;
+        }
+        String major = type.substring(0, slashLoc);
+        String subtype = type.substring(slashLoc + 1);
+
+        if (major.equals("text")) {
+            return true;
+        }
+        if (COMPRESSIBLE_SUBTYPES.contains(subtype)) {
+            return true;
+        }
+        int plusLoc = subtype.lastIndexOf('+');
+        return plusLoc >= 0 && COMPRESSIBLE_SUFFIXES.contains(subtype.substring(plusLoc + 1));
+    }
+
+    private static final CompressionPolicy INSTANCE = new CompressionPolicy(Integer.getInteger(PREFIX + "compression-min-size", DEFAULT_MIN_SIZE));
+
+    private final int minSize;
+}
@@ -5,6 +5,7 @@
  */
 package io.liveoak.container.protocols.http;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import io.liveoak.common.DefaultResourceErrorResponse;
@@ -13,8 +14,10 @@ import io.liveoak.common.DefaultResourceResponse;
 import io.liveoak.common.codec.EncodingResult;
 import io.liveoak.common.codec.IncompatibleMediaTypeException;
 import io.liveoak.common.codec.ResourceCodecManager;
+import io.liveoak.container.ErrorHandler;
 import io.liveoak.container.protocols.RequestCompleteEvent;
 import io.liveoak.container.tenancy.InternalApplication;
+import io.liveoak.container.workers.WorkerPool;
 import io.liveoak.spi.Application;
 import io.liveoak.spi.MediaType;
 import io.liveoak.spi.MediaTypeMatcher;
@@ -28,6 +31,7 @@ import io.liveoak.spi.ResourceResponse;
 import io.liveoak.spi.resource.async.BinaryContentSink;
 import io.liveoak.spi.resource.async.BinaryResource;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.MessageToMessageEncoder;
@@ -48,7 +52,17 @@ import org.jboss.logging.Logger;
 public class HttpResourceResponseEncoder extends MessageToMessageEncoder<DefaultResourceResponse> {
 
     public HttpResourceResponseEncoder(ResourceCodecManager codecManager) {
+        this(codecManager, null);
+    }
+
+    public HttpResourceResponseEncoder(ResourceCodecManager codecManager, WorkerPool workerPool) {
+        this(codecManager, workerPool, CompressionPolicy.instance());
+    }
+
+    public HttpResourceResponseEncoder(ResourceCodecManager codecManager, WorkerPool workerPool, CompressionPolicy compressionPolicy) {
         this.codecManager = codecManager;
+        this.workerPool = workerPool;
+        this.compressionPolicy = compressionPolicy;
     }
 
     @Override
@@ -122,6 +136,10 @@ public class HttpResourceResponseEncoder extends MessageToMessageEncoder<Default
                             responseStatusCode = HttpResponseStatus.METHOD_NOT_ALLOWED.code();
                             responseMessage = "Delete not supported";
                             break;
+                        case SERVICE_UNAVAILABLE:
+                            responseStatusCode = HttpResponseStatus.SERVICE_UNAVAILABLE.code();
+                            responseMessage = HttpResponseStatus.SERVICE_UNAVAILABLE.reasonPhrase();
+                            break;
                         case INTERNAL_ERROR:
                             responseStatusCode = HttpResponseStatus.INTERNAL_SERVER_ERROR.code();
                             responseMessage = HttpResponseStatus.INTERNAL_SERVER_ERROR.reasonPhrase();
@@ -162,6 +180,13 @@ public class HttpResourceResponseEncoder extends MessageToMessageEncoder<Default
         DefaultHttpResponse response;
         HttpResponseStatus responseStatus;
 
+        if (msg.streaming() && msg.state() == null) {
+            responseStatus = new HttpResponseStatus(responseStatusCode, responseMessage);
+            new StreamingResponseWriter(ctx, msg, responseStatus, responseHeaders,
+                    this.workerPool != null ? this.workerPool.executorFor(msg.inReplyTo()) : null, (request, t) -> writeError(ctx, request, t)).write();
+            return;
+        }
+
         EncodingResult encodingResult = null;
         if (shouldEncodeState) {
             MediaTypeMatcher matcher = msg.inReplyTo().mediaTypeMatcher();
@@ -184,7 +209,7 @@ public class HttpResourceResponseEncoder extends MessageToMessageEncoder<Default
             }
 
             try {
-                encodingResult = encodeState(msg.inReplyTo().requestContext(), matcher, msg);
+                encodingResult = encodeState(ctx.alloc(), msg.inReplyTo().requestContext(), matcher, msg);
             } catch (IncompatibleMediaTypeException e) {
                 log.error("Incompatible media type", e);
                 responseStatus = new HttpResponseStatus(HttpResponseStatus.NOT_ACCEPTABLE.code(), e.getMessage());
@@ -208,6 +233,10 @@ public class HttpResourceResponseEncoder extends MessageToMessageEncoder<Default
 
             if (msg.resource() instanceof BinaryResource) {
                 BinaryResource bin = (BinaryResource) msg.resource();
+                if (msg.responseType() == ResourceResponse.ResponseType.READ) {
+                    new StaticContentWriter(ctx, msg, bin, responseStatus, this.compressionPolicy).write();
+                    return;
+                }
                 if (bin.contentLength() == 0) {
                     response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, responseStatus);
                     response.headers().add(HttpHeaders.Names.CONTENT_LENGTH, 0);
@@ -259,11 +288,28 @@ public class HttpResourceResponseEncoder extends MessageToMessageEncoder<Default
         ctx.fireUserEventTriggered(new RequestCompleteEvent(msg.requestId()));
     }
 
-    protected EncodingResult encodeState(RequestContext ctx, MediaTypeMatcher mediaTypeMatcher, ResourceResponse response) throws Exception {
-        return this.codecManager.encode(ctx, mediaTypeMatcher, response);
+    protected void writeError(ChannelHandlerContext ctx, ResourceRequest inReplyTo, Throwable t) {
+        ctx.executor().execute(() -> {
+            List<Object> out = new ArrayList<>();
+            try {
+                encode(ctx, (DefaultResourceResponse) ErrorHandler.errorResponse(inReplyTo, t), out);
+            } catch (Exception e) {
+                log.error("Could not encode HTTP error response", e);
+                ctx.close();
+                return;
+            }
+            out.forEach(ctx::write);
+            ctx.flush();
+        });
+    }
+
+    protected EncodingResult encodeState(ByteBufAllocator allocator, RequestContext ctx, MediaTypeMatcher mediaTypeMatcher, ResourceResponse response) throws Exception {
+        return this.codecManager.encode(allocator, ctx, mediaTypeMatcher, response);
     }
 
     private ResourceCodecManager codecManager;
+    private WorkerPool workerPool;
+    private CompressionPolicy compressionPolicy;
 
     private static final Logger log = Logger.getLogger(HttpResourceResponseEncoder.class);
 }
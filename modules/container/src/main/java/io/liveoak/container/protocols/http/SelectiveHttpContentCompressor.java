@@ -0,0 +1,44 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.container.protocols.http;
+
+import io.netty.handler.codec.http.HttpContentCompressor;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpResponse;
+
+/**
+ * Compresses only the responses a {@link CompressionPolicy} deems worth it, passing the rest, and responses
+ * which already carry a <code>Content-Encoding</code>, through untouched.
+ *
+ * <p>Compressible responses get <code>Vary: Accept-Encoding</code>, and the <code>ETag</code> of a compressed
+ * response names its coding, so that caches tell it apart from the identity content.</p>
+ */
+public class SelectiveHttpContentCompressor extends HttpContentCompressor {
+
+    public SelectiveHttpContentCompressor(int compressionLevel, CompressionPolicy policy) {
+        super(compressionLevel);
+        this.policy = policy;
+    }
+
+    @Override
+    protected Result beginEncode(HttpResponse headers, String acceptEncoding) throws Exception {
+        // content which comes precompressed is already encoded
+        if (headers.headers().contains(HttpHeaders.Names.CONTENT_ENCODING) || !this.policy.shouldCompress(headers)) {
+            return null;
+        }
+        if (!headers.headers().contains(HttpHeaders.Names.VARY)) {
+            headers.headers().add(HttpHeaders.Names.VARY, HttpHeaders.Names.ACCEPT_ENCODING);
+        }
+        Result result = super.beginEncode(headers, acceptEncoding);
+        String etag = headers.headers().get(HttpHeaders.Names.ETAG);
+        if (result != null && etag != null) {
+            headers.headers().set(HttpHeaders.Names.ETAG, CompressionPolicy.codedEntityTag(etag, result.targetContentEncoding()));
+        }
+        return result;
+    }
+
+    private final CompressionPolicy policy;
+}
@@ -0,0 +1,308 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.container.protocols.http;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.text.ParseException;
+import java.util.Date;
+
+import io.liveoak.common.DefaultResourceResponse;
+import io.liveoak.container.protocols.RequestCompleteEvent;
+import io.liveoak.spi.resource.async.BinaryContentSink;
+import io.liveoak.spi.resource.async.BinaryResource;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.DefaultFileRegion;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.HttpHeaderDateFormat;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.ssl.SslHandler;
+import org.jboss.logging.Logger;
+
+/**
+ * Writes the content of a {@link BinaryResource} read.
+ *
+ * <p>Resources which can be validated get <code>ETag</code> and <code>Last-Modified</code> headers, and
+ * matching <code>If-None-Match</code> or <code>If-Modified-Since</code> requests get a <code>304 Not Modified</code>.
+ * Content sent compressed carries the entity tag with its coding appended, and <code>Vary: Accept-Encoding</code>.</p>
+ *
+ * <p>Content held in a file is sent as a file region, which the kernel copies straight to the socket,
+ * unless the connection is encrypted or the response is to be compressed. Such content may also be
+ * requested in part, with a single byte range in a <code>Range</code> header. Any other content is
+ * streamed from {@link BinaryResource#readContent}, unless the response is to be compressed and the resource
+ * holds its content precompressed, in which case that is sent instead.</p>
+ */
+public class StaticContentWriter {
+
+    static final long[] UNSATISFIABLE = new long[0];
+
+    public StaticContentWriter(ChannelHandlerContext ctx, DefaultResourceResponse response, BinaryResource resource,
+                               HttpResponseStatus status, CompressionPolicy compressionPolicy) {
+        this.ctx = ctx;
+        this.response = response;
+        this.resource = resource;
+        this.status = status;
+        this.compressionPolicy = compressionPolicy;
+    }
+
+    public void write() throws Exception {
+        Object attribute = this.response.inReplyTo().requestContext().requestAttributes().getAttribute(HttpResourceRequestDecoder.HTTP_REQUEST);
+        HttpHeaders requestHeaders = attribute instanceof HttpRequest ? ((HttpRequest) attribute).headers() : HttpHeaders.EMPTY_HEADERS;
+
+        long length = this.resource.contentLength();
+        long lastModified = this.resource.lastModified();
+        String etag = this.resource.entityTag();
+        File file = this.resource.contentFile();
+        String contentType = String.valueOf(this.resource.mediaType());
+
+        HttpHeaders headers = new DefaultHttpHeaders();
+        headers.add(HttpHeaders.Names.LOCATION, this.resource.uri().toString());
+        headers.add(HttpHeaders.Names.CONTENT_TYPE, contentType);
+        if (etag != null) {
+            headers.add(HttpHeaders.Names.ETAG, etag);
+        }
+        if (lastModified > 0) {
+            headers.add(HttpHeaders.Names.LAST_MODIFIED, HttpHeaderDateFormat.get().format(new Date(lastModified)));
+        }
+
+        boolean compressible = this.compressionPolicy.shouldCompress(contentType, length);
+        if (compressible) {
+            headers.add(HttpHeaders.Names.VARY, HttpHeaders.Names.ACCEPT_ENCODING);
+        }
+        String coding = compressible ? CompressionPolicy.preferredCoding(requestHeaders.get(HttpHeaders.Names.ACCEPT_ENCODING)) : null;
+        boolean compress = coding != null;
+
+        if (notModified(requestHeaders, etag, lastModified)) {
+            headers.remove(HttpHeaders.Names.CONTENT_TYPE);
+            if (etag != null && compress) {
+                // the tag of the coding the client would have been sent
+                headers.set(HttpHeaders.Names.ETAG, CompressionPolicy.codedEntityTag(etag, coding));
+            }
+            writeFull(HttpResponseStatus.NOT_MODIFIED, headers);
+            return;
+        }
+
+        boolean zeroCopy = file != null && this.ctx.pipeline().get(SslHandler.class) == null;
+
+        long start = 0;
+        long count = length;
+        HttpResponseStatus status = this.status;
+
+        if (zeroCopy) {
+            headers.add(HttpHeaders.Names.ACCEPT_RANGES, HttpHeaders.Values.BYTES);
+            String range = requestHeaders.get(HttpHeaders.Names.RANGE);
+            if (range != null && rangeApplies(requestHeaders.get(HttpHeaders.Names.IF_RANGE), etag, lastModified)) {
+                long[] bounds = range(range, length);
+                if (bounds == UNSATISFIABLE) {
+                    headers.add(HttpHeaders.Names.CONTENT_RANGE, "bytes */" + length);
+                    writeFull(HttpResponseStatus.REQUESTED_RANGE_NOT_SATISFIABLE, headers);
+                    return;
+                }
+                if (bounds != null) {
+                    start = bounds[0];
+                    count = bounds[1] - bounds[0] + 1;
+                    status = HttpResponseStatus.PARTIAL_CONTENT;
+                    headers.add(HttpHeaders.Names.CONTENT_RANGE, "bytes " + bounds[0] + "-" + bounds[1] + "/" + length);
+                    // the compressor leaves partial responses alone
+                    compress = false;
+                }
+            }
+        }
+
+        ByteBuf encoded = compress ? this.resource.encodedContent(coding) : null;
+
+        if (count == 0) {
+            headers.add(HttpHeaders.Names.CONTENT_LENGTH, 0);
+            writeFull(status, headers);
+        } else if (encoded != null) {
+            if (etag != null) {
+                headers.set(HttpHeaders.Names.ETAG, CompressionPolicy.codedEntityTag(etag, coding));
+            }
+            headers.add(HttpHeaders.Names.CONTENT_ENCODING, coding);
+            headers.add(HttpHeaders.Names.CONTENT_LENGTH, encoded.readableBytes());
+            writeFull(status, headers, encoded);
+        } else if (zeroCopy && !compress) {
+            writeFile(status, headers, file, start, count);
+        } else {
+            writeStream(status, headers, length);
+        }
+    }
+
+    private void writeFull(HttpResponseStatus status, HttpHeaders headers) {
+        writeFull(status, headers, Unpooled.EMPTY_BUFFER);
+    }
+
+    private void writeFull(HttpResponseStatus status, HttpHeaders headers, ByteBuf content) {
+        HttpResponse res = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, status, content);
+        res.headers().add(headers);
+        if (!res.headers().contains(HttpHeaders.Names.CONTENT_LENGTH) && status != HttpResponseStatus.NOT_MODIFIED) {
+            res.headers().add(HttpHeaders.Names.CONTENT_LENGTH, 0);
+        }
+        this.ctx.writeAndFlush(res);
+        this.ctx.pipeline().fireUserEventTriggered(new RequestCompleteEvent(this.response.requestId()));
+    }
+
+    private void writeFile(HttpResponseStatus status, HttpHeaders headers, File file, long start, long count) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        HttpResponse res = new DefaultHttpResponse(HttpVersion.HTTP_1_1, status);
+        res.headers().add(headers);
+        res.headers().add(HttpHeaders.Names.CONTENT_LENGTH, count);
+
+        this.ctx.write(res);
+        // the region closes the file once written
+        this.ctx.write(new DefaultFileRegion(raf.getChannel(), start, count));
+        this.ctx.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT);
+        this.ctx.pipeline().fireUserEventTriggered(new RequestCompleteEvent(this.response.requestId()));
+    }
+
+    private void writeStream(HttpResponseStatus status, HttpHeaders headers, long length) throws Exception {
+        HttpResponse res = new DefaultHttpResponse(HttpVersion.HTTP_1_1, status);
+        res.headers().add(headers);
+        res.headers().add(HttpHeaders.Names.CONTENT_LENGTH, length);
+
+        this.resource.readContent(this.response.inReplyTo().requestContext(), new BinaryContentSink() {
+            {
+                ctx.write(res);
+            }
+
+            @Override
+            public void close() {
+                ctx.writeAndFlush(new DefaultLastHttpContent(Unpooled.EMPTY_BUFFER));
+                ctx.pipeline().fireUserEventTriggered(new RequestCompleteEvent(response.requestId()));
+            }
+
+            @Override
+            public void accept(ByteBuf byteBuf) {
+                ctx.write(new DefaultHttpContent(byteBuf));
+            }
+        });
+    }
+
+    static boolean notModified(HttpHeaders requestHeaders, String etag, long lastModified) {
+        String ifNoneMatch = requestHeaders.get(HttpHeaders.Names.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            // If-Modified-Since is ignored when If-None-Match is present
+            return etag != null && matches(ifNoneMatch, etag);
+        }
+        String ifModifiedSince = requestHeaders.get(HttpHeaders.Names.IF_MODIFIED_SINCE);
+        if (ifModifiedSince != null && lastModified > 0) {
+            try {
+                long since = HttpHeaderDateFormat.get().parse(ifModifiedSince).getTime();
+                return lastModified / 1000 <= since / 1000;
+            } catch (ParseException e) {
+                log.debug("Ignoring invalid If-Modified-Since: " + ifModifiedSince);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Weak comparison of an <code>If-None-Match</code> header with an entity tag, whichever content coding
+     * either tag was sent with.
+     */
+    static boolean matches(String ifNoneMatch, String etag) {
+        String value = ifNoneMatch.trim();
+        if (value.equals("*")) {
+            return true;
+        }
+        String opaque = opaque(etag);
+        for (String candidate : value.split(",")) {
+            if (opaque(candidate.trim()).equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A <code>Range</code> is only honoured if an <code>If-Range</code> validator, when present, still matches.
+     */
+    static boolean rangeApplies(String ifRange, String etag, long lastModified) {
+        if (ifRange == null) {
+            return true;
+        }
+        String value = ifRange.trim();
+        if (value.startsWith("\"")) {
+            return value.equals(etag);
+        }
+        if (lastModified <= 0) {
+            return false;
+        }
+        try {
+            return HttpHeaderDateFormat.get().parse(value).getTime() / 1000 == lastModified / 1000;
+        } catch (ParseException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Parse a <code>Range</code> header for a single byte range.
+     *
+     * @return the first and last byte positions, {@link #UNSATISFIABLE} if the range lies beyond the content,
+     * or null if the header should be ignored, as when it is malformed or asks for several ranges
+     */
+    static long[] range(String header, long length) {
+        String value = header.trim();
+        if (!value.startsWith("bytes=") || value.indexOf(',') >= 0) {
+            return null;
+        }
+        value = value.substring("bytes=".length()).trim();
+        int dashLoc = value.indexOf('-');
+        if (dashLoc < 0) {
+            return null;
+        }
+        String first = value.substring(0, dashLoc).trim();
+        String last = value.substring(dashLoc + 1).trim();
+        try {
+            if (first.isEmpty()) {
+                if (last.isEmpty()) {
+                    return null;
+                }
+                // the final bytes
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0 || length == 0) {
+                    return UNSATISFIABLE;
+                }
+                return new long[] {Math.max(0, length - suffix), length - 1};
+            }
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? length - 1 : Math.min(Long.parseLong(last), length - 1);
+            if (start < 0 || (!last.isEmpty() && Long.parseLong(last) < start)) {
+                return null;
+            }
+            if (start >= length) {
+                return UNSATISFIABLE;
+            }
+            return new long[] {start, end};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String opaque(String etag) {
+        return CompressionPolicy.identityEntityTag(etag.startsWith("W/") ? etag.substring(2) : etag);
+    }
+
+    private final ChannelHandlerContext ctx;
+    private final DefaultResourceResponse response;
+    private final BinaryResource resource;
+    private final HttpResponseStatus status;
+    private final CompressionPolicy compressionPolicy;
+
+    private static final Logger log = Logger.getLogger(StaticContentWriter.class);
+}
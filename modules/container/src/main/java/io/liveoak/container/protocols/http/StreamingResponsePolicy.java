@@ -0,0 +1,56 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.container.protocols.http;
+
+import java.util.function.Predicate;
+
+import io.liveoak.common.DefaultResourceResponse;
+import io.liveoak.common.codec.ResourceCodecManager;
+import io.liveoak.spi.MediaType;
+import io.liveoak.spi.ResourceErrorResponse;
+import io.liveoak.spi.ResourceResponse;
+import io.liveoak.spi.container.interceptor.InterceptorManager;
+import io.liveoak.spi.resource.async.BinaryResource;
+
+/**
+ * Decides whether a response may skip state materialization and be encoded
+ * straight to the socket by {@link HttpResourceResponseEncoder}.
+ *
+ * <p>Only JSON reads qualify, and only when no outbound interceptor on the chain
+ * needs to look at the response state.</p>
+ */
+public class StreamingResponsePolicy implements Predicate<ResourceResponse> {
+
+    public StreamingResponsePolicy(String chainName, ResourceCodecManager codecManager, InterceptorManager interceptorManager) {
+        this.chainName = chainName;
+        this.codecManager = codecManager;
+        this.interceptorManager = interceptorManager;
+    }
+
+    @Override
+    public boolean test(ResourceResponse response) {
+        if (!(response instanceof DefaultResourceResponse) || response instanceof ResourceErrorResponse) {
+            return false;
+        }
+        if (response.responseType() != ResourceResponse.ResponseType.READ) {
+            return false;
+        }
+        if (response.resource() == null || response.resource() instanceof BinaryResource) {
+            return false;
+        }
+
+        MediaType bestMatch = response.inReplyTo().mediaTypeMatcher().findBestMatch(this.codecManager.mediaTypes());
+        if (!MediaType.JSON.equals(bestMatch)) {
+            return false;
+        }
+
+        return this.interceptorManager == null || !this.interceptorManager.requiresResponseState(this.chainName, response.inReplyTo());
+    }
+
+    private final String chainName;
+    private final ResourceCodecManager codecManager;
+    private final InterceptorManager interceptorManager;
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.container.protocols.http;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
+
+import io.liveoak.common.DefaultResourceResponse;
+import io.liveoak.common.codec.ChunkedByteBufOutputStream;
+import io.liveoak.common.codec.driver.RootEncodingDriver;
+import io.liveoak.common.codec.json.JSONResourceEncoder;
+import io.liveoak.container.protocols.RequestCompleteEvent;
+import io.liveoak.spi.MediaType;
+import io.liveoak.spi.ResourceRequest;
+import io.liveoak.spi.resource.BlockingResource;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import org.jboss.logging.Logger;
+
+/**
+ * Encodes a resource as JSON directly into channel-allocated chunks, writing each one
+ * out as soon as it fills up.
+ *
+ * <p>The HTTP head is held back until the first chunk is full. Responses that fit in a
+ * single chunk are therefore sent as a regular full response with a content-length,
+ * and errors raised before any byte was written can still be reported with a proper
+ * error status. Once the head is out, the body uses chunked transfer-encoding and a
+ * late error can only be signalled by closing the connection.</p>
+ *
+ * <p>When encoding on a worker and the channel's outbound buffer is above its high water mark,
+ * the worker waits for the chunk it just wrote to go out before it encodes any more, so that a
+ * slow reader does not make the whole body pile up in memory. If the chunk is still not out after
+ * <code>liveoak.http.write-timeout</code> milliseconds (30000 by default), the connection is
+ * closed.</p>
+ */
+public class StreamingResponseWriter {
+
+    public static final int DEFAULT_CHUNK_SIZE = 8192;
+
+    public static final String WRITE_TIMEOUT = CompressionPolicy.PREFIX + "write-timeout";
+
+    public static final long DEFAULT_WRITE_TIMEOUT = 30000;
+
+    public StreamingResponseWriter(ChannelHandlerContext ctx, DefaultResourceResponse response, HttpResponseStatus status,
+                                   HttpHeaders headers, Executor workerPool, BiConsumer<ResourceRequest, Throwable> errorHandler) {
+        this.ctx = ctx;
+        this.response = response;
+        this.status = status;
+        this.headers = headers;
+        this.workerPool = workerPool;
+        this.errorHandler = errorHandler;
+    }
+
+    public void write() {
+        if (this.workerPool != null && this.response.resource() instanceof BlockingResource) {
+            try {
+                this.workerPool.execute(this::encode);
+            } catch (RejectedExecutionException e) {
+                fail(e);
+            }
+        } else {
+            encode();
+        }
+    }
+
+    protected void encode() {
+        this.out = new ChunkedByteBufOutputStream(this.ctx.alloc(), DEFAULT_CHUNK_SIZE, this::writeChunk);
+        JSONResourceEncoder encoder = new JSONResourceEncoder();
+
+        try {
+            encoder.initialize(this.out);
+            RootEncodingDriver driver = new RootEncodingDriver(this.response.inReplyTo().requestContext(), encoder, this.response.resource(),
+                    this::complete, this::fail);
+            driver.encode();
+        } catch (Throwable t) {
+            fail(t);
+        }
+    }
+
+    private void writeChunk(ByteBuf chunk) {
+        if (this.failed) {
+            chunk.release();
+            return;
+        }
+        if (!this.headWritten) {
+            HttpResponse head = new DefaultHttpResponse(HttpVersion.HTTP_1_1, this.status);
+            addHeaders(head);
+            HttpHeaders.setTransferEncodingChunked(head);
+            this.ctx.write(head);
+            this.headWritten = true;
+        }
+        ChannelFuture written = this.ctx.writeAndFlush(new DefaultHttpContent(chunk));
+        if (!this.ctx.channel().isWritable() && !this.ctx.executor().inEventLoop()) {
+            awaitWritten(written);
+        }
+    }
+
+    private void awaitWritten(ChannelFuture written) {
+        if (!written.awaitUninterruptibly(WRITE_TIMEOUT_MILLIS)) {
+            fail(new TimeoutException("Response not read within " + WRITE_TIMEOUT_MILLIS + "ms"));
+        } else if (!written.isSuccess()) {
+            fail(written.cause());
+        }
+    }
+
+    private void complete() {
+        if (this.failed) {
+            return;
+        }
+        ByteBuf remainder = this.out.remainder();
+        if (remainder == null) {
+            remainder = Unpooled.EMPTY_BUFFER;
+        }
+
+        if (this.headWritten) {
+            this.ctx.writeAndFlush(new DefaultLastHttpContent(remainder));
+        } else {
+            DefaultFullHttpResponse full = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, this.status, remainder);
+            addHeaders(full);
+            full.headers().add(HttpHeaders.Names.CONTENT_LENGTH, remainder.readableBytes());
+            this.ctx.writeAndFlush(full);
+        }
+        this.ctx.fireUserEventTriggered(new RequestCompleteEvent(this.response.requestId()));
+    }
+
+    private void fail(Throwable t) {
+        if (this.failed) {
+            return;
+        }
+        this.failed = true;
+        if (this.out != null) {
+            this.out.discard();
+        }
+
+        if (this.headWritten) {
+            log.error("Could not finish streaming HTTP response, closing connection", t);
+            this.ctx.flush();
+            this.ctx.close();
+            this.ctx.fireUserEventTriggered(new RequestCompleteEvent(this.response.requestId()));
+        } else {
+            this.errorHandler.accept(this.response.inReplyTo(), t);
+        }
+    }
+
+    private void addHeaders(HttpResponse head) {
+        head.headers().add(HttpHeaders.Names.LOCATION, this.response.resource().uri().toString());
+        head.headers().add(HttpHeaders.Names.CONTENT_TYPE, MediaType.JSON);
+        head.headers().add(this.headers);
+    }
+
+    private final ChannelHandlerContext ctx;
+    private final DefaultResourceResponse response;
+    private final HttpResponseStatus status;
+    private final HttpHeaders headers;
+    private final Executor workerPool;
+    private final BiConsumer<ResourceRequest, Throwable> errorHandler;
+
+    private ChunkedByteBufOutputStream out;
+    private boolean headWritten;
+    private volatile boolean failed;
+
+    private static final long WRITE_TIMEOUT_MILLIS = Long.getLong(WRITE_TIMEOUT, DEFAULT_WRITE_TIMEOUT);
+
+    private static final Logger log = Logger.getLogger(StreamingResponseWriter.class);
+}
@@ -55,6 +55,8 @@ public class LocalResourceResponseEncoder extends ChannelOutboundHandlerAdapter
                 return ClientResourceResponse.ResponseType.UPDATE_NOT_SUPPORTED;
             case DELETE_NOT_SUPPORTED:
                 return ClientResourceResponse.ResponseType.DELETE_NOT_SUPPORTED;
+            case SERVICE_UNAVAILABLE:
+                return ClientResourceResponse.ResponseType.SERVICE_UNAVAILABLE;
             case INTERNAL_ERROR:
                 return ClientResourceResponse.ResponseType.INTERNAL_ERROR;
         }
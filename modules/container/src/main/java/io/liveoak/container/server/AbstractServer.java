@@ -8,8 +8,10 @@ package io.liveoak.container.server;
 import io.liveoak.spi.container.Server;
 import io.liveoak.container.protocols.PipelineConfigurator;
 import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.ServerChannel;
 import io.netty.util.concurrent.Future;
@@ -50,6 +52,7 @@ public abstract class AbstractServer implements Server {
                 .group(eventLoopGroup())
                 .localAddress(localAddress())
                 //.handler( new DebugHandler( "server-handler" ) )
+                .childOption(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
                 .childHandler(createChildHandler());
         ChannelFuture future = serverBootstrap.bind();
         future.sync();
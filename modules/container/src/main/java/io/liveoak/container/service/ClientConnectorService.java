@@ -1,6 +1,7 @@
 package io.liveoak.container.service;
 
 import io.liveoak.client.DefaultClient;
+import io.liveoak.container.protocols.PipelineConfigurator;
 import io.netty.channel.local.LocalAddress;
 import org.jboss.logging.Logger;
 import org.jboss.msc.inject.Injector;
@@ -19,7 +20,13 @@ public class ClientConnectorService implements Service<Void> {
     public void start(StartContext context) throws StartException {
         log.debug("connect client");
         try {
-            this.clientInjector.getValue().connect(new LocalAddress("liveoak"));
+            DefaultClient client = this.clientInjector.getValue();
+            if (DefaultClient.inVM()) {
+                PipelineConfigurator pipelineConfigurator = this.pipelineConfiguratorInjector.getValue();
+                client.connectInVM(pipelineConfigurator::setupLocal);
+            } else {
+                client.connect(new LocalAddress("liveoak"));
+            }
         } catch (Exception e) {
             throw new StartException(e);
         }
@@ -39,7 +46,12 @@ public class ClientConnectorService implements Service<Void> {
         return this.clientInjector;
     }
 
+    public Injector<PipelineConfigurator> pipelineConfiguratorInjector() {
+        return this.pipelineConfiguratorInjector;
+    }
+
     private InjectedValue<DefaultClient> clientInjector = new InjectedValue<>();
+    private InjectedValue<PipelineConfigurator> pipelineConfiguratorInjector = new InjectedValue<>();
 
     private static final Logger log = Logger.getLogger(ClientConnectorService.class);
 }
@@ -1,11 +1,10 @@
 package io.liveoak.container.service;
 
-import java.util.concurrent.Executor;
-
 import io.liveoak.common.codec.ResourceCodecManager;
 import io.liveoak.container.interceptor.InterceptorManagerImpl;
 import io.liveoak.container.protocols.PipelineConfigurator;
 import io.liveoak.container.tenancy.GlobalContext;
+import io.liveoak.container.workers.WorkerPool;
 import io.liveoak.spi.client.Client;
 import io.liveoak.spi.container.SubscriptionManager;
 import org.jboss.msc.inject.Injector;
@@ -48,7 +47,7 @@ public class PipelineConfiguratorService implements Service<PipelineConfigurator
         return this.subscriptionManagerInjector;
     }
 
-    public Injector<Executor> workerPoolInjector() {
+    public Injector<WorkerPool> workerPoolInjector() {
         return this.workerPoolInjector;
     }
 
@@ -69,7 +68,7 @@ public class PipelineConfiguratorService implements Service<PipelineConfigurator
     private InjectedValue<GlobalContext> globalContextInjector = new InjectedValue<>();
     private InjectedValue<ResourceCodecManager> codecManagerInjector = new InjectedValue<>();
     private InjectedValue<SubscriptionManager> subscriptionManagerInjector = new InjectedValue<>();
-    private InjectedValue<Executor> workerPoolInjector = new InjectedValue<>();
+    private InjectedValue<WorkerPool> workerPoolInjector = new InjectedValue<>();
     private InjectedValue<InterceptorManagerImpl> interceptorManagerInjector = new InjectedValue<>();
     private InjectedValue<Client> clientInjector = new InjectedValue<>();
 
@@ -21,6 +21,7 @@ public class SubscriptionManagerService implements Service<DefaultSubscriptionMa
 
     @Override
     public void stop(StopContext context) {
+        this.subscriptionManager.shutdown();
         this.subscriptionManager = null;
     }
 
@@ -1,9 +1,7 @@
 package io.liveoak.container.service;
 
-import java.util.concurrent.Executor;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-
+import io.liveoak.container.workers.WorkerPool;
+import io.liveoak.container.workers.WorkerPoolConfig;
 import org.jboss.msc.service.Service;
 import org.jboss.msc.service.StartContext;
 import org.jboss.msc.service.StartException;
@@ -12,11 +10,15 @@ import org.jboss.msc.service.StopContext;
 /**
  * @author Bob McWhirter
  */
-public class WorkerPoolService implements Service<Executor> {
+public class WorkerPoolService implements Service<WorkerPool> {
 
     @Override
     public void start(StartContext context) throws StartException {
-        this.workerPool = Executors.newCachedThreadPool();
+        try {
+            this.workerPool = new WorkerPool(WorkerPoolConfig.fromProperties(System.getProperties()));
+        } catch (IllegalArgumentException e) {
+            throw new StartException(e);
+        }
     }
 
     @Override
@@ -26,9 +28,9 @@ public class WorkerPoolService implements Service<Executor> {
     }
 
     @Override
-    public Executor getValue() throws IllegalStateException, IllegalArgumentException {
+    public WorkerPool getValue() throws IllegalStateException, IllegalArgumentException {
         return this.workerPool;
     }
 
-    private ExecutorService workerPool;
+    private WorkerPool workerPool;
 }
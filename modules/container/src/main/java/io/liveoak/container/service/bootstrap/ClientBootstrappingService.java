@@ -1,6 +1,7 @@
 package io.liveoak.container.service.bootstrap;
 
 import io.liveoak.client.DefaultClient;
+import io.liveoak.container.protocols.PipelineConfigurator;
 import io.liveoak.container.service.ClientConnectorService;
 import io.liveoak.container.service.ClientService;
 import org.jboss.logging.Logger;
@@ -13,6 +14,7 @@ import org.jboss.msc.service.StartException;
 import org.jboss.msc.service.StopContext;
 
 import static io.liveoak.spi.Services.CLIENT;
+import static io.liveoak.spi.Services.PIPELINE_CONFIGURATOR;
 import static io.liveoak.spi.Services.server;
 
 /**
@@ -39,6 +41,7 @@ public class ClientBootstrappingService implements Service<Void> {
         ClientConnectorService clientConnector = new ClientConnectorService();
         target.addService(CLIENT.append("connect"), clientConnector)
                 .addDependency(CLIENT, DefaultClient.class, clientConnector.clientInjector())
+                .addDependency(PIPELINE_CONFIGURATOR, PipelineConfigurator.class, clientConnector.pipelineConfiguratorInjector())
                 .addDependency(server("local", false))
                 .install();
 
@@ -1,7 +1,6 @@
 package io.liveoak.container.service.bootstrap;
 
 import java.net.InetSocketAddress;
-import java.util.concurrent.Executor;
 
 import io.liveoak.common.codec.ResourceCodecManager;
 import io.liveoak.container.interceptor.InterceptorManagerImpl;
@@ -13,6 +12,7 @@ import io.liveoak.container.service.SubscriptionManagerService;
 import io.liveoak.container.service.UnsecureServerService;
 import io.liveoak.container.service.WorkerPoolService;
 import io.liveoak.container.tenancy.GlobalContext;
+import io.liveoak.container.workers.WorkerPool;
 import io.liveoak.spi.client.Client;
 import io.liveoak.spi.container.SubscriptionManager;
 import org.jboss.msc.service.Service;
@@ -81,7 +81,7 @@ public class ServersBootstrappingService implements Service<Void> {
                 .addDependency(CODEC_MANAGER, ResourceCodecManager.class, pipelineConfigurator.codecManagerInjector())
                 .addDependency(CLIENT, Client.class, pipelineConfigurator.clientInjector())
                 .addDependency(GLOBAL_CONTEXT, GlobalContext.class, pipelineConfigurator.globalContextInjector())
-                .addDependency(WORKER_POOL, Executor.class, pipelineConfigurator.workerPoolInjector())
+                .addDependency(WORKER_POOL, WorkerPool.class, pipelineConfigurator.workerPoolInjector())
                 .addDependency(CODEC_MANAGER_COMPLETE);
 
         pipelineBuilder.install();
@@ -1,16 +1,18 @@
 package io.liveoak.container.subscriptions;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
 
-import io.liveoak.common.util.ObjectsTree;
 import io.liveoak.spi.ResourcePath;
 import io.liveoak.spi.ResourceResponse;
 import io.liveoak.spi.container.Subscription;
 import io.liveoak.spi.container.SubscriptionManager;
 import io.liveoak.spi.resource.async.Resource;
-import org.jboss.logging.Logger;
 
 /**
  * @author Bob McWhirter
@@ -19,24 +21,33 @@ import org.jboss.logging.Logger;
 public class DefaultSubscriptionManager implements SubscriptionManager {
 
     public DefaultSubscriptionManager() {
+        this.dispatcher = NotificationDispatcher.fromProperties(System.getProperties(), this::disconnect);
+    }
+
+    public DefaultSubscriptionManager(NotificationDispatcher dispatcher) {
+        this.dispatcher = dispatcher;
     }
 
     @Override
     public void addSubscription(Subscription subscription) {
-        this.subscriptionsTree.addObject(subscription, subscription.resourcePath());
+        this.subscriptionsRegistry.add(subscription);
         this.subscriptionsMap.put(subscription.id(), subscription);
     }
 
     @Override
     public void removeSubscriptionById(String subscriptionId) {
         Subscription subscription = this.subscriptionsMap.remove(subscriptionId);
-        this.subscriptionsTree.removeObject(subscription, subscription.resourcePath());
+        if (subscription != null) {
+            this.subscriptionsRegistry.remove(subscription);
+            this.dispatcher.discard(subscription);
+        }
     }
 
     @Override
     public void removeSubscription(Subscription subscription) {
-        this.subscriptionsTree.removeObject(subscription, subscription.resourcePath());
+        this.subscriptionsRegistry.remove(subscription);
         this.subscriptionsMap.remove(subscription.id());
+        this.dispatcher.discard(subscription);
     }
 
     @Override
@@ -47,71 +58,111 @@ public class DefaultSubscriptionManager implements SubscriptionManager {
     @Override
     public void resourceCreated(ResourceResponse resourceResponse) {
         ResourcePath path = resourcePathOf(resourceResponse.resource());
-        this.subscriptionsTree.objects(path).forEach((subscription) -> subscribeResourceCreated(path, subscription, resourceResponse));
-        this.subscriptionsTree.objects(path.parent()).forEach((subscription) -> subscribeResourceCreated(path.parent(), subscription, resourceResponse));
+        ResourcePath parent = path.parent();
+        List<Subscription> subscriptions = match(path);
+        List<Subscription> parentSubscriptions = match(parent);
+        if (subscriptions.isEmpty() && parentSubscriptions.isEmpty()) {
+            return;
+        }
+        Notification notification = new Notification(resourceResponse);
+        subscriptions.forEach((subscription) -> subscribeResourceCreated(path, subscription, notification));
+        parentSubscriptions.forEach((subscription) -> subscribeResourceCreated(parent, subscription, notification));
     }
 
     protected void subscribeResourceCreated(ResourcePath path, Subscription subscription, ResourceResponse resourceResponse) {
-        try {
-            subscription.resourceCreated(resourceResponse);
-        } catch (Exception e) {
-            log.error("", e);
-        }
+        this.dispatcher.dispatch(subscription, ResourceResponse.ResponseType.CREATED, resourceResponse);
     }
 
     @Override
     public void resourceUpdated(ResourceResponse resourceResponse) {
         ResourcePath path = resourcePathOf(resourceResponse.resource());
-        this.subscriptionsTree.objects(path).forEach((subscription) -> subscribeResourceUpdated(path, subscription, resourceResponse));
+        List<Subscription> subscriptions = match(path);
+        if (subscriptions.isEmpty()) {
+            return;
+        }
+        Notification notification = new Notification(resourceResponse);
+        subscriptions.forEach((subscription) -> subscribeResourceUpdated(path, subscription, notification));
     }
 
     protected void subscribeResourceUpdated(ResourcePath path, Subscription subscription, ResourceResponse resourceResponse) {
-        try {
-            subscription.resourceUpdated(resourceResponse);
-        } catch (Exception e) {
-            log.error("", e);
-        }
+        this.dispatcher.dispatch(subscription, ResourceResponse.ResponseType.UPDATED, resourceResponse);
     }
 
     @Override
     public void resourceDeleted(ResourceResponse resourceResponse) {
         ResourcePath path = resourcePathOf(resourceResponse.resource());
-        this.subscriptionsTree.objects(path).forEach((subscription) -> subscribeResourceDeleted(path, subscription, resourceResponse));
-        this.subscriptionsTree.objects(path.parent()).forEach((subscription) -> subscribeResourceDeleted(path.parent(), subscription, resourceResponse));
+        ResourcePath parent = path.parent();
+        List<Subscription> subscriptions = match(path);
+        List<Subscription> parentSubscriptions = match(parent);
+        if (subscriptions.isEmpty() && parentSubscriptions.isEmpty()) {
+            return;
+        }
+        Notification notification = new Notification(resourceResponse);
+        subscriptions.forEach((subscription) -> subscribeResourceDeleted(path, subscription, notification));
+        parentSubscriptions.forEach((subscription) -> subscribeResourceDeleted(parent, subscription, notification));
     }
 
     protected void subscribeResourceDeleted(ResourcePath path, Subscription subscription, ResourceResponse resourceResponse) {
-        try {
-            subscription.resourceDeleted(resourceResponse);
-        } catch (Exception e) {
-            log.error("", e);
+        this.dispatcher.dispatch(subscription, ResourceResponse.ResponseType.DELETED, resourceResponse);
+    }
+
+    /**
+     * Subscriptions to notify of a change on the path. They are collected first, so that the state of
+     * the change is only copied when somebody is listening.
+     */
+    private List<Subscription> match(ResourcePath path) {
+        List<Subscription> subscriptions = new ArrayList<>();
+        this.subscriptionsRegistry.match(path, subscriptions::add);
+        return subscriptions;
+    }
+
+    /**
+     * Drop a subscription whose subscriber cannot keep up with its notifications.
+     */
+    protected void disconnect(Subscription subscription) {
+        removeSubscription(subscription);
+        if (subscription instanceof StompSubscription) {
+            ((StompSubscription) subscription).disconnect();
         }
     }
 
+    public NotificationDispatcher dispatcher() {
+        return this.dispatcher;
+    }
+
+    public void shutdown() {
+        this.dispatcher.shutdown();
+    }
+
     protected ResourcePath resourcePathOf(Resource resource) {
-        ResourcePath path = new ResourcePath();
+        // collect leaf-first and reverse once, rather than inserting at the head for every ancestor
+        List<ResourcePath.Segment> segments = new ArrayList<>();
 
         Resource current = resource;
 
         while (current != null) {
             if (!current.id().equals("")) {
-                path.prependSegment(current.id());
+                segments.add(new ResourcePath.Segment(current.id()));
             }
             current = current.parent();
         }
 
-        return path;
+        Collections.reverse(segments);
+        return new ResourcePath(segments);
     }
 
-    public ObjectsTree<Subscription> treeFor(ResourcePath path) {
-        return this.subscriptionsTree.findLeaf(path);
+    /**
+     * All subscriptions on the given path or below it.
+     */
+    public Stream<Subscription> subscriptions(ResourcePath path) {
+        return this.subscriptionsRegistry.subscriptions(path);
     }
 
     public Set<String> subscriptionIds() {
         return subscriptionsMap.keySet();
     }
 
-    private ObjectsTree<Subscription> subscriptionsTree = new ObjectsTree<>();
+    private final SubscriptionRegistry subscriptionsRegistry = new SubscriptionRegistry();
+    private final NotificationDispatcher dispatcher;
     private Map<String, Subscription> subscriptionsMap = new ConcurrentHashMap<>();
-    private static final Logger log = Logger.getLogger(DefaultSubscriptionManager.class);
 }
@@ -8,10 +8,6 @@ import io.liveoak.spi.security.SecurityContext;
 import io.liveoak.spi.container.Subscription;
 import io.liveoak.spi.resource.async.Resource;
 import io.liveoak.spi.state.ResourceState;
-import io.netty.buffer.ByteBuf;
-import org.vertx.java.core.buffer.Buffer;
-import org.vertx.java.core.http.HttpClient;
-import org.vertx.java.core.http.HttpClientRequest;
 
 import java.net.URI;
 import java.util.UUID;
@@ -21,9 +17,9 @@ import java.util.UUID;
  */
 public class HttpSubscription implements Subscription {
 
-    public HttpSubscription(HttpClient httpClient, String path, URI destination, ResourceCodec codec, SecurityContext securityContext) {
+    public HttpSubscription(WebhookDelivery delivery, String path, URI destination, ResourceCodec codec, SecurityContext securityContext) {
         this.id = UUID.randomUUID().toString();
-        this.httpClient = httpClient;
+        this.delivery = delivery;
         this.resourcePath = new ResourcePath(path);
         this.destination = destination;
         this.codec = codec;
@@ -39,6 +35,10 @@ public class HttpSubscription implements Subscription {
         return this.destination;
     }
 
+    public WebhookDelivery delivery() {
+        return this.delivery;
+    }
+
     // ----------------------------------------------------------------------
     // ----------------------------------------------------------------------
 
@@ -59,58 +59,40 @@ public class HttpSubscription implements Subscription {
 
     @Override
     public void sendAuthzError(ResourceState errorState, Resource resource, int status) throws Exception {
-        URI uri = this.destination.resolve(resource.id());
-        HttpClientRequest request = this.httpClient.put(uri.getPath(), (response) -> {
-        });
-
-        request.setChunked(true);
-
         RequestContext requestContext = new RequestContext.Builder().build();
-        ByteBuf encoded = codec.encode(requestContext, errorState);
-        request.write(new Buffer(encoded));
-        request.end();
+        byte[] encoded = Notification.toBytes(this.codec.encode(requestContext, errorState));
+        this.delivery.send(WebhookDelivery.UPDATE, resource.id(), encoded);
     }
 
     @Override
     public void resourceCreated(ResourceResponse resourceResponse) throws Exception {
-        resourceUpdated(resourceResponse);
+        send(WebhookDelivery.CREATE, resourceResponse);
     }
 
     @Override
     public void resourceUpdated(ResourceResponse resourceResponse) throws Exception {
-        URI uri = destinationUri(resourceResponse.resource());
-        HttpClientRequest request = this.httpClient.put(uri.getPath(), (response) -> {
-        });
-
-        request.setChunked(true);
-
-        RequestContext requestContext = new RequestContext.Builder().build();
-        ByteBuf encoded = codec.encode(requestContext, resourceResponse.state());
-        request.write(new Buffer(encoded));
-        request.end();
+        send(WebhookDelivery.UPDATE, resourceResponse);
     }
 
     @Override
     public void resourceDeleted(ResourceResponse resourceResponse) throws Exception {
-        URI uri = destinationUri(resourceResponse.resource());
-        HttpClientRequest request = this.httpClient.delete(uri.getPath(), (response) -> {
-        });
-
-        request.setChunked(true);
+        send(WebhookDelivery.DELETE, resourceResponse);
+    }
 
-        RequestContext requestContext = new RequestContext.Builder().build();
-        ByteBuf encoded = codec.encode(requestContext, resourceResponse.state());
-        request.write(new Buffer(encoded));
-        request.end();
+    /**
+     * Stop delivering; anything not yet sent is discarded.
+     */
+    public void close() {
+        this.delivery.close();
     }
 
-    protected URI destinationUri(Resource resource) {
-        URI uri = this.destination.resolve(resource.id());
-        return uri;
+    protected void send(String action, ResourceResponse resourceResponse) throws Exception {
+        byte[] encoded = Notification.encodeBytes(this.codec, resourceResponse);
+        this.delivery.send(action, resourceResponse.resource().id(), encoded);
     }
 
     private String id;
-    private HttpClient httpClient;
+    private final WebhookDelivery delivery;
     private ResourcePath resourcePath;
     private final URI destination;
     private ResourceCodec codec;
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.container.subscriptions;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.liveoak.common.codec.DefaultResourceState;
+import io.liveoak.common.codec.ResourceCodec;
+import io.liveoak.spi.RequestContext;
+import io.liveoak.spi.ResourceRequest;
+import io.liveoak.spi.ResourceResponse;
+import io.liveoak.spi.resource.async.Resource;
+import io.liveoak.spi.state.ResourceState;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+
+/**
+ * A resource change on its way to subscribers.
+ *
+ * <p>Wraps the original response and memoizes its encoded state per codec, so that the state is
+ * encoded once per media-type no matter how many subscribers receive it.</p>
+ *
+ * <p>Subscribers are notified later, on other threads, while the original response carries on through
+ * the outbound handlers, which may change its state. The state is therefore copied when the notification
+ * is created, and only the copy is encoded.</p>
+ */
+public class Notification implements ResourceResponse {
+
+    public Notification(ResourceResponse response) {
+        this.response = response;
+        this.state = response.state() != null ? snapshot(response.state()) : null;
+    }
+
+    /**
+     * Encoded state of the changed resource, copied into a buffer of the given allocator. Every call returns
+     * a new buffer, which the caller owns.
+     */
+    public ByteBuf encoded(ByteBufAllocator allocator, ResourceCodec codec) throws Exception {
+        byte[] bytes = bytes(codec);
+        return allocator.buffer(bytes.length).writeBytes(bytes);
+    }
+
+    /**
+     * Encoded state of the changed resource, shared between callers; it must not be modified.
+     */
+    public byte[] bytes(ResourceCodec codec) throws Exception {
+        byte[] bytes = this.encoded.get(codec);
+        if (bytes == null) {
+            bytes = toBytes(codec.encode(new RequestContext.Builder().build(), state()));
+            byte[] existing = this.encoded.putIfAbsent(codec, bytes);
+            if (existing != null) {
+                bytes = existing;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Encode the state of a response for a subscriber into a buffer of its connection's allocator, sharing
+     * the encoding if it is a notification.
+     */
+    public static ByteBuf encode(ByteBufAllocator allocator, ResourceCodec codec, ResourceResponse response) throws Exception {
+        if (response instanceof Notification) {
+            return ((Notification) response).encoded(allocator, codec);
+        }
+        return codec.encode(allocator, new RequestContext.Builder().build(), response.state());
+    }
+
+    /**
+     * As {@link #encode(ByteBufAllocator, ResourceCodec, ResourceResponse)}, as an array which must not be modified.
+     */
+    public static byte[] encodeBytes(ResourceCodec codec, ResourceResponse response) throws Exception {
+        if (response instanceof Notification) {
+            return ((Notification) response).bytes(codec);
+        }
+        return toBytes(codec.encode(new RequestContext.Builder().build(), response.state()));
+    }
+
+    /**
+     * Copy of a state, down to its nested states, lists and maps. Other values are shared.
+     */
+    static ResourceState snapshot(ResourceState state) {
+        DefaultResourceState copy = new DefaultResourceState(state.id());
+        copy.uri(state.uri());
+        for (String name : state.getPropertyNames()) {
+            copy.putProperty(name, snapshotValue(state.getProperty(name)));
+        }
+        for (ResourceState member : state.members()) {
+            copy.addMember(snapshot(member));
+        }
+        return copy;
+    }
+
+    private static Object snapshotValue(Object value) {
+        if (value instanceof ResourceState) {
+            return snapshot((ResourceState) value);
+        }
+        if (value instanceof List) {
+            List<Object> copy = new ArrayList<>(((List<?>) value).size());
+            for (Object each : (List<?>) value) {
+                copy.add(snapshotValue(each));
+            }
+            return copy;
+        }
+        if (value instanceof Map) {
+            Map<Object, Object> copy = new LinkedHashMap<>();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                copy.put(entry.getKey(), snapshotValue(entry.getValue()));
+            }
+            return copy;
+        }
+        return value;
+    }
+
+    static byte[] toBytes(ByteBuf buffer) {
+        try {
+            byte[] bytes = new byte[buffer.readableBytes()];
+            buffer.readBytes(bytes);
+            return bytes;
+        } finally {
+            buffer.release();
+        }
+    }
+
+    @Override
+    public ResponseType responseType() {
+        return this.response.responseType();
+    }
+
+    @Override
+    public Resource resource() {
+        return this.response.resource();
+    }
+
+    @Override
+    public ResourceState state() {
+        return this.state;
+    }
+
+    @Override
+    public void setState(ResourceState state) {
+        this.state = state;
+        this.encoded.clear();
+    }
+
+    @Override
+    public ResourceRequest inReplyTo() {
+        return this.response.inReplyTo();
+    }
+
+    @Override
+    public UUID requestId() {
+        return this.response.requestId();
+    }
+
+    public String toString() {
+        return "[Notification: " + this.response + "]";
+    }
+
+    private final ResourceResponse response;
+    private volatile ResourceState state;
+    private final Map<ResourceCodec, byte[]> encoded = new ConcurrentHashMap<>();
+}
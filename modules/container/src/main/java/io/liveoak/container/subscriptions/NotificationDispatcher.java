@@ -0,0 +1,272 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.container.subscriptions;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import io.liveoak.spi.ResourceResponse;
+import io.liveoak.spi.container.Subscription;
+import org.jboss.logging.Logger;
+
+/**
+ * Delivers notifications to subscribers off the thread which produced them.
+ *
+ * <p>Each subscriber has its own bounded queue, drained by a shared pool, so a slow subscriber
+ * only delays itself. An update to a resource which is still waiting for delivery replaces the
+ * pending one. When a queue is full the configured {@link SlowConsumerPolicy} applies.</p>
+ *
+ * <p>Settings are read from system properties: <code>liveoak.notifications.queue-size</code>,
+ * <code>liveoak.notifications.threads</code> and <code>liveoak.notifications.slow-consumer-policy</code>
+ * (<code>drop-oldest</code>, <code>drop-newest</code> or <code>disconnect</code>).</p>
+ */
+public class NotificationDispatcher {
+
+    public static final String PREFIX = "liveoak.notifications.";
+
+    public static final int DEFAULT_QUEUE_SIZE = 256;
+
+    public enum SlowConsumerPolicy {
+        /** Discard the oldest pending notification to make room. */
+        DROP_OLDEST,
+        /** Discard the incoming notification. */
+        DROP_NEWEST,
+        /** Remove the subscription altogether. */
+        DISCONNECT;
+
+        public static SlowConsumerPolicy fromString(String value) {
+            return valueOf(value.trim().toUpperCase().replace('-', '_'));
+        }
+    }
+
+    public NotificationDispatcher(int queueSize, int threads, SlowConsumerPolicy policy, Consumer<Subscription> disconnectHandler) {
+        this.queueSize = queueSize;
+        this.policy = policy;
+        this.disconnectHandler = disconnectHandler;
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, (r) -> {
+            Thread thread = new Thread(r, "liveoak-notifications-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static NotificationDispatcher fromProperties(Properties props, Consumer<Subscription> disconnectHandler) {
+        int queueSize = Integer.parseInt(props.getProperty(PREFIX + "queue-size", String.valueOf(DEFAULT_QUEUE_SIZE)));
+        int threads = Integer.parseInt(props.getProperty(PREFIX + "threads", String.valueOf(Runtime.getRuntime().availableProcessors())));
+        SlowConsumerPolicy policy = SlowConsumerPolicy.fromString(props.getProperty(PREFIX + "slow-consumer-policy", "drop-oldest"));
+        return new NotificationDispatcher(queueSize, threads, policy, disconnectHandler);
+    }
+
+    public void dispatch(Subscription subscription, ResourceResponse.ResponseType type, ResourceResponse response) {
+        SubscriberQueue queue = this.queues.computeIfAbsent(subscription.id(), (id) -> new SubscriberQueue(subscription));
+        if (queue.subscription != subscription) {
+            // a new subscription re-using the id of a stale one
+            queue = new SubscriberQueue(subscription);
+            this.queues.put(subscription.id(), queue);
+        }
+        // delivered later, so it must not share state with the response still on its way out
+        Notification notification = response instanceof Notification ? (Notification) response : new Notification(response);
+        queue.offer(new Pending(type, notification));
+    }
+
+    /**
+     * Forget any pending notifications for a subscription which has gone away.
+     */
+    public void discard(Subscription subscription) {
+        this.queues.remove(subscription.id());
+    }
+
+    public void shutdown() {
+        this.executor.shutdownNow();
+        this.queues.clear();
+    }
+
+    public long delivered() {
+        return this.delivered.sum();
+    }
+
+    public long coalesced() {
+        return this.coalesced.sum();
+    }
+
+    public long dropped() {
+        return this.dropped.sum();
+    }
+
+    public long disconnected() {
+        return this.disconnected.sum();
+    }
+
+    private class SubscriberQueue implements Runnable {
+
+        SubscriberQueue(Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        void offer(Pending pending) {
+            boolean disconnect = false;
+            synchronized (this) {
+                if (pending.type == ResourceResponse.ResponseType.UPDATED && coalesce(pending)) {
+                    coalesced.increment();
+                } else if (this.pending.size() < queueSize) {
+                    this.pending.add(pending);
+                } else {
+                    switch (policy) {
+                        case DROP_OLDEST:
+                            this.pending.poll();
+                            this.pending.add(pending);
+                            dropped.increment();
+                            break;
+                        case DROP_NEWEST:
+                            dropped.increment();
+                            break;
+                        case DISCONNECT:
+                            this.pending.clear();
+                            disconnect = true;
+                            break;
+                    }
+                }
+            }
+
+            if (disconnect) {
+                disconnect();
+                return;
+            }
+            schedule();
+        }
+
+        private boolean coalesce(Pending pending) {
+            String uri = pending.uri();
+            if (uri == null) {
+                return false;
+            }
+            // only the latest pending change to the resource may absorb the update, to keep ordering
+            Iterator<Pending> iter = this.pending.descendingIterator();
+            while (iter.hasNext()) {
+                Pending each = iter.next();
+                if (uri.equals(each.uri())) {
+                    if (each.type != ResourceResponse.ResponseType.UPDATED) {
+                        return false;
+                    }
+                    each.response = pending.response;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void schedule() {
+            if (this.scheduled.compareAndSet(false, true)) {
+                try {
+                    executor.execute(this);
+                } catch (RejectedExecutionException e) {
+                    this.scheduled.set(false);
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                Pending next;
+                synchronized (this) {
+                    next = this.pending.poll();
+                }
+                if (next == null) {
+                    break;
+                }
+                deliver(next);
+            }
+            this.scheduled.set(false);
+
+            // something may have arrived after the final poll but before the flag was cleared
+            boolean more;
+            synchronized (this) {
+                more = !this.pending.isEmpty();
+            }
+            if (more) {
+                schedule();
+            }
+        }
+
+        private void deliver(Pending pending) {
+            try {
+                switch (pending.type) {
+                    case CREATED:
+                        this.subscription.resourceCreated(pending.response);
+                        break;
+                    case UPDATED:
+                        this.subscription.resourceUpdated(pending.response);
+                        break;
+                    case DELETED:
+                        this.subscription.resourceDeleted(pending.response);
+                        break;
+                }
+                delivered.increment();
+            } catch (Exception e) {
+                log.error("Could not deliver notification to subscription " + this.subscription.id(), e);
+            }
+        }
+
+        private void disconnect() {
+            disconnected.increment();
+            log.debugf("Disconnecting slow subscription %s", this.subscription.id());
+            queues.remove(this.subscription.id(), this);
+            try {
+                disconnectHandler.accept(this.subscription);
+            } catch (Exception e) {
+                log.error("Could not disconnect subscription " + this.subscription.id(), e);
+            }
+        }
+
+        private final Subscription subscription;
+        private final ArrayDeque<Pending> pending = new ArrayDeque<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+    }
+
+    private static class Pending {
+
+        Pending(ResourceResponse.ResponseType type, ResourceResponse response) {
+            this.type = type;
+            this.response = response;
+        }
+
+        String uri() {
+            if (this.uri == null && this.response.resource() != null && this.response.resource().uri() != null) {
+                this.uri = this.response.resource().uri().toString();
+            }
+            return this.uri;
+        }
+
+        final ResourceResponse.ResponseType type;
+        ResourceResponse response;
+        private String uri;
+    }
+
+    private final int queueSize;
+    private final SlowConsumerPolicy policy;
+    private final Consumer<Subscription> disconnectHandler;
+    private final ExecutorService executor;
+    private final Map<String, SubscriberQueue> queues = new ConcurrentHashMap<>();
+
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder disconnected = new LongAdder();
+
+    private static final Logger log = Logger.getLogger(NotificationDispatcher.class);
+}
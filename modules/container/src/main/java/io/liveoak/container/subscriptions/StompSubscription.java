@@ -68,7 +68,7 @@ public class StompSubscription implements Subscription {
         message.headers().put("status", "" + status);
 
         RequestContext requestContext = new RequestContext.Builder().build();
-        message.content(this.codec.encode(requestContext, errorState));
+        message.content(this.codec.encode(this.connection.allocator(), requestContext, errorState));
 
         this.connection.send(message);
     }
@@ -96,13 +96,17 @@ public class StompSubscription implements Subscription {
         message.headers().put("action", action);
         message.headers().put("status", "" + status);
         message.headers().put("location", resource.uri().toString());
-        RequestContext requestContext = new RequestContext.Builder().build();
-
-
-        message.content(this.codec.encode(requestContext, resourceResponse.state()));
+        message.content(Notification.encode(this.connection.allocator(), this.codec, resourceResponse));
         return message;
     }
 
+    /**
+     * Close the subscriber's connection.
+     */
+    public void disconnect() {
+        this.connection.close();
+    }
+
     private StompConnection connection;
     private String destination;
     private String subscriptionId;
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.container.subscriptions;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import io.liveoak.spi.ResourcePath;
+import io.liveoak.spi.container.Subscription;
+
+/**
+ * Path-trie of subscriptions, keyed by the subscribed resource path.
+ *
+ * <p>Lookups take no locks: children are held in concurrent maps and each node's subscriptions
+ * in a copy-on-write array. Changes are serialized per top-level segment (usually the application),
+ * which also makes it safe to prune nodes left empty by a removal.</p>
+ *
+ * <p>A trailing <code>*</code> segment subscribes to every path below its parent, at any depth.
+ * A wildcard anywhere else is rejected.</p>
+ */
+public class SubscriptionRegistry {
+
+    public static final String WILDCARD = "*";
+
+    public SubscriptionRegistry() {
+        for (int i = 0; i < this.locks.length; ++i) {
+            this.locks[i] = new Object();
+        }
+    }
+
+    public void add(Subscription subscription) {
+        List<ResourcePath.Segment> segments = subscription.resourcePath().segments();
+        validate(segments);
+
+        synchronized (lockFor(segments)) {
+            Node node = this.root;
+            for (ResourcePath.Segment segment : segments) {
+                node = node.children.computeIfAbsent(segment.name(), (name) -> new Node());
+            }
+            node.add(subscription);
+        }
+    }
+
+    public boolean remove(Subscription subscription) {
+        List<ResourcePath.Segment> segments = subscription.resourcePath().segments();
+
+        synchronized (lockFor(segments)) {
+            Node[] trail = new Node[segments.size() + 1];
+            trail[0] = this.root;
+            for (int i = 0; i < segments.size(); ++i) {
+                trail[i + 1] = trail[i].children.get(segments.get(i).name());
+                if (trail[i + 1] == null) {
+                    return false;
+                }
+            }
+
+            if (!trail[segments.size()].remove(subscription)) {
+                return false;
+            }
+
+            // prune nodes which no longer hold anything
+            for (int i = segments.size(); i > 0 && trail[i].isEmpty(); --i) {
+                trail[i - 1].children.remove(segments.get(i - 1).name(), trail[i]);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Deliver every subscription interested in the given path: those on the path itself and
+     * wildcard subscriptions on any of its ancestors.
+     */
+    public void match(ResourcePath path, Consumer<Subscription> consumer) {
+        List<ResourcePath.Segment> segments = path.segments();
+        Node node = this.root;
+        for (int i = 0; i < segments.size(); ++i) {
+            Node wildcard = node.children.get(WILDCARD);
+            if (wildcard != null) {
+                wildcard.forEach(consumer);
+            }
+            node = node.children.get(segments.get(i).name());
+            if (node == null) {
+                return;
+            }
+        }
+        node.forEach(consumer);
+    }
+
+    /**
+     * All subscriptions on the given path or below it. Does not create nodes.
+     */
+    public Stream<Subscription> subscriptions(ResourcePath prefix) {
+        Node node = this.root;
+        for (ResourcePath.Segment segment : prefix.segments()) {
+            node = node.children.get(segment.name());
+            if (node == null) {
+                return Stream.empty();
+            }
+        }
+        return node.stream();
+    }
+
+    private static void validate(List<ResourcePath.Segment> segments) {
+        for (int i = 0; i < segments.size() - 1; ++i) {
+            if (WILDCARD.equals(segments.get(i).name())) {
+                throw new IllegalArgumentException("* supported just at the end. Remaining path is " + new ResourcePath(segments.subList(i + 1, segments.size())));
+            }
+        }
+    }
+
+    private Object lockFor(List<ResourcePath.Segment> segments) {
+        if (segments.isEmpty()) {
+            return this.locks[0];
+        }
+        int hash = segments.get(0).name().hashCode();
+        return this.locks[(hash ^ (hash >>> 16)) & (this.locks.length - 1)];
+    }
+
+    private static final class Node {
+
+        void add(Subscription subscription) {
+            Subscription[] current = this.subscriptions;
+            Subscription[] updated = Arrays.copyOf(current, current.length + 1);
+            updated[current.length] = subscription;
+            this.subscriptions = updated;
+        }
+
+        boolean remove(Subscription subscription) {
+            Subscription[] current = this.subscriptions;
+            for (int i = 0; i < current.length; ++i) {
+                if (current[i].equals(subscription)) {
+                    Subscription[] updated = new Subscription[current.length - 1];
+                    System.arraycopy(current, 0, updated, 0, i);
+                    System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                    this.subscriptions = updated;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        boolean isEmpty() {
+            return this.subscriptions.length == 0 && this.children.isEmpty();
+        }
+
+        void forEach(Consumer<Subscription> consumer) {
+            for (Subscription subscription : this.subscriptions) {
+                consumer.accept(subscription);
+            }
+        }
+
+        Stream<Subscription> stream() {
+            return Stream.concat(Arrays.stream(this.subscriptions),
+                    this.children.values().stream().flatMap(Node::stream));
+        }
+
+        final Map<String, Node> children = new ConcurrentHashMap<>();
+        volatile Subscription[] subscriptions = EMPTY;
+    }
+
+    private static final Subscription[] EMPTY = new Subscription[0];
+
+    private final Node root = new Node();
+    private final Object[] locks = new Object[32];
+}
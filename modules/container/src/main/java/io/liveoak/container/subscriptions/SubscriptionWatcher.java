@@ -6,7 +6,9 @@
 package io.liveoak.container.subscriptions;
 
 import io.liveoak.common.DefaultResourceResponse;
+import io.liveoak.spi.ResourceResponse;
 import io.liveoak.spi.container.SubscriptionManager;
+import io.liveoak.spi.resource.BulkResultResource;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelOutboundHandlerAdapter;
 import io.netty.channel.ChannelPromise;
@@ -25,26 +27,35 @@ public class SubscriptionWatcher extends ChannelOutboundHandlerAdapter {
     public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
         if (msg instanceof DefaultResourceResponse) {
             DefaultResourceResponse response = (DefaultResourceResponse) msg;
+            notify(response);
 
-            switch (response.responseType()) {
-                case CREATED:
-                    this.subscriptionManager.resourceCreated(response);
-                    break;
-                case READ:
-                    // no notification
-                    break;
-                case UPDATED:
-                    this.subscriptionManager.resourceUpdated(response);
-                    break;
-                case DELETED:
-                    this.subscriptionManager.resourceDeleted(response);
-                    break;
+            if (response.resource() instanceof BulkResultResource) {
+                for (ResourceResponse item : ((BulkResultResource) response.resource()).itemResponses()) {
+                    notify(item);
+                }
             }
         }
 
         super.write(ctx, msg, promise);
     }
 
+    private void notify(ResourceResponse response) {
+        switch (response.responseType()) {
+            case CREATED:
+                this.subscriptionManager.resourceCreated(response);
+                break;
+            case READ:
+                // no notification
+                break;
+            case UPDATED:
+                this.subscriptionManager.resourceUpdated(response);
+                break;
+            case DELETED:
+                this.subscriptionManager.resourceDeleted(response);
+                break;
+        }
+    }
+
     private SubscriptionManager subscriptionManager;
 
 }
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.container.subscriptions;
+
+import java.util.Properties;
+
+/**
+ * Delivery settings for HTTP subscriptions.
+ *
+ * <p>Defaults are read from system properties prefixed with <code>liveoak.webhooks.</code>:</p>
+ * <ul>
+ *     <li><code>max-connections</code>: keep-alive connections pooled per destination host</li>
+ *     <li><code>batch-size</code>, <code>batch-linger-ms</code>: events per POST, and how long to wait for a batch to fill.
+ *     A batch size of 1 sends each event on its own as a PUT or DELETE.</li>
+ *     <li><code>max-in-flight</code>: requests a subscription may have outstanding at once</li>
+ *     <li><code>max-pending</code>: events a subscription may hold back while its window is full; the oldest are dropped beyond it</li>
+ *     <li><code>max-retries</code>, <code>retry-backoff-ms</code>: retries of a failed request, with exponential backoff</li>
+ *     <li><code>request-timeout-ms</code>: time allowed for a single request</li>
+ * </ul>
+ *
+ * <p>Batching may also be set per subscription, through the <code>batch-size</code> and
+ * <code>batch-linger-ms</code> properties of the subscription.</p>
+ */
+public class WebhookConfig {
+
+    public static final String PREFIX = "liveoak.webhooks.";
+
+    public static final String MAX_CONNECTIONS = "max-connections";
+    public static final String BATCH_SIZE = "batch-size";
+    public static final String BATCH_LINGER = "batch-linger-ms";
+    public static final String MAX_IN_FLIGHT = "max-in-flight";
+    public static final String MAX_PENDING = "max-pending";
+    public static final String MAX_RETRIES = "max-retries";
+    public static final String RETRY_BACKOFF = "retry-backoff-ms";
+    public static final String REQUEST_TIMEOUT = "request-timeout-ms";
+
+    public WebhookConfig() {
+        this(8, 1, 50, 4, 1024, 3, 100, 10000);
+    }
+
+    public WebhookConfig(int maxConnections, int batchSize, long batchLingerMillis, int maxInFlight, int maxPending,
+                         int maxRetries, long retryBackoffMillis, long requestTimeoutMillis) {
+        if (maxConnections < 1) {
+            throw new IllegalArgumentException(MAX_CONNECTIONS + " must be at least 1");
+        }
+        if (batchSize < 1) {
+            throw new IllegalArgumentException(BATCH_SIZE + " must be at least 1");
+        }
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException(MAX_IN_FLIGHT + " must be at least 1");
+        }
+        if (maxPending < batchSize) {
+            throw new IllegalArgumentException(MAX_PENDING + " must be at least " + BATCH_SIZE);
+        }
+        if (maxRetries < 0) {
+            throw new IllegalArgumentException(MAX_RETRIES + " must not be negative");
+        }
+        this.maxConnections = maxConnections;
+        this.batchSize = batchSize;
+        this.batchLingerMillis = batchLingerMillis;
+        this.maxInFlight = maxInFlight;
+        this.maxPending = maxPending;
+        this.maxRetries = maxRetries;
+        this.retryBackoffMillis = retryBackoffMillis;
+        this.requestTimeoutMillis = requestTimeoutMillis;
+    }
+
+    public static WebhookConfig fromProperties(Properties props) {
+        WebhookConfig defaults = new WebhookConfig();
+        return new WebhookConfig(
+                Integer.parseInt(props.getProperty(PREFIX + MAX_CONNECTIONS, String.valueOf(defaults.maxConnections))),
+                Integer.parseInt(props.getProperty(PREFIX + BATCH_SIZE, String.valueOf(defaults.batchSize))),
+                Long.parseLong(props.getProperty(PREFIX + BATCH_LINGER, String.valueOf(defaults.batchLingerMillis))),
+                Integer.parseInt(props.getProperty(PREFIX + MAX_IN_FLIGHT, String.valueOf(defaults.maxInFlight))),
+                Integer.parseInt(props.getProperty(PREFIX + MAX_PENDING, String.valueOf(defaults.maxPending))),
+                Integer.parseInt(props.getProperty(PREFIX + MAX_RETRIES, String.valueOf(defaults.maxRetries))),
+                Long.parseLong(props.getProperty(PREFIX + RETRY_BACKOFF, String.valueOf(defaults.retryBackoffMillis))),
+                Long.parseLong(props.getProperty(PREFIX + REQUEST_TIMEOUT, String.valueOf(defaults.requestTimeoutMillis))));
+    }
+
+    /**
+     * A copy with different batching, for a single subscription.
+     */
+    public WebhookConfig withBatching(int batchSize, long batchLingerMillis) {
+        return new WebhookConfig(this.maxConnections, batchSize, batchLingerMillis, this.maxInFlight,
+                Math.max(this.maxPending, batchSize), this.maxRetries, this.retryBackoffMillis, this.requestTimeoutMillis);
+    }
+
+    public int maxConnections() {
+        return this.maxConnections;
+    }
+
+    public int batchSize() {
+        return this.batchSize;
+    }
+
+    public long batchLingerMillis() {
+        return this.batchLingerMillis;
+    }
+
+    public int maxInFlight() {
+        return this.maxInFlight;
+    }
+
+    public int maxPending() {
+        return this.maxPending;
+    }
+
+    public int maxRetries() {
+        return this.maxRetries;
+    }
+
+    public long retryBackoffMillis() {
+        return this.retryBackoffMillis;
+    }
+
+    public long requestTimeoutMillis() {
+        return this.requestTimeoutMillis;
+    }
+
+    public String toString() {
+        return "[WebhookConfig: maxConnections=" + this.maxConnections + "; batchSize=" + this.batchSize
+                + "; maxInFlight=" + this.maxInFlight + "; maxRetries=" + this.maxRetries + "]";
+    }
+
+    private final int maxConnections;
+    private final int batchSize;
+    private final long batchLingerMillis;
+    private final int maxInFlight;
+    private final int maxPending;
+    private final int maxRetries;
+    private final long retryBackoffMillis;
+    private final long requestTimeoutMillis;
+}
@@ -0,0 +1,304 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.container.subscriptions;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import org.jboss.logging.Logger;
+import org.vertx.java.core.Context;
+import org.vertx.java.core.Vertx;
+import org.vertx.java.core.buffer.Buffer;
+import org.vertx.java.core.http.HttpClient;
+import org.vertx.java.core.http.HttpClientRequest;
+
+/**
+ * Delivers the events of one HTTP subscription to its destination.
+ *
+ * <p>At most {@link WebhookConfig#maxInFlight()} requests are outstanding at once; further events
+ * wait, up to {@link WebhookConfig#maxPending()}, after which the oldest are dropped. With a batch
+ * size of 1 each event is a <code>PUT</code> (or <code>DELETE</code>) of the resource below the
+ * destination, otherwise up to batch size events are <code>POST</code>ed to the destination as a
+ * JSON array of <code>{"action", "id", "data"}</code> objects.</p>
+ *
+ * <p>Requests failing with a connection error, a 5xx or a 429 are retried with exponential backoff,
+ * keeping their place in the window so that a struggling destination is not flooded.</p>
+ *
+ * <p>Events may be sent from any thread, but requests are only made on the context the HTTP client belongs to.</p>
+ */
+public class WebhookDelivery {
+
+    public static final String CREATE = "create";
+    public static final String UPDATE = "update";
+    public static final String DELETE = "delete";
+
+    public WebhookDelivery(Vertx vertx, Context context, Supplier<HttpClient> client, URI destination, WebhookConfig config) {
+        this.vertx = vertx;
+        this.context = context;
+        this.client = client;
+        this.destination = destination;
+        this.config = config;
+    }
+
+    public WebhookConfig config() {
+        return this.config;
+    }
+
+    public void send(String action, String id, byte[] body) {
+        synchronized (this) {
+            if (this.closed) {
+                return;
+            }
+            if (this.pending.size() >= this.config.maxPending()) {
+                this.pending.poll();
+                this.dropped.increment();
+            }
+            this.pending.add(new Event(action, id, body));
+        }
+        drain();
+    }
+
+    public void close() {
+        synchronized (this) {
+            this.closed = true;
+            this.pending.clear();
+            if (this.lingerTimer >= 0) {
+                this.vertx.cancelTimer(this.lingerTimer);
+                this.lingerTimer = -1;
+            }
+        }
+    }
+
+    public long delivered() {
+        return this.delivered.sum();
+    }
+
+    public long failed() {
+        return this.failed.sum();
+    }
+
+    public long retried() {
+        return this.retried.sum();
+    }
+
+    public long dropped() {
+        return this.dropped.sum();
+    }
+
+    public long requests() {
+        return this.requests.sum();
+    }
+
+    public synchronized int inFlight() {
+        return this.inFlight;
+    }
+
+    public synchronized int pending() {
+        return this.pending.size();
+    }
+
+    private void drain() {
+        List<Attempt> ready = new ArrayList<>();
+        synchronized (this) {
+            int batchSize = this.config.batchSize();
+            while (!this.closed && this.inFlight < this.config.maxInFlight() && !this.pending.isEmpty()) {
+                if (this.pending.size() < batchSize && !this.lingered) {
+                    // give the batch a chance to fill up
+                    scheduleLinger();
+                    break;
+                }
+                int count = Math.min(batchSize, this.pending.size());
+                if (count < batchSize) {
+                    this.lingered = false;
+                }
+                List<Event> events = new ArrayList<>(count);
+                for (int i = 0; i < count; ++i) {
+                    events.add(this.pending.poll());
+                }
+                ++this.inFlight;
+                ready.add(batchSize == 1 ? single(events.get(0)) : batch(events));
+            }
+        }
+        ready.forEach(this::execute);
+    }
+
+    private void scheduleLinger() {
+        if (this.lingerTimer < 0) {
+            this.lingerTimer = this.vertx.setTimer(Math.max(1, this.config.batchLingerMillis()), (id) -> {
+                synchronized (this) {
+                    this.lingerTimer = -1;
+                    this.lingered = true;
+                }
+                drain();
+            });
+        }
+    }
+
+    private Attempt single(Event event) {
+        String path = this.destination.resolve(event.id).getRawPath();
+        return new Attempt(DELETE.equals(event.action) ? "DELETE" : "PUT", path, null, event.body, 1);
+    }
+
+    private Attempt batch(List<Event> events) {
+        JsonStringEncoder encoder = JsonStringEncoder.getInstance();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write('[');
+        for (int i = 0; i < events.size(); ++i) {
+            Event event = events.get(i);
+            if (i > 0) {
+                out.write(',');
+            }
+            write(out, "{\"action\":\"");
+            write(out, event.action);
+            write(out, "\",\"id\":\"");
+            byte[] id = encoder.quoteAsUTF8(event.id);
+            out.write(id, 0, id.length);
+            write(out, "\",\"data\":");
+            if (event.body.length == 0) {
+                write(out, "null");
+            } else {
+                out.write(event.body, 0, event.body.length);
+            }
+            out.write('}');
+        }
+        out.write(']');
+        return new Attempt("POST", this.destination.getRawPath(), "application/json", out.toByteArray(), events.size());
+    }
+
+    private static void write(ByteArrayOutputStream out, String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private void execute(Attempt attempt) {
+        this.context.runOnContext((v) -> request(attempt));
+    }
+
+    private void request(Attempt attempt) {
+        AtomicBoolean done = new AtomicBoolean();
+        try {
+            this.requests.increment();
+            HttpClientRequest request = this.client.get().request(attempt.method, attempt.path, (response) -> {
+                response.exceptionHandler((e) -> {
+                    if (done.compareAndSet(false, true)) {
+                        completed(attempt, -1, e);
+                    }
+                });
+                response.endHandler((v) -> {
+                    if (done.compareAndSet(false, true)) {
+                        completed(attempt, response.statusCode(), null);
+                    }
+                });
+            });
+            request.exceptionHandler((e) -> {
+                if (done.compareAndSet(false, true)) {
+                    completed(attempt, -1, e);
+                }
+            });
+            if (this.config.requestTimeoutMillis() > 0) {
+                request.setTimeout(this.config.requestTimeoutMillis());
+            }
+            if (attempt.contentType != null) {
+                request.putHeader("Content-Type", attempt.contentType);
+            }
+            request.end(new Buffer(attempt.body));
+        } catch (Throwable t) {
+            if (done.compareAndSet(false, true)) {
+                completed(attempt, -1, t);
+            }
+        }
+    }
+
+    private void completed(Attempt attempt, int status, Throwable error) {
+        if (error == null && status >= 200 && status < 300) {
+            this.delivered.add(attempt.events);
+        } else {
+            boolean retryable = error != null || status >= 500 || status == 429;
+            boolean closed;
+            synchronized (this) {
+                closed = this.closed;
+            }
+            if (retryable && !closed && attempt.retries < this.config.maxRetries()) {
+                long delay = this.config.retryBackoffMillis() << Math.min(attempt.retries, 16);
+                ++attempt.retries;
+                this.retried.increment();
+                // the attempt keeps its in-flight slot while it waits
+                this.vertx.setTimer(Math.max(1, delay), (id) -> execute(attempt));
+                return;
+            }
+            this.failed.add(attempt.events);
+            if (error != null) {
+                log.debugf(error, "Could not deliver %d event(s) to %s", attempt.events, this.destination);
+            } else {
+                log.debugf("Could not deliver %d event(s) to %s: status %d", attempt.events, this.destination, status);
+            }
+        }
+
+        synchronized (this) {
+            --this.inFlight;
+        }
+        drain();
+    }
+
+    private static class Event {
+
+        Event(String action, String id, byte[] body) {
+            this.action = action;
+            this.id = id;
+            this.body = body;
+        }
+
+        final String action;
+        final String id;
+        final byte[] body;
+    }
+
+    private static class Attempt {
+
+        Attempt(String method, String path, String contentType, byte[] body, int events) {
+            this.method = method;
+            this.path = path;
+            this.contentType = contentType;
+            this.body = body;
+            this.events = events;
+        }
+
+        final String method;
+        final String path;
+        final String contentType;
+        final byte[] body;
+        final int events;
+        int retries;
+    }
+
+    private final Vertx vertx;
+    private final Context context;
+    private final Supplier<HttpClient> client;
+    private final URI destination;
+    private final WebhookConfig config;
+
+    private final ArrayDeque<Event> pending = new ArrayDeque<>();
+    private int inFlight;
+    private long lingerTimer = -1;
+    private boolean lingered;
+    private boolean closed;
+
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder requests = new LongAdder();
+
+    private static final Logger log = Logger.getLogger(WebhookDelivery.class);
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.container.subscriptions;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.vertx.java.core.Context;
+import org.vertx.java.core.Vertx;
+import org.vertx.java.core.http.HttpClient;
+
+/**
+ * Keep-alive connection pools for HTTP subscriptions, one per destination scheme, host and port, shared by all
+ * subscriptions delivering there. <code>https</code> destinations are reached over TLS, on port 443 by default.
+ *
+ * <p>Vert.x HTTP clients belong to the context they are created on. Events are dispatched from threads outside of
+ * Vert.x, so the engine keeps a context of its own, and the pools are only ever created and used on it.</p>
+ */
+public class WebhookEngine {
+
+    public WebhookEngine(Vertx vertx, WebhookConfig config) {
+        this.vertx = vertx;
+        this.config = config;
+        this.context = context(vertx);
+    }
+
+    private static Context context(Vertx vertx) {
+        Context context = vertx.currentContext();
+        if (context != null) {
+            return context;
+        }
+        // from outside of Vert.x, a task runs on a new event loop context
+        CompletableFuture<Context> future = new CompletableFuture<>();
+        vertx.runOnContext((v) -> future.complete(vertx.currentContext()));
+        return future.join();
+    }
+
+    public WebhookConfig config() {
+        return this.config;
+    }
+
+    public WebhookDelivery delivery(URI destination, WebhookConfig config) {
+        return new WebhookDelivery(this.vertx, this.context, () -> client(destination), destination, config);
+    }
+
+    /**
+     * @return the context the pools belong to
+     */
+    Context context() {
+        return this.context;
+    }
+
+    /**
+     * The pool for a destination. Only call this on the engine's {@link #context()}.
+     */
+    protected HttpClient client(URI destination) {
+        boolean ssl = "https".equalsIgnoreCase(destination.getScheme());
+        int port = destination.getPort() < 0 ? (ssl ? 443 : 80) : destination.getPort();
+        String key = (ssl ? "https://" : "http://") + destination.getHost() + ":" + port;
+        return this.clients.computeIfAbsent(key, (k) -> this.vertx.createHttpClient()
+                .setHost(destination.getHost())
+                .setPort(port)
+                .setSSL(ssl)
+                .setKeepAlive(true)
+                .setMaxPoolSize(this.config.maxConnections()));
+    }
+
+    public void shutdown() {
+        this.context.runOnContext((v) -> {
+            this.clients.values().forEach(HttpClient::close);
+            this.clients.clear();
+        });
+    }
+
+    private final Vertx vertx;
+    private final WebhookConfig config;
+    private final Context context;
+    private final Map<String, HttpClient> clients = new HashMap<>();
+}
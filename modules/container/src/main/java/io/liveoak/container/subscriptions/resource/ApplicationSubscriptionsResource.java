@@ -5,6 +5,9 @@ import io.liveoak.common.codec.ResourceCodecManager;
 import io.liveoak.container.subscriptions.DefaultSubscriptionManager;
 import io.liveoak.container.subscriptions.HttpSubscription;
 import io.liveoak.container.subscriptions.StompSubscription;
+import io.liveoak.container.subscriptions.WebhookConfig;
+import io.liveoak.container.subscriptions.WebhookDelivery;
+import io.liveoak.container.subscriptions.WebhookEngine;
 import io.liveoak.spi.MediaType;
 import io.liveoak.spi.RequestContext;
 import io.liveoak.spi.ResourcePath;
@@ -16,7 +19,6 @@ import io.liveoak.spi.resource.async.Resource;
 import io.liveoak.spi.resource.async.Responder;
 import io.liveoak.spi.state.ResourceState;
 import org.vertx.java.core.Vertx;
-import org.vertx.java.core.http.HttpClient;
 
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -34,6 +36,7 @@ public class ApplicationSubscriptionsResource implements SynchronousResource, Ro
         this.subscriptionManager = subscriptionManager;
         this.vertx = vertx;
         this.codecManager = codecManager;
+        this.webhooks = new WebhookEngine(vertx, WebhookConfig.fromProperties(System.getProperties()));
     }
 
     @Override
@@ -70,14 +73,31 @@ public class ApplicationSubscriptionsResource implements SynchronousResource, Ro
         }
 
 
+        WebhookConfig config = this.webhooks.config();
+        Object batchSize = state.getProperty(WebhookConfig.BATCH_SIZE);
+        Object batchLinger = state.getProperty(WebhookConfig.BATCH_LINGER);
+        try {
+            if (batchSize != null || batchLinger != null) {
+                config = config.withBatching(
+                        batchSize == null ? config.batchSize() : ((Number) batchSize).intValue(),
+                        batchLinger == null ? config.batchLingerMillis() : ((Number) batchLinger).longValue());
+            }
+        } catch (ClassCastException | IllegalArgumentException e) {
+            responder.invalidRequest("invalid batching: " + e.getMessage());
+            return;
+        }
+
+        if (config.batchSize() > 1 && !MediaType.JSON.equals(new MediaType(contentType))) {
+            responder.invalidRequest("batching requires content-type " + MediaType.JSON);
+            return;
+        }
+
         try {
             URI destinationUri = new URI(destination);
-            HttpClient httpClient = this.vertx.createHttpClient();
-            httpClient.setHost(destinationUri.getHost());
-            httpClient.setPort(destinationUri.getPort());
 
             SecurityContext requestSecurityContext = ctx.securityContext();
-            HttpSubscription sub = new HttpSubscription(httpClient, path, destinationUri, codec, requestSecurityContext);
+            WebhookDelivery delivery = this.webhooks.delivery(destinationUri, config);
+            HttpSubscription sub = new HttpSubscription(delivery, path, destinationUri, codec, requestSecurityContext);
             this.subscriptionManager.addSubscription(sub);
             responder.resourceCreated(new HttpSubscriptionResource(this, sub));
         } catch (URISyntaxException e) {
@@ -87,7 +107,7 @@ public class ApplicationSubscriptionsResource implements SynchronousResource, Ro
 
     @Override
     public Collection<? extends Resource> members(RequestContext ctx) {
-        Stream<Subscription> subscriptionStream = subscriptionManager.treeFor(applicationResourcePath()).objects();
+        Stream<Subscription> subscriptionStream = subscriptionManager.subscriptions(applicationResourcePath());
         return subscriptionStream.map((e) -> {
             if (e instanceof StompSubscription) {
                 return new StompSubscriptionResource(this, (StompSubscription) e);
@@ -103,8 +123,7 @@ public class ApplicationSubscriptionsResource implements SynchronousResource, Ro
 
     @Override
     public Resource member(RequestContext ctx, String id) {
-        Optional<Subscription> result = subscriptionManager.treeFor(applicationResourcePath())
-                .objects()
+        Optional<Subscription> result = subscriptionManager.subscriptions(applicationResourcePath())
                 .filter(e -> e.id().equals(id))
                 .findFirst();
 
@@ -132,6 +151,13 @@ public class ApplicationSubscriptionsResource implements SynchronousResource, Ro
 
     public void delete(Subscription subscription) {
         this.subscriptionManager.removeSubscription( subscription );
+        if (subscription instanceof HttpSubscription) {
+            ((HttpSubscription) subscription).close();
+        }
+    }
+
+    public void shutdown() {
+        this.webhooks.shutdown();
     }
 
 
@@ -139,4 +165,5 @@ public class ApplicationSubscriptionsResource implements SynchronousResource, Ro
     private DefaultSubscriptionManager subscriptionManager;
     private Vertx vertx;
     private ResourceCodecManager codecManager;
+    private final WebhookEngine webhooks;
 }
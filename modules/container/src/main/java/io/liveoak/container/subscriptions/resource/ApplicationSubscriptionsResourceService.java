@@ -47,7 +47,8 @@ public class ApplicationSubscriptionsResourceService implements Service<Applicat
 
     @Override
     public void stop(StopContext context) {
-
+        this.resource.shutdown();
+        this.resource = null;
     }
 
     @Override
@@ -4,6 +4,8 @@ import java.util.HashMap;
 import java.util.Map;
 
 import io.liveoak.container.subscriptions.HttpSubscription;
+import io.liveoak.container.subscriptions.WebhookConfig;
+import io.liveoak.container.subscriptions.WebhookDelivery;
 import io.liveoak.spi.RequestContext;
 import io.liveoak.spi.resource.SynchronousResource;
 import io.liveoak.spi.resource.async.Resource;
@@ -31,10 +33,24 @@ public class HttpSubscriptionResource implements SynchronousResource {
 
     @Override
     public Map<String, ?> properties(RequestContext ctx) throws Exception {
-        Map<String, String> result = new HashMap<>();
+        Map<String, Object> result = new HashMap<>();
         result.put("type", "http");
         result.put("path", this.subscription.resourcePath().toString());
         result.put("destination", this.subscription.destination().toString());
+
+        WebhookDelivery delivery = this.subscription.delivery();
+        result.put(WebhookConfig.BATCH_SIZE, delivery.config().batchSize());
+        result.put(WebhookConfig.BATCH_LINGER, delivery.config().batchLingerMillis());
+
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("delivered", delivery.delivered());
+        metrics.put("failed", delivery.failed());
+        metrics.put("retried", delivery.retried());
+        metrics.put("dropped", delivery.dropped());
+        metrics.put("requests", delivery.requests());
+        metrics.put("in-flight", delivery.inFlight());
+        metrics.put("pending", delivery.pending());
+        result.put("delivery", metrics);
         return result;
     }
 
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.container.tenancy;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Readiness and startup timings of the applications deployed in the container.
+ *
+ * <p>An application is ready once its application service is up and every resource defined in its
+ * <code>application.json</code> has been installed. Timings are kept per startup phase, and per extension
+ * resource.</p>
+ */
+public class ApplicationDeployments {
+
+    public enum State {
+        DEPLOYING,
+        READY,
+        FAILED;
+
+        public String toString() {
+            return name().toLowerCase();
+        }
+    }
+
+    public static class Deployment {
+
+        Deployment(String id) {
+            this.id = id;
+            this.start = System.nanoTime();
+        }
+
+        public String id() {
+            return this.id;
+        }
+
+        public State state() {
+            if (!this.ready.isDone()) {
+                return State.DEPLOYING;
+            }
+            return this.ready.isCompletedExceptionally() ? State.FAILED : State.READY;
+        }
+
+        /**
+         * @return why the deployment failed, or null
+         */
+        public Throwable failure() {
+            return this.failure;
+        }
+
+        /**
+         * @return milliseconds from the start of the deployment until it was ready or failed, or until now
+         */
+        public double elapsedMillis() {
+            long end = this.end;
+            return ((end != 0 ? end : System.nanoTime()) - this.start) / 1000000.0;
+        }
+
+        /**
+         * Record that a startup phase, which started at <code>startNanos</code>, has completed.
+         */
+        public synchronized void phase(String name, long startNanos) {
+            this.phases.put(name, (System.nanoTime() - startNanos) / 1000000.0);
+        }
+
+        /**
+         * Record the installation of an extension resource, which started at <code>startNanos</code>.
+         *
+         * @param failure why the resource could not be installed, or null
+         */
+        public synchronized void extension(String resourceId, String extensionId, long startNanos, Throwable failure) {
+            Map<String, Object> timing = new LinkedHashMap<>();
+            timing.put("type", extensionId);
+            timing.put("ms", (System.nanoTime() - startNanos) / 1000000.0);
+            if (failure != null) {
+                timing.put("error", String.valueOf(failure.getMessage()));
+            }
+            this.extensions.put(resourceId, timing);
+        }
+
+        public synchronized Map<String, Double> phases() {
+            return new LinkedHashMap<>(this.phases);
+        }
+
+        public synchronized Map<String, Map<String, Object>> extensions() {
+            return new LinkedHashMap<>(this.extensions);
+        }
+
+        public void ready() {
+            this.end = System.nanoTime();
+            this.ready.complete(null);
+        }
+
+        public void failed(Throwable failure) {
+            this.failure = failure;
+            this.end = System.nanoTime();
+            this.ready.completeExceptionally(failure);
+        }
+
+        /**
+         * Wait for the application to be ready.
+         *
+         * @throws ExecutionException if the deployment failed
+         */
+        public void await(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+            this.ready.get(timeout, unit);
+        }
+
+        private final String id;
+        private final long start;
+        private volatile long end;
+        private volatile Throwable failure;
+        private final CompletableFuture<Void> ready = new CompletableFuture<>();
+        private final Map<String, Double> phases = new LinkedHashMap<>();
+        private final Map<String, Map<String, Object>> extensions = new LinkedHashMap<>();
+    }
+
+    /**
+     * Start tracking the deployment of an application, replacing any earlier one with the same id.
+     */
+    public Deployment begin(String id) {
+        Deployment deployment = new Deployment(id);
+        this.deployments.put(id, deployment);
+        return deployment;
+    }
+
+    public Deployment deployment(String id) {
+        return this.deployments.get(id);
+    }
+
+    public void remove(String id) {
+        this.deployments.remove(id);
+    }
+
+    public Collection<Deployment> deployments() {
+        List<Deployment> result = new ArrayList<>(this.deployments.values());
+        result.sort((a, b) -> a.id().compareTo(b.id()));
+        return result;
+    }
+
+    private final Map<String, Deployment> deployments = new ConcurrentHashMap<>();
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.container.tenancy;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.Map;
+
+import io.liveoak.spi.RequestContext;
+import io.liveoak.spi.resource.RootResource;
+import io.liveoak.spi.resource.SynchronousResource;
+import io.liveoak.spi.resource.async.Resource;
+
+/**
+ * Exposes the readiness and startup timings of applications at <code>/admin/system/deployments</code>,
+ * with a member per application. Timings are in milliseconds.
+ */
+public class DeploymentsResource implements RootResource, SynchronousResource {
+
+    public static final String ID = "deployments";
+
+    public DeploymentsResource(ApplicationDeployments deployments) {
+        this.deployments = deployments;
+    }
+
+    @Override
+    public void parent(Resource parent) {
+        this.parent = parent;
+    }
+
+    @Override
+    public Resource parent() {
+        return this.parent;
+    }
+
+    @Override
+    public String id() {
+        return ID;
+    }
+
+    @Override
+    public Map<String, ?> properties(RequestContext ctx) throws Exception {
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (ApplicationDeployments.State state : ApplicationDeployments.State.values()) {
+            result.put(state.toString(), 0);
+        }
+        for (ApplicationDeployments.Deployment deployment : this.deployments.deployments()) {
+            result.compute(deployment.state().toString(), (state, count) -> (Integer) count + 1);
+        }
+        return result;
+    }
+
+    @Override
+    public Collection<Resource> members(RequestContext ctx) throws Exception {
+        LinkedList<Resource> members = new LinkedList<>();
+        for (ApplicationDeployments.Deployment deployment : this.deployments.deployments()) {
+            members.add(new DeploymentResource(this, deployment));
+        }
+        return members;
+    }
+
+    @Override
+    public Resource member(RequestContext ctx, String id) throws Exception {
+        ApplicationDeployments.Deployment deployment = this.deployments.deployment(id);
+        return deployment != null ? new DeploymentResource(this, deployment) : null;
+    }
+
+    private final ApplicationDeployments deployments;
+    private Resource parent;
+
+    private static class DeploymentResource implements SynchronousResource {
+
+        DeploymentResource(Resource parent, ApplicationDeployments.Deployment deployment) {
+            this.parent = parent;
+            this.deployment = deployment;
+        }
+
+        @Override
+        public Resource parent() {
+            return this.parent;
+        }
+
+        @Override
+        public String id() {
+            return this.deployment.id();
+        }
+
+        @Override
+        public Map<String, ?> properties(RequestContext ctx) throws Exception {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("state", this.deployment.state().toString());
+            result.put("ms", this.deployment.elapsedMillis());
+            if (this.deployment.failure() != null) {
+                result.put("error", String.valueOf(this.deployment.failure().getMessage()));
+            }
+            result.put("phases", this.deployment.phases());
+            result.put("extensions", this.deployment.extensions());
+            return result;
+        }
+
+        private final Resource parent;
+        private final ApplicationDeployments.Deployment deployment;
+    }
+}
@@ -3,13 +3,14 @@ package io.liveoak.container.tenancy;
 import java.io.File;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import io.liveoak.container.tenancy.service.ApplicationRemovalService;
 import io.liveoak.container.tenancy.service.ApplicationService;
+import io.liveoak.container.workers.WorkerPool;
 import io.liveoak.spi.Application;
 import io.liveoak.spi.Services;
 import org.jboss.msc.service.ServiceController;
@@ -35,7 +36,7 @@ public class InternalApplicationRegistry implements ApplicationRegistry {
     }
 
     public InternalApplication createApplication(String id, String name, File directory, Consumer<File> gitCommit) throws InterruptedException {
-        ApplicationService app = new ApplicationService(id, name, directory, gitCommit);
+        ApplicationService app = new ApplicationService(id, name, directory, gitCommit, this.deployments.begin(id));
         ServiceController<InternalApplication> controller = this.target.addService(Services.application(id), app)
                 .addDependency(Services.APPLICATIONS_DIR, File.class, app.applicationsDirectoryInjector())
                 .install();
@@ -61,12 +62,22 @@ public class InternalApplicationRegistry implements ApplicationRegistry {
 
     public void removeApplication(String id) {
         ServiceController<InternalApplication> controller = this.applications.remove(id);
+        this.deployments.remove(id);
         ApplicationRemovalService removalService = new ApplicationRemovalService(controller);
         this.target.addService(Services.application(id).append("remove"), removalService)
                 .addDependency(Services.VERTX, Vertx.class, removalService.vertxInjector())
+                .addDependency(Services.WORKER_POOL, WorkerPool.class, removalService.workerPoolInjector())
                 .install();
     }
 
+    /**
+     * @return readiness and startup timings of the applications
+     */
+    public ApplicationDeployments deployments() {
+        return this.deployments;
+    }
+
     private final ServiceTarget target;
-    private Map<String, ServiceController<InternalApplication>> applications = new HashMap<>();
+    private Map<String, ServiceController<InternalApplication>> applications = new ConcurrentHashMap<>();
+    private final ApplicationDeployments deployments = new ApplicationDeployments();
 }
@@ -4,6 +4,7 @@ import java.io.File;
 
 import io.liveoak.common.util.FileHelper;
 import io.liveoak.container.tenancy.InternalApplication;
+import io.liveoak.container.workers.WorkerPool;
 import org.jboss.msc.inject.Injector;
 import org.jboss.msc.service.Service;
 import org.jboss.msc.service.ServiceController;
@@ -31,6 +32,7 @@ public class ApplicationRemovalService implements Service<Void> {
         StabilityMonitor monitor = new StabilityMonitor();
         target.addMonitor(monitor);
 
+        String appId = this.appServiceController.getValue().id();
         File appDir = this.appServiceController.getValue().directory();
         try {
             context.asynchronous();
@@ -49,6 +51,8 @@ public class ApplicationRemovalService implements Service<Void> {
 
             monitor.awaitStability();
             target.removeMonitor(monitor);
+
+            this.workerPool.getValue().release(appId);
         } catch (Exception e) {
             throw new StartException(e);
         }
@@ -70,6 +74,11 @@ public class ApplicationRemovalService implements Service<Void> {
         return this.vertx;
     }
 
+    public Injector<WorkerPool> workerPoolInjector() {
+        return this.workerPool;
+    }
+
     private InjectedValue<Vertx> vertx = new InjectedValue<>();
+    private InjectedValue<WorkerPool> workerPool = new InjectedValue<>();
     private ServiceController<InternalApplication> appServiceController;
 }
@@ -5,6 +5,7 @@ import java.util.HashSet;
 import java.util.Set;
 import java.util.function.Consumer;
 
+import io.liveoak.container.tenancy.ApplicationDeployments;
 import io.liveoak.container.tenancy.InternalApplication;
 import io.liveoak.spi.Services;
 import io.liveoak.spi.state.ResourceState;
@@ -26,9 +27,17 @@ import org.jboss.msc.value.InjectedValue;
 public class ApplicationResourcesStartupService implements Service<Void> {
 
     public ApplicationResourcesStartupService(ResourceState resourcesTree, Consumer<File> gitCommit, File installDir) {
+        this(resourcesTree, gitCommit, installDir, null);
+    }
+
+    /**
+     * @param deployment where to record startup timings and readiness of the application, or null
+     */
+    public ApplicationResourcesStartupService(ResourceState resourcesTree, Consumer<File> gitCommit, File installDir, ApplicationDeployments.Deployment deployment) {
         this.resourcesTree = resourcesTree;
         this.gitCommit = gitCommit;
         this.installDir = installDir;
+        this.deployment = deployment;
     }
 
     @Override
@@ -36,25 +45,38 @@ public class ApplicationResourcesStartupService implements Service<Void> {
         log.debug("application resources service: START: " + this.resourcesTree);
         if (this.resourcesTree == null) {
             createGitCommitService(context, null);
+            if (this.deployment != null) {
+                this.deployment.ready();
+            }
             return;
         }
 
         context.asynchronous();
         try {
             new Thread(() -> {
+                long start = System.nanoTime();
                 try {
                     Set<ServiceName> dependencies = new HashSet<>();
                     Set<String> fields = this.resourcesTree.getPropertyNames();
+                    // resources are installed in the order they are defined, as later ones may rely on earlier ones
                     for (String resourceId : fields) {
                         dependencies.add(Services.applicationExtension(this.applicationInjector.getValue().id(), resourceId));
                         ResourceState resourceState = (ResourceState) this.resourcesTree.getProperty(resourceId);
                         log.debug("BOOTTIME INSTALL OF: " + resourceId);
-                        this.applicationInjector.getValue().extend(resourceId, resourceState, true);
+                        extend(resourceId, resourceState);
                     }
                     createGitCommitService(context, dependencies);
                     context.complete();
+                    if (this.deployment != null) {
+                        this.deployment.phase("resources", start);
+                        this.deployment.ready();
+                    }
                 } catch (Throwable e) {
                     context.failed(new StartException(e));
+                    if (this.deployment != null) {
+                        this.deployment.phase("resources", start);
+                        this.deployment.failed(e);
+                    }
                 }
             }, "ApplicationResourcesService starter - " + this.applicationInjector.getValue().name()).start();
         } catch (Throwable e) {
@@ -71,6 +93,21 @@ public class ApplicationResourcesStartupService implements Service<Void> {
         return null;
     }
 
+    private void extend(String resourceId, ResourceState resourceState) throws Exception {
+        long start = System.nanoTime();
+        try {
+            this.applicationInjector.getValue().extend(resourceId, resourceState, true);
+        } catch (Exception e) {
+            if (this.deployment != null) {
+                this.deployment.extension(resourceId, (String) resourceState.getProperty("type"), start, e);
+            }
+            throw e;
+        }
+        if (this.deployment != null) {
+            this.deployment.extension(resourceId, (String) resourceState.getProperty("type"), start, null);
+        }
+    }
+
     protected void createGitCommitService(StartContext context, Set<ServiceName> dependencies) {
         if (this.gitCommit != null) {
             ServiceTarget target = context.getChildTarget();
@@ -93,6 +130,7 @@ public class ApplicationResourcesStartupService implements Service<Void> {
     private ResourceState resourcesTree;
     private Consumer<File> gitCommit;
     private File installDir;
+    private ApplicationDeployments.Deployment deployment;
     private InjectedValue<InternalApplication> applicationInjector = new InjectedValue<>();
 
     private static final Logger log = Logger.getLogger(ApplicationResourcesStartupService.class);
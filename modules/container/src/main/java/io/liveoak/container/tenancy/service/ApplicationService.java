@@ -14,6 +14,7 @@ import io.liveoak.common.codec.json.JSONDecoder;
 import io.liveoak.spi.util.ObjectMapperFactory;
 import io.liveoak.container.service.MediaTypeMountService;
 import io.liveoak.container.tenancy.ApplicationConfigurationManager;
+import io.liveoak.container.tenancy.ApplicationDeployments;
 import io.liveoak.container.tenancy.ApplicationContext;
 import io.liveoak.container.tenancy.ApplicationResource;
 import io.liveoak.container.tenancy.InternalApplication;
@@ -47,14 +48,20 @@ import org.jboss.msc.value.InjectedValue;
 public class ApplicationService implements Service<InternalApplication> {
 
     public ApplicationService(String id, String name, File directory, Consumer<File> gitCommit) {
+        this(id, name, directory, gitCommit, null);
+    }
+
+    public ApplicationService(String id, String name, File directory, Consumer<File> gitCommit, ApplicationDeployments.Deployment deployment) {
         this.id = id;
         this.name = name != null ? name : id;
         this.directory = directory;
         this.gitCommit = gitCommit;
+        this.deployment = deployment;
     }
 
     @Override
     public void start(StartContext context) throws StartException {
+        long start = System.nanoTime();
         ServiceTarget target = context.getChildTarget();
 
         File appDir = this.directory;
@@ -181,7 +188,7 @@ public class ApplicationService implements Service<InternalApplication> {
                 .install());
 
         // Startup all resources defined for the application
-        ApplicationResourcesStartupService resources = new ApplicationResourcesStartupService(resourcesTree, this.gitCommit, this.app.directory());
+        ApplicationResourcesStartupService resources = new ApplicationResourcesStartupService(resourcesTree, this.gitCommit, this.app.directory(), this.deployment);
 
         ServiceBuilder<Void> resourceStartup = target.addService(Services.application(this.id).append("resources"), resources)
                 .addInjectionValue(resources.applicationInjector(), this);
@@ -190,6 +197,10 @@ public class ApplicationService implements Service<InternalApplication> {
             resourceStartup.addDependency(Services.application(this.app.id()).append("git-install"));
         }
         resourceStartup.install();
+
+        if (this.deployment != null) {
+            this.deployment.phase("application", start);
+        }
     }
 
     private Properties envProperties() {
@@ -218,6 +229,7 @@ public class ApplicationService implements Service<InternalApplication> {
     private String name;
     private File directory;
     private Consumer<File> gitCommit;
+    private ApplicationDeployments.Deployment deployment;
     private InjectedValue<File> applicationsDirectoryInjector = new InjectedValue<>();
     private InternalApplication app;
 
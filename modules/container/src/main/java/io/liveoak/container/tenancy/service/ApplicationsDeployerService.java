@@ -1,7 +1,17 @@
 package io.liveoak.container.tenancy.service;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import io.liveoak.container.tenancy.ApplicationDeployments;
 import io.liveoak.container.tenancy.InternalApplicationRegistry;
 import org.jboss.logging.Logger;
 import org.jboss.msc.inject.Injector;
@@ -12,39 +22,112 @@ import org.jboss.msc.service.StopContext;
 import org.jboss.msc.value.InjectedValue;
 
 /**
+ * Deploys the applications found in the applications directory at startup.
+ *
+ * <p>Applications are deployed concurrently, by at most <code>liveoak.deployer.threads</code> at a time
+ * (the number of processors by default). Each deployment waits up to <code>liveoak.deployer.timeout-ms</code>
+ * for its application to be ready. An application which fails, or does not become ready in time, is logged
+ * and does not hold up the others.</p>
+ *
  * @author Ken Finnigan
  */
 public class ApplicationsDeployerService implements Service<Void> {
 
     private static final Logger log = Logger.getLogger(ApplicationsDeployerService.class);
 
+    public static final String PREFIX = "liveoak.deployer.";
+
+    public static final long DEFAULT_TIMEOUT = 300000;
+
     @Override
     public void start(final StartContext context) throws StartException {
         context.asynchronous();
         new Thread(() -> {
             try {
-                File[] appDirs = this.appDirInjector.getValue().listFiles(pathname -> pathname.isDirectory());
-
-                for (File appDir : appDirs) {
-                    if ((new File(appDir, "application.json")).exists()) {
-                        try {
-                            this.registryInjector.getValue().createApplication(appDir.getName(), appDir.getName(), appDir);
-                        } catch (InterruptedException e) {
-                            context.failed(new StartException(e));
-                            return;
-                        } catch (Throwable t) {
-                            log.error("[IGNORED] Failed to deploy application: " + appDir.getName(), t);
-                        }
-                    }
-                }
+                File[] appDirs = this.appDirInjector.getValue().listFiles(pathname -> pathname.isDirectory()
+                        && (new File(pathname, "application.json")).exists());
+                deploy(appDirs);
                 context.complete();
-
             } catch (Throwable th) {
                 context.failed(new StartException(th));
             }
         }, "ApplicationsDeployerService starter").start();
     }
 
+    private void deploy(File[] appDirs) throws InterruptedException {
+        if (appDirs == null || appDirs.length == 0) {
+            return;
+        }
+
+        int threads = Math.min(appDirs.length, Integer.getInteger(PREFIX + "threads", Runtime.getRuntime().availableProcessors()));
+        long timeout = Long.getLong(PREFIX + "timeout-ms", DEFAULT_TIMEOUT);
+
+        AtomicInteger counter = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads), (r) -> {
+            Thread thread = new Thread(r, "liveoak-deployer-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        long start = System.nanoTime();
+        try {
+            List<Future<Boolean>> deployments = new ArrayList<>();
+            for (File appDir : appDirs) {
+                deployments.add(executor.submit(() -> deploy(appDir, timeout)));
+            }
+
+            int ready = 0;
+            for (Future<Boolean> deployment : deployments) {
+                try {
+                    if (deployment.get()) {
+                        ++ready;
+                    }
+                } catch (ExecutionException e) {
+                    log.error("[IGNORED] Failed to deploy application", e.getCause());
+                }
+            }
+            log.infof("Deployed %d of %d applications in %d ms", ready, appDirs.length,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @return true if the application is ready
+     */
+    private boolean deploy(File appDir, long timeout) throws InterruptedException {
+        String id = appDir.getName();
+        InternalApplicationRegistry registry = this.registryInjector.getValue();
+        try {
+            registry.createApplication(id, id, appDir);
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Throwable t) {
+            ApplicationDeployments.Deployment deployment = registry.deployments().deployment(id);
+            if (deployment != null) {
+                deployment.failed(t);
+            }
+            log.error("[IGNORED] Failed to deploy application: " + id, t);
+            return false;
+        }
+
+        ApplicationDeployments.Deployment deployment = registry.deployments().deployment(id);
+        if (deployment == null) {
+            return true;
+        }
+        try {
+            deployment.await(timeout, TimeUnit.MILLISECONDS);
+            log.debugf("Deployed application %s in %.1f ms", id, deployment.elapsedMillis());
+            return true;
+        } catch (ExecutionException e) {
+            log.error("[IGNORED] Failed to deploy application: " + id, e.getCause());
+        } catch (TimeoutException e) {
+            log.error("[IGNORED] Application " + id + " was not ready after " + timeout + " ms, moving on");
+        }
+        return false;
+    }
+
     @Override
     public void stop(StopContext context) {
 
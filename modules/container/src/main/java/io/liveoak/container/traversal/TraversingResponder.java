@@ -5,10 +5,11 @@
  */
 package io.liveoak.container.traversal;
 
-import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicReference;
 
 import io.liveoak.container.tenancy.GlobalContext;
+import io.liveoak.container.workers.WorkerPool;
 import io.liveoak.spi.RequestContext;
 import io.liveoak.spi.ResourceRequest;
 import io.liveoak.spi.resource.BlockingResource;
@@ -16,15 +17,17 @@ import io.liveoak.spi.resource.async.Resource;
 import io.liveoak.spi.resource.async.Responder;
 import io.liveoak.spi.state.ResourceState;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.local.LocalChannel;
 
 /**
  * @author Bob McWhirter
  */
 public class TraversingResponder extends BaseResponder {
 
-    public TraversingResponder(Executor executor, GlobalContext globalContext, ResourceRequest inReplyTo, ChannelHandlerContext ctx) {
+    public TraversingResponder(WorkerPool workerPool, GlobalContext globalContext, ResourceRequest inReplyTo, ChannelHandlerContext ctx) {
         super(inReplyTo, ctx);
-        this.executor = executor;
+        this.workerPool = workerPool;
+        this.internal = ctx.channel() instanceof LocalChannel;
         this.currentResource = globalContext;
         this.plan = new TraversalPlan(inReplyTo.requestType(), inReplyTo.resourcePath());
     }
@@ -74,13 +77,17 @@ public class TraversingResponder extends BaseResponder {
 
         Runnable stepRunner = () -> {
             if (resource instanceof BlockingResource) {
-                this.executor.execute(() -> {
-                    try {
-                        step.execute(stepContext, resource);
-                    } catch (Throwable t) {
-                        error(t);
-                    }
-                });
+                try {
+                    this.workerPool.executorFor(inReplyTo(), this.internal).execute(() -> {
+                        try {
+                            step.execute(stepContext, resource);
+                        } catch (Throwable t) {
+                            error(t);
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    error(e);
+                }
             } else {
                 try {
                     step.execute(stepContext, resource);
@@ -145,7 +152,8 @@ public class TraversingResponder extends BaseResponder {
     private TraversalPlan plan;
     private int stepNumber = -1;
 
-    private Executor executor;
+    private WorkerPool workerPool;
+    private final boolean internal;
 
     private Resource currentResource;
 }
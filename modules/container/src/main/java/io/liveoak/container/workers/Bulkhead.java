@@ -0,0 +1,175 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.container.workers;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded executor isolating one slice of blocking work (the container default,
+ * an application or a single extension within an application).
+ *
+ * <p>At most <code>maxThreads</code> tasks run at once and at most <code>queueSize</code>
+ * wait for a thread, in a queue of that capacity. With a <code>queueSize</code> of 0 tasks are only
+ * handed to idle threads. Anything beyond that is rejected by the executor with a
+ * {@link RejectedExecutionException}, which the container reports as <code>503 Service Unavailable</code>.</p>
+ */
+public class Bulkhead implements Executor {
+
+    public Bulkhead(String name, WorkerPoolConfig.Limits limits, long keepAliveSeconds) {
+        this.name = name;
+        this.queueSize = limits.queueSize();
+        this.executor = new ThreadPoolExecutor(limits.maxThreads(), limits.maxThreads(),
+                keepAliveSeconds, TimeUnit.SECONDS,
+                queue(this.queueSize),
+                new WorkerThreadFactory(name),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    public String name() {
+        return this.name;
+    }
+
+    /**
+     * @return true if the calling thread is a worker of any bulkhead
+     */
+    public static boolean onWorkerThread() {
+        return Thread.currentThread() instanceof WorkerThread;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        long queuedAt = System.nanoTime();
+        try {
+            this.executor.execute(() -> {
+                long startedAt = System.nanoTime();
+                this.waitNanos.add(startedAt - queuedAt);
+                try {
+                    task.run();
+                } finally {
+                    long elapsed = System.nanoTime() - startedAt;
+                    this.runNanos.add(elapsed);
+                    updateMax(elapsed);
+                    this.completed.increment();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            this.rejected.increment();
+            throw e;
+        }
+        this.submitted.increment();
+    }
+
+    private static BlockingQueue<Runnable> queue(int queueSize) {
+        return queueSize == 0 ? new SynchronousQueue<>() : new ArrayBlockingQueue<>(queueSize);
+    }
+
+    void shutdown() {
+        this.executor.shutdown();
+    }
+
+    public int maxThreads() {
+        return this.executor.getMaximumPoolSize();
+    }
+
+    public int queueSize() {
+        return this.queueSize;
+    }
+
+    public int activeThreads() {
+        return this.executor.getActiveCount();
+    }
+
+    public int poolSize() {
+        return this.executor.getPoolSize();
+    }
+
+    public int queueDepth() {
+        return this.executor.getQueue().size();
+    }
+
+    public long submitted() {
+        return this.submitted.sum();
+    }
+
+    public long completed() {
+        return this.completed.sum();
+    }
+
+    public long rejected() {
+        return this.rejected.sum();
+    }
+
+    public double meanWaitMillis() {
+        long count = this.completed.sum();
+        return count == 0 ? 0 : (this.waitNanos.sum() / (double) count) / 1_000_000;
+    }
+
+    public double meanRunMillis() {
+        long count = this.completed.sum();
+        return count == 0 ? 0 : (this.runNanos.sum() / (double) count) / 1_000_000;
+    }
+
+    public double maxRunMillis() {
+        return this.maxRunNanos.get() / 1_000_000.0;
+    }
+
+    private void updateMax(long elapsed) {
+        long current;
+        while (elapsed > (current = this.maxRunNanos.get())) {
+            if (this.maxRunNanos.compareAndSet(current, elapsed)) {
+                return;
+            }
+        }
+    }
+
+    public String toString() {
+        return "[Bulkhead: name=" + this.name + "; active=" + activeThreads() + "; queued=" + queueDepth() + "]";
+    }
+
+    private static class WorkerThreadFactory implements ThreadFactory {
+
+        WorkerThreadFactory(String name) {
+            this.prefix = "liveoak-worker-" + name + "-";
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            return new WorkerThread(r, this.prefix + this.counter.incrementAndGet());
+        }
+
+        private final String prefix;
+        private final AtomicInteger counter = new AtomicInteger();
+    }
+
+    private static class WorkerThread extends Thread {
+
+        WorkerThread(Runnable r, String name) {
+            super(r, name);
+        }
+    }
+
+    private final String name;
+    private final ThreadPoolExecutor executor;
+    private final int queueSize;
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAdder runNanos = new LongAdder();
+    private final AtomicLong maxRunNanos = new AtomicLong();
+}
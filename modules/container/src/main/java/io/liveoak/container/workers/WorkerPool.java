@@ -0,0 +1,142 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.container.workers;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+import io.liveoak.spi.Application;
+import io.liveoak.spi.ResourcePath;
+import io.liveoak.spi.ResourceRequest;
+
+/**
+ * Executor for blocking resource work, partitioned into bulkheads.
+ *
+ * <p>Work belonging to an application runs in that application's bulkhead, or in a dedicated
+ * bulkhead for one of its extension resources if one is configured. Everything else runs in the
+ * container-wide default bulkhead. A saturated bulkhead only rejects its own work.</p>
+ *
+ * <p>Work may make synchronous requests of its own through the client. Waiting on the bulkhead it
+ * already holds a worker of could deadlock, or be rejected, once the bulkhead is saturated. Requests
+ * made from a worker thread through the in-VM client therefore run inline, on that worker. Requests
+ * arriving over the client's local channels come from another thread, so they run in a separate
+ * internal bulkhead instead.</p>
+ */
+public class WorkerPool implements Executor {
+
+    public static final String DEFAULT = "default";
+    public static final String INTERNAL = "internal";
+
+    public WorkerPool(WorkerPoolConfig config) {
+        this.config = config;
+        this.defaultBulkhead = new Bulkhead(DEFAULT, config.limits(), config.keepAliveSeconds());
+        this.internalBulkhead = new Bulkhead(INTERNAL, config.limits(), config.keepAliveSeconds());
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        this.defaultBulkhead.execute(task);
+    }
+
+    /**
+     * Locate the bulkhead responsible for the given request.
+     *
+     * @param request The request, after its application has been resolved.
+     * @return The executor to run the request's blocking work on.
+     */
+    public Executor executorFor(ResourceRequest request) {
+        return executorFor(request, false);
+    }
+
+    /**
+     * Locate the executor for the given request.
+     *
+     * @param request  The request, after its application has been resolved.
+     * @param internal Whether the request came from the client over a local channel.
+     * @return The executor to run the request's blocking work on.
+     */
+    public Executor executorFor(ResourceRequest request, boolean internal) {
+        if (Bulkhead.onWorkerThread()) {
+            return INLINE;
+        }
+        if (internal) {
+            return this.internalBulkhead;
+        }
+        if (request == null) {
+            return this.defaultBulkhead;
+        }
+        Application application = request.requestContext().application();
+        if (application == null) {
+            return this.defaultBulkhead;
+        }
+
+        String appId = application.id();
+        List<ResourcePath.Segment> segments = request.resourcePath().segments();
+        if (segments.size() > 1 && !this.config.bulkheads().isEmpty()) {
+            String key = appId + "/" + segments.get(1).name();
+            WorkerPoolConfig.Limits limits = this.config.bulkheads().get(key);
+            if (limits != null) {
+                return bulkhead(key, limits);
+            }
+        }
+
+        WorkerPoolConfig.Limits limits = this.config.bulkheads().get(appId);
+        return bulkhead(appId, limits != null ? limits : this.config.applicationLimits());
+    }
+
+    public WorkerPoolConfig config() {
+        return this.config;
+    }
+
+    public Collection<Bulkhead> bulkheads() {
+        List<Bulkhead> result = new ArrayList<>();
+        result.add(this.defaultBulkhead);
+        result.add(this.internalBulkhead);
+        result.addAll(this.bulkheads.values());
+        return result;
+    }
+
+    /**
+     * Shut down the bulkheads of an application which has gone away. Work already queued still runs.
+     */
+    public void release(String appId) {
+        Iterator<Map.Entry<String, Bulkhead>> iter = this.bulkheads.entrySet().iterator();
+        while (iter.hasNext()) {
+            Map.Entry<String, Bulkhead> entry = iter.next();
+            if (entry.getKey().equals(appId) || entry.getKey().startsWith(appId + "/")) {
+                iter.remove();
+                entry.getValue().shutdown();
+            }
+        }
+    }
+
+    public void shutdown() {
+        this.defaultBulkhead.shutdown();
+        this.internalBulkhead.shutdown();
+        this.bulkheads.values().forEach(Bulkhead::shutdown);
+        this.bulkheads.clear();
+    }
+
+    private Bulkhead bulkhead(String key, WorkerPoolConfig.Limits limits) {
+        Bulkhead bulkhead = this.bulkheads.get(key);
+        if (bulkhead == null) {
+            bulkhead = this.bulkheads.computeIfAbsent(key, k -> new Bulkhead(k.replace('/', '.'), limits, this.config.keepAliveSeconds()));
+        }
+        return bulkhead;
+    }
+
+    private static final Executor INLINE = Runnable::run;
+
+    private final WorkerPoolConfig config;
+    private final Bulkhead defaultBulkhead;
+    private final Bulkhead internalBulkhead;
+    private final Map<String, Bulkhead> bulkheads = new ConcurrentHashMap<>();
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.container.workers;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Sizing of the worker pool bulkheads.
+ *
+ * <p>Initial values are read from system properties:</p>
+ * <ul>
+ *     <li><code>liveoak.worker-pool.max-threads</code>, <code>liveoak.worker-pool.queue-size</code>: the container-wide bulkhead</li>
+ *     <li><code>liveoak.worker-pool.application.max-threads</code>, <code>liveoak.worker-pool.application.queue-size</code>: every application bulkhead</li>
+ *     <li><code>liveoak.worker-pool.bulkhead.&lt;app&gt;[/&lt;resource&gt;].max-threads</code> and <code>.queue-size</code>:
+ *     a dedicated bulkhead for one application, or for one extension resource within it</li>
+ *     <li><code>liveoak.worker-pool.keep-alive</code>: idle thread keep-alive, in seconds</li>
+ * </ul>
+ */
+public class WorkerPoolConfig {
+
+    public static final String PREFIX = "liveoak.worker-pool.";
+    public static final String BULKHEAD_PREFIX = PREFIX + "bulkhead.";
+
+    public static final String MAX_THREADS = "max-threads";
+    public static final String QUEUE_SIZE = "queue-size";
+    public static final String KEEP_ALIVE = "keep-alive";
+
+    public static final Limits DEFAULT_LIMITS = new Limits(64, 1024);
+    public static final Limits DEFAULT_APPLICATION_LIMITS = new Limits(16, 256);
+    public static final long DEFAULT_KEEP_ALIVE = 60;
+
+    public static class Limits {
+
+        public Limits(int maxThreads, int queueSize) {
+            if (maxThreads < 1) {
+                throw new IllegalArgumentException(MAX_THREADS + " must be at least 1");
+            }
+            if (queueSize < 0) {
+                throw new IllegalArgumentException(QUEUE_SIZE + " must not be negative");
+            }
+            this.maxThreads = maxThreads;
+            this.queueSize = queueSize;
+        }
+
+        public int maxThreads() {
+            return this.maxThreads;
+        }
+
+        public int queueSize() {
+            return this.queueSize;
+        }
+
+        public String toString() {
+            return "[Limits: maxThreads=" + this.maxThreads + "; queueSize=" + this.queueSize + "]";
+        }
+
+        private final int maxThreads;
+        private final int queueSize;
+    }
+
+    public WorkerPoolConfig() {
+        this(DEFAULT_LIMITS, DEFAULT_APPLICATION_LIMITS, DEFAULT_KEEP_ALIVE, Collections.emptyMap());
+    }
+
+    public WorkerPoolConfig(Limits limits, Limits applicationLimits, long keepAliveSeconds, Map<String, Limits> bulkheads) {
+        this.limits = limits;
+        this.applicationLimits = applicationLimits;
+        this.keepAliveSeconds = keepAliveSeconds;
+        this.bulkheads = Collections.unmodifiableMap(new HashMap<>(bulkheads));
+    }
+
+    public static WorkerPoolConfig fromProperties(Properties props) {
+        Limits limits = limits(props, PREFIX, DEFAULT_LIMITS);
+        Limits applicationLimits = limits(props, PREFIX + "application.", DEFAULT_APPLICATION_LIMITS);
+        long keepAlive = Long.parseLong(props.getProperty(PREFIX + KEEP_ALIVE, String.valueOf(DEFAULT_KEEP_ALIVE)));
+
+        Map<String, Limits> bulkheads = new HashMap<>();
+        for (String name : props.stringPropertyNames()) {
+            if (name.startsWith(BULKHEAD_PREFIX) && name.endsWith("." + MAX_THREADS)) {
+                String key = name.substring(BULKHEAD_PREFIX.length(), name.length() - MAX_THREADS.length() - 1);
+                bulkheads.put(key, limits(props, BULKHEAD_PREFIX + key + ".", applicationLimits));
+            }
+        }
+
+        return new WorkerPoolConfig(limits, applicationLimits, keepAlive, bulkheads);
+    }
+
+    private static Limits limits(Properties props, String prefix, Limits defaults) {
+        int maxThreads = Integer.parseInt(props.getProperty(prefix + MAX_THREADS, String.valueOf(defaults.maxThreads())));
+        int queueSize = Integer.parseInt(props.getProperty(prefix + QUEUE_SIZE, String.valueOf(defaults.queueSize())));
+        return new Limits(maxThreads, queueSize);
+    }
+
+    public Limits limits() {
+        return this.limits;
+    }
+
+    public Limits applicationLimits() {
+        return this.applicationLimits;
+    }
+
+    public long keepAliveSeconds() {
+        return this.keepAliveSeconds;
+    }
+
+    /**
+     * Dedicated bulkheads, keyed by <code>app</code> or <code>app/resource</code>.
+     */
+    public Map<String, Limits> bulkheads() {
+        return this.bulkheads;
+    }
+
+    public String toString() {
+        return "[WorkerPoolConfig: limits=" + this.limits + "; applicationLimits=" + this.applicationLimits + "; bulkheads=" + this.bulkheads + "]";
+    }
+
+    private final Limits limits;
+    private final Limits applicationLimits;
+    private final long keepAliveSeconds;
+    private final Map<String, Limits> bulkheads;
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.container.workers;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
+
+import io.liveoak.spi.RequestContext;
+import io.liveoak.spi.resource.RootResource;
+import io.liveoak.spi.resource.SynchronousResource;
+import io.liveoak.spi.resource.async.Resource;
+
+/**
+ * Exposes worker pool sizing and per-bulkhead metrics at <code>/admin/system/worker-pool</code>.
+ */
+public class WorkerPoolResource implements RootResource, SynchronousResource {
+
+    public static final String ID = "worker-pool";
+
+    public WorkerPoolResource(WorkerPool workerPool) {
+        this.workerPool = workerPool;
+    }
+
+    @Override
+    public void parent(Resource parent) {
+        this.parent = parent;
+    }
+
+    @Override
+    public Resource parent() {
+        return this.parent;
+    }
+
+    @Override
+    public String id() {
+        return ID;
+    }
+
+    @Override
+    public Map<String, ?> properties(RequestContext ctx) throws Exception {
+        WorkerPoolConfig config = this.workerPool.config();
+        Map<String, Object> result = new HashMap<>();
+        result.put(WorkerPoolConfig.MAX_THREADS, config.limits().maxThreads());
+        result.put(WorkerPoolConfig.QUEUE_SIZE, config.limits().queueSize());
+        result.put(WorkerPoolConfig.KEEP_ALIVE, config.keepAliveSeconds());
+        result.put("application-max-threads", config.applicationLimits().maxThreads());
+        result.put("application-queue-size", config.applicationLimits().queueSize());
+        return result;
+    }
+
+    @Override
+    public Collection<Resource> members(RequestContext ctx) throws Exception {
+        LinkedList<Resource> members = new LinkedList<>();
+        for (Bulkhead bulkhead : this.workerPool.bulkheads()) {
+            members.add(new BulkheadResource(this, bulkhead));
+        }
+        return members;
+    }
+
+    private final WorkerPool workerPool;
+    private Resource parent;
+
+    private static class BulkheadResource implements SynchronousResource {
+
+        BulkheadResource(Resource parent, Bulkhead bulkhead) {
+            this.parent = parent;
+            this.bulkhead = bulkhead;
+        }
+
+        @Override
+        public Resource parent() {
+            return this.parent;
+        }
+
+        @Override
+        public String id() {
+            return this.bulkhead.name();
+        }
+
+        @Override
+        public Map<String, ?> properties(RequestContext ctx) throws Exception {
+            Map<String, Object> result = new HashMap<>();
+            result.put(WorkerPoolConfig.MAX_THREADS, this.bulkhead.maxThreads());
+            result.put(WorkerPoolConfig.QUEUE_SIZE, this.bulkhead.queueSize());
+            result.put("pool-size", this.bulkhead.poolSize());
+            result.put("active", this.bulkhead.activeThreads());
+            result.put("queued", this.bulkhead.queueDepth());
+            result.put("submitted", this.bulkhead.submitted());
+            result.put("completed", this.bulkhead.completed());
+            result.put("rejected", this.bulkhead.rejected());
+            result.put("mean-wait-ms", this.bulkhead.meanWaitMillis());
+            result.put("mean-run-ms", this.bulkhead.meanRunMillis());
+            result.put("max-run-ms", this.bulkhead.maxRunMillis());
+            return result;
+        }
+
+        private final Resource parent;
+        private final Bulkhead bulkhead;
+    }
+}
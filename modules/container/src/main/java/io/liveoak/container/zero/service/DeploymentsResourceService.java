@@ -0,0 +1,34 @@
+package io.liveoak.container.zero.service;
+
+import io.liveoak.container.tenancy.DeploymentsResource;
+import io.liveoak.container.tenancy.InternalApplicationRegistry;
+import org.jboss.msc.inject.Injector;
+import org.jboss.msc.service.Service;
+import org.jboss.msc.service.StartContext;
+import org.jboss.msc.service.StartException;
+import org.jboss.msc.service.StopContext;
+import org.jboss.msc.value.InjectedValue;
+
+public class DeploymentsResourceService implements Service<DeploymentsResource> {
+    @Override
+    public void start(StartContext context) throws StartException {
+        this.resource = new DeploymentsResource(this.registryInjector.getValue().deployments());
+    }
+
+    @Override
+    public void stop(StopContext context) {
+        this.resource = null;
+    }
+
+    @Override
+    public DeploymentsResource getValue() throws IllegalStateException, IllegalArgumentException {
+        return this.resource;
+    }
+
+    public Injector<InternalApplicationRegistry> applicationRegistryInjector() {
+        return this.registryInjector;
+    }
+
+    private InjectedValue<InternalApplicationRegistry> registryInjector = new InjectedValue<>();
+    private DeploymentsResource resource;
+}
@@ -0,0 +1,34 @@
+package io.liveoak.container.zero.service;
+
+import io.liveoak.container.workers.WorkerPool;
+import io.liveoak.container.workers.WorkerPoolResource;
+import org.jboss.msc.inject.Injector;
+import org.jboss.msc.service.Service;
+import org.jboss.msc.service.StartContext;
+import org.jboss.msc.service.StartException;
+import org.jboss.msc.service.StopContext;
+import org.jboss.msc.value.InjectedValue;
+
+public class WorkerPoolResourceService implements Service<WorkerPoolResource> {
+    @Override
+    public void start(StartContext context) throws StartException {
+        this.resource = new WorkerPoolResource(this.workerPoolInjector.getValue());
+    }
+
+    @Override
+    public void stop(StopContext context) {
+        this.resource = null;
+    }
+
+    @Override
+    public WorkerPoolResource getValue() throws IllegalStateException, IllegalArgumentException {
+        return this.resource;
+    }
+
+    public Injector<WorkerPool> workerPoolInjector() {
+        return this.workerPoolInjector;
+    }
+
+    private InjectedValue<WorkerPool> workerPoolInjector = new InjectedValue<>();
+    private WorkerPoolResource resource;
+}
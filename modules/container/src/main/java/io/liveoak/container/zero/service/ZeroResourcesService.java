@@ -2,10 +2,15 @@ package io.liveoak.container.zero.service;
 
 import java.io.File;
 
+import io.liveoak.common.metrics.RequestMetrics;
+import io.liveoak.container.metrics.MetricsResource;
 import io.liveoak.container.service.MediaTypeMountService;
 import io.liveoak.container.service.MountService;
+import io.liveoak.container.tenancy.DeploymentsResource;
 import io.liveoak.container.tenancy.InternalApplication;
 import io.liveoak.container.tenancy.InternalApplicationRegistry;
+import io.liveoak.container.workers.WorkerPool;
+import io.liveoak.container.workers.WorkerPoolResource;
 import io.liveoak.container.zero.SystemResource;
 import io.liveoak.container.zero.extension.ZeroExtension;
 import io.liveoak.spi.MediaType;
@@ -25,6 +30,7 @@ import org.jboss.msc.value.InjectedValue;
 
 import static io.liveoak.spi.Services.APPLICATIONS_DIR;
 import static io.liveoak.spi.Services.APPLICATION_REGISTRY;
+import static io.liveoak.spi.Services.WORKER_POOL;
 
 /**
  * @author Bob McWhirter
@@ -46,6 +52,40 @@ public class ZeroResourcesService implements Service<Void> {
                 .addDependency(systemName, RootResource.class, mount.resourceInjector())
                 .install();
 
+        ServiceName workerPoolName = systemName.append(WorkerPoolResource.ID);
+        WorkerPoolResourceService workerPoolResource = new WorkerPoolResourceService();
+        target.addService(workerPoolName, workerPoolResource)
+                .addDependency(WORKER_POOL, WorkerPool.class, workerPoolResource.workerPoolInjector())
+                .install();
+
+        MountService<RootResource> workerPoolMount = new MountService<>();
+        target.addService(workerPoolName.append("mount"), workerPoolMount)
+                .addDependency(systemName, MountPointResource.class, workerPoolMount.mountPointInjector())
+                .addDependency(workerPoolName, RootResource.class, workerPoolMount.resourceInjector())
+                .install();
+
+        ServiceName metricsName = systemName.append(MetricsResource.ID);
+        target.addService(metricsName, new ValueService<>(new ImmediateValue<>(new MetricsResource(RequestMetrics.instance()))))
+                .install();
+
+        MountService<RootResource> metricsMount = new MountService<>();
+        target.addService(metricsName.append("mount"), metricsMount)
+                .addDependency(systemName, MountPointResource.class, metricsMount.mountPointInjector())
+                .addDependency(metricsName, RootResource.class, metricsMount.resourceInjector())
+                .install();
+
+        ServiceName deploymentsName = systemName.append(DeploymentsResource.ID);
+        DeploymentsResourceService deploymentsResource = new DeploymentsResourceService();
+        target.addService(deploymentsName, deploymentsResource)
+                .addDependency(APPLICATION_REGISTRY, InternalApplicationRegistry.class, deploymentsResource.applicationRegistryInjector())
+                .install();
+
+        MountService<RootResource> deploymentsMount = new MountService<>();
+        target.addService(deploymentsName.append("mount"), deploymentsMount)
+                .addDependency(systemName, MountPointResource.class, deploymentsMount.mountPointInjector())
+                .addDependency(deploymentsName, RootResource.class, deploymentsMount.resourceInjector())
+                .install();
+
         ServiceName applicationsName = Services.resource(ZeroExtension.APPLICATION_ID, "applications");
         ApplicationsResourceService applicationsResource = new ApplicationsResourceService();
         target.addService(applicationsName, applicationsResource)
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.container;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import io.liveoak.client.DefaultClient;
+import io.liveoak.common.DefaultReturnFields;
+import io.liveoak.common.codec.DefaultResourceState;
+import io.liveoak.container.tenancy.InternalApplication;
+import io.liveoak.spi.RequestContext;
+import io.liveoak.spi.client.Client;
+import io.liveoak.spi.client.ClientResourceResponse;
+import io.liveoak.spi.exceptions.ResourceNotFoundException;
+import io.liveoak.spi.state.ResourceState;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.fest.assertions.Fail.fail;
+
+/**
+ * The client connected in-VM, straight to the container's local pipeline.
+ */
+public class InVMClientTest extends AbstractContainerTest {
+
+    private static Client client;
+    private static String mode;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        mode = System.setProperty(DefaultClient.MODE_PROPERTY, DefaultClient.MODE_IN_VM);
+        system = LiveOakFactory.create();
+        client = system.client();
+
+        awaitStability();
+
+        InternalApplication application = system.applicationRegistry().createApplication("testApp", "Test Application");
+        system.extensionInstaller().load("db", new InMemoryDBExtension());
+        application.extend("db");
+
+        InMemoryDBResource db = (InMemoryDBResource) system.service(InMemoryDBExtension.resource("testApp", "db"));
+        db.addMember(new InMemoryCollectionResource(db, "people"));
+    }
+
+    @AfterClass
+    public static void shutdown() throws Exception {
+        system.stop();
+        if (mode == null) {
+            System.clearProperty(DefaultClient.MODE_PROPERTY);
+        } else {
+            System.setProperty(DefaultClient.MODE_PROPERTY, mode);
+        }
+    }
+
+    @Test
+    public void crud() throws Exception {
+        RequestContext requestContext = new RequestContext.Builder().returnFields(new DefaultReturnFields("*")).build();
+        ResourceState bob = new DefaultResourceState("bob");
+        bob.putProperty("name", "Bob McWhirter");
+
+        ResourceState created = client.create(requestContext, "/testApp/db/people", bob);
+        assertThat(created.getProperty("name")).isEqualTo("Bob McWhirter");
+
+        ResourceState read = client.read(requestContext, "/testApp/db/people/bob");
+        assertThat(read.id()).isEqualTo("bob");
+        assertThat(read.getProperty("name")).isEqualTo("Bob McWhirter");
+
+        bob.putProperty("name", "Robert McWhirter");
+        ResourceState updated = client.update(requestContext, "/testApp/db/people/bob", bob);
+        assertThat(updated.getProperty("name")).isEqualTo("Robert McWhirter");
+
+        ResourceState deleted = client.delete(requestContext, "/testApp/db/people/bob");
+        assertThat(deleted.id()).isEqualTo("bob");
+
+        try {
+            client.read(requestContext, "/testApp/db/people/bob");
+            fail("Read a deleted resource");
+        } catch (ResourceNotFoundException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void errorsReachAsyncCallbacks() throws Exception {
+        CompletableFuture<ClientResourceResponse> response = new CompletableFuture<>();
+        CompletableFuture<String> thread = new CompletableFuture<>();
+
+        client.read(new RequestContext.Builder().build(), "/testApp/db/nothing-here", (r) -> {
+            thread.complete(Thread.currentThread().getName());
+            response.complete(r);
+        });
+
+        assertThat(response.get(10, TimeUnit.SECONDS).responseType()).isEqualTo(ClientResourceResponse.ResponseType.NO_SUCH_RESOURCE);
+        // never on the calling thread, nor on a container thread
+        assertThat(thread.get()).startsWith("liveoak-client-");
+    }
+}
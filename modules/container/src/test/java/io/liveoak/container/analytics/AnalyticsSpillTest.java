@@ -0,0 +1,101 @@
+package io.liveoak.container.analytics;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class AnalyticsSpillTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testReplaysOldestFirstAcrossRestarts() throws Exception {
+        File dir = folder.newFolder("spill");
+        AnalyticsSpill spill = new AnalyticsSpill(dir, 48, 1024);
+        spill.open();
+        assertThat(spill.isEmpty()).isTrue();
+
+        // 14 bytes per record with its length, so three fit in a segment
+        assertThat(spill.append(records("event-0001", "event-0002", "event-0003", "event-0004"))).isEqualTo(4);
+        assertThat(spill.segments()).isEqualTo(2);
+
+        AnalyticsSpill reopened = new AnalyticsSpill(dir, 48, 1024);
+        reopened.open();
+        assertThat(strings(reopened.peek())).containsExactly("event-0001", "event-0002", "event-0003");
+        reopened.remove();
+        assertThat(strings(reopened.peek())).containsExactly("event-0004");
+
+        // the segment being replayed takes no more writes
+        reopened.append(records("event-0005"));
+        reopened.remove();
+        assertThat(strings(reopened.peek())).containsExactly("event-0005");
+        reopened.remove();
+        assertThat(reopened.isEmpty()).isTrue();
+        assertThat(dir.list()).isEmpty();
+    }
+
+    @Test
+    public void testDropsOldestSegmentWhenFull() throws Exception {
+        AnalyticsSpill spill = new AnalyticsSpill(folder.newFolder("spill"), 48, 128);
+        spill.open();
+
+        spill.append(records("event-0001", "event-0002", "event-0003", "event-0004", "event-0005", "event-0006", "event-0007"));
+        assertThat(spill.segments()).isEqualTo(2);
+        assertThat(spill.dropped()).isEqualTo(3);
+        assertThat(strings(spill.peek())).containsExactly("event-0004", "event-0005", "event-0006");
+
+        // too large for any segment
+        spill.append(Arrays.asList(new byte[61]));
+        assertThat(spill.dropped()).isEqualTo(4);
+    }
+
+    @Test
+    public void testCountsEachDroppedRecordOnce() throws Exception {
+        File dir = folder.newFolder("spill");
+        AnalyticsSpill spill = new AnalyticsSpill(dir, 48, 128);
+        spill.open();
+
+        // nowhere to roll a segment to
+        assertThat(dir.delete()).isTrue();
+        assertThat(spill.append(Arrays.asList(new byte[61], "event-0001".getBytes(StandardCharsets.UTF_8), new byte[61],
+                "event-0002".getBytes(StandardCharsets.UTF_8)))).isEqualTo(0);
+        assertThat(spill.dropped()).isEqualTo(4);
+    }
+
+    @Test
+    public void testQueueIsBounded() throws Exception {
+        Analytics analytics = new Analytics(2, 10, 1000, true, new AnalyticsSpill(folder.newFolder("spill"), 1024, 4096));
+        analytics.event(new AnalyticsEvent());
+        analytics.event(new AnalyticsEvent());
+        analytics.event(new AnalyticsEvent());
+
+        assertThat(analytics.stats().get("accepted")).isEqualTo(2L);
+        assertThat(analytics.stats().get("rejected")).isEqualTo(1L);
+        assertThat(analytics.stats().get("queued")).isEqualTo(2);
+    }
+
+    private static List<byte[]> records(String... values) {
+        List<byte[]> records = new ArrayList<>();
+        for (String value : values) {
+            records.add(value.getBytes(StandardCharsets.UTF_8));
+        }
+        return records;
+    }
+
+    private static List<String> strings(List<byte[]> records) {
+        List<String> result = new ArrayList<>();
+        for (byte[] record : records) {
+            result.add(new String(record, StandardCharsets.UTF_8));
+        }
+        return result;
+    }
+}
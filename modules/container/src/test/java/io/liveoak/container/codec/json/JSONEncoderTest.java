@@ -16,12 +16,14 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import io.liveoak.common.DefaultReturnFields;
 import io.liveoak.common.codec.DefaultResourceState;
+import io.liveoak.common.codec.ResourceCodec;
 import io.liveoak.common.codec.driver.StateEncodingDriver;
 import io.liveoak.common.codec.json.JSONEncoder;
 import io.liveoak.spi.LiveOak;
 import io.liveoak.spi.RequestContext;
 import io.liveoak.spi.state.ResourceState;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.buffer.Unpooled;
 import org.junit.Test;
 
@@ -537,5 +539,24 @@ public class JSONEncoderTest {
         assertThat(child2Node.get("goodbye").asText()).isEqualTo("world");
     }
 
-
+    @Test
+    public void testRecycledEncoderProducesSameOutput() throws Exception {
+        DefaultResourceState state = new DefaultResourceState("bob");
+        state.uri(new URI("/bob"));
+        state.putProperty("name", "Bob");
+        state.putProperty("dogs", new ArrayList<>());
+
+        ResourceCodec codec = new ResourceCodec(JSONEncoder.class, null);
+        RequestContext requestContext = new RequestContext.Builder().build();
+
+        ByteBuf first = codec.encode(PooledByteBufAllocator.DEFAULT, requestContext, state);
+        ByteBuf second = codec.encode(PooledByteBufAllocator.DEFAULT, requestContext, state);
+        try {
+            assertThat(second.toString(Charset.defaultCharset())).isEqualTo(first.toString(Charset.defaultCharset()));
+            assertThat(second.toString(Charset.defaultCharset())).isEqualTo(encode(state).toString(Charset.defaultCharset()));
+        } finally {
+            first.release();
+            second.release();
+        }
+    }
 }
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.container.codec.json;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.liveoak.common.DefaultReturnFields;
+import io.liveoak.common.codec.ChunkedByteBufOutputStream;
+import io.liveoak.common.codec.DefaultResourceState;
+import io.liveoak.common.codec.driver.RootEncodingDriver;
+import io.liveoak.common.codec.driver.StateEncodingDriver;
+import io.liveoak.common.codec.json.JSONEncoder;
+import io.liveoak.common.codec.json.JSONResourceEncoder;
+import io.liveoak.common.codec.state.ResourceStateEncoder;
+import io.liveoak.container.InMemoryCollectionResource;
+import io.liveoak.container.InMemoryObjectResource;
+import io.liveoak.spi.LiveOak;
+import io.liveoak.spi.RequestContext;
+import io.liveoak.spi.resource.async.Resource;
+import io.liveoak.spi.resource.async.ResourceSink;
+import io.liveoak.spi.state.ResourceState;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class JSONResourceEncoderTest {
+
+    protected String encodeViaState(Resource resource) throws Exception {
+        RequestContext ctx = new RequestContext.Builder().build();
+        ResourceStateEncoder stateEncoder = new ResourceStateEncoder();
+        CompletableFuture<ResourceState> future = new CompletableFuture<>();
+        new RootEncodingDriver(ctx, stateEncoder, resource, () -> future.complete(stateEncoder.root()), null).encode();
+
+        JSONEncoder encoder = new JSONEncoder();
+        ByteBuf buffer = Unpooled.buffer();
+        encoder.initialize(buffer);
+        StateEncodingDriver driver = new StateEncodingDriver(ctx, encoder, future.get());
+        driver.encode();
+        driver.close();
+        return buffer.toString(Charset.defaultCharset());
+    }
+
+    protected String encodeStreaming(Resource resource, List<ByteBuf> chunks) throws Exception {
+        return encodeStreaming(new RequestContext.Builder().build(), resource, chunks);
+    }
+
+    protected String encodeStreaming(RequestContext ctx, Resource resource, List<ByteBuf> chunks) throws Exception {
+        ChunkedByteBufOutputStream out = new ChunkedByteBufOutputStream(UnpooledByteBufAllocator.DEFAULT, 16, chunks::add);
+        JSONResourceEncoder encoder = new JSONResourceEncoder();
+        encoder.initialize(out);
+
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        new RootEncodingDriver(ctx, encoder, resource, () -> future.complete(null), null).encode();
+        future.get();
+
+        ByteBuf remainder = out.remainder();
+        if (remainder != null) {
+            chunks.add(remainder);
+        }
+
+        StringBuilder encoded = new StringBuilder();
+        for (ByteBuf chunk : chunks) {
+            encoded.append(chunk.toString(Charset.defaultCharset()));
+            chunk.release();
+        }
+        return encoded.toString();
+    }
+
+    protected Resource createCollection() {
+        InMemoryCollectionResource collection = new InMemoryCollectionResource(null, "people");
+        for (int i = 0; i < 10; ++i) {
+            DefaultResourceState state = new DefaultResourceState();
+            state.putProperty("name", "person " + i);
+            state.putProperty("age", 20 + i);
+            state.putProperty("active", i % 2 == 0);
+            collection.addMember(new InMemoryObjectResource(collection, "p" + i, state));
+        }
+        return collection;
+    }
+
+    @Test
+    public void testMatchesStateEncoding() throws Exception {
+        Resource collection = createCollection();
+
+        List<ByteBuf> chunks = new ArrayList<>();
+        String streamed = encodeStreaming(collection, chunks);
+        String materialized = encodeViaState(collection);
+
+        ObjectMapper mapper = new ObjectMapper();
+        Map<String, Object> streamedRoot = mapper.readValue(streamed, Map.class);
+        Map<String, Object> materializedRoot = mapper.readValue(materialized, Map.class);
+
+        assertThat(streamedRoot).isEqualTo(materializedRoot);
+        assertThat(streamedRoot.get(LiveOak.ID)).isEqualTo("people");
+        assertThat((List) streamedRoot.get(LiveOak.MEMBERS)).hasSize(10);
+    }
+
+    @Test
+    public void testEncodesMembersAsTheyAreAccepted() throws Exception {
+        List<String> events = new ArrayList<>();
+        InMemoryCollectionResource collection = new InMemoryCollectionResource(null, "people") {
+            @Override
+            public void readMembers(RequestContext ctx, ResourceSink sink) throws Exception {
+                for (int i = 0; i < 3; ++i) {
+                    DefaultResourceState state = new DefaultResourceState();
+                    state.putProperty("name", "person " + i);
+                    String id = "p" + i;
+                    events.add("accept " + id);
+                    sink.accept(new InMemoryObjectResource(this, id, state) {
+                        @Override
+                        public Map<String, ?> properties(RequestContext ctx) throws Exception {
+                            events.add("encode " + id);
+                            return super.properties(ctx);
+                        }
+                    });
+                }
+                sink.complete();
+            }
+        };
+
+        List<ByteBuf> chunks = new ArrayList<>();
+        RequestContext ctx = new RequestContext.Builder().returnFields(new DefaultReturnFields("*(*)")).build();
+        Map<String, Object> root = new ObjectMapper().readValue(encodeStreaming(ctx, collection, chunks), Map.class);
+
+        // every member is encoded before the next one is read
+        assertThat(events).containsExactly("accept p0", "encode p0", "accept p1", "encode p1", "accept p2", "encode p2");
+        assertThat((List) root.get(LiveOak.MEMBERS)).hasSize(3);
+    }
+
+    @Test
+    public void testEmitsFixedSizeChunks() throws Exception {
+        List<ByteBuf> chunks = new ArrayList<>();
+        List<Integer> sizes = new ArrayList<>();
+        ChunkedByteBufOutputStream out = new ChunkedByteBufOutputStream(UnpooledByteBufAllocator.DEFAULT, 16, (chunk) -> {
+            sizes.add(chunk.readableBytes());
+            chunks.add(chunk);
+        });
+
+        out.write(new byte[40], 0, 40);
+        out.close();
+
+        assertThat(sizes).containsExactly(16, 16);
+        assertThat(out.emittedChunks()).isEqualTo(2);
+
+        ByteBuf remainder = out.remainder();
+        assertThat(remainder.readableBytes()).isEqualTo(8);
+        assertThat(out.remainder()).isNull();
+
+        remainder.release();
+        chunks.forEach(ByteBuf::release);
+    }
+}
@@ -0,0 +1,104 @@
+package io.liveoak.container.interceptor;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.liveoak.common.DefaultResourceRequest;
+import io.liveoak.common.util.ConversionUtils;
+import io.liveoak.spi.RequestType;
+import io.liveoak.spi.ResourcePath;
+import io.liveoak.spi.ResourceRequest;
+import io.liveoak.spi.container.interceptor.Interceptor;
+import io.liveoak.spi.util.ObjectMapperFactory;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class InterceptorManagerImplTest {
+
+    private InterceptorManagerImpl manager;
+    private MockInterceptor all;
+    private MockInterceptor foo;
+    private MockInterceptor fooBarReads;
+    private MockInterceptor other;
+
+    @Before
+    public void setUp() throws Exception {
+        this.manager = new InterceptorManagerImpl();
+        this.all = new MockInterceptor();
+        this.foo = new MockInterceptor();
+        this.fooBarReads = new MockInterceptor();
+        this.other = new MockInterceptor();
+
+        this.manager.register("all", this.all);
+        this.manager.register("foo", this.foo);
+        this.manager.register("foo-bar-reads", this.fooBarReads);
+        this.manager.register("other", this.other);
+
+        ObjectNode config = ObjectMapperFactory.create().readValue(("{ 'local': ["
+                + "{ 'interceptor-name': 'foo-bar-reads', 'resource-path-prefix': '/foo/bar', 'request-type-mapping': 'READ' },"
+                + "{ 'interceptor-name': 'all' },"
+                + "{ 'interceptor-name': 'foo', 'resource-path-prefix': '/foo', 'request-type-mapping': '*' },"
+                + "{ 'interceptor-name': 'missing' },"
+                + "{ 'interceptor-name': 'other', 'resource-path-prefix': '/other' }"
+                + "] }").replace('\'', '"'), ObjectNode.class);
+        this.manager.setInterceptorsConfig(ConversionUtils.convert(config));
+    }
+
+    @Test
+    public void testSelectionByPathAndType() throws Exception {
+        assertThat(interceptors(RequestType.READ, "/foo/bar/baz")).containsExactly(this.fooBarReads, this.all, this.foo);
+        assertThat(interceptors(RequestType.READ, "/foo/bar")).containsExactly(this.fooBarReads, this.all, this.foo);
+        assertThat(interceptors(RequestType.UPDATE, "/foo/bar/baz")).containsExactly(this.all, this.foo);
+        assertThat(interceptors(RequestType.READ, "/foo/barbaz")).containsExactly(this.all, this.foo);
+        assertThat(interceptors(RequestType.READ, "/foo")).containsExactly(this.all, this.foo);
+        assertThat(interceptors(RequestType.CREATE, "/other/thing")).containsExactly(this.all, this.other);
+        assertThat(interceptors(RequestType.DELETE, "/")).containsExactly(this.all);
+        assertThat(interceptors(RequestType.READ, "/baz")).containsExactly(this.all);
+
+        assertThat(this.manager.requiresResponseState("local", request(RequestType.READ, "/foo"))).isFalse();
+        assertThat(this.manager.requiresResponseState("unknown", request(RequestType.READ, "/foo"))).isFalse();
+    }
+
+    @Test
+    public void testCompleteFiresWholeChain() throws Exception {
+        UUID requestId = UUID.randomUUID();
+        CompletingInterceptor completing = new CompletingInterceptor();
+        this.manager.register("missing", completing);
+
+        this.manager.fireComplete("local", requestId);
+
+        assertThat(completing.completed).isEqualTo(requestId);
+    }
+
+    @Test
+    public void testRecompiledOnRegistration() throws Exception {
+        MockInterceptor missing = new MockInterceptor();
+        this.manager.register("missing", missing);
+        assertThat(interceptors(RequestType.READ, "/baz")).containsExactly(this.all, missing);
+
+        this.manager.unregister(this.all);
+        assertThat(interceptors(RequestType.READ, "/baz")).containsExactly(missing);
+    }
+
+    private List<Interceptor> interceptors(RequestType type, String path) {
+        return Arrays.asList(this.manager.interceptors("local", request(type, path)));
+    }
+
+    private static ResourceRequest request(RequestType type, String path) {
+        return new DefaultResourceRequest.Builder(type, new ResourcePath(path)).build();
+    }
+
+    private static class CompletingInterceptor extends MockInterceptor {
+
+        @Override
+        public void onComplete(UUID requestId) {
+            this.completed = requestId;
+        }
+
+        UUID completed;
+    }
+}
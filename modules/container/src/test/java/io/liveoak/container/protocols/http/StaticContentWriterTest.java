@@ -0,0 +1,105 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.container.protocols.http;
+
+import java.util.Date;
+
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpHeaderDateFormat;
+import io.netty.handler.codec.http.HttpHeaders;
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class StaticContentWriterTest {
+
+    @Test
+    public void testRanges() throws Exception {
+        assertThat(StaticContentWriter.range("bytes=0-99", 1000)).isEqualTo(new long[] {0, 99});
+        assertThat(StaticContentWriter.range("bytes=500-", 1000)).isEqualTo(new long[] {500, 999});
+        assertThat(StaticContentWriter.range("bytes=-200", 1000)).isEqualTo(new long[] {800, 999});
+        assertThat(StaticContentWriter.range("bytes=900-2000", 1000)).isEqualTo(new long[] {900, 999});
+
+        assertThat(StaticContentWriter.range("bytes=1000-", 1000)).isSameAs(StaticContentWriter.UNSATISFIABLE);
+        assertThat(StaticContentWriter.range("bytes=-0", 1000)).isSameAs(StaticContentWriter.UNSATISFIABLE);
+
+        // ignored, so the whole content is sent
+        assertThat(StaticContentWriter.range("bytes=5-1", 1000)).isNull();
+        assertThat(StaticContentWriter.range("bytes=0-1,5-6", 1000)).isNull();
+        assertThat(StaticContentWriter.range("items=0-1", 1000)).isNull();
+        assertThat(StaticContentWriter.range("bytes=x-", 1000)).isNull();
+    }
+
+    @Test
+    public void testConditions() throws Exception {
+        long lastModified = 1420070400000L;
+        String date = HttpHeaderDateFormat.get().format(new Date(lastModified));
+
+        assertThat(StaticContentWriter.matches("\"a\", W/\"b\"", "\"b\"")).isTrue();
+        assertThat(StaticContentWriter.matches("*", "\"b\"")).isTrue();
+        assertThat(StaticContentWriter.matches("\"a\"", "\"b\"")).isFalse();
+        // a tag sent with a content coding matches the identity content, and the other way round
+        assertThat(StaticContentWriter.matches("\"b-gzip\"", "\"b\"")).isTrue();
+        assertThat(StaticContentWriter.matches("W/\"b\"", "\"b-deflate\"")).isTrue();
+        assertThat(StaticContentWriter.matches("\"a-gzip\"", "\"b\"")).isFalse();
+
+        HttpHeaders headers = new DefaultHttpHeaders();
+        headers.add(HttpHeaders.Names.IF_MODIFIED_SINCE, date);
+        assertThat(StaticContentWriter.notModified(headers, "\"b\"", lastModified)).isTrue();
+        assertThat(StaticContentWriter.notModified(headers, "\"b\"", lastModified + 5000)).isFalse();
+
+        // If-None-Match takes precedence
+        headers.add(HttpHeaders.Names.IF_NONE_MATCH, "\"a\"");
+        assertThat(StaticContentWriter.notModified(headers, "\"b\"", lastModified)).isFalse();
+
+        assertThat(StaticContentWriter.rangeApplies(null, "\"b\"", lastModified)).isTrue();
+        assertThat(StaticContentWriter.rangeApplies("\"b\"", "\"b\"", lastModified)).isTrue();
+        assertThat(StaticContentWriter.rangeApplies("\"a\"", "\"b\"", lastModified)).isFalse();
+        assertThat(StaticContentWriter.rangeApplies("\"b-gzip\"", "\"b\"", lastModified)).isFalse();
+        assertThat(StaticContentWriter.rangeApplies(date, "\"b\"", lastModified)).isTrue();
+    }
+
+    @Test
+    public void testCompressionPolicy() throws Exception {
+        CompressionPolicy policy = new CompressionPolicy(1024);
+        assertThat(policy.shouldCompress("text/html; charset=UTF-8", 4096)).isTrue();
+        assertThat(policy.shouldCompress("application/javascript", 4096)).isTrue();
+        assertThat(policy.shouldCompress("image/svg+xml", 4096)).isTrue();
+        assertThat(policy.shouldCompress("application/vnd.liveoak.local-app+json", -1)).isTrue();
+
+        assertThat(policy.shouldCompress("image/png", 4096)).isFalse();
+        assertThat(policy.shouldCompress("application/zip", 4096)).isFalse();
+        assertThat(policy.shouldCompress("text/css", 100)).isFalse();
+
+        assertThat(CompressionPolicy.accepted("gzip, deflate")).isTrue();
+        assertThat(CompressionPolicy.accepted("identity")).isFalse();
+        assertThat(CompressionPolicy.accepted(null)).isFalse();
+    }
+
+    @Test
+    public void testCodedEntityTags() throws Exception {
+        assertThat(CompressionPolicy.codedEntityTag("\"1f-abc\"", "gzip")).isEqualTo("\"1f-abc-gzip\"");
+        assertThat(CompressionPolicy.codedEntityTag("W/\"1f-abc\"", "deflate")).isEqualTo("W/\"1f-abc-deflate\"");
+        assertThat(CompressionPolicy.codedEntityTag(null, "gzip")).isNull();
+
+        assertThat(CompressionPolicy.identityEntityTag("\"1f-abc-gzip\"")).isEqualTo("\"1f-abc\"");
+        assertThat(CompressionPolicy.identityEntityTag("\"1f-abc-deflate\"")).isEqualTo("\"1f-abc\"");
+        assertThat(CompressionPolicy.identityEntityTag("\"1f-abc\"")).isEqualTo("\"1f-abc\"");
+    }
+
+    @Test
+    public void testPreferredCoding() throws Exception {
+        assertThat(CompressionPolicy.preferredCoding("gzip, deflate")).isEqualTo("gzip");
+        assertThat(CompressionPolicy.preferredCoding("deflate")).isEqualTo("deflate");
+        assertThat(CompressionPolicy.preferredCoding("gzip;q=0.5, deflate")).isEqualTo("deflate");
+        assertThat(CompressionPolicy.preferredCoding("GZIP;q=1.0, deflate;q=0.8")).isEqualTo("gzip");
+        assertThat(CompressionPolicy.preferredCoding("*")).isEqualTo("gzip");
+        assertThat(CompressionPolicy.preferredCoding("gzip;q=0, *")).isEqualTo("deflate");
+        assertThat(CompressionPolicy.preferredCoding("gzip;q=0, deflate;q=0")).isNull();
+        assertThat(CompressionPolicy.preferredCoding("identity, br")).isNull();
+        assertThat(CompressionPolicy.preferredCoding(null)).isNull();
+    }
+}
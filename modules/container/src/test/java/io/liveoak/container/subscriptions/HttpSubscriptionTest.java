@@ -88,6 +88,12 @@ public class HttpSubscriptionTest extends AbstractContainerTest {
         assertThat(notifiedBob.getPropertyNames()).hasSize(1);
         assertThat(notifiedBob.getProperty("name")).isEqualTo("Bob McWhirter");
 
+        // Delivery is reported on the subscription
+
+        ResourceState readSubscription = this.client.read(requestContext, createdSubscription.uri().toString());
+        assertThat(readSubscription.getProperty("batch-size")).isEqualTo(1);
+        assertThat(readSubscription.getProperty("delivery")).isNotNull();
+
         // Delete a subscribed thing
 
         this.client.delete(requestContext, createdBob.uri().toString());
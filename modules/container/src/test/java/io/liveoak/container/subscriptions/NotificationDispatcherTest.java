@@ -0,0 +1,207 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.container.subscriptions;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.liveoak.common.codec.DefaultResourceState;
+import io.liveoak.spi.ResourcePath;
+import io.liveoak.spi.ResourceRequest;
+import io.liveoak.spi.ResourceResponse;
+import io.liveoak.spi.container.Subscription;
+import io.liveoak.spi.resource.async.Resource;
+import io.liveoak.spi.security.SecurityContext;
+import io.liveoak.spi.state.ResourceState;
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class NotificationDispatcherTest {
+
+    @Test
+    public void testCoalescesPendingUpdates() throws Exception {
+        NotificationDispatcher dispatcher = new NotificationDispatcher(16, 1, NotificationDispatcher.SlowConsumerPolicy.DROP_NEWEST, (s) -> {});
+        BlockingSubscription subscription = new BlockingSubscription();
+        try {
+            // the first delivery blocks, everything after it queues up
+            dispatcher.dispatch(subscription, ResourceResponse.ResponseType.UPDATED, new TestResponse("a", 0));
+            assertThat(subscription.started.await(5, TimeUnit.SECONDS)).isTrue();
+
+            dispatcher.dispatch(subscription, ResourceResponse.ResponseType.UPDATED, new TestResponse("b", 1));
+            dispatcher.dispatch(subscription, ResourceResponse.ResponseType.UPDATED, new TestResponse("b", 2));
+            dispatcher.dispatch(subscription, ResourceResponse.ResponseType.DELETED, new TestResponse("c", 3));
+            dispatcher.dispatch(subscription, ResourceResponse.ResponseType.UPDATED, new TestResponse("c", 4));
+
+            subscription.release.countDown();
+            subscription.awaitDeliveries(4);
+
+            assertThat(subscription.delivered).containsExactly("update a 0", "update b 2", "delete c 3", "update c 4");
+            assertThat(dispatcher.coalesced()).isEqualTo(1);
+        } finally {
+            subscription.release.countDown();
+            dispatcher.shutdown();
+        }
+    }
+
+    @Test
+    public void testDisconnectsSlowConsumer() throws Exception {
+        AtomicReference<Subscription> disconnected = new AtomicReference<>();
+        NotificationDispatcher dispatcher = new NotificationDispatcher(1, 1, NotificationDispatcher.SlowConsumerPolicy.DISCONNECT, disconnected::set);
+        BlockingSubscription subscription = new BlockingSubscription();
+        try {
+            dispatcher.dispatch(subscription, ResourceResponse.ResponseType.CREATED, new TestResponse("a", 0));
+            assertThat(subscription.started.await(5, TimeUnit.SECONDS)).isTrue();
+
+            dispatcher.dispatch(subscription, ResourceResponse.ResponseType.CREATED, new TestResponse("b", 1));
+            assertThat(disconnected.get()).isNull();
+            dispatcher.dispatch(subscription, ResourceResponse.ResponseType.CREATED, new TestResponse("c", 2));
+
+            assertThat(disconnected.get()).isSameAs(subscription);
+            assertThat(dispatcher.disconnected()).isEqualTo(1);
+        } finally {
+            subscription.release.countDown();
+            dispatcher.shutdown();
+        }
+    }
+
+    @Test
+    public void testDeliversStateAsItWasWhenDispatched() throws Exception {
+        NotificationDispatcher dispatcher = new NotificationDispatcher(16, 1, NotificationDispatcher.SlowConsumerPolicy.DROP_NEWEST, (s) -> {});
+        BlockingSubscription subscription = new BlockingSubscription();
+        try {
+            dispatcher.dispatch(subscription, ResourceResponse.ResponseType.CREATED, new TestResponse("a", 0));
+            assertThat(subscription.started.await(5, TimeUnit.SECONDS)).isTrue();
+
+            // the response goes on to the outbound handlers, which may change its state before it is delivered
+            TestResponse response = new TestResponse("b", 1);
+            dispatcher.dispatch(subscription, ResourceResponse.ResponseType.CREATED, response);
+            response.state().putProperty("version", 2);
+
+            subscription.release.countDown();
+            subscription.awaitDeliveries(2);
+
+            assertThat(subscription.delivered).containsExactly("create a 0", "create b 1");
+        } finally {
+            subscription.release.countDown();
+            dispatcher.shutdown();
+        }
+    }
+
+    private static class BlockingSubscription implements Subscription {
+
+        void awaitDeliveries(int count) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 5000;
+            while (this.delivered.size() < count && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+        }
+
+        private void record(String action, ResourceResponse response) throws InterruptedException {
+            this.started.countDown();
+            this.release.await(5, TimeUnit.SECONDS);
+            this.delivered.add(action + " " + response.resource().id() + " " + response.state().getProperty("version"));
+        }
+
+        @Override
+        public String id() {
+            return "blocking";
+        }
+
+        @Override
+        public ResourcePath resourcePath() {
+            return new ResourcePath("/testApp");
+        }
+
+        @Override
+        public boolean isSecure() {
+            return false;
+        }
+
+        @Override
+        public SecurityContext securityContext() {
+            return null;
+        }
+
+        @Override
+        public void sendAuthzError(ResourceState errorState, Resource resource, int status) throws Exception {
+        }
+
+        @Override
+        public void resourceCreated(ResourceResponse resourceResponse) throws Exception {
+            record("create", resourceResponse);
+        }
+
+        @Override
+        public void resourceUpdated(ResourceResponse resourceResponse) throws Exception {
+            record("update", resourceResponse);
+        }
+
+        @Override
+        public void resourceDeleted(ResourceResponse resourceResponse) throws Exception {
+            record("delete", resourceResponse);
+        }
+
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<String> delivered = new CopyOnWriteArrayList<>();
+    }
+
+    private static class TestResponse implements ResourceResponse {
+
+        TestResponse(String id, int version) {
+            this.resource = new Resource() {
+                @Override
+                public Resource parent() {
+                    return null;
+                }
+
+                @Override
+                public String id() {
+                    return id;
+                }
+            };
+            this.state = new DefaultResourceState(id);
+            this.state.putProperty("version", version);
+        }
+
+        @Override
+        public ResponseType responseType() {
+            return ResponseType.UPDATED;
+        }
+
+        @Override
+        public Resource resource() {
+            return this.resource;
+        }
+
+        @Override
+        public ResourceState state() {
+            return this.state;
+        }
+
+        @Override
+        public void setState(ResourceState state) {
+        }
+
+        @Override
+        public ResourceRequest inReplyTo() {
+            return null;
+        }
+
+        @Override
+        public UUID requestId() {
+            return null;
+        }
+
+        private final Resource resource;
+        private final ResourceState state;
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.container.subscriptions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import io.liveoak.spi.ResourcePath;
+import io.liveoak.spi.ResourceResponse;
+import io.liveoak.spi.container.Subscription;
+import io.liveoak.spi.resource.async.Resource;
+import io.liveoak.spi.security.SecurityContext;
+import io.liveoak.spi.state.ResourceState;
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class SubscriptionRegistryTest {
+
+    @Test
+    public void testExactAndWildcardMatches() throws Exception {
+        SubscriptionRegistry registry = new SubscriptionRegistry();
+        registry.add(new TestSubscription("exact", "/testApp/storage/people/bob"));
+        registry.add(new TestSubscription("collection", "/testApp/storage/people"));
+        registry.add(new TestSubscription("wildcard", "/testApp/storage/*"));
+        registry.add(new TestSubscription("other", "/otherApp/storage/people/bob"));
+
+        assertThat(match(registry, "/testApp/storage/people/bob")).containsOnly("exact", "wildcard");
+        assertThat(match(registry, "/testApp/storage/people")).containsOnly("collection", "wildcard");
+        assertThat(match(registry, "/testApp/storage")).isEmpty();
+        assertThat(match(registry, "/testApp/storage/dogs/moses")).containsOnly("wildcard");
+    }
+
+    @Test
+    public void testLookupsDoNotCreateNodes() throws Exception {
+        SubscriptionRegistry registry = new SubscriptionRegistry();
+        assertThat(match(registry, "/testApp/storage/people")).isEmpty();
+        assertThat(registry.subscriptions(new ResourcePath("/testApp")).count()).isEqualTo(0);
+    }
+
+    @Test
+    public void testRemoveAndPrefixListing() throws Exception {
+        SubscriptionRegistry registry = new SubscriptionRegistry();
+        TestSubscription bob = new TestSubscription("bob", "/testApp/storage/people/bob");
+        TestSubscription people = new TestSubscription("people", "/testApp/storage/people");
+        registry.add(bob);
+        registry.add(people);
+
+        assertThat(registry.subscriptions(new ResourcePath("/testApp")).map(Subscription::id).collect(Collectors.toList()))
+                .containsOnly("bob", "people");
+
+        assertThat(registry.remove(bob)).isTrue();
+        assertThat(registry.remove(bob)).isFalse();
+        assertThat(match(registry, "/testApp/storage/people/bob")).isEmpty();
+        assertThat(match(registry, "/testApp/storage/people")).containsOnly("people");
+
+        assertThat(registry.remove(people)).isTrue();
+        assertThat(registry.subscriptions(new ResourcePath()).count()).isEqualTo(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWildcardOnlyAtEnd() throws Exception {
+        new SubscriptionRegistry().add(new TestSubscription("bad", "/testApp/*/people"));
+    }
+
+    private static List<String> match(SubscriptionRegistry registry, String path) {
+        List<String> ids = new ArrayList<>();
+        registry.match(new ResourcePath(path), (s) -> ids.add(s.id()));
+        return ids;
+    }
+
+    private static class TestSubscription implements Subscription {
+
+        TestSubscription(String id, String path) {
+            this.id = id;
+            this.resourcePath = new ResourcePath(path);
+        }
+
+        @Override
+        public String id() {
+            return this.id;
+        }
+
+        @Override
+        public ResourcePath resourcePath() {
+            return this.resourcePath;
+        }
+
+        @Override
+        public boolean isSecure() {
+            return false;
+        }
+
+        @Override
+        public SecurityContext securityContext() {
+            return null;
+        }
+
+        @Override
+        public void sendAuthzError(ResourceState errorState, Resource resource, int status) throws Exception {
+        }
+
+        @Override
+        public void resourceCreated(ResourceResponse resourceResponse) throws Exception {
+        }
+
+        @Override
+        public void resourceUpdated(ResourceResponse resourceResponse) throws Exception {
+        }
+
+        @Override
+        public void resourceDeleted(ResourceResponse resourceResponse) throws Exception {
+        }
+
+        private final String id;
+        private final ResourcePath resourcePath;
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.container.subscriptions;
+
+import java.net.ServerSocket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.vertx.java.core.Vertx;
+import org.vertx.java.core.VertxFactory;
+import org.vertx.java.core.http.HttpClient;
+import org.vertx.java.core.http.HttpServer;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+/**
+ * Delivery to a stub endpoint, which answers with the statuses it is told to and records what it receives.
+ */
+public class WebhookDeliveryTest {
+
+    @Before
+    public void setUp() throws Exception {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            this.port = socket.getLocalPort();
+        }
+        this.vertx = VertxFactory.newVertx();
+        this.server = this.vertx.createHttpServer().requestHandler((request) -> request.bodyHandler((body) -> {
+            this.received.add(new Received(request.method(), request.path(), body.toString(StandardCharsets.UTF_8.name())));
+            Integer status = this.statuses.poll();
+            request.response().setStatusCode(status != null ? status : 200).end();
+        }));
+        CountDownLatch listening = new CountDownLatch(1);
+        this.server.listen(this.port, "localhost", (result) -> listening.countDown());
+        assertThat(listening.await(10, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (this.engine != null) {
+            this.engine.shutdown();
+        }
+        this.server.close();
+        this.vertx.stop();
+    }
+
+    @Test
+    public void retriedUntilDelivered() throws Exception {
+        WebhookDelivery delivery = delivery(new WebhookConfig(2, 1, 10, 4, 16, 3, 10, 5000));
+        this.statuses.add(503);
+        this.statuses.add(500);
+
+        delivery.send(WebhookDelivery.CREATE, "bob", "{\"name\":\"Bob\"}".getBytes(StandardCharsets.UTF_8));
+
+        for (int i = 0; i < 3; ++i) {
+            Received received = next();
+            assertThat(received.method).isEqualTo("PUT");
+            assertThat(received.path).isEqualTo("/hooks/bob");
+            assertThat(received.body).isEqualTo("{\"name\":\"Bob\"}");
+        }
+        await(delivery::delivered, 1);
+        assertThat(delivery.retried()).isEqualTo(2);
+        assertThat(delivery.failed()).isEqualTo(0);
+        assertThat(delivery.requests()).isEqualTo(3);
+        assertThat(delivery.inFlight()).isEqualTo(0);
+    }
+
+    @Test
+    public void givesUpOnClientErrorsAndAfterRetries() throws Exception {
+        WebhookDelivery delivery = delivery(new WebhookConfig(2, 1, 10, 1, 16, 1, 10, 5000));
+        this.statuses.add(400);
+        this.statuses.add(503);
+        this.statuses.add(503);
+
+        delivery.send(WebhookDelivery.CREATE, "bob", "{}".getBytes(StandardCharsets.UTF_8));
+        delivery.send(WebhookDelivery.DELETE, "bob", new byte[0]);
+
+        assertThat(next().method).isEqualTo("PUT");
+        // not retried, and the next event goes out only once the window has room
+        assertThat(next().method).isEqualTo("DELETE");
+        assertThat(next().method).isEqualTo("DELETE");
+        await(delivery::failed, 2);
+        assertThat(delivery.retried()).isEqualTo(1);
+        assertThat(delivery.delivered()).isEqualTo(0);
+        assertThat(this.received).isEmpty();
+    }
+
+    @Test
+    public void batchesAreCut() throws Exception {
+        WebhookDelivery delivery = delivery(new WebhookConfig(2, 3, 50, 1, 16, 3, 10, 5000));
+
+        for (int i = 0; i < 7; ++i) {
+            delivery.send(WebhookDelivery.UPDATE, "item" + i, ("{\"n\":" + i + "}").getBytes(StandardCharsets.UTF_8));
+        }
+
+        List<String> ids = new ArrayList<>();
+        int[] sizes = {3, 3, 1};
+        for (int size : sizes) {
+            Received received = next();
+            assertThat(received.method).isEqualTo("POST");
+            assertThat(received.path).isEqualTo("/hooks/");
+            JsonNode batch = new ObjectMapper().readTree(received.body);
+            assertThat(batch.size()).isEqualTo(size);
+            for (JsonNode event : batch) {
+                assertThat(event.get("action").asText()).isEqualTo(WebhookDelivery.UPDATE);
+                ids.add(event.get("id").asText());
+            }
+        }
+        assertThat(ids).containsExactly("item0", "item1", "item2", "item3", "item4", "item5", "item6");
+        await(delivery::delivered, 7);
+        assertThat(delivery.requests()).isEqualTo(3);
+    }
+
+    @Test
+    public void httpsDestinationsUseTls() throws Exception {
+        this.engine = new WebhookEngine(this.vertx, new WebhookConfig());
+
+        HttpClient https = client(URI.create("https://example.com/hooks/"));
+        assertThat(https.isSSL()).isTrue();
+        assertThat(https.getPort()).isEqualTo(443);
+
+        HttpClient http = client(URI.create("http://example.com/hooks/"));
+        assertThat(http.isSSL()).isFalse();
+        assertThat(http.getPort()).isEqualTo(80);
+        assertThat(client(URI.create("http://example.com:80/other"))).isSameAs(http);
+    }
+
+    private HttpClient client(URI destination) throws Exception {
+        CompletableFuture<HttpClient> client = new CompletableFuture<>();
+        this.engine.context().runOnContext((v) -> client.complete(this.engine.client(destination)));
+        return client.get(10, TimeUnit.SECONDS);
+    }
+
+    private WebhookDelivery delivery(WebhookConfig config) {
+        this.engine = new WebhookEngine(this.vertx, config);
+        return this.engine.delivery(URI.create("http://localhost:" + this.port + "/hooks/"), config);
+    }
+
+    private Received next() throws InterruptedException {
+        Received received = this.received.poll(10, TimeUnit.SECONDS);
+        assertThat(received).isNotNull();
+        return received;
+    }
+
+    private static void await(LongSupplier counter, long expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (counter.getAsLong() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(counter.getAsLong()).isEqualTo(expected);
+    }
+
+    private static class Received {
+
+        Received(String method, String path, String body) {
+            this.method = method;
+            this.path = path;
+            this.body = body;
+        }
+
+        final String method;
+        final String path;
+        final String body;
+    }
+
+    private Vertx vertx;
+    private HttpServer server;
+    private WebhookEngine engine;
+    private int port;
+    private final Deque<Integer> statuses = new LinkedBlockingDeque<>();
+    private final BlockingQueue<Received> received = new LinkedBlockingQueue<>();
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.container.tenancy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.fest.assertions.Fail.fail;
+
+public class ApplicationDeploymentsTest {
+
+    @Test
+    public void tracksReadiness() throws Exception {
+        ApplicationDeployments deployments = new ApplicationDeployments();
+        ApplicationDeployments.Deployment app = deployments.begin("app");
+        assertThat(app.state()).isEqualTo(ApplicationDeployments.State.DEPLOYING);
+
+        try {
+            app.await(10, TimeUnit.MILLISECONDS);
+            fail("Not ready yet");
+        } catch (TimeoutException e) {
+            // expected
+        }
+
+        long start = System.nanoTime();
+        app.phase("application", start);
+        app.extension("storage", "mongo", start, null);
+        app.extension("scripts", "scripts", start, null);
+        app.ready();
+
+        app.await(10, TimeUnit.MILLISECONDS);
+        assertThat(app.state()).isEqualTo(ApplicationDeployments.State.READY);
+        assertThat(new ArrayList<>(app.phases().keySet())).isEqualTo(Arrays.asList("application"));
+        assertThat(new ArrayList<>(app.extensions().keySet())).isEqualTo(Arrays.asList("storage", "scripts"));
+        assertThat(app.extensions().get("storage").get("type")).isEqualTo("mongo");
+    }
+
+    @Test
+    public void failedDeploymentDoesNotAffectOthers() throws Exception {
+        ApplicationDeployments deployments = new ApplicationDeployments();
+        ApplicationDeployments.Deployment broken = deployments.begin("broken");
+        ApplicationDeployments.Deployment app = deployments.begin("app");
+
+        broken.extension("storage", "mongo", System.nanoTime(), new IllegalStateException("no connection"));
+        broken.failed(new IllegalStateException("no connection"));
+        app.ready();
+
+        try {
+            broken.await(10, TimeUnit.MILLISECONDS);
+            fail("Deployment failed");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause().getMessage()).isEqualTo("no connection");
+        }
+        assertThat(broken.state()).isEqualTo(ApplicationDeployments.State.FAILED);
+        assertThat(broken.extensions().get("storage").get("error")).isEqualTo("no connection");
+        assertThat(app.state()).isEqualTo(ApplicationDeployments.State.READY);
+
+        List<String> ids = new ArrayList<>();
+        for (ApplicationDeployments.Deployment deployment : deployments.deployments()) {
+            ids.add(deployment.id());
+        }
+        assertThat(ids).isEqualTo(Arrays.asList("app", "broken"));
+
+        deployments.remove("broken");
+        assertThat(deployments.deployment("broken")).isNull();
+    }
+}
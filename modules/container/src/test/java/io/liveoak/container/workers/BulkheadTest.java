@@ -0,0 +1,133 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.container.workers;
+
+import java.util.Collections;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.fest.assertions.Fail.fail;
+
+public class BulkheadTest {
+
+    @Test
+    public void testRejectsWhenSaturated() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("test", new WorkerPoolConfig.Limits(1, 1), 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(2);
+
+        try {
+            bulkhead.execute(() -> {
+                started.countDown();
+                await(release);
+                done.countDown();
+            });
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+            bulkhead.execute(done::countDown);
+
+            try {
+                bulkhead.execute(done::countDown);
+                fail("saturated bulkhead should reject");
+            } catch (RejectedExecutionException e) {
+                // expected
+            }
+
+            release.countDown();
+            assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+
+            assertThat(bulkhead.submitted()).isEqualTo(2);
+            assertThat(bulkhead.rejected()).isEqualTo(1);
+        } finally {
+            release.countDown();
+            bulkhead.shutdown();
+        }
+    }
+
+    @Test
+    public void testWithoutQueue() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("test", new WorkerPoolConfig.Limits(2, 0), 1);
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try {
+            for (int i = 0; i < 2; ++i) {
+                bulkhead.execute(() -> {
+                    started.countDown();
+                    await(release);
+                });
+            }
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+            try {
+                bulkhead.execute(() -> {
+                });
+                fail("bulkhead without idle threads should reject");
+            } catch (RejectedExecutionException e) {
+                // expected
+            }
+
+            assertThat(bulkhead.submitted()).isEqualTo(2);
+            assertThat(bulkhead.rejected()).isEqualTo(1);
+        } finally {
+            release.countDown();
+            bulkhead.shutdown();
+        }
+    }
+
+    @Test
+    public void testNestedWorkRunsInline() throws Exception {
+        WorkerPool pool = new WorkerPool(new WorkerPoolConfig(new WorkerPoolConfig.Limits(1, 0), new WorkerPoolConfig.Limits(1, 0), 1, Collections.emptyMap()));
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicReference<Thread> nested = new AtomicReference<>();
+
+        try {
+            // the only worker makes a nested request, which must not wait for a second worker
+            pool.executorFor(null).execute(() -> {
+                pool.executorFor(null).execute(() -> nested.set(Thread.currentThread()));
+                if (nested.get() == Thread.currentThread()) {
+                    done.countDown();
+                }
+            });
+            assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(pool.bulkheads().iterator().next().rejected()).isEqualTo(0);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testConfigFromProperties() throws Exception {
+        Properties props = new Properties();
+        props.setProperty("liveoak.worker-pool.max-threads", "8");
+        props.setProperty("liveoak.worker-pool.application.queue-size", "32");
+        props.setProperty("liveoak.worker-pool.bulkhead.myapp/storage.max-threads", "4");
+
+        WorkerPoolConfig config = WorkerPoolConfig.fromProperties(props);
+
+        assertThat(config.limits().maxThreads()).isEqualTo(8);
+        assertThat(config.limits().queueSize()).isEqualTo(WorkerPoolConfig.DEFAULT_LIMITS.queueSize());
+        assertThat(config.applicationLimits().queueSize()).isEqualTo(32);
+        assertThat(config.bulkheads()).hasSize(1);
+        assertThat(config.bulkheads().get("myapp/storage").maxThreads()).isEqualTo(4);
+        assertThat(config.bulkheads().get("myapp/storage").queueSize()).isEqualTo(32);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
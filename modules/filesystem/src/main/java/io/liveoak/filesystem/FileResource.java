@@ -59,6 +59,16 @@ public class FileResource implements FSResource, BinaryResource {
         return this.file.length();
     }
 
+    @Override
+    public long lastModified() {
+        return this.file.lastModified();
+    }
+
+    @Override
+    public File contentFile() {
+        return this.file;
+    }
+
     @Override
     public String id() {
         return this.file.getName();
@@ -9,8 +9,10 @@ import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import io.liveoak.filesystem.extension.FilesystemExtension;
 import io.liveoak.testtools.AbstractHTTPResourceTestCase;
 import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
+import org.apache.http.util.EntityUtils;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
@@ -85,4 +87,47 @@ public class HTTPFilesystemResourceTest extends AbstractHTTPResourceTestCase {
         }
     }
 
+    @Test
+    public void testConditionalRead() throws Exception {
+        HttpGet get = new HttpGet("http://localhost:8080/testApp/files/test-file1.txt");
+        get.addHeader("Accept", "text/*");
+
+        String etag;
+        try (CloseableHttpResponse result = httpClient.execute(get)) {
+            assertThat(result.getStatusLine().getStatusCode()).isEqualTo(200);
+            assertThat(result.getFirstHeader(HttpHeaders.LAST_MODIFIED)).isNotNull();
+            etag = result.getFirstHeader(HttpHeaders.ETAG).getValue();
+            EntityUtils.consume(result.getEntity());
+        }
+
+        get = new HttpGet("http://localhost:8080/testApp/files/test-file1.txt");
+        get.addHeader("Accept", "text/*");
+        get.addHeader(HttpHeaders.IF_NONE_MATCH, etag);
+        try (CloseableHttpResponse result = httpClient.execute(get)) {
+            assertThat(result.getStatusLine().getStatusCode()).isEqualTo(304);
+            assertThat(result.getFirstHeader(HttpHeaders.ETAG).getValue()).isEqualTo(etag);
+        }
+    }
+
+    @Test
+    public void testRangeRead() throws Exception {
+        HttpGet get = new HttpGet("http://localhost:8080/testApp/files/test-file1.txt");
+        get.addHeader("Accept", "text/*");
+        get.addHeader(HttpHeaders.RANGE, "bytes=10-18");
+
+        try (CloseableHttpResponse result = httpClient.execute(get)) {
+            assertThat(result.getStatusLine().getStatusCode()).isEqualTo(206);
+            assertThat(result.getFirstHeader(HttpHeaders.CONTENT_RANGE).getValue()).isEqualTo("bytes 10-18/25");
+            assertThat(EntityUtils.toString(result.getEntity())).isEqualTo("test-file");
+        }
+
+        get = new HttpGet("http://localhost:8080/testApp/files/test-file1.txt");
+        get.addHeader("Accept", "text/*");
+        get.addHeader(HttpHeaders.RANGE, "bytes=100-");
+        try (CloseableHttpResponse result = httpClient.execute(get)) {
+            assertThat(result.getStatusLine().getStatusCode()).isEqualTo(416);
+            assertThat(result.getFirstHeader(HttpHeaders.CONTENT_RANGE).getValue()).isEqualTo("bytes */25");
+        }
+    }
+
 }
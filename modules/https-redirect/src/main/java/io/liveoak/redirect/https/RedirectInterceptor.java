@@ -51,4 +51,9 @@ public class RedirectInterceptor implements Interceptor {
     public void onComplete(UUID requestId) {
         // do nothing for now
     }
+
+    @Override
+    public boolean requiresResponseState() {
+        return false;
+    }
 }
@@ -2,7 +2,7 @@ package io.liveoak.interceptor.extension;
 
 import io.liveoak.interceptor.service.InterceptorRegistrationHelper;
 import io.liveoak.interceptor.service.InterceptorSystemResourceService;
-import io.liveoak.interceptor.timing.TimingInterceptor;
+import io.liveoak.interceptor.metrics.MetricsInterceptor;
 import io.liveoak.spi.Services;
 import io.liveoak.spi.container.interceptor.InterceptorManager;
 import io.liveoak.spi.extension.ApplicationExtensionContext;
@@ -27,8 +27,14 @@ public class InterceptorExtension implements Extension {
 
         context.mountPrivate(Services.systemResource(context.moduleId(), context.id()));
 
-        InterceptorRegistrationHelper.installInterceptor(target, "timing-http", new TimingInterceptor("HTTP"));
-        InterceptorRegistrationHelper.installInterceptor(target, "timing-local", new TimingInterceptor("Local"));
+        MetricsInterceptor httpMetrics = new MetricsInterceptor("http");
+        MetricsInterceptor localMetrics = new MetricsInterceptor("local");
+        InterceptorRegistrationHelper.installInterceptor(target, "metrics-http", httpMetrics);
+        InterceptorRegistrationHelper.installInterceptor(target, "metrics-local", localMetrics);
+
+        // aliases under the names of the timing interceptors they replace, so existing configurations keep working
+        InterceptorRegistrationHelper.installInterceptor(target, "timing-http", httpMetrics);
+        InterceptorRegistrationHelper.installInterceptor(target, "timing-local", localMetrics);
     }
 
     @Override
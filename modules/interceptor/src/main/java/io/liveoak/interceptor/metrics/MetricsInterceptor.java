@@ -0,0 +1,84 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.interceptor.metrics;
+
+import io.liveoak.common.metrics.RequestMetrics;
+import io.liveoak.spi.RequestAttributes;
+import io.liveoak.spi.RequestContext;
+import io.liveoak.spi.ResourceRequest;
+import io.liveoak.spi.ResourceResponse;
+import io.liveoak.spi.container.interceptor.DefaultInterceptor;
+import io.liveoak.spi.container.interceptor.InboundInterceptorContext;
+import io.liveoak.spi.container.interceptor.OutboundInterceptorContext;
+
+/**
+ * Records latency, errors and in-flight requests of a chain into {@link RequestMetrics}.
+ *
+ * <p>A request is timed from entering the chain until its response passes back through it, whether
+ * the response comes from the resource or from an interceptor replying early. The start time is kept
+ * in the request attributes, so requests without attributes are not timed. Nothing is logged per request.</p>
+ */
+public class MetricsInterceptor extends DefaultInterceptor {
+
+    private static final String TIMING_ATTRIBUTE = MetricsInterceptor.class.getName();
+
+    public MetricsInterceptor(String chainName) {
+        this(chainName, RequestMetrics.instance());
+    }
+
+    public MetricsInterceptor(String chainName, RequestMetrics metrics) {
+        this.chainName = chainName;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void onInbound(InboundInterceptorContext context) throws Exception {
+        RequestAttributes attributes = attributes(context.request());
+        if (attributes != null) {
+            ResourceRequest request = context.request();
+            attributes.setAttribute(TIMING_ATTRIBUTE, new Timing(this.metrics.series(this.chainName, request.resourcePath(), request.requestType())));
+        }
+        super.onInbound(context);
+    }
+
+    @Override
+    public void onOutbound(OutboundInterceptorContext context) throws Exception {
+        RequestAttributes attributes = attributes(context.request());
+        Object timing = attributes != null ? attributes.removeAttribute(TIMING_ATTRIBUTE) : null;
+        if (timing instanceof Timing) {
+            ((Timing) timing).completed(context.response().responseType() == ResourceResponse.ResponseType.ERROR);
+        }
+        super.onOutbound(context);
+    }
+
+    @Override
+    public boolean requiresResponseState() {
+        return false;
+    }
+
+    private static RequestAttributes attributes(ResourceRequest request) {
+        RequestContext requestContext = request != null ? request.requestContext() : null;
+        return requestContext != null ? requestContext.requestAttributes() : null;
+    }
+
+    private static class Timing {
+
+        Timing(RequestMetrics.Series series) {
+            this.series = series;
+            this.start = series.started();
+        }
+
+        void completed(boolean error) {
+            this.series.completed(this.start, error);
+        }
+
+        private final RequestMetrics.Series series;
+        private final long start;
+    }
+
+    private final String chainName;
+    private final RequestMetrics metrics;
+}
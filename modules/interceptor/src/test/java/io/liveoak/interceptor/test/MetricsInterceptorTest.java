@@ -0,0 +1,162 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.interceptor.test;
+
+import java.util.function.Function;
+
+import io.liveoak.common.DefaultResourceErrorResponse;
+import io.liveoak.common.DefaultResourceRequest;
+import io.liveoak.common.DefaultResourceResponse;
+import io.liveoak.common.metrics.RequestMetrics;
+import io.liveoak.interceptor.metrics.MetricsInterceptor;
+import io.liveoak.spi.RequestType;
+import io.liveoak.spi.ResourceErrorResponse;
+import io.liveoak.spi.ResourcePath;
+import io.liveoak.spi.ResourceRequest;
+import io.liveoak.spi.ResourceResponse;
+import io.liveoak.spi.container.interceptor.DefaultInterceptor;
+import io.liveoak.spi.container.interceptor.InboundInterceptorContext;
+import io.liveoak.spi.container.interceptor.Interceptor;
+import io.liveoak.spi.container.interceptor.OutboundInterceptorContext;
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class MetricsInterceptorTest {
+
+    private final RequestMetrics metrics = new RequestMetrics(2, 100);
+
+    @Test
+    public void successfulResponse() throws Exception {
+        Chain chain = new Chain(r -> new DefaultResourceResponse(r, ResourceResponse.ResponseType.READ),
+                new MetricsInterceptor("test", metrics));
+        chain.fire(request());
+
+        assertThat(chain.written.responseType()).isEqualTo(ResourceResponse.ResponseType.READ);
+        assertSeries(0);
+    }
+
+    @Test
+    public void errorResponse() throws Exception {
+        Chain chain = new Chain(r -> new DefaultResourceErrorResponse(r, ResourceErrorResponse.ErrorType.NO_SUCH_RESOURCE),
+                new MetricsInterceptor("test", metrics));
+        chain.fire(request());
+
+        assertThat(chain.written.responseType()).isEqualTo(ResourceResponse.ResponseType.ERROR);
+        assertSeries(1);
+    }
+
+    @Test
+    public void repliedByLaterInterceptor() throws Exception {
+        Interceptor refusing = new DefaultInterceptor() {
+            @Override
+            public void onInbound(InboundInterceptorContext context) throws Exception {
+                context.replyWith(new DefaultResourceErrorResponse(context.request(), ResourceErrorResponse.ErrorType.FORBIDDEN));
+            }
+        };
+        Chain chain = new Chain(r -> {
+            throw new AssertionError("Request should not reach the resource");
+        }, new MetricsInterceptor("test", metrics), refusing);
+        chain.fire(request());
+
+        assertThat(chain.written.responseType()).isEqualTo(ResourceResponse.ResponseType.ERROR);
+        assertSeries(1);
+    }
+
+    private void assertSeries(long errors) {
+        RequestMetrics.Series series = metrics.series("test", new ResourcePath("/testApp/things"), RequestType.READ);
+        assertThat(series.inFlight()).isEqualTo(0);
+        assertThat(series.errors()).isEqualTo(errors);
+        assertThat(series.latency().count()).isEqualTo(1);
+    }
+
+    private static ResourceRequest request() {
+        return new DefaultResourceRequest.Builder(RequestType.READ, new ResourcePath("/testApp/things")).build();
+    }
+
+    /**
+     * Runs a request through interceptors the way the container does, with a function standing in for the resource.
+     */
+    private static class Chain implements InboundInterceptorContext, OutboundInterceptorContext {
+
+        Chain(Function<ResourceRequest, ResourceResponse> resource, Interceptor... interceptors) {
+            this.resource = resource;
+            this.interceptors = interceptors;
+        }
+
+        void fire(ResourceRequest request) throws Exception {
+            this.request = request;
+            this.current = 0;
+            this.inbound = true;
+            next();
+        }
+
+        @Override
+        public ResourceRequest request() {
+            return this.request;
+        }
+
+        @Override
+        public ResourceResponse response() {
+            return this.response;
+        }
+
+        @Override
+        public void forward() {
+            if (this.inbound) {
+                ++this.current;
+            } else {
+                --this.current;
+            }
+            try {
+                next();
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        @Override
+        public void forward(ResourceRequest request) {
+            this.request = request;
+            forward();
+        }
+
+        @Override
+        public void forward(ResourceResponse response) {
+            this.response = response;
+            forward();
+        }
+
+        @Override
+        public void replyWith(ResourceResponse response) {
+            this.inbound = false;
+            this.response = response;
+            forward();
+        }
+
+        private void next() throws Exception {
+            if (this.inbound && this.current == this.interceptors.length) {
+                this.inbound = false;
+                this.response = this.resource.apply(this.request);
+                forward();
+            } else if (this.inbound) {
+                this.interceptors[this.current].onInbound(this);
+            } else if (this.current < 0) {
+                this.written = this.response;
+            } else {
+                this.interceptors[this.current].onOutbound(this);
+            }
+        }
+
+        private final Function<ResourceRequest, ResourceResponse> resource;
+        private final Interceptor[] interceptors;
+        private ResourceRequest request;
+        private ResourceResponse response;
+        private ResourceResponse written;
+        private int current;
+        private boolean inbound;
+    }
+}
@@ -1,8 +1,11 @@
 package io.liveoak.keycloak;
 
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.Map;
 
+import io.liveoak.common.security.TokenCache;
 import io.liveoak.spi.RequestContext;
 import io.liveoak.spi.resource.RootResource;
 import io.liveoak.spi.resource.SynchronousResource;
@@ -48,6 +51,13 @@ public class KeycloakRootResource implements RootResource, SynchronousResource {
         return null;
     }
 
+    @Override
+    public Map<String, ?> properties(RequestContext ctx) throws Exception {
+        Map<String, Object> result = new HashMap<>();
+        result.put("token-cache", TokenCache.instance().toMap());
+        return result;
+    }
+
     @Override
     public Collection<Resource> members(RequestContext ctx) throws Exception {
         LinkedList<Resource> members = new LinkedList<>();
@@ -52,6 +52,9 @@ public class TokenResource implements SynchronousResource {
             result.put("realm", token.getAudience());
             result.put("subject", token.getSubject());
             result.put("issued-at", new Date(token.getIssuedAt()));
+            if (token.getExpiration() != 0) {
+                result.put("expires-at", new Date(token.getExpiration() * 1000L));
+            }
 
             // Capture User info
             result.put("name", token.getName());
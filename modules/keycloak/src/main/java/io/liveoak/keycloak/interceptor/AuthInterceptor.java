@@ -46,6 +46,11 @@ public class AuthInterceptor extends DefaultInterceptor {
         }
     }
 
+    @Override
+    public boolean requiresResponseState() {
+        return false;
+    }
+
     private String getPrefix(ResourcePath path) {
         String prefix = "/" + path.head().name();
         return prefix;
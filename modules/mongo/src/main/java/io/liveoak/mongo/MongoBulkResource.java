@@ -0,0 +1,687 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.mongo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBCollection;
+import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
+import com.mongodb.MongoException;
+import com.mongodb.WriteConcern;
+import com.mongodb.WriteResult;
+import io.liveoak.common.DefaultRequestAttributes;
+import io.liveoak.common.DefaultResourceRequest;
+import io.liveoak.common.DefaultResourceResponse;
+import io.liveoak.common.codec.driver.RootEncodingDriver;
+import io.liveoak.common.codec.state.ResourceStateEncoder;
+import io.liveoak.common.security.AuthzConstants;
+import io.liveoak.spi.RequestAttributes;
+import io.liveoak.spi.RequestContext;
+import io.liveoak.spi.RequestType;
+import io.liveoak.spi.ResourcePath;
+import io.liveoak.spi.ResourceResponse;
+import io.liveoak.spi.exceptions.PropertyException;
+import io.liveoak.spi.exceptions.ResourceNotFoundException;
+import io.liveoak.spi.resource.BulkResultResource;
+import io.liveoak.spi.resource.MapResource;
+import io.liveoak.spi.resource.SynchronousResource;
+import io.liveoak.spi.resource.async.Resource;
+import io.liveoak.spi.resource.async.Responder;
+import io.liveoak.spi.state.ResourceState;
+
+/**
+ * Creates, updates and deletes many documents of a collection with a single request, posted to
+ * <code>&lt;collection&gt;/_bulk</code>:
+ *
+ * <pre>
+ * {
+ *     "ordered": true,
+ *     "readBack": false,
+ *     "operations": [
+ *         { "create": { "id": "a", "name": "..." } },
+ *         { "update": { "id": "b", "name": "..." } },
+ *         { "delete": { "id": "c" } }
+ *     ]
+ * }
+ * </pre>
+ *
+ * <p>Consecutive operations of the same kind are run as a batch: creates are sent as one insert,
+ * and deletes as one remove of all the ids. Updates replace a document each, and create it if it is
+ * not there, like an update of a single document; such an update is reported as <code>created</code>. An ordered request
+ * stops at the first failure, and reports the operations after it as <code>skipped</code>; an
+ * unordered one carries on. The response lists the outcome of every operation, with the document as
+ * stored only if <code>readBack</code> is set.</p>
+ *
+ * <p>The request is authorized as a create of <code>_bulk</code>. Each operation is then authorized
+ * here as a request of its own, a create of the collection or an update or delete of the document,
+ * with a single bulk check against the application's authorization service; refused operations fail
+ * as <code>forbidden</code>. Subscribers and ACL rules see each changed document as if it had its
+ * own request.</p>
+ */
+public class MongoBulkResource extends MongoResource {
+
+    public static final String ID = "_bulk";
+
+    public static final String ORDERED = "ordered";
+    public static final String READ_BACK = "readBack";
+    public static final String OPERATIONS = "operations";
+
+    MongoBulkResource(MongoCollectionResource parent) {
+        super(parent);
+    }
+
+    @Override
+    public MongoCollectionResource parent() {
+        return (MongoCollectionResource) super.parent();
+    }
+
+    @Override
+    public String id() {
+        return ID;
+    }
+
+    @Override
+    public Map<String, ?> properties(RequestContext ctx) throws Exception {
+        return Collections.emptyMap();
+    }
+
+    @Override
+    public void createMember(RequestContext ctx, ResourceState state, Responder responder) throws Exception {
+        List<Item> items;
+        boolean ordered;
+        boolean readBack;
+        try {
+            ordered = !Boolean.FALSE.equals(state.getProperty(ORDERED, false, Boolean.class));
+            readBack = Boolean.TRUE.equals(state.getProperty(READ_BACK, false, Boolean.class));
+            items = items(state.getProperty(OPERATIONS, true, List.class));
+        } catch (PropertyException e) {
+            responder.invalidRequest(e.getMessage());
+            return;
+        }
+
+        Set<Integer> rejected = rejected(ctx, items);
+        boolean stopped = false;
+        int start = 0;
+        while (start < items.size()) {
+            Operation operation = items.get(start).operation;
+            int end = start + 1;
+            while (end < items.size() && items.get(end).operation == operation) {
+                ++end;
+            }
+
+            List<Item> run = items.subList(start, end);
+            if (stopped) {
+                skip(run, 0);
+            } else {
+                stopped = run(operation, run, rejected, ordered) && ordered;
+            }
+            start = end;
+        }
+
+        if (readBack) {
+            readBack(items);
+        }
+
+        responder.resourceRead(new Result(ctx, ordered, readBack, items));
+    }
+
+    /**
+     * Run consecutive operations of the same kind, leaving out those which were not authorized.
+     *
+     * @return true if any of the operations failed
+     */
+    private boolean run(Operation operation, List<Item> run, Set<Integer> rejected, boolean ordered) {
+        List<Item> allowed = new ArrayList<>(run.size());
+        int denied = -1;
+        for (int i = 0; i < run.size(); ++i) {
+            if (rejected.contains(run.get(i).index)) {
+                if (denied < 0) {
+                    denied = i;
+                }
+                if (ordered) {
+                    break;
+                }
+            } else {
+                allowed.add(run.get(i));
+            }
+        }
+
+        boolean failed = false;
+        if (!allowed.isEmpty()) {
+            switch (operation) {
+                case CREATE:
+                    failed = create(allowed, ordered);
+                    break;
+                case UPDATE:
+                    failed = update(allowed, ordered);
+                    break;
+                default:
+                    failed = delete(allowed, ordered);
+                    break;
+            }
+        }
+        if (denied < 0) {
+            return failed;
+        }
+
+        if (ordered) {
+            if (failed) {
+                skip(run, denied);
+            } else {
+                run.get(denied).fail(Status.FORBIDDEN, null);
+                skip(run, denied + 1);
+            }
+        } else {
+            for (Item item : run) {
+                if (rejected.contains(item.index)) {
+                    item.fail(Status.FORBIDDEN, null);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Authorize every operation as if it were a request of its own.
+     *
+     * @return the indexes of the operations which were refused
+     */
+    @SuppressWarnings("unchecked")
+    private Set<Integer> rejected(RequestContext ctx, List<Item> items) throws Exception {
+        if (items.isEmpty()) {
+            return Collections.emptySet();
+        }
+
+        ResourcePath collectionPath = new ResourcePath(parent().uri().toString());
+        List<RequestContext> reqsToAuthorize = new ArrayList<>(items.size());
+        List<ResourceState> statesToAuthorize = new ArrayList<>(items.size());
+        for (Item item : items) {
+            // creates are authorized against the collection, like a single create
+            ResourcePath path = new ResourcePath(collectionPath);
+            if (item.operation != Operation.CREATE) {
+                path.appendSegment(getResourceID(item.id));
+            }
+            reqsToAuthorize.add(new RequestContext.Builder()
+                    .resourcePath(path)
+                    .requestType(item.operation.requestType)
+                    .securityContext(ctx.securityContext()));
+            statesToAuthorize.add(item.state);
+        }
+
+        RequestAttributes attribs = new DefaultRequestAttributes();
+        attribs.setAttribute(AuthzConstants.ATTR_REQUEST_CONTEXTS, reqsToAuthorize);
+        attribs.setAttribute(AuthzConstants.ATTR_REQUEST_RESOURCE_STATES, statesToAuthorize);
+        RequestContext authzRequest = new RequestContext.Builder().requestAttributes(attribs).build();
+
+        ResourceState authzResponse;
+        try {
+            String authzPath = "/" + collectionPath.head().name() + "/authz/" + AuthzConstants.AUTHZ_CHECK_RESOURCE_ID;
+            authzResponse = ((RootMongoResource) parent().parent()).client().read(authzRequest, authzPath);
+        } catch (ResourceNotFoundException e) {
+            // the application is not secured
+            return Collections.emptySet();
+        }
+
+        List<Boolean> results = authzResponse != null ? (List<Boolean>) authzResponse.getProperty(AuthzConstants.ATTR_AUTHZ_RESULTS) : null;
+        if (results == null || results.size() != items.size()) {
+            logger().warn("Authorization results not available in response: " + authzResponse + ", refusing all operations");
+        }
+        Set<Integer> rejected = new HashSet<>();
+        for (int i = 0; i < items.size(); i++) {
+            if (results == null || results.size() != items.size() || !results.get(i)) {
+                rejected.add(items.get(i).index);
+            }
+        }
+        return rejected;
+    }
+
+    private List<Item> items(List<?> operations) throws Exception {
+        List<Item> items = new ArrayList<>(operations.size());
+        for (Object entry : operations) {
+            int index = items.size();
+            if (!(entry instanceof ResourceState) || ((ResourceState) entry).getPropertyNames().size() != 1) {
+                throw new PropertyException("Operation " + index + " must have exactly one of 'create', 'update' or 'delete'");
+            }
+            ResourceState operationState = (ResourceState) entry;
+            String name = operationState.getPropertyNames().iterator().next();
+            Operation operation = Operation.forName(name);
+            if (operation == null) {
+                throw new PropertyException("Operation " + index + " is not one of 'create', 'update' or 'delete': " + name);
+            }
+            ResourceState document = operationState.getProperty(name, true, ResourceState.class);
+
+            Item item = new Item(index, operation);
+            if (operation != Operation.DELETE) {
+                item.state = document;
+                item.document = createObject(document);
+            }
+            if (document.id() != null) {
+                item.id = getMongoID(document.id());
+            } else if (operation != Operation.CREATE) {
+                throw new PropertyException("Operation " + index + " (" + name + ") requires an 'id'");
+            }
+            items.add(item);
+        }
+        return items;
+    }
+
+    /**
+     * @return true if any of the documents was not created
+     */
+    private boolean create(List<Item> run, boolean ordered) {
+        DBCollection collection = parent().getDBCollection();
+
+        // a document may already exist, or be created twice within the run
+        Set<Object> taken = existing(run);
+        List<Item> inserts = new ArrayList<>(run.size());
+        boolean failed = false;
+        for (int i = 0; i < run.size(); ++i) {
+            Item item = run.get(i);
+            if (item.id != null && !taken.add(item.id)) {
+                item.fail(Status.ALREADY_EXISTS, null);
+                failed = true;
+                if (ordered) {
+                    skip(run, i + 1);
+                    break;
+                }
+            } else {
+                inserts.add(item);
+            }
+        }
+        if (inserts.isEmpty()) {
+            return failed;
+        }
+
+        List<DBObject> documents = new ArrayList<>(inserts.size());
+        for (Item item : inserts) {
+            documents.add(item.document);
+        }
+        WriteConcern concern = ordered ? collection.getWriteConcern() : collection.getWriteConcern().continueOnError(true);
+        try {
+            collection.insert(documents, concern);
+        } catch (MongoException e) {
+            logger().debug("Bulk insert into " + collection.getName() + " failed", e);
+            // the insert got as far as the documents which are there now
+            Set<Object> inserted = existing(inserts);
+            boolean stop = false;
+            for (Item item : inserts) {
+                if (stop) {
+                    item.fail(Status.SKIPPED, null);
+                } else if (inserted.contains(item.document.get(MONGO_ID_FIELD))) {
+                    item.succeed(Status.CREATED, item.document.get(MONGO_ID_FIELD));
+                } else {
+                    item.fail(Status.ERROR, e.getMessage());
+                    stop = ordered;
+                }
+            }
+            return true;
+        }
+
+        for (Item item : inserts) {
+            item.succeed(Status.CREATED, item.document.get(MONGO_ID_FIELD));
+        }
+        return failed;
+    }
+
+    /**
+     * @return true if any of the documents was neither updated nor created
+     */
+    private boolean update(List<Item> run, boolean ordered) {
+        DBCollection collection = parent().getDBCollection();
+        boolean failed = false;
+        for (int i = 0; i < run.size(); ++i) {
+            Item item = run.get(i);
+            item.document.put(MONGO_ID_FIELD, item.id);
+            try {
+                WriteResult result = collection.update(new BasicDBObject(MONGO_ID_FIELD, item.id), item.document, true, false);
+                item.succeed(result.isUpdateOfExisting() ? Status.UPDATED : Status.CREATED, item.id);
+            } catch (MongoException e) {
+                logger().debug("Bulk update in " + collection.getName() + " failed", e);
+                item.fail(Status.ERROR, e.getMessage());
+                failed = true;
+            }
+            if (failed && ordered) {
+                skip(run, i + 1);
+                break;
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * @return true if any of the documents was not deleted
+     */
+    private boolean delete(List<Item> run, boolean ordered) {
+        DBCollection collection = parent().getDBCollection();
+        if (collection.isCapped()) {
+            for (Item item : run) {
+                item.fail(Status.ERROR, "Deleting from a capped collection is not supported");
+                if (ordered) {
+                    skip(run, 1);
+                    break;
+                }
+            }
+            return true;
+        }
+
+        Set<Object> found = existing(run);
+        List<Item> deletes = new ArrayList<>(run.size());
+        boolean failed = false;
+        for (int i = 0; i < run.size(); ++i) {
+            Item item = run.get(i);
+            if (found.remove(item.id)) {
+                deletes.add(item);
+            } else {
+                item.fail(Status.NOT_FOUND, null);
+                failed = true;
+                if (ordered) {
+                    skip(run, i + 1);
+                    break;
+                }
+            }
+        }
+        if (deletes.isEmpty()) {
+            return failed;
+        }
+
+        try {
+            collection.remove(new BasicDBObject(MONGO_ID_FIELD, new BasicDBObject("$in", ids(deletes))));
+        } catch (MongoException e) {
+            logger().debug("Bulk delete from " + collection.getName() + " failed", e);
+            Set<Object> left = existing(deletes);
+            for (Item item : deletes) {
+                if (left.contains(item.id)) {
+                    item.fail(Status.ERROR, e.getMessage());
+                } else {
+                    item.succeed(Status.DELETED, item.id);
+                }
+            }
+            return true;
+        }
+
+        for (Item item : deletes) {
+            item.succeed(Status.DELETED, item.id);
+        }
+        return failed;
+    }
+
+    /**
+     * Replace the written documents with what is stored, one query per request.
+     */
+    private void readBack(List<Item> items) {
+        List<Object> ids = new ArrayList<>();
+        for (Item item : items) {
+            if (item.status == Status.CREATED || item.status == Status.UPDATED) {
+                ids.add(item.id);
+            }
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+
+        Map<Object, DBObject> stored = new HashMap<>();
+        try (DBCursor cursor = parent().getDBCollection().find(new BasicDBObject(MONGO_ID_FIELD, new BasicDBObject("$in", ids)))) {
+            for (DBObject document : cursor) {
+                stored.put(document.get(MONGO_ID_FIELD), document);
+            }
+        }
+        for (Item item : items) {
+            if (item.status == Status.CREATED || item.status == Status.UPDATED) {
+                item.stored = stored.get(item.id);
+            }
+        }
+    }
+
+    /**
+     * The ids of the given items which are in the collection.
+     */
+    private Set<Object> existing(List<Item> items) {
+        List<Object> ids = ids(items);
+        Set<Object> existing = new HashSet<>();
+        if (ids.isEmpty()) {
+            return existing;
+        }
+        DBObject query = new BasicDBObject(MONGO_ID_FIELD, new BasicDBObject("$in", ids));
+        try (DBCursor cursor = parent().getDBCollection().find(query, new BasicDBObject(MONGO_ID_FIELD, 1))) {
+            for (DBObject document : cursor) {
+                existing.add(document.get(MONGO_ID_FIELD));
+            }
+        }
+        return existing;
+    }
+
+    private static List<Object> ids(List<Item> items) {
+        List<Object> ids = new ArrayList<>(items.size());
+        for (Item item : items) {
+            Object id = item.id != null ? item.id : item.document.get(MONGO_ID_FIELD);
+            if (id != null) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    private static void skip(List<Item> run, int from) {
+        for (int i = from; i < run.size(); ++i) {
+            run.get(i).fail(Status.SKIPPED, null);
+        }
+    }
+
+    public String toString() {
+        return "[MongoBulkResource: for id:" + parent().id() + "]";
+    }
+
+    private enum Operation {
+        CREATE(RequestType.CREATE, ResourceResponse.ResponseType.CREATED),
+        UPDATE(RequestType.UPDATE, ResourceResponse.ResponseType.UPDATED),
+        DELETE(RequestType.DELETE, ResourceResponse.ResponseType.DELETED);
+
+        Operation(RequestType requestType, ResourceResponse.ResponseType responseType) {
+            this.requestType = requestType;
+            this.responseType = responseType;
+        }
+
+        String label() {
+            return name().toLowerCase(Locale.ENGLISH);
+        }
+
+        static Operation forName(String name) {
+            for (Operation operation : values()) {
+                if (operation.label().equals(name)) {
+                    return operation;
+                }
+            }
+            return null;
+        }
+
+        private final RequestType requestType;
+        private final ResourceResponse.ResponseType responseType;
+    }
+
+    private enum Status {
+        CREATED("created"),
+        UPDATED("updated"),
+        DELETED("deleted"),
+        NOT_FOUND("not-found"),
+        ALREADY_EXISTS("already-exists"),
+        FORBIDDEN("forbidden"),
+        ERROR("error"),
+        SKIPPED("skipped");
+
+        Status(String label) {
+            this.label = label;
+        }
+
+        private final String label;
+    }
+
+    private static class Item {
+
+        Item(int index, Operation operation) {
+            this.index = index;
+            this.operation = operation;
+        }
+
+        void succeed(Status status, Object id) {
+            this.status = status;
+            this.id = id;
+        }
+
+        void fail(Status status, String message) {
+            this.status = status;
+            this.message = message;
+        }
+
+        boolean succeeded() {
+            return this.status == Status.CREATED || this.status == Status.UPDATED || this.status == Status.DELETED;
+        }
+
+        final int index;
+        final Operation operation;
+        ResourceState state;
+        BasicDBObject document;
+        DBObject stored;
+        Object id;
+        Status status;
+        String message;
+    }
+
+    /**
+     * The outcome of a bulk request, with a response for every document it changed.
+     */
+    private class Result implements SynchronousResource, BulkResultResource {
+
+        Result(RequestContext ctx, boolean ordered, boolean readBack, List<Item> items) {
+            this.ctx = ctx;
+            this.ordered = ordered;
+            this.readBack = readBack;
+            this.items = items;
+        }
+
+        @Override
+        public Resource parent() {
+            return MongoBulkResource.this.parent();
+        }
+
+        @Override
+        public String id() {
+            return ID;
+        }
+
+        @Override
+        public Map<String, ?> properties(RequestContext ctx) throws Exception {
+            int errors = 0;
+            List<Resource> results = new ArrayList<>(this.items.size());
+            for (Item item : this.items) {
+                if (!item.succeeded()) {
+                    ++errors;
+                }
+                MapResource result = new MapResource()
+                        .put("index", item.index)
+                        .put("operation", item.operation.label());
+                if (item.id != null) {
+                    result.put("id", getResourceID(item.id));
+                }
+                result.put("status", item.status.label);
+                if (item.message != null) {
+                    result.put("message", item.message);
+                }
+                if (this.readBack && item.stored != null) {
+                    result.put("document", new MongoEmbeddedObjectResource(MongoBulkResource.this, item.stored));
+                }
+                results.add(result);
+            }
+
+            Map<String, Object> properties = new LinkedHashMap<>();
+            properties.put(ORDERED, this.ordered);
+            properties.put("count", this.items.size());
+            properties.put("errors", errors);
+            properties.put("results", results);
+            return properties;
+        }
+
+        @Override
+        public List<ResourceResponse> itemResponses() {
+            if (this.itemResponses == null) {
+                ResourcePath collectionPath = new ResourcePath(MongoBulkResource.this.parent().uri().toString());
+                List<ResourceResponse> responses = new ArrayList<>();
+                for (Item item : this.items) {
+                    if (!item.succeeded()) {
+                        continue;
+                    }
+                    MongoBaseObjectResource resource = new MongoBaseObjectResource(MongoBulkResource.this.parent(), document(item));
+
+                    // an update which created its document is reported as a create
+                    Operation operation = item.status == Status.CREATED ? Operation.CREATE : item.operation;
+
+                    // deletes are keyed by the deleted resource, creates by the collection they went to
+                    ResourcePath path = collectionPath;
+                    if (operation != Operation.CREATE) {
+                        path = new ResourcePath(resource.uri().toString());
+                    }
+                    DefaultResourceRequest request = new DefaultResourceRequest.Builder(operation.requestType, path)
+                            .requestContext(this.ctx)
+                            .build();
+                    responses.add(new ItemResponse(request, operation.responseType, resource));
+                }
+                this.itemResponses = responses;
+            }
+            return this.itemResponses;
+        }
+
+        private DBObject document(Item item) {
+            if (item.stored != null) {
+                return item.stored;
+            }
+            if (item.document != null) {
+                return item.document;
+            }
+            return new BasicDBObject(MONGO_ID_FIELD, item.id);
+        }
+
+        private final RequestContext ctx;
+        private final boolean ordered;
+        private final boolean readBack;
+        private final List<Item> items;
+        private List<ResourceResponse> itemResponses;
+    }
+
+    /**
+     * A response for a single document, encoded only once someone asks for its state.
+     */
+    private static class ItemResponse extends DefaultResourceResponse {
+
+        ItemResponse(DefaultResourceRequest inReplyTo, ResponseType responseType, Resource resource) {
+            super(inReplyTo, responseType, resource);
+        }
+
+        @Override
+        public synchronized ResourceState state() {
+            ResourceState state = super.state();
+            if (state == null) {
+                ResourceStateEncoder encoder = new ResourceStateEncoder();
+                try {
+                    new RootEncodingDriver(new RequestContext.Builder().build(), encoder, resource(), null, null).encode();
+                    state = encoder.root();
+                    setState(state);
+                } catch (Exception e) {
+                    log.error("Could not encode bulk item: " + resource().uri(), e);
+                }
+            }
+            return state;
+        }
+    }
+}
@@ -10,6 +10,7 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 import com.mongodb.BasicDBObject;
 import com.mongodb.DBCollection;
@@ -18,6 +19,7 @@ import com.mongodb.DBObject;
 import com.mongodb.WriteResult;
 import com.mongodb.util.JSON;
 import io.liveoak.common.util.PagingLinksBuilder;
+import io.liveoak.mongo.config.MongoCollectionOptions;
 import io.liveoak.spi.LiveOak;
 import io.liveoak.spi.Pagination;
 import io.liveoak.spi.RequestContext;
@@ -27,6 +29,7 @@ import io.liveoak.spi.Sorting;
 import io.liveoak.spi.exceptions.NotAcceptableException;
 import io.liveoak.spi.exceptions.ResourceProcessingException;
 import io.liveoak.spi.resource.async.Resource;
+import io.liveoak.spi.resource.async.ResourceSink;
 import io.liveoak.spi.resource.async.Responder;
 import io.liveoak.spi.state.ResourceState;
 
@@ -35,11 +38,15 @@ import io.liveoak.spi.state.ResourceState;
  */
 public class MongoCollectionResource extends MongoResource {
 
+    public static final String BATCH_SIZE_PROPERTY = "liveoak.mongo.batch-size";
+    public static final int DEFAULT_BATCH_SIZE = Integer.getInteger(BATCH_SIZE_PROPERTY, 1000);
+
     private DBCollection dbCollection;
     private String collectionName;
 
     private boolean explainQuery;
     private DBObject queryObject;
+    private MongoKeyset keyset;
 
     MongoCollectionResource(RootMongoResource parent, DBCollection collection) {
         super(parent);
@@ -58,6 +65,10 @@ public class MongoCollectionResource extends MongoResource {
             return new MongoAggregationResource(this);
         }
 
+        if (MongoBulkResource.ID.equals(childId)) {
+            return new MongoBulkResource(this);
+        }
+
         DBObject object = dbCollection.findOne(getMongoIDDBOBject(childId));
 
         if (object != null) {
@@ -113,6 +124,16 @@ public class MongoCollectionResource extends MongoResource {
                 && resourceParams.contains("explain")
                 && resourceParams.value("explain").equalsIgnoreCase("true");
 
+        MongoCollectionOptions options = collectionOptions();
+        MongoCollectionOptions.Count countMode = options.count();
+        if (resourceParams != null && resourceParams.contains("count")) {
+            try {
+                countMode = MongoCollectionOptions.parse(id(), "count", resourceParams.value("count"), MongoCollectionOptions.Count.class, countMode);
+            } catch (Exception e) {
+                throw new NotAcceptableException(uri().toString(), "Invalid value for the 'count' parameter", e);
+            }
+        }
+
         DBObject returnFields = new BasicDBObject();
         if (ctx.returnFields() != null && !ctx.returnFields().isAll()) {
             ctx.returnFields().forEach((fieldName) -> {
@@ -120,17 +141,43 @@ public class MongoCollectionResource extends MongoResource {
             });
         }
 
-        int totalCount = explainQuery ? 1 : (int) dbCollection.getCount(queryObject, returnFields);
-        int count = ctx.pagination().offset() >= totalCount ? 0 : totalCount - ctx.pagination().offset();
-        count = count < ctx.pagination().limit() ? count : ctx.pagination().limit();
-
-        List<Resource> links = new LinkedList<>();
+        int totalCount;
+        if (explainQuery) {
+            totalCount = 1;
+        } else if (countMode == MongoCollectionOptions.Count.EXACT) {
+            totalCount = (int) dbCollection.getCount(queryObject, returnFields);
+        } else if (countMode == MongoCollectionOptions.Count.APPROXIMATE && queryObject.keySet().isEmpty()) {
+            // the server keeps the size of a collection, no need to scan it
+            totalCount = (int) dbCollection.getCount();
+        } else {
+            totalCount = -1;
+        }
 
         PagingLinksBuilder linksBuilder = new PagingLinksBuilder(ctx)
-                .uri(uri())
-                .count(count)
-                .totalCount(totalCount);
+                .uri(uri());
+
+        keyset = null;
+        boolean cursorParam = resourceParams != null && resourceParams.contains(MongoKeyset.CURSOR_PARAM);
+        if (cursorParam || options.pagination() == MongoCollectionOptions.Pagination.KEYSET) {
+            keyset = new MongoKeyset(ctx.sorting());
+            try {
+                queryObject = keyset.after(queryObject, cursorParam ? resourceParams.value(MongoKeyset.CURSOR_PARAM) : null);
+            } catch (IllegalArgumentException e) {
+                throw new NotAcceptableException(uri().toString(), "Invalid value for the 'cursor' parameter", e);
+            }
+            linksBuilder.cursor(explainQuery ? null : nextCursor(ctx));
+        } else {
+            int count = ctx.pagination().offset() >= totalCount ? 0 : totalCount - ctx.pagination().offset();
+            count = count < ctx.pagination().limit() ? count : ctx.pagination().limit();
+            if (totalCount == -1) {
+                // we only know that there may be more
+                count = ctx.pagination().limit();
+            }
+            linksBuilder.count(count)
+                    .totalCount(totalCount);
+        }
 
+        List<Resource> links = new LinkedList<>();
         links.addAll(linksBuilder.build());
 
         Map<String, Object> result = new HashMap<>();
@@ -138,7 +185,9 @@ public class MongoCollectionResource extends MongoResource {
             result.put("links", links);
         }
         result.put("type", "collection");
-        result.put("count", (long) totalCount);
+        if (totalCount != -1) {
+            result.put("count", (long) totalCount);
+        }
         result.put("capped", dbCollection.isCapped());
 
         DBObject collectionDBObject = getDBCollection().getDB().getCollection( "system" ).getCollection( "namespaces" ).findOne( new BasicDBObject ( "name", this.getDBCollection().getFullName()));
@@ -154,9 +203,28 @@ public class MongoCollectionResource extends MongoResource {
 
     @Override
     public Collection<Resource> members(RequestContext ctx) throws Exception {
-
         LinkedList<Resource> members = new LinkedList<>();
+        streamMembers(ctx, members::add);
+        return members;
+    }
 
+    /**
+     * Hands members to the sink as the cursor goes, a batch at a time, so that a page is never held in
+     * memory as a whole. The batch size is taken from the <code>batchSize</code> parameter, or else
+     * from the <code>liveoak.mongo.batch-size</code> system property, and never exceeds the page size.
+     */
+    @Override
+    public void readMembers(RequestContext ctx, ResourceSink sink) throws Exception {
+        try {
+            streamMembers(ctx, sink);
+        } catch (Throwable e) {
+            sink.error(e);
+        } finally {
+            sink.complete();
+        }
+    }
+
+    private void streamMembers(RequestContext ctx, Consumer<Resource> sink) throws Exception {
         DBObject returnFields = new BasicDBObject();
         if (ctx.returnFields() != null && !ctx.returnFields().child(LiveOak.MEMBERS).isEmpty()) {
             ReturnFields membersReturnFields = ctx.returnFields().child(LiveOak.MEMBERS);
@@ -168,25 +236,22 @@ public class MongoCollectionResource extends MongoResource {
         }
 
         DBCursor dbCursor = dbCollection.find(queryObject, returnFields);
+        hint(ctx, dbCursor);
 
-        ResourceParams resourceParams = ctx.resourceParams();
-        if (resourceParams != null && resourceParams.contains("hint")) {
-            String hint = resourceParams.value("hint");
-            if (hint.startsWith("{")) {
-                try {
-                    DBObject hintObject = (DBObject) JSON.parse(hint);
-                    dbCursor.hint(hintObject) ;
-                } catch (Exception e) {
-                    throw new NotAcceptableException(uri().toString(), "Invalid JSON format for the 'hint' parameter", e);
-                }
-            } else {
-                dbCursor.hint(hint);
+        if (keyset != null) {
+            // the query starts after the previous page already
+            dbCursor.sort(keyset.sort());
+            if (ctx.pagination() != null) {
+                dbCursor.limit(ctx.pagination().limit());
             }
         }
 
         if (explainQuery) {
-            members.add(new MongoEmbeddedObjectResource(this, dbCursor.explain()));
-        } else {
+            sink.accept(new MongoEmbeddedObjectResource(this, dbCursor.explain()));
+            return;
+        }
+
+        if (keyset == null) {
             Sorting sorting = ctx.sorting();
             if (sorting != null) {
                 BasicDBObject sortingObject = new BasicDBObject();
@@ -201,19 +266,90 @@ public class MongoCollectionResource extends MongoResource {
                 dbCursor.limit(pagination.limit());
                 dbCursor.skip(pagination.offset());
             }
+        }
+
+        dbCursor.batchSize(batchSize(ctx));
 
+        try {
             try {
                 dbCursor.hasNext();
             } catch (Exception e) {
                 throw new ResourceProcessingException("Exception encountered trying to fetch data from the Mongo Database", e);
             }
 
-            dbCursor.forEach((dbObject) -> {
-                members.add(new MongoBaseObjectResource(this, dbObject));
-            });
+            while (dbCursor.hasNext()) {
+                sink.accept(new MongoBaseObjectResource(this, dbCursor.next()));
+            }
+        } finally {
+            dbCursor.close();
         }
+    }
 
-        return members;
+    private int batchSize(RequestContext ctx) throws NotAcceptableException {
+        int batchSize = DEFAULT_BATCH_SIZE;
+        ResourceParams resourceParams = ctx.resourceParams();
+        if (resourceParams != null && resourceParams.contains("batchSize")) {
+            try {
+                batchSize = Integer.parseInt(resourceParams.value("batchSize"));
+            } catch (NumberFormatException e) {
+                throw new NotAcceptableException(uri().toString(), "Invalid value for the 'batchSize' parameter", e);
+            }
+            if (batchSize <= 0) {
+                throw new NotAcceptableException(uri().toString(), "Invalid value for the 'batchSize' parameter");
+            }
+        }
+        Pagination pagination = ctx.pagination();
+        if (pagination != null && pagination.limit() > 0) {
+            batchSize = Math.min(batchSize, pagination.limit());
+        }
+        return batchSize;
+    }
+
+    /**
+     * The cursor of the page after the current one, or null if there are no more documents. Only
+     * reads the sort keys of the last document of the page.
+     */
+    private String nextCursor(RequestContext ctx) throws Exception {
+        int limit = ctx.pagination().limit();
+        if (limit <= 0) {
+            return null;
+        }
+        DBCursor last = dbCollection.find(queryObject, keyset.fields())
+                .sort(keyset.sort())
+                .skip(limit - 1)
+                .limit(1);
+        hint(ctx, last);
+        try {
+            return last.hasNext() ? keyset.cursor(last.next()) : null;
+        } catch (Exception e) {
+            throw new ResourceProcessingException("Exception encountered trying to fetch data from the Mongo Database", e);
+        } finally {
+            last.close();
+        }
+    }
+
+    private void hint(RequestContext ctx, DBCursor dbCursor) throws NotAcceptableException {
+        ResourceParams resourceParams = ctx.resourceParams();
+        if (resourceParams != null && resourceParams.contains("hint")) {
+            String hint = resourceParams.value("hint");
+            if (hint.startsWith("{")) {
+                try {
+                    DBObject hintObject = (DBObject) JSON.parse(hint);
+                    dbCursor.hint(hintObject) ;
+                } catch (Exception e) {
+                    throw new NotAcceptableException(uri().toString(), "Invalid JSON format for the 'hint' parameter", e);
+                }
+            } else {
+                dbCursor.hint(hint);
+            }
+        }
+    }
+
+    private MongoCollectionOptions collectionOptions() {
+        if (parent() instanceof RootMongoResource) {
+            return ((RootMongoResource) parent()).configuration().collectionOptions(id());
+        }
+        return MongoCollectionOptions.DEFAULT;
     }
 
     @Override
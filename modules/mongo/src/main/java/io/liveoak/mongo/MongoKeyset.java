@@ -0,0 +1,153 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.mongo;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import com.mongodb.BasicDBList;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import com.mongodb.util.JSON;
+import io.liveoak.spi.Sorting;
+
+/**
+ * Keyset pagination over a sort order which <code>_id</code> makes unique.
+ *
+ * <p>A page starts right after the sort key values of the last document of the previous page. The
+ * values travel to the client and back as an opaque <code>cursor</code> token. With an index on the
+ * sort keys every page costs the same however deep it is, while <code>skip</code> walks over all the
+ * documents before it. Sort keys are expected to hold values of a single type; a missing value sorts
+ * like <code>null</code>.</p>
+ */
+class MongoKeyset {
+
+    static final String CURSOR_PARAM = "cursor";
+
+    MongoKeyset(Sorting sorting) {
+        if (sorting != null) {
+            for (Sorting.Spec spec : sorting) {
+                this.keys.add(spec.name());
+                this.ascending.add(spec.ascending());
+            }
+        }
+        if (!this.keys.contains(MongoResource.MONGO_ID_FIELD)) {
+            this.keys.add(MongoResource.MONGO_ID_FIELD);
+            this.ascending.add(true);
+        }
+    }
+
+    /**
+     * The sort order of the pages.
+     */
+    DBObject sort() {
+        BasicDBObject sort = new BasicDBObject();
+        for (int i = 0; i < this.keys.size(); ++i) {
+            sort.append(this.keys.get(i), this.ascending.get(i) ? 1 : -1);
+        }
+        return sort;
+    }
+
+    /**
+     * Return fields holding just the sort keys, to get a cursor from.
+     */
+    DBObject fields() {
+        BasicDBObject fields = new BasicDBObject();
+        for (String key : this.keys) {
+            fields.append(key, 1);
+        }
+        return fields;
+    }
+
+    /**
+     * Restrict the query to the documents which come after the cursor.
+     *
+     * @param cursor the cursor, or null or empty for the first page
+     * @throws IllegalArgumentException if the cursor is not one of ours
+     */
+    DBObject after(DBObject query, String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return query;
+        }
+        List<Object> values = decode(cursor);
+
+        // (k1 > v1) or (k1 = v1 and k2 > v2) or ...
+        BasicDBList or = new BasicDBList();
+        for (int i = 0; i < this.keys.size(); ++i) {
+            Object value = values.get(i);
+            boolean asc = this.ascending.get(i);
+            if (value == null) {
+                // null sorts first
+                if (asc) {
+                    or.add(prefix(values, i).append(this.keys.get(i), new BasicDBObject("$ne", null)));
+                }
+            } else {
+                or.add(prefix(values, i).append(this.keys.get(i), new BasicDBObject(asc ? "$gt" : "$lt", value)));
+                if (!asc) {
+                    or.add(prefix(values, i).append(this.keys.get(i), null));
+                }
+            }
+        }
+
+        // _id is never null, so there is always at least one clause
+        DBObject after = new BasicDBObject("$or", or);
+        if (query == null || query.keySet().isEmpty()) {
+            return after;
+        }
+        BasicDBList and = new BasicDBList();
+        and.add(query);
+        and.add(after);
+        return new BasicDBObject("$and", and);
+    }
+
+    /**
+     * The cursor of the page after the given document.
+     */
+    String cursor(DBObject last) {
+        BasicDBList values = new BasicDBList();
+        for (String key : this.keys) {
+            values.add(value(last, key));
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(JSON.serialize(values).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private List<Object> decode(String cursor) {
+        Object parsed;
+        try {
+            parsed = JSON.parse(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Malformed cursor: " + cursor, e);
+        }
+        if (!(parsed instanceof BasicDBList) || ((BasicDBList) parsed).size() != this.keys.size()) {
+            throw new IllegalArgumentException("Cursor does not match the sort order: " + cursor);
+        }
+        return (BasicDBList) parsed;
+    }
+
+    private BasicDBObject prefix(List<Object> values, int length) {
+        BasicDBObject prefix = new BasicDBObject();
+        for (int i = 0; i < length; ++i) {
+            prefix.append(this.keys.get(i), values.get(i));
+        }
+        return prefix;
+    }
+
+    private static Object value(DBObject object, String key) {
+        Object value = object;
+        for (String name : key.split("\\.")) {
+            if (!(value instanceof DBObject)) {
+                return null;
+            }
+            value = ((DBObject) value).get(name);
+        }
+        return value;
+    }
+
+    private final List<String> keys = new ArrayList<>();
+    private final List<Boolean> ascending = new ArrayList<>();
+}
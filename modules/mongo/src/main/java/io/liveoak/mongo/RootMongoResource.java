@@ -20,6 +20,7 @@ import com.mongodb.DBRef;
 import io.liveoak.mongo.config.RootMongoConfigResource;
 import io.liveoak.spi.Pagination;
 import io.liveoak.spi.RequestContext;
+import io.liveoak.spi.client.Client;
 import io.liveoak.spi.exceptions.ResourceProcessingException;
 import io.liveoak.spi.resource.RootResource;
 import io.liveoak.spi.resource.async.Resource;
@@ -35,17 +36,23 @@ public class RootMongoResource extends MongoResource implements RootResource {
     private Resource parent;
     private String id;
     private RootMongoConfigResource mongoConfigResource;
+    private Client client;
 
-    public RootMongoResource(String id, RootMongoConfigResource mongoConfigResource) {
+    public RootMongoResource(String id, RootMongoConfigResource mongoConfigResource, Client client) {
         super(null);
         this.id = id;
         this.mongoConfigResource = mongoConfigResource;
+        this.client = client;
     }
 
     public RootMongoConfigResource configuration() {
         return mongoConfigResource;
     }
 
+    Client client() {
+        return client;
+    }
+
     DB db() {
         return mongoConfigResource.getDB();
     }
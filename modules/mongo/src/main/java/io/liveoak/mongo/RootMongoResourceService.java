@@ -1,6 +1,7 @@
 package io.liveoak.mongo;
 
 import io.liveoak.mongo.config.RootMongoConfigResource;
+import io.liveoak.spi.client.Client;
 import org.jboss.msc.service.Service;
 import org.jboss.msc.service.StartContext;
 import org.jboss.msc.service.StartException;
@@ -21,7 +22,7 @@ public class RootMongoResourceService implements Service<RootMongoResource> {
 
     @Override
     public void start(StartContext context) throws StartException {
-        this.rootMongoResource = new RootMongoResource(id, mongoConfigInjector.getValue());
+        this.rootMongoResource = new RootMongoResource(id, mongoConfigInjector.getValue(), clientInjector.getValue());
     }
 
     @Override
@@ -35,4 +36,5 @@ public class RootMongoResourceService implements Service<RootMongoResource> {
     }
 
     public InjectedValue<RootMongoConfigResource> mongoConfigInjector = new InjectedValue<>();
+    public InjectedValue<Client> clientInjector = new InjectedValue<>();
 }
\ No newline at end of file
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.mongo.config;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import io.liveoak.spi.exceptions.PropertyException;
+import io.liveoak.spi.state.ResourceState;
+
+/**
+ * How reads of a collection are paged and counted, as configured under <code>collections</code>:
+ *
+ * <pre>
+ * "collections": {
+ *     "events": { "pagination": "keyset", "count": "none" }
+ * }
+ * </pre>
+ *
+ * Collections which are not listed page by offset, with an exact count.
+ */
+public class MongoCollectionOptions {
+
+    public static final String PAGINATION = "pagination";
+    public static final String COUNT = "count";
+
+    public static final MongoCollectionOptions DEFAULT = new MongoCollectionOptions(Pagination.OFFSET, Count.EXACT);
+
+    public enum Pagination {
+        /** Pages are skipped over with <code>offset</code>. */
+        OFFSET,
+        /** Pages continue after the sort key of the previous page, passed as <code>cursor</code>. */
+        KEYSET
+    }
+
+    public enum Count {
+        /** The documents matching the query are counted on every read. */
+        EXACT,
+        /** The collection size is reported for unfiltered reads, which the server keeps track of; filtered reads are not counted. */
+        APPROXIMATE,
+        /** Reads are not counted. */
+        NONE
+    }
+
+    public MongoCollectionOptions(Pagination pagination, Count count) {
+        this.pagination = pagination;
+        this.count = count;
+    }
+
+    public MongoCollectionOptions(String collectionName, ResourceState state) throws PropertyException {
+        this(parse(collectionName, PAGINATION, state.getProperty(PAGINATION, false, String.class), Pagination.class, DEFAULT.pagination),
+                parse(collectionName, COUNT, state.getProperty(COUNT, false, String.class), Count.class, DEFAULT.count));
+    }
+
+    public Pagination pagination() {
+        return this.pagination;
+    }
+
+    public Count count() {
+        return this.count;
+    }
+
+    public Map<String, Object> properties() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(PAGINATION, this.pagination.name().toLowerCase(Locale.ENGLISH));
+        properties.put(COUNT, this.count.name().toLowerCase(Locale.ENGLISH));
+        return properties;
+    }
+
+    public static <T extends Enum<T>> T parse(String collectionName, String property, String value, Class<T> type, T defaultValue) throws PropertyException {
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Enum.valueOf(type, value.toUpperCase(Locale.ENGLISH));
+        } catch (IllegalArgumentException e) {
+            throw new PropertyException("Invalid '" + property + "' value for collection '" + collectionName + "': " + value);
+        }
+    }
+
+    private final Pagination pagination;
+    private final Count count;
+}
@@ -16,10 +16,12 @@ public class MongoConfig extends EmbeddedConfigResource {
 
     public static final String DATABASE = "db";
     public static final String DATASTORE = "datastore";
+    public static final String COLLECTIONS = "collections";
 
     private String databaseName;
     private String datastoreName;
     private MongoDatastoreResource dataStore;
+    private Map<String, MongoCollectionOptions> collections = new HashMap<>();
 
     private MongoDatastoresRegistry mongoDatastoresRegistry;
 
@@ -27,11 +29,25 @@ public class MongoConfig extends EmbeddedConfigResource {
         super(parent);
         this.mongoDatastoresRegistry = mongoSystemConfigResource;
         generateDataStore(resourceState, init);
+        generateCollections(resourceState);
     }
 
     @Override
     public void properties(ResourceState configState) throws Exception {
         generateDataStore(configState, false);
+        generateCollections(configState);
+    }
+
+    public void generateCollections(ResourceState resourceState) throws Exception {
+        Map<String, MongoCollectionOptions> collections = new HashMap<>();
+        ResourceState collectionsState = resourceState.getProperty(COLLECTIONS, false, ResourceState.class);
+        if (collectionsState != null) {
+            for (String name : collectionsState.getPropertyNames()) {
+                ResourceState options = collectionsState.getProperty(name, true, ResourceState.class);
+                collections.put(name, new MongoCollectionOptions(name, options));
+            }
+        }
+        this.collections = collections;
     }
 
     public void generateDataStore(ResourceState resourceState, Boolean init) throws Exception {
@@ -74,6 +90,12 @@ public class MongoConfig extends EmbeddedConfigResource {
 
         properties.put(DATABASE, decodeDatabaseName(this.databaseName));
 
+        if (!collections.isEmpty()) {
+            Map<String, Object> collectionsProperties = new HashMap<>();
+            collections.forEach((name, options) -> collectionsProperties.put(name, options.properties()));
+            properties.put(COLLECTIONS, collectionsProperties);
+        }
+
         return properties;
     }
 
@@ -87,6 +109,10 @@ public class MongoConfig extends EmbeddedConfigResource {
         }
     }
 
+    public MongoCollectionOptions collectionOptions(String collectionName) {
+        return collections.getOrDefault(collectionName, MongoCollectionOptions.DEFAULT);
+    }
+
     public void close() {
         if (datastoreName == null && dataStore != null) {
             dataStore.mongoClient.close();
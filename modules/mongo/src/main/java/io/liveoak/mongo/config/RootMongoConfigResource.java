@@ -76,6 +76,10 @@ public class RootMongoConfigResource implements RootResource {
         return mongoConfig.getDB();
     }
 
+    public MongoCollectionOptions collectionOptions(String collectionName) {
+        return mongoConfig.collectionOptions(collectionName);
+    }
+
     public void close() {
         mongoConfig.close();
     }
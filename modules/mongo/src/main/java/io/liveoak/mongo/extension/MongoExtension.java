@@ -6,6 +6,7 @@ import io.liveoak.mongo.config.MongoDatastoreService;
 import io.liveoak.mongo.config.MongoDatastoresRegistry;
 import io.liveoak.mongo.config.RootMongoConfigResource;
 import io.liveoak.spi.Services;
+import io.liveoak.spi.client.Client;
 import io.liveoak.spi.extension.ApplicationExtensionContext;
 import io.liveoak.spi.extension.Extension;
 import io.liveoak.spi.extension.SystemExtensionContext;
@@ -50,6 +51,7 @@ public class MongoExtension implements Extension {
         RootMongoResourceService rootMongoResourceService = new RootMongoResourceService(context.resourceId());
         context.target().addService(Services.resource(context.application().id(), context.resourceId()), rootMongoResourceService)
                 .addDependency(Services.adminResource(context.application().id(), context.resourceId()), RootMongoConfigResource.class, rootMongoResourceService.mongoConfigInjector)
+                .addDependency(Services.CLIENT, Client.class, rootMongoResourceService.clientInjector)
                 .install();
 
         context.mountPrivate();
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.mongo;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.liveoak.common.security.AuthzConstants;
+import io.liveoak.spi.RequestContext;
+import io.liveoak.spi.RequestType;
+import io.liveoak.spi.extension.ApplicationExtensionContext;
+import io.liveoak.spi.extension.Extension;
+import io.liveoak.spi.extension.SystemExtensionContext;
+import io.liveoak.spi.resource.SynchronousResource;
+import io.liveoak.spi.resource.async.DefaultRootResource;
+import io.liveoak.spi.resource.async.Resource;
+
+/**
+ * Stands in for the authorization service of an application: it refuses any update or delete of a
+ * resource whose id starts with <code>locked</code>, and allows everything else.
+ */
+public class MockAuthzExtension implements Extension {
+
+    public static final String LOCKED_PREFIX = "locked";
+
+    @Override
+    public void extend(SystemExtensionContext context) throws Exception {
+        context.mountPrivate(new DefaultRootResource(context.id()));
+    }
+
+    @Override
+    public void extend(ApplicationExtensionContext context) throws Exception {
+        context.mountPublic(new AuthzResource(context.resourceId()));
+    }
+
+    @Override
+    public void unextend(ApplicationExtensionContext context) throws Exception {
+    }
+
+    private static class AuthzResource extends DefaultRootResource implements SynchronousResource {
+
+        AuthzResource(String id) {
+            super(id);
+        }
+
+        @Override
+        public Resource member(RequestContext ctx, String id) throws Exception {
+            return AuthzConstants.AUTHZ_CHECK_RESOURCE_ID.equals(id) ? new AuthzCheckResource(this) : null;
+        }
+    }
+
+    private static class AuthzCheckResource implements SynchronousResource {
+
+        AuthzCheckResource(Resource parent) {
+            this.parent = parent;
+        }
+
+        @Override
+        public Resource parent() {
+            return this.parent;
+        }
+
+        @Override
+        public String id() {
+            return AuthzConstants.AUTHZ_CHECK_RESOURCE_ID;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Map<String, ?> properties(RequestContext ctx) throws Exception {
+            Map<String, Object> result = new HashMap<>();
+            List<RequestContext> reqsToAuthorize = ctx.requestAttributes().getAttribute(AuthzConstants.ATTR_REQUEST_CONTEXTS, List.class);
+            if (reqsToAuthorize == null) {
+                RequestContext reqToAuthorize = ctx.requestAttributes().getAttribute(AuthzConstants.ATTR_REQUEST_CONTEXT, RequestContext.class);
+                result.put(AuthzConstants.ATTR_AUTHZ_RESULT, authorized(reqToAuthorize));
+                return result;
+            }
+
+            List<Boolean> results = new ArrayList<>(reqsToAuthorize.size());
+            for (RequestContext reqToAuthorize : reqsToAuthorize) {
+                results.add(authorized(reqToAuthorize));
+            }
+            result.put(AuthzConstants.ATTR_AUTHZ_RESULTS, results);
+            return result;
+        }
+
+        private static boolean authorized(RequestContext reqToAuthorize) {
+            if (reqToAuthorize == null || reqToAuthorize.requestType() == RequestType.READ || reqToAuthorize.requestType() == RequestType.CREATE) {
+                return true;
+            }
+            return !reqToAuthorize.resourcePath().tail().name().startsWith(LOCKED_PREFIX);
+        }
+
+        private final Resource parent;
+    }
+}
@@ -0,0 +1,173 @@
+package io.liveoak.mongo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBCollection;
+import com.mongodb.DBObject;
+import io.liveoak.common.codec.DefaultResourceState;
+import io.liveoak.spi.RequestContext;
+import io.liveoak.spi.state.ResourceState;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class MongoDBBulkTest extends BaseMongoDBTest {
+
+    @BeforeClass
+    public static void loadAuthz() throws Exception {
+        loadExtension("mock-authz", new MockAuthzExtension());
+        installTestAppResource("mock-authz", "authz", JsonNodeFactory.instance.objectNode());
+    }
+
+    @Test
+    public void orderedBulkStopsAtFirstFailure() throws Exception {
+        String methodName = "testOrderedBulk";
+        DBCollection collection = db.getCollection(methodName);
+        collection.insert(new BasicDBObject("_id", "existing").append("name", "before"));
+
+        ResourceState result = bulk(methodName, true, false,
+                operation("create", document("a", "alpha")),
+                operation("create", document(null, "beta")),
+                operation("update", document("existing", "after")),
+                operation("delete", document("missing", null)),
+                operation("create", document("c", "gamma")));
+
+        assertThat(result.getProperty("count")).isEqualTo(5);
+        assertThat(result.getProperty("errors")).isEqualTo(2);
+        assertThat(statuses(result)).isEqualTo(Arrays.asList("created", "created", "updated", "not-found", "skipped"));
+
+        assertThat(collection.count()).isEqualTo(3);
+        assertThat(collection.findOne(new BasicDBObject("_id", "a")).get("name")).isEqualTo("alpha");
+        assertThat(collection.findOne(new BasicDBObject("_id", "existing")).get("name")).isEqualTo("after");
+        assertThat(collection.findOne(new BasicDBObject("_id", "c"))).isNull();
+    }
+
+    @Test
+    public void unorderedBulkCarriesOn() throws Exception {
+        String methodName = "testUnorderedBulk";
+        DBCollection collection = db.getCollection(methodName);
+        collection.insert(new BasicDBObject("_id", "a").append("name", "alpha"));
+        collection.insert(new BasicDBObject("_id", "b").append("name", "beta"));
+
+        ResourceState result = bulk(methodName, false, true,
+                operation("create", document("a", "again")),
+                operation("create", document("c", "gamma")),
+                operation("delete", document("missing", null)),
+                operation("delete", document("b", null)));
+
+        assertThat(result.getProperty("errors")).isEqualTo(2);
+        assertThat(statuses(result)).isEqualTo(Arrays.asList("already-exists", "created", "not-found", "deleted"));
+
+        // only the created document is read back
+        List<ResourceState> results = results(result);
+        assertThat(results.get(0).getProperty("document")).isNull();
+        ResourceState created = (ResourceState) results.get(1).getProperty("document");
+        assertThat(created.getProperty("name")).isEqualTo("gamma");
+
+        assertThat(collection.count()).isEqualTo(2);
+        assertThat(collection.findOne(new BasicDBObject("_id", "a")).get("name")).isEqualTo("alpha");
+        assertThat(collection.findOne(new BasicDBObject("_id", "b"))).isNull();
+    }
+
+    @Test
+    public void bulkWithoutReadBack() throws Exception {
+        String methodName = "testBulkWithoutReadBack";
+        ResourceState result = bulk(methodName, true, false, operation("create", document("a", "alpha")));
+
+        List<ResourceState> results = results(result);
+        assertThat(results.get(0).getProperty("id")).isEqualTo("a");
+        assertThat(results.get(0).getProperty("document")).isNull();
+
+        DBObject stored = db.getCollection(methodName).findOne(new BasicDBObject("_id", "a"));
+        assertThat(stored.get("name")).isEqualTo("alpha");
+    }
+
+    @Test
+    public void updateCreatesMissingDocument() throws Exception {
+        String methodName = "testBulkUpsert";
+        DBCollection collection = db.getCollection(methodName);
+        collection.insert(new BasicDBObject("_id", "existing").append("name", "before"));
+
+        ResourceState result = bulk(methodName, true, false,
+                operation("update", document("existing", "after")),
+                operation("update", document("missing", "created")));
+
+        assertThat(result.getProperty("errors")).isEqualTo(0);
+        assertThat(statuses(result)).isEqualTo(Arrays.asList("updated", "created"));
+        assertThat(collection.findOne(new BasicDBObject("_id", "existing")).get("name")).isEqualTo("after");
+        assertThat(collection.findOne(new BasicDBObject("_id", "missing")).get("name")).isEqualTo("created");
+    }
+
+    @Test
+    public void unauthorizedOperationsAreRefused() throws Exception {
+        String methodName = "testUnauthorizedBulk";
+        DBCollection collection = db.getCollection(methodName);
+        collection.insert(new BasicDBObject("_id", "mine").append("name", "before"));
+        collection.insert(new BasicDBObject("_id", "locked1").append("name", "before"));
+        collection.insert(new BasicDBObject("_id", "locked2").append("name", "before"));
+
+        // the authorization service refuses the update and the delete of the locked documents
+        ResourceState result = bulk(methodName, false, false,
+                operation("update", document("mine", "after")),
+                operation("update", document("locked1", "after")),
+                operation("delete", document("locked2", null)),
+                operation("create", document("new", "created")));
+
+        assertThat(result.getProperty("errors")).isEqualTo(2);
+        assertThat(statuses(result)).isEqualTo(Arrays.asList("updated", "forbidden", "forbidden", "created"));
+        assertThat(collection.findOne(new BasicDBObject("_id", "mine")).get("name")).isEqualTo("after");
+        assertThat(collection.findOne(new BasicDBObject("_id", "locked1")).get("name")).isEqualTo("before");
+        assertThat(collection.findOne(new BasicDBObject("_id", "locked2"))).isNotNull();
+
+        // an ordered request stops at the first refused operation
+        result = bulk(methodName, true, false,
+                operation("delete", document("mine", null)),
+                operation("delete", document("locked1", null)),
+                operation("delete", document("new", null)));
+
+        assertThat(statuses(result)).isEqualTo(Arrays.asList("deleted", "forbidden", "skipped"));
+        assertThat(collection.findOne(new BasicDBObject("_id", "mine"))).isNull();
+        assertThat(collection.findOne(new BasicDBObject("_id", "locked1"))).isNotNull();
+        assertThat(collection.findOne(new BasicDBObject("_id", "new"))).isNotNull();
+    }
+
+    private ResourceState bulk(String collectionName, boolean ordered, boolean readBack, ResourceState... operations) throws Exception {
+        ResourceState state = new DefaultResourceState();
+        state.putProperty("ordered", ordered);
+        state.putProperty("readBack", readBack);
+        state.putProperty("operations", new ArrayList<>(Arrays.asList(operations)));
+        return client.create(new RequestContext.Builder().build(), "/testApp/" + BASEPATH + "/" + collectionName + "/_bulk", state);
+    }
+
+    private static ResourceState operation(String name, ResourceState document) {
+        ResourceState operation = new DefaultResourceState();
+        operation.putProperty(name, document);
+        return operation;
+    }
+
+    private static ResourceState document(String id, String name) {
+        ResourceState document = new DefaultResourceState(id);
+        if (name != null) {
+            document.putProperty("name", name);
+        }
+        return document;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<ResourceState> results(ResourceState result) {
+        return (List<ResourceState>) result.getProperty("results");
+    }
+
+    private static List<String> statuses(ResourceState result) {
+        List<String> statuses = new ArrayList<>();
+        for (ResourceState item : results(result)) {
+            statuses.add((String) item.getProperty("status"));
+        }
+        return statuses;
+    }
+}
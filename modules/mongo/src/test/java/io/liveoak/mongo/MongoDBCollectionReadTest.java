@@ -5,6 +5,7 @@
  */
 package io.liveoak.mongo;
 
+import java.net.URLDecoder;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -497,6 +498,79 @@ public class MongoDBCollectionReadTest extends BaseMongoDBTest {
         assertThat(members.get(1).getPropertyAsString("name")).isEqualTo("Helga");
     }
 
+    @Test
+    public void getStorageCollectionsKeysetPagination() throws Exception {
+        DBCollection collection = db.getCollection("testKeysetCollection");
+        if (collection != null) {
+            collection.drop();
+        }
+        collection = db.createCollection("testKeysetCollection", new BasicDBObject("count", 0));
+
+        // insert data records for the test
+        setupPeopleData(collection);
+        assertThat(collection.count()).isEqualTo(6);
+
+        // an empty cursor starts keyset pagination from the first page
+        SimpleResourceParams resourceParams = new SimpleResourceParams();
+        resourceParams.put("cursor", "");
+        resourceParams.put("count", "none");
+
+        List<String> names = new LinkedList<>();
+        int pages = 0;
+        String cursor = "";
+        while (cursor != null) {
+            resourceParams.put("cursor", cursor);
+            RequestContext requestContext = new RequestContext.Builder()
+                    .returnFields(new DefaultReturnFields("*(*)"))
+                    .sorting(new Sorting("lastName,-name"))
+                    .resourceParams(resourceParams)
+                    .pagination(new DefaultPagination(0, 2)).build();
+
+            ResourceState result = client.read(requestContext, "/testApp/" + BASEPATH + "/testKeysetCollection");
+            assertThat(result.getProperty("count")).isNull();
+            for (ResourceState member : result.members()) {
+                names.add(member.getPropertyAsString("name"));
+            }
+
+            cursor = null;
+            List<ResourceState> links = result.getPropertyAsList("links");
+            if (links != null) {
+                for (ResourceState link : links) {
+                    if ("next".equals(link.getProperty("rel"))) {
+                        cursor = cursorParam(link.getProperty("href").toString());
+                    } else {
+                        assertThat(link.getProperty("rel")).isEqualTo("first");
+                    }
+                }
+            }
+            pages++;
+        }
+
+        // the last full page is followed by an empty one
+        assertThat(pages).isEqualTo(4);
+        assertThat(names).containsExactly("Jacqueline", "John", "Jane", "Hans", "Francois", "Helga");
+
+        // a cursor we did not hand out is rejected
+        resourceParams.put("cursor", "not-a-cursor");
+        try {
+            client.read(new RequestContext.Builder()
+                    .sorting(new Sorting("lastName,-name"))
+                    .resourceParams(resourceParams).build(), "/testApp/" + BASEPATH + "/testKeysetCollection");
+            Fail.fail();
+        } catch (NotAcceptableException e) {
+            // expected
+        }
+    }
+
+    private static String cursorParam(String href) throws Exception {
+        for (String param : href.substring(href.indexOf('?') + 1).split("&")) {
+            if (param.startsWith("cursor=")) {
+                return URLDecoder.decode(param.substring("cursor=".length()), "utf-8");
+            }
+        }
+        return null;
+    }
+
     @Test
     public void getStorageCollectionsQueryAndSort() throws Exception {
         DBCollection collection = db.getCollection("testQuerySortCollection");
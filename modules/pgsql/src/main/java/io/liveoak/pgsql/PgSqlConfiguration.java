@@ -20,6 +20,10 @@ public interface PgSqlConfiguration {
 
     public boolean includeTotalCount();
 
+    public boolean estimateTotalCount();
+
+    public int fetchSize();
+
     public String defaultSchema();
 
 }
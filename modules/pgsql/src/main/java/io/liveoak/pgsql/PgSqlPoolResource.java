@@ -0,0 +1,51 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.pgsql;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import io.liveoak.pgsql.pool.ConnectionPool;
+import io.liveoak.spi.RequestContext;
+import io.liveoak.spi.resource.SynchronousResource;
+import io.liveoak.spi.resource.async.Resource;
+
+/**
+ * Read-only usage counters of the connection pool, along with its settings.
+ */
+public class PgSqlPoolResource implements SynchronousResource {
+
+    public PgSqlPoolResource(PgSqlRootResource parent, String id) {
+        this.parent = parent;
+        this.id = id;
+    }
+
+    @Override
+    public Resource parent() {
+        return parent;
+    }
+
+    @Override
+    public String id() {
+        return id;
+    }
+
+    @Override
+    public Map<String, ?> properties(RequestContext ctx) throws Exception {
+        ConnectionPool pool = parent.configuration().pool();
+        if (pool == null) {
+            return Collections.emptyMap();
+        }
+        Map<String, Object> result = new HashMap<>();
+        result.put("settings", pool.settings().properties());
+        result.put("stats", pool.stats());
+        return result;
+    }
+
+    private final PgSqlRootResource parent;
+    private final String id;
+}
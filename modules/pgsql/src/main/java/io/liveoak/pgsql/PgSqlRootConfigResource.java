@@ -24,6 +24,8 @@ import io.liveoak.pgsql.meta.PrimaryKey;
 import io.liveoak.pgsql.meta.QueryBuilder;
 import io.liveoak.pgsql.meta.Table;
 import io.liveoak.pgsql.meta.TableRef;
+import io.liveoak.pgsql.pool.ConnectionPool;
+import io.liveoak.pgsql.pool.PoolSettings;
 import io.liveoak.spi.exceptions.InitializationException;
 import io.liveoak.spi.RequestContext;
 import io.liveoak.spi.resource.SynchronousResource;
@@ -31,7 +33,7 @@ import io.liveoak.spi.resource.async.DefaultRootResource;
 import io.liveoak.spi.resource.async.Responder;
 import io.liveoak.spi.state.ResourceState;
 import org.jboss.logging.Logger;
-import org.postgresql.ds.PGPoolingDataSource;
+import org.postgresql.ds.PGSimpleDataSource;
 
 /**
  * @author <a href="mailto:marko.strukelj@gmail.com">Marko Strukelj</a>
@@ -39,7 +41,8 @@ import org.postgresql.ds.PGPoolingDataSource;
 public class PgSqlRootConfigResource extends DefaultRootResource implements SynchronousResource {
 
     private static Logger log = Logger.getLogger(PgSqlRootConfigResource.class);
-    private PGPoolingDataSource ds;
+    private PGSimpleDataSource ds;
+    private ConnectionPool pool;
     private Catalog catalog;
     private ConfigurationImpl configuration = new ConfigurationImpl();
     private PgSqlCRUDController controller;
@@ -51,11 +54,11 @@ public class PgSqlRootConfigResource extends DefaultRootResource implements Sync
 
     @Override
     public void stop() {
-        PGPoolingDataSource ds = this.ds;
-        this.ds = null;
+        ConnectionPool pool = this.pool;
+        this.pool = null;
 
-        if ( ds != null ) {
-            ds.close();
+        if ( pool != null ) {
+            pool.close();
         }
     }
 
@@ -79,10 +82,18 @@ public class PgSqlRootConfigResource extends DefaultRootResource implements Sync
      * @throws SQLException
      */
     public Connection connection() throws SQLException {
-        if (ds == null) {
+        ConnectionPool pool = this.pool;
+        if (pool == null) {
             throw new IllegalStateException("DataSource not available");
         }
-        return ds.getConnection();
+        return pool.getConnection();
+    }
+
+    /**
+     * @return the connection pool, or null if the datasource is not configured
+     */
+    public ConnectionPool pool() {
+        return pool;
     }
 
     public Catalog catalog() {
@@ -92,14 +103,13 @@ public class PgSqlRootConfigResource extends DefaultRootResource implements Sync
     @Override
     public Map<String, ?> properties(RequestContext ctx) throws Exception {
         Map<String, Object> result = new HashMap<>();
-        PGPoolingDataSource ds = this.ds;
+        PGSimpleDataSource ds = this.ds;
         result.put("server", ds.getServerName() );
         result.put("port", ds.getPortNumber());
         result.put("db", ds.getDatabaseName());
         result.put("user", ds.getUser());
         result.put("password", ds.getPassword());
-        result.put("max-connections", ds.getMaxConnections());
-        result.put("initial-connections", ds.getInitialConnections());
+        result.putAll(pool.settings().properties());
 
         List<String> schemas = configuration.exposedSchemas();
         if (schemas != null && schemas.size() > 0) {
@@ -115,6 +125,8 @@ public class PgSqlRootConfigResource extends DefaultRootResource implements Sync
         }
         result.put("allow-create-schema", configuration.allowCreateSchema());
         result.put("include-total-count", configuration.includeTotalCount());
+        result.put("estimate-total-count", configuration.estimateTotalCount());
+        result.put("fetch-size", configuration.fetchSize());
         return result;
     }
 
@@ -144,15 +156,7 @@ public class PgSqlRootConfigResource extends DefaultRootResource implements Sync
         String user = state.getPropertyAsString("user");
         String pass = state.getPropertyAsString("password");
 
-        Integer maxConnections = state.getPropertyAsInteger("max-connections");
-        if (maxConnections == null) {
-            maxConnections = 10;
-        }
-
-        Integer initialConnections = state.getPropertyAsInteger("initial-connections");
-        if (initialConnections == null) {
-            initialConnections = 1;
-        }
+        PoolSettings poolSettings = new PoolSettings(state);
 
         List<String> exposedSchemas = (List<String>) state.getPropertyAsList("schemas");
         if (exposedSchemas != null) {
@@ -176,35 +180,50 @@ public class PgSqlRootConfigResource extends DefaultRootResource implements Sync
             configuration.includeTotalCount(bval);
         }
 
-        PGPoolingDataSource old = this.ds;
+        bval = state.getPropertyAsBoolean("estimate-total-count");
+        if (bval != null) {
+            configuration.estimateTotalCount(bval);
+        }
+
+        Integer fetchSize = state.getPropertyAsInteger("fetch-size");
+        if (fetchSize != null) {
+            if (fetchSize < 1) {
+                throw new InitializationException("Invalid fetch-size: " + fetchSize + " (must be at least 1)");
+            }
+            configuration.fetchSize(fetchSize);
+        }
+
+        PGSimpleDataSource old = this.ds;
+        ConnectionPool oldPool = this.pool;
         boolean recreate = old == null
                 || !dbName.equals(old.getDatabaseName())
                 || !server.equals(old.getServerName())
                 || !port.equals(old.getPortNumber())
                 || !user.equals(old.getUser())
                 || !pass.equals(old.getPassword())
-                || !maxConnections.equals(old.getMaxConnections())
-                || !initialConnections.equals(old.getInitialConnections());
+                || !poolSettings.equals(oldPool.settings());
 
         if (recreate) {
             // reinit ds with new settings
-            PGPoolingDataSource nu = new PGPoolingDataSource();
+            PGSimpleDataSource nu = new PGSimpleDataSource();
             nu.setServerName(server);
             nu.setPortNumber(port);
             nu.setDatabaseName(dbName);
             nu.setUser(user);
             nu.setPassword(pass);
-            nu.setMaxConnections(maxConnections);
-            nu.setInitialConnections(initialConnections);
-            nu.initialize();
+            nu.setPrepareThreshold(poolSettings.prepareThreshold());
+
+            ConnectionPool nuPool = new ConnectionPool(id() + "/" + dbName, nu, poolSettings);
+            nuPool.start();
 
             this.ds = nu;
+            this.pool = nuPool;
 
-            if (old != null) {
+            if (oldPool != null) {
                 try {
-                    old.close();
+                    oldPool.close();
                 } catch (Exception e) {
-                    log.debug("[IGNORED] Exception while closing the datasource: ", e);
+                    log.debug("[IGNORED] Exception while closing the connection pool: ", e);
                 }
             }
 
@@ -265,6 +284,8 @@ public class PgSqlRootConfigResource extends DefaultRootResource implements Sync
             Map<TableRef, Table> tables = reverseEngineerTableInfo(c, ds.getDatabaseName(), schemas);
 
             this.catalog = new Catalog(schemas, configuration.defaultSchema(), tables);
+            // statements prepared against the old tables may no longer be valid
+            pool.clearStatements();
             this.controller = new PgSqlCRUDController(catalog, configuration);
             this.queryBuilder = new QueryBuilder(catalog);
         }
@@ -356,10 +377,15 @@ public class PgSqlRootConfigResource extends DefaultRootResource implements Sync
 
     static public class ConfigurationImpl implements PgSqlConfiguration {
 
+        // rows fetched from the server per round trip when streaming a table
+        private static final int DEFAULT_FETCH_SIZE = 100;
+
         private List<String> exposedSchemas;
         private List<String> blockedSchemas;
         private boolean allowCreateSchema;
         private boolean totalCount;
+        private boolean estimateTotalCount;
+        private int fetchSize = DEFAULT_FETCH_SIZE;
         private String defaultSchema;
 
         public List<String> exposedSchemas() {
@@ -394,6 +420,22 @@ public class PgSqlRootConfigResource extends DefaultRootResource implements Sync
             this.totalCount = totalCount;
         }
 
+        public boolean estimateTotalCount() {
+            return estimateTotalCount;
+        }
+
+        public void estimateTotalCount(boolean estimateTotalCount) {
+            this.estimateTotalCount = estimateTotalCount;
+        }
+
+        public int fetchSize() {
+            return fetchSize;
+        }
+
+        public void fetchSize(int fetchSize) {
+            this.fetchSize = fetchSize;
+        }
+
         public String defaultSchema() {
             return defaultSchema;
         }
@@ -37,6 +37,8 @@ public class PgSqlRootResource extends DefaultRootResource implements Synchronou
 
     private static final String BATCH_ENDPOINT = "_batch";
 
+    private static final String POOL_ENDPOINT = "_pool";
+
     private final PgSqlRootConfigResource configResource;
 
     public PgSqlRootResource(String id) {
@@ -106,6 +108,9 @@ public class PgSqlRootResource extends DefaultRootResource implements Synchronou
         if (BATCH_ENDPOINT.equals(id)) {
             return new PgSqlBatchResource(this, BATCH_ENDPOINT);
         }
+        if (POOL_ENDPOINT.equals(id)) {
+            return new PgSqlPoolResource(this, POOL_ENDPOINT);
+        }
 
         String tableId = id;
         boolean schemaReq = false;
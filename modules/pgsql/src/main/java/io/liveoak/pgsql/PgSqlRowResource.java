@@ -7,6 +7,7 @@ package io.liveoak.pgsql;
 
 import java.net.URI;
 import java.sql.Connection;
+import java.sql.SQLException;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
@@ -42,6 +43,7 @@ public class PgSqlRowResource implements SynchronousResource {
     private String id;
     private Row row;
     private QueryBuilder queryBuilder;
+    private Map<String, Object> referred;
 
     public PgSqlRowResource(PgSqlTableResource parent, String id) {
         this.parent = parent;
@@ -125,41 +127,17 @@ public class PgSqlRowResource implements SynchronousResource {
         }
 
         // if there are any referredKeys write synthetic object
-        //HashMap<ForeignKey, String[]> refFkMap = new HashMap<>();
-        // address has address_id PK, orders has address_id fk
-        // Here we have Row of select from addresses
-        // we have to make a query select from orders where address_id = row.get(pk)
-        HashMap<String, Object> stacked = new HashMap<>();
-        for (ForeignKey fk : table.referredKeys()) {
+        Map<String, Object> stacked = referred;
+        if (stacked == null && !table.referredKeys().isEmpty()) {
             try (Connection con = parent.parent().connection()) {
-                List<Column> cols = fk.columns();
-                Table tab = cat.table(cols.get(0).tableRef());
-
-                LinkedList<Object> vals = new LinkedList();
-                for (Column c : table.pk().columns()) {
-                    vals.add(row.value(c.name()));
-                }
-                if (cols.size() != vals.size()) {
-                    throw new IllegalStateException("Primary key column count on " + table.id() + " doesn't match foreign key column count on " + tab.id());
-                }
-
-                QueryResults results = queryBuilder.querySelectFromTableWhere(con, tab, cols, vals, null, Pagination.NONE);
-                LinkedList ls = new LinkedList();
-                for (Row r : results.rows()) {
-                    ls.add(new PgSqlRowResource(
-                            new PgSqlTableResource(parent.parent(), tab.id()), r));
-                }
-                if (fk.sameColumnsAs(tab.pk())) {
-                    // it's a one-to-one
-                    stacked.put(tab.id(), ls.size() > 0 ? ls.get(0) : null);
-                } else {
-                    stacked.put(tab.id(), ls);
-                }
+                stacked = queryReferred(con);
             }
         }
 
-        for (Map.Entry<String, ?> ent: new TreeMap<>(stacked).entrySet()) {
-            result.put(ent.getKey(), ent.getValue());
+        if (stacked != null) {
+            for (Map.Entry<String, ?> ent : new TreeMap<>(stacked).entrySet()) {
+                result.put(ent.getKey(), ent.getValue());
+            }
         }
 
 
@@ -175,6 +153,52 @@ public class PgSqlRowResource implements SynchronousResource {
         return result;
     }
 
+    /**
+     * Look up the rows referring to this one on the given connection, rather than on a connection of their
+     * own when properties are read. Used while rows are streamed, so that the lookups share the connection
+     * holding the cursor.
+     */
+    public void resolveReferred(Connection con) throws SQLException {
+        if (row != null) {
+            referred = queryReferred(con);
+        }
+    }
+
+    // address has address_id PK, orders has address_id fk
+    // Here we have Row of select from addresses
+    // we have to make a query select from orders where address_id = row.get(pk)
+    private Map<String, Object> queryReferred(Connection con) throws SQLException {
+        Catalog cat = parent.parent().catalog();
+        Table table = cat.table(new TableRef(parent.id()));
+        HashMap<String, Object> stacked = new HashMap<>();
+        for (ForeignKey fk : table.referredKeys()) {
+            List<Column> cols = fk.columns();
+            Table tab = cat.table(cols.get(0).tableRef());
+
+            LinkedList<Object> vals = new LinkedList();
+            for (Column c : table.pk().columns()) {
+                vals.add(row.value(c.name()));
+            }
+            if (cols.size() != vals.size()) {
+                throw new IllegalStateException("Primary key column count on " + table.id() + " doesn't match foreign key column count on " + tab.id());
+            }
+
+            QueryResults results = queryBuilder.querySelectFromTableWhere(con, tab, cols, vals, null, Pagination.NONE);
+            LinkedList ls = new LinkedList();
+            for (Row r : results.rows()) {
+                ls.add(new PgSqlRowResource(
+                        new PgSqlTableResource(parent.parent(), tab.id()), r));
+            }
+            if (fk.sameColumnsAs(tab.pk())) {
+                // it's a one-to-one
+                stacked.put(tab.id(), ls.size() > 0 ? ls.get(0) : null);
+            } else {
+                stacked.put(tab.id(), ls);
+            }
+        }
+        return stacked;
+    }
+
     @Override
     public void updateProperties(RequestContext ctx, ResourceState state, Responder responder) throws Exception {
         Catalog cat = parent.parent().catalog();
@@ -9,26 +9,30 @@ import java.io.IOException;
 import java.net.URI;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
 import io.liveoak.common.util.PagingLinksBuilder;
 import io.liveoak.pgsql.data.QueryResults;
+import io.liveoak.pgsql.data.Row;
 import io.liveoak.pgsql.meta.Catalog;
 import io.liveoak.pgsql.meta.Column;
 import io.liveoak.pgsql.meta.QueryBuilder;
 
 import io.liveoak.pgsql.meta.Table;
 import io.liveoak.spi.LiveOak;
+import io.liveoak.spi.Pagination;
 import io.liveoak.spi.RequestContext;
 import io.liveoak.spi.Sorting;
 import io.liveoak.spi.resource.MapResource;
 import io.liveoak.spi.resource.SynchronousResource;
 import io.liveoak.spi.resource.async.Resource;
+import io.liveoak.spi.resource.async.ResourceSink;
 import io.liveoak.spi.resource.async.Responder;
 import io.liveoak.spi.state.ResourceState;
 
@@ -40,7 +44,8 @@ public class PgSqlTableResource implements SynchronousResource {
 
     private PgSqlRootResource parent;
     private String id;
-    private QueryResults results;
+    private boolean propertiesRead;
+    private boolean deleted;
     private QueryBuilder queryBuilder;
 
     public PgSqlTableResource(PgSqlRootResource root, String table) {
@@ -62,11 +67,15 @@ public class PgSqlTableResource implements SynchronousResource {
     @Override
     public Map<String, ?> properties(RequestContext ctx) throws Exception {
 
-        // perform select and store it for readMembers
-        if (results != null) {
+        // rows themselves are only read by readMembers, as they are encoded
+        if (propertiesRead) {
             return null;
         }
-        results = queryTable(id, null, ctx);
+        propertiesRead = true;
+
+        int totalCount = queryTotalCount(ctx);
+        // the size of the page is needed for the paging links before any row is read, so it is counted up front
+        int count = queryPageCount(ctx, totalCount);
 
         List<Resource> links = new LinkedList<>();
         MapResource link = new MapResource();
@@ -76,11 +85,9 @@ public class PgSqlTableResource implements SynchronousResource {
 
         PagingLinksBuilder linksBuilder = new PagingLinksBuilder(ctx)
                 .uri(uri())
-                .count(results.count());
+                .count(count);
 
-        int totalCount = -1;
-        if (parent.configuration().configuration().includeTotalCount()) {
-            totalCount = queryTableCount(id, ctx);
+        if (totalCount != -1) {
             linksBuilder.totalCount(totalCount);
         }
 
@@ -89,8 +96,8 @@ public class PgSqlTableResource implements SynchronousResource {
         // keep predictable ordering by using LinkedHashMap
         Map<String, Object> result = new LinkedHashMap<>();
         result.put("links", links);
-        if (totalCount != -1 || results.count() < ctx.pagination().limit()) {
-            result.put("count", totalCount != -1 ? totalCount : results.count());
+        if (totalCount != -1 || count < ctx.pagination().limit()) {
+            result.put("count", totalCount != -1 ? totalCount : count);
         }
         result.put("type", "collection");
         return result;
@@ -98,10 +105,22 @@ public class PgSqlTableResource implements SynchronousResource {
 
     @Override
     public Collection<Resource> members(RequestContext ctx) throws Exception {
-        return results.rows()
-                .stream()
-                .map(row -> new PgSqlRowResource(this, row))
-                .collect(Collectors.toList());
+        List<Resource> members = new ArrayList<>();
+        streamTable(ctx, members::add);
+        return members;
+    }
+
+    @Override
+    public void readMembers(RequestContext ctx, ResourceSink sink) throws Exception {
+        try {
+            if (!deleted) {
+                streamTable(ctx, sink);
+            }
+        } catch (Throwable e) {
+            sink.error(e);
+        } finally {
+            sink.complete();
+        }
     }
 
     @Override
@@ -158,14 +177,11 @@ public class PgSqlTableResource implements SynchronousResource {
 
         // TODO - does it make sense to return a body here at all? Container fails to set Content-Length if resourceDeleted(null)
         // only return id and uri in response - no members
-        results = new QueryResults();
+        propertiesRead = true;
+        deleted = true;
         responder.resourceDeleted(this);
     }
 
-    public QueryResults queryResults() {
-        return results;
-    }
-
     public QueryResults queryTable(String table, String id, RequestContext ctx) throws SQLException, IOException {
         Catalog cat = parent.catalog();
         Table t = cat.tableById(table);
@@ -184,6 +200,85 @@ public class PgSqlTableResource implements SynchronousResource {
         }
     }
 
+    /**
+     * Pass rows of the requested page to the consumer as they arrive from the server, rather than reading
+     * the whole page first.
+     */
+    private void streamTable(RequestContext ctx, Consumer<? super Resource> consumer) throws SQLException, IOException {
+        Table t = parent.catalog().tableById(id);
+        int fetchSize = parent.configuration().configuration().fetchSize();
+        try (Connection con = parent.connection()) {
+            String q = ctx.resourceParams().value("q");
+            Sorting sorting = replaceIdsWithColumnNames(ctx.sorting());
+
+            if (q != null) {
+                queryBuilder.streamSelectFromTable(con, t, sorting, ctx.pagination(), q, fetchSize,
+                        row -> consumer.accept(streamedRow(con, t, row)));
+            } else {
+                queryBuilder.streamSelectFromTable(con, t, sorting, ctx.pagination(), fetchSize,
+                        row -> consumer.accept(streamedRow(con, t, row)));
+            }
+        }
+    }
+
+    /**
+     * Rows referring to a streamed row are looked up on the connection holding the cursor, as leasing
+     * another connection for every row while the cursor's is held could exhaust the pool.
+     */
+    private PgSqlRowResource streamedRow(Connection con, Table t, Row row) {
+        PgSqlRowResource resource = new PgSqlRowResource(this, row);
+        if (!t.referredKeys().isEmpty()) {
+            try {
+                resource.resolveReferred(con);
+            } catch (SQLException e) {
+                throw new IllegalStateException("Failed to read rows referring to " + resource.uri(), e);
+            }
+        }
+        return resource;
+    }
+
+    /**
+     * @return total count of rows matching the request if configured to include it, or -1
+     */
+    private int queryTotalCount(RequestContext ctx) throws SQLException, IOException {
+        PgSqlConfiguration config = parent.configuration().configuration();
+        if (!config.includeTotalCount()) {
+            return -1;
+        }
+        if (config.estimateTotalCount() && ctx.resourceParams().value("q") == null) {
+            Table t = parent.catalog().tableById(id);
+            try (Connection con = parent.connection()) {
+                long estimate = queryBuilder.queryEstimatedCountFromTable(con, t);
+                if (estimate != -1) {
+                    return (int) Math.min(estimate, Integer.MAX_VALUE);
+                }
+            }
+        }
+        return queryTableCount(id, ctx);
+    }
+
+    /**
+     * @return count of rows on the requested page, without reading them
+     */
+    private int queryPageCount(RequestContext ctx, int totalCount) throws SQLException, IOException {
+        Pagination pagination = ctx.pagination();
+        String q = ctx.resourceParams().value("q");
+        PgSqlConfiguration config = parent.configuration().configuration();
+        boolean estimated = config.estimateTotalCount() && q == null;
+        if (totalCount != -1 && !estimated) {
+            return Math.max(0, Math.min(pagination.limit(), totalCount - pagination.offset()));
+        }
+
+        Table t = parent.catalog().tableById(id);
+        try (Connection con = parent.connection()) {
+            if (q != null) {
+                return queryBuilder.querySelectPageCountFromTable(con, t, pagination, q);
+            } else {
+                return queryBuilder.querySelectPageCountFromTable(con, t, pagination);
+            }
+        }
+    }
+
     public int queryTableCount(String table, RequestContext ctx) throws SQLException, IOException {
         Catalog cat = parent.catalog();
         Table t = cat.tableById(table);
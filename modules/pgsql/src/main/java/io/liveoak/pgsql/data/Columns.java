@@ -0,0 +1,58 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.pgsql.data;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Column names of a query result, shared by all of its rows.
+ */
+public class Columns {
+
+    public static final Columns EMPTY = new Columns(new String[0]);
+
+    public Columns(String[] names) {
+        this.names = names;
+        this.list = Collections.unmodifiableList(Arrays.asList(names));
+        this.index = new HashMap<>(names.length * 2);
+        for (int i = 0; i < names.length; i++) {
+            // the first one wins, as with a lookup by name in a result set
+            this.index.putIfAbsent(names[i], i);
+        }
+    }
+
+    public Columns(List<String> names) {
+        this(names.toArray(new String[names.size()]));
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    public String name(int pos) {
+        return names[pos];
+    }
+
+    /**
+     * @return position of the column, or -1 if there is no such column
+     */
+    public int indexOf(Object name) {
+        Integer pos = index.get(name);
+        return pos != null ? pos : -1;
+    }
+
+    public List<String> asList() {
+        return list;
+    }
+
+    private final String[] names;
+    private final List<String> list;
+    private final Map<String, Integer> index;
+}
@@ -13,21 +13,25 @@ import java.util.List;
  */
 public class QueryResults {
 
-    private List<String> columnNames;
+    private Columns columns;
     private List<Row> rows;
 
     public QueryResults() {
-        this.columnNames = Collections.emptyList();
+        this.columns = Columns.EMPTY;
         this.rows = Collections.emptyList();
     }
 
-    public QueryResults(List<String> columnNames, List<Row> rows) {
-        this.columnNames = Collections.unmodifiableList(columnNames);
+    public QueryResults(Columns columns, List<Row> rows) {
+        this.columns = columns;
         this.rows = Collections.unmodifiableList(rows);
     }
 
+    public QueryResults(List<String> columnNames, List<Row> rows) {
+        this(new Columns(columnNames), rows);
+    }
+
     public List<String> columnNames() {
-        return columnNames;
+        return columns.asList();
     }
 
     public List<Row> rows() {
@@ -5,31 +5,45 @@
  */
 package io.liveoak.pgsql.data;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.IllegalFormatException;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 /**
+ * A row of a query result. Values are kept in an array, and column names are shared with the other rows.
+ *
  * @author <a href="mailto:marko.strukelj@gmail.com">Marko Strukelj</a>
  */
 public class Row {
-    private List<String> columnNames;
-    private List<Object> values;
+    private Columns columns;
+    private Object[] values;
+
+    public Row(Columns columns, Object[] values) {
+        if (columns.size() != values.length) {
+            throw new IllegalArgumentException("Values don't match columns: " + columns.asList() + ", values: " + Arrays.toString(values));
+        }
+        this.columns = columns;
+        this.values = values;
+    }
 
     public Row(List<String> columnNames, List<Object> cols) {
-        this.columnNames = columnNames;
-        this.values = Collections.unmodifiableList(cols);
+        this(new Columns(columnNames), cols.toArray());
+    }
+
+    public Columns columns() {
+        return columns;
     }
 
     public Map<String, Object> asMap() {
         return new Map<String, Object>() {
             @Override
             public int size() {
-                return columnNames.size();
+                return columns.size();
             }
 
             @Override
@@ -39,21 +53,21 @@ public class Row {
 
             @Override
             public boolean containsKey(Object key) {
-                return columnNames.contains(key);
+                return columns.indexOf(key) != -1;
             }
 
             @Override
             public boolean containsValue(Object value) {
-                return values.contains(value);
+                return Arrays.asList(values).contains(value);
             }
 
             @Override
             public Object get(Object key) {
-                int pos = columnNames.indexOf(key);
+                int pos = columns.indexOf(key);
                 if (pos == -1) {
                     return null;
                 } else {
-                    return values.get(pos);
+                    return values[pos];
                 }
             }
 
@@ -84,7 +98,7 @@ public class Row {
 
             @Override
             public Collection values() {
-                return values;
+                return Collections.unmodifiableList(Arrays.asList(values));
             }
 
             @Override
@@ -95,19 +109,19 @@ public class Row {
     }
 
     public Object value(String columnName) {
-        int pos = columnNames.indexOf(columnName);
+        int pos = columns.indexOf(columnName);
         if (pos == -1) {
             throw new IllegalArgumentException("No such column: " + columnName);
         }
-        return values.get(pos);
+        return values[pos];
     }
 
     public Object value(int pos) {
-        return values.get(pos);
+        return values[pos];
     }
 
     public int valueAsInt(int pos) {
-        Object val = values.get(pos);
+        Object val = values[pos];
         if (val instanceof Integer || val instanceof Long || val instanceof Short) {
             return ((Number) val).intValue();
         }
@@ -121,7 +135,7 @@ public class Row {
 
         @Override
         public int size() {
-            return columnNames.size();
+            return columns.size();
         }
 
         @Override
@@ -131,22 +145,22 @@ public class Row {
 
         @Override
         public boolean contains(Object o) {
-            return columnNames.contains(o);
+            return columns.indexOf(o) != -1;
         }
 
         @Override
         public Iterator<String> iterator() {
-            return columnNames.iterator();
+            return columns.asList().iterator();
         }
 
         @Override
         public Object[] toArray() {
-            return columnNames.toArray();
+            return columns.asList().toArray();
         }
 
         @Override
         public <T> T[] toArray(T[] a) {
-            return columnNames.toArray(a);
+            return columns.asList().toArray(a);
         }
 
         @Override
@@ -161,7 +175,7 @@ public class Row {
 
         @Override
         public boolean containsAll(Collection<?> c) {
-            return columnNames.containsAll(c);
+            return columns.asList().containsAll(c);
         }
 
         @Override
@@ -189,7 +203,7 @@ public class Row {
 
         @Override
         public int size() {
-            return columnNames.size();
+            return columns.size();
         }
 
         @Override
@@ -206,22 +220,21 @@ public class Row {
         public Iterator<Map.Entry<String, Object>> iterator() {
             return new Iterator<Map.Entry<String, Object>>() {
 
-                Iterator<String> keyIt;
-                Iterator<Object> valIt;
-                {
-                    keyIt = columnNames.iterator();
-                    valIt = values.iterator();
-                }
+                int pos;
 
                 @Override
                 public boolean hasNext() {
-                    return keyIt.hasNext();
+                    return pos < values.length;
                 }
 
                 @Override
                 public Map.Entry<String, Object> next() {
-                    final String key = keyIt.next();
-                    final Object val = valIt.next();
+                    if (pos >= values.length) {
+                        throw new NoSuchElementException();
+                    }
+                    final String key = columns.name(pos);
+                    final Object val = values[pos];
+                    pos++;
 
                     return new Map.Entry<String, Object>() {
 
@@ -13,12 +13,16 @@ import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonParser;
@@ -26,6 +30,7 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.liveoak.common.codec.DefaultResourceRef;
 import io.liveoak.pgsql.PgSqlBatchItem;
+import io.liveoak.pgsql.data.Columns;
 import io.liveoak.pgsql.data.Pair;
 import io.liveoak.pgsql.data.Id;
 import io.liveoak.pgsql.data.QueryResults;
@@ -65,12 +70,57 @@ public class QueryBuilder {
 
     private static final Logger log = Logger.getLogger(QueryBuilder.class);
 
+    private static final int SQL_CACHE_SIZE = 1024;
+
     private Catalog catalog;
 
+    // SQL text by query shape - table, columns, sorting - with values left as parameters
+    private final Map<List<Object>, String> sqlCache = new ConcurrentHashMap<>();
+
     public QueryBuilder(Catalog catalog) {
         this.catalog = catalog;
     }
 
+    private String sql(List<Object> shape, Supplier<String> builder) {
+        String sql = sqlCache.get(shape);
+        if (sql == null) {
+            sql = builder.get();
+            if (sqlCache.size() >= SQL_CACHE_SIZE) {
+                sqlCache.clear();
+            }
+            sqlCache.put(shape, sql);
+        }
+        return sql;
+    }
+
+    private static String sortingShape(Sorting sorting) {
+        if (sorting == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder();
+        for (Sorting.Spec spec: sorting) {
+            sb.append(spec.ascending() ? '+' : '-').append(spec.name()).append(',');
+        }
+        return sb.toString();
+    }
+
+    private static List<String> columnNames(List<Column> columns) {
+        if (columns == null) {
+            return null;
+        }
+        List<String> names = new ArrayList<>(columns.size());
+        for (Column c: columns) {
+            names.add(c.name());
+        }
+        return names;
+    }
+
+    private static int bindPagination(PreparedStatement ps, int index, Pagination pagination) throws SQLException {
+        ps.setInt(index++, pagination.limit());
+        ps.setInt(index++, pagination.offset());
+        return index;
+    }
+
     public String selectAllFromTable(Table table) {
         return "SELECT * FROM " + table.quotedSchemaName();
     }
@@ -107,11 +157,27 @@ public class QueryBuilder {
     }
 
     public PreparedStatement prepareSelectAllCountFromTable(Connection con, Table table) throws SQLException {
-        String select = selectAllCountFromTable(table);
+        String select = sql(Arrays.asList("count", table.quotedSchemaName()), () -> selectAllCountFromTable(table));
         return con.prepareStatement(select);
     }
 
+    public PreparedStatement prepareSelectPageCountFromTable(Connection con, Table table, Pagination pagination) throws SQLException {
+        // rows of the page are not needed to count them, so their order does not matter
+        String select = sql(Arrays.asList("page-count", table.quotedSchemaName()),
+                () -> "SELECT count(*) FROM (SELECT 1 FROM " + table.quotedSchemaName() + " LIMIT ? OFFSET ?) page");
+        PreparedStatement ps = con.prepareStatement(select);
+        bindPagination(ps, 1, pagination);
+        return ps;
+    }
+
     public PreparedStatement prepareSelectAllFromTable(Connection con, Table table, Sorting sorting, Pagination pagination) throws SQLException {
+        String select = sql(Arrays.asList("select", table.quotedSchemaName(), sortingShape(sorting)), () -> selectAllFromTable(table, sorting));
+        PreparedStatement ps = con.prepareStatement(select);
+        bindPagination(ps, 1, pagination);
+        return ps;
+    }
+
+    private String selectAllFromTable(Table table, Sorting sorting) {
         StringBuilder sb = new StringBuilder(selectAllFromTable(table));
 
         if (sorting != null) {
@@ -131,12 +197,8 @@ public class QueryBuilder {
                 sb.append(" ORDER BY ").append(orderBy);
             }
         }
-        sb.append(" LIMIT " + pagination.limit());
-
-        if (pagination.offset() > 0) {
-            sb.append(" OFFSET " + pagination.offset());
-        }
-        return con.prepareStatement(sb.toString());
+        sb.append(" LIMIT ? OFFSET ?");
+        return sb.toString();
     }
 
     public PreparedStatement prepareSelectFromTableWhereId(Connection con, String table, String id, Pagination pagination) throws SQLException {
@@ -165,6 +227,24 @@ public class QueryBuilder {
             throw new IllegalStateException("Values size doesn't match columns size: (columns: " + whereColumns + ", values: " + whereValues + ")");
         }
 
+        List<Object> shape = Arrays.asList("select-where", table.quotedSchemaName(), columnNames(resultColumns),
+                columnNames(whereColumns), sortingShape(sorting), pagination != null);
+        String select = sql(shape, () -> selectFromTableWhere(table, resultColumns, whereColumns, sorting, pagination != null));
+        PreparedStatement ps = con.prepareStatement(select);
+
+        int i = 0;
+        for (Object val: whereValues) {
+            whereColumns.get(i).bindValue(ps, i + 1, val);
+            i++;
+        }
+        if (pagination != null) {
+            bindPagination(ps, i + 1, pagination);
+        }
+
+        return ps;
+    }
+
+    private String selectFromTableWhere(Table table, List<Column> resultColumns, List<Column> whereColumns, Sorting sorting, boolean paginated) {
         StringBuilder sb = new StringBuilder();
         if (resultColumns == null) {
             sb.append(selectAllFromTable(table));
@@ -180,6 +260,7 @@ public class QueryBuilder {
             }
 
             sb.append(col.quotedName()).append("=?");
+            i++;
         }
 
         if (sorting != null) {
@@ -197,23 +278,13 @@ public class QueryBuilder {
             }
         }
 
-        if (pagination != null) {
-            String offset = pagination.offset() > 0 ? " OFFSET " + pagination.offset() : "";
-            sb.append(" LIMIT " + pagination.limit() + offset);
-        }
-
-        PreparedStatement ps = con.prepareStatement(sb.toString());
-
-        i = 0;
-        for (Object val: whereValues) {
-            whereColumns.get(i).bindValue(ps, i + 1, val);
-            i++;
+        if (paginated) {
+            sb.append(" LIMIT ? OFFSET ?");
         }
-
-        return ps;
+        return sb.toString();
     }
 
-    public PreparedStatement prepareInsert(Connection con, Table table, ResourceState state) throws SQLException {
+    private String insert(Table table) {
         StringBuilder sb = new StringBuilder();
         sb.append("INSERT INTO " + table.quotedSchemaName() + " (");
         int i = 0;
@@ -233,6 +304,11 @@ public class QueryBuilder {
             sb.append("?");
         }
         sb.append(")");
+        return sb.toString();
+    }
+
+    public PreparedStatement prepareInsert(Connection con, Table table, ResourceState state) throws SQLException {
+        String insert = sql(Arrays.asList("insert", table.quotedSchemaName()), () -> insert(table));
 
         // For PK columns we have to use state.id(), parse it into column values and then set
         // If PK column values are specified via properties as well, then they need to be equal to id
@@ -252,8 +328,8 @@ public class QueryBuilder {
             }
         }
 
-        PreparedStatement ps = con.prepareStatement(sb.toString());
-        i = 1;
+        PreparedStatement ps = con.prepareStatement(insert);
+        int i = 1;
         PrimaryKey pk = table.pk();
         for (Column c: table.columns()) {
             Object val = null;
@@ -376,21 +452,25 @@ public class QueryBuilder {
             throw new IllegalStateException("Values size doesn't match columns size: (columns: " + columns + ", values: " + values + ")");
         }
 
-        StringBuilder sb = new StringBuilder();
-        sb.append("DELETE FROM " + table.quotedSchemaName() + " WHERE ");
+        String delete = sql(Arrays.asList("delete-where", table.quotedSchemaName(), columnNames(columns)), () -> {
+            StringBuilder sb = new StringBuilder();
+            sb.append("DELETE FROM " + table.quotedSchemaName() + " WHERE ");
 
-        int i = 0;
-        for (Column col: columns) {
-            if (i > 0) {
-                sb.append(" AND ");
-            }
+            int i = 0;
+            for (Column col: columns) {
+                if (i > 0) {
+                    sb.append(" AND ");
+                }
 
-            sb.append(col.quotedName()).append("=?");
-        }
+                sb.append(col.quotedName()).append("=?");
+                i++;
+            }
+            return sb.toString();
+        });
 
-        PreparedStatement ps = con.prepareStatement(sb.toString());
+        PreparedStatement ps = con.prepareStatement(delete);
 
-        i = 0;
+        int i = 0;
         for (Object val: values) {
             columns.get(i).bindValue(ps, i + 1, val);
             i++;
@@ -457,6 +537,32 @@ public class QueryBuilder {
         return query(prepareSelectAllCountFromTable(con, table), Pagination.NONE).rows().get(0).valueAsInt(0);
     }
 
+    /**
+     * Row count of a table as estimated by the planner statistics, which is only as fresh as the last
+     * VACUUM or ANALYZE of the table.
+     *
+     * @return estimated count, or -1 if the table has no statistics yet
+     */
+    public long queryEstimatedCountFromTable(Connection con, Table table) throws SQLException {
+        try (PreparedStatement ps = con.prepareStatement("SELECT reltuples::bigint FROM pg_class WHERE oid = ?::regclass")) {
+            ps.setString(1, table.quotedSchemaName());
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    long count = rs.getLong(1);
+                    // never analyzed tables report 0, or -1 since PostgreSQL 14
+                    if (!rs.wasNull() && count > 0) {
+                        return count;
+                    }
+                }
+            }
+        }
+        return -1;
+    }
+
+    public int querySelectPageCountFromTable(Connection con, Table table, Pagination pagination) throws SQLException {
+        return query(prepareSelectPageCountFromTable(con, table, pagination), null).rows().get(0).valueAsInt(0);
+    }
+
     public QueryResults querySelectFromTableWhere(Connection con, Table table, List<Column> whereColumns, List<Object> whereValues, Sorting sorting, Pagination pagination) throws SQLException {
         return query(prepareSelectFromTableWhere(con, table, null, whereColumns, whereValues, sorting, pagination), pagination);
     }
@@ -475,24 +581,9 @@ public class QueryBuilder {
                 s.setMaxRows(pagination.limit());
             }
             try (ResultSet rs = s.executeQuery()) {
-                ResultSetMetaData meta = rs.getMetaData();
-                int count = meta.getColumnCount();
-
-                ArrayList<String> columnNames = new ArrayList<>(count);
-                for (int i = 0; i < count; i++) {
-                    columnNames.add(meta.getColumnName(i + 1));
-                }
-
-                LinkedList<Row> rows = new LinkedList<>();
-                while (rs.next()) {
-                    ArrayList<Object> row = new ArrayList<>(count);
-                    for (int i = 0; i < count; i++) {
-                        row.add(rs.getObject(i + 1));
-                    }
-                    rows.add(new Row(columnNames, row));
-                }
-
-                return new QueryResults(columnNames, rows);
+                ArrayList<Row> rows = new ArrayList<>();
+                Columns columns = readRows(rs, rows::add);
+                return new QueryResults(columns, rows);
             } catch (Exception e) {
                 log.error("Exception while executing a query: " + ps, e);
             }
@@ -500,6 +591,65 @@ public class QueryBuilder {
         return new QueryResults();
     }
 
+    /**
+     * Execute a query, and pass rows to the consumer as they are read, fetching them from the server
+     * <code>fetchSize</code> at a time.
+     *
+     * <p>PostgreSQL only uses a cursor for a query run in a transaction, so the connection is taken out of
+     * auto-commit for the duration of the query, and the transaction is rolled back afterwards.
+     * The statement is closed when done.</p>
+     */
+    public void stream(Connection con, PreparedStatement ps, int fetchSize, Consumer<Row> consumer) throws SQLException {
+        boolean autoCommit = con.getAutoCommit();
+        try (PreparedStatement s = ps) {
+            if (log.isTraceEnabled()) {
+                log.trace("sql: " + rawSQL(ps));
+            }
+            if (autoCommit) {
+                con.setAutoCommit(false);
+            }
+            s.setFetchSize(fetchSize);
+            try (ResultSet rs = s.executeQuery()) {
+                readRows(rs, consumer);
+            }
+        } finally {
+            if (autoCommit) {
+                con.rollback();
+                con.setAutoCommit(true);
+            }
+        }
+    }
+
+    public void streamSelectFromTable(Connection con, Table table, Sorting sorting, Pagination pagination, int fetchSize, Consumer<Row> consumer) throws SQLException {
+        stream(con, prepareSelectAllFromTable(con, table, sorting, pagination), fetchSize, consumer);
+    }
+
+    public void streamSelectFromTable(Connection con, Table table, Sorting sorting, Pagination pagination, String query, int fetchSize, Consumer<Row> consumer) throws IOException, SQLException {
+        Expression expression = parseQuery(query);
+        stream(con, prepareSelectFromTableWhere(con, table, expression, sorting, pagination), fetchSize, consumer);
+    }
+
+    private static Columns readRows(ResultSet rs, Consumer<Row> consumer) throws SQLException {
+        ResultSetMetaData meta = rs.getMetaData();
+        int count = meta.getColumnCount();
+
+        String[] names = new String[count];
+        for (int i = 0; i < count; i++) {
+            names[i] = meta.getColumnName(i + 1);
+        }
+        // shared by all the rows
+        Columns columns = new Columns(names);
+
+        while (rs.next()) {
+            Object[] values = new Object[count];
+            for (int i = 0; i < count; i++) {
+                values[i] = rs.getObject(i + 1);
+            }
+            consumer.accept(new Row(columns, values));
+        }
+        return columns;
+    }
+
     /*
     public String executeInsert(RequestContext ctx, Connection con, Table table, ResourceState state) throws SQLException {
         String id = extractId(table, state);
@@ -878,21 +1028,24 @@ public class QueryBuilder {
     }
 
     public QueryResults querySelectFromTable(Connection con, Table table, Sorting sorting, Pagination pagination, String query) throws IOException, SQLException {
-        // if query can't be parsed to JSON throw exception
-        JsonNode q = parseJson(query);
-
-        if (!q.isObject()) {
-            throw new IllegalArgumentException("Invalid query: not an object (" + query + ")");
-        }
-
-        // convert Mongo query to SQL WHERE expression
-        Expression expression = parseRelational(q);
-
+        Expression expression = parseQuery(query);
         PreparedStatement ps = prepareSelectFromTableWhere(con, table, expression, sorting, pagination);
         return query(ps, pagination);
     }
 
     public int querySelectCountFromTable(Connection con, Table table, String query) throws IOException, SQLException {
+        Expression expression = parseQuery(query);
+        PreparedStatement ps = prepareSelectCountFromTableWhere(con, table, expression);
+        return query(ps, null).rows().get(0).valueAsInt(0);
+    }
+
+    public int querySelectPageCountFromTable(Connection con, Table table, Pagination pagination, String query) throws IOException, SQLException {
+        Expression expression = parseQuery(query);
+        PreparedStatement ps = prepareSelectFromTableWhere(con, table, expression, (Sorting) null, pagination, false, true);
+        return query(ps, null).rows().get(0).valueAsInt(0);
+    }
+
+    private Expression parseQuery(String query) throws IOException {
         // if query can't be parsed to JSON throw exception
         JsonNode q = parseJson(query);
 
@@ -901,21 +1054,22 @@ public class QueryBuilder {
         }
 
         // convert Mongo query to SQL WHERE expression
-        Expression expression = parseRelational(q);
-
-        PreparedStatement ps = prepareSelectCountFromTableWhere(con, table, expression);
-        return query(ps, null).rows().get(0).valueAsInt(0);
+        return parseRelational(q);
     }
 
     private PreparedStatement prepareSelectCountFromTableWhere(Connection con, Table table, Expression expression) throws SQLException {
-        return prepareSelectFromTableWhere(con, table, expression, (Sorting) null, (Pagination) null, true);
+        return prepareSelectFromTableWhere(con, table, expression, (Sorting) null, (Pagination) null, true, false);
     }
 
     private PreparedStatement prepareSelectFromTableWhere(Connection con, Table table, Expression expression, Sorting sorting, Pagination pagination) throws SQLException {
-        return prepareSelectFromTableWhere(con, table, expression, sorting, pagination, false);
+        return prepareSelectFromTableWhere(con, table, expression, sorting, pagination, false, false);
     }
 
-    private PreparedStatement prepareSelectFromTableWhere(Connection con, Table table, Expression expression, Sorting sorting, Pagination pagination, boolean countOnly) throws SQLException {
+    /**
+     * @param countOnly count all the matching rows
+     * @param pageCount count the matching rows on the page selected by <code>pagination</code>
+     */
+    private PreparedStatement prepareSelectFromTableWhere(Connection con, Table table, Expression expression, Sorting sorting, Pagination pagination, boolean countOnly, boolean pageCount) throws SQLException {
         List<Pair<Key, Key>> joins = new LinkedList<>();
 
         Column[] col = new Column[1];
@@ -981,12 +1135,13 @@ public class QueryBuilder {
         }
 
         if (pagination != null) {
-            if (pagination.offset() > 0) {
-                select.append(" OFFSET " + pagination.offset());
-            }
-            select.append(" LIMIT " + pagination.limit());
+            select.append(" LIMIT ? OFFSET ?");
+        }
+        if (pageCount) {
+            select.insert(0, "SELECT count(*) FROM (").append(") page");
         }
 
+        // values are parameters, so the text is the same for every query of this shape
         PreparedStatement ps = con.prepareStatement(select.toString());
 
         // bind values
@@ -995,6 +1150,9 @@ public class QueryBuilder {
             pair.key().bindValue(ps, i, pair.value().value());
             i++;
         }
+        if (pagination != null) {
+            bindPagination(ps, i, pagination);
+        }
 
         return ps;
     }
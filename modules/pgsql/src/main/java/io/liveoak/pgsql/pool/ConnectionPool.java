@@ -0,0 +1,362 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.pgsql.pool;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.sql.DataSource;
+
+import org.jboss.logging.Logger;
+
+/**
+ * A bounded pool of JDBC connections, which keeps prepared statements open on every connection.
+ *
+ * <p>Idle connections are handed out most recently used first, and validated if they have been idle for
+ * a while. When all connections are in use, callers wait up to the connection timeout. A housekeeping
+ * thread reports connections held longer than the leak detection threshold, along with where they were
+ * leased, closes connections idle for longer than the idle timeout, and keeps the initial connections
+ * open.</p>
+ *
+ * <p>Prepared statements are cached per connection by their SQL text. {@link #clearStatements()} drops them
+ * all, for when the tables they were prepared against have changed.</p>
+ */
+public class ConnectionPool {
+
+    private static final Logger log = Logger.getLogger(ConnectionPool.class);
+
+    private static final long HOUSEKEEPING_PERIOD = 5000;
+    private static final long VALIDATION_IDLE_TIME = 5000;
+    private static final int VALIDATION_TIMEOUT = 5;
+
+    public ConnectionPool(String name, DataSource source, PoolSettings settings) {
+        this.name = name;
+        this.source = source;
+        this.settings = settings;
+    }
+
+    public PoolSettings settings() {
+        return settings;
+    }
+
+    /**
+     * Open the initial connections, and start housekeeping.
+     */
+    public void start() throws SQLException {
+        List<PooledConnection> opened = new ArrayList<>();
+        try {
+            for (int i = 0; i < settings.initialConnections(); ++i) {
+                opened.add(open());
+            }
+        } catch (SQLException e) {
+            opened.forEach(PooledConnection::close);
+            throw e;
+        }
+
+        lock.lock();
+        try {
+            for (PooledConnection pc : opened) {
+                pc.idleSince(System.currentTimeMillis());
+                idle.addFirst(pc);
+            }
+            total += opened.size();
+        } finally {
+            lock.unlock();
+        }
+
+        long period = HOUSEKEEPING_PERIOD;
+        if (settings.leakDetectionThreshold() > 0) {
+            period = Math.max(100, Math.min(period, settings.leakDetectionThreshold() / 2));
+        }
+        housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "liveoak-pgsql-pool-" + name);
+            t.setDaemon(true);
+            return t;
+        });
+        housekeeper.scheduleWithFixedDelay(this::housekeep, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Lease a connection, waiting up to the connection timeout for one to become available.
+     *
+     * <p>Users of the connection must make sure to call {@link java.sql.Connection#close()} when done using it,
+     * so that it is returned to the pool.</p>
+     */
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(settings.connectionTimeout());
+
+        PooledConnection pc = null;
+        while (pc == null) {
+            boolean create = false;
+            lock.lock();
+            try {
+                checkOpen();
+                if (idle.isEmpty() && total >= settings.maxConnections()) {
+                    ++waiting;
+                    try {
+                        while (idle.isEmpty() && total >= settings.maxConnections()) {
+                            long remaining = deadline - System.nanoTime();
+                            if (remaining <= 0) {
+                                timeouts.increment();
+                                throw new SQLTransientConnectionException("Timed out after " + settings.connectionTimeout()
+                                        + " ms waiting for a connection to '" + name + "' (" + leased.size() + " in use, "
+                                        + waiting + " waiting)", "08001");
+                            }
+                            available.awaitNanos(remaining);
+                            checkOpen();
+                        }
+                    } finally {
+                        --waiting;
+                    }
+                }
+                if (!idle.isEmpty()) {
+                    pc = idle.pollFirst();
+                } else {
+                    ++total;
+                    create = true;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for a connection to '" + name + "'", e);
+            } finally {
+                lock.unlock();
+            }
+
+            if (create) {
+                try {
+                    pc = open();
+                } catch (SQLException e) {
+                    discarded();
+                    throw e;
+                }
+            } else if (System.currentTimeMillis() - pc.idleSince() > VALIDATION_IDLE_TIME && !pc.isValid(VALIDATION_TIMEOUT)) {
+                log.debug("Discarding a connection to '" + name + "' which is no longer valid");
+                pc.close();
+                discarded();
+                pc = null;
+            }
+        }
+
+        pc.checkGeneration(generation.get());
+        leased.add(pc);
+
+        long waited = System.nanoTime() - start;
+        acquired.increment();
+        waitTime.add(waited);
+        maxWaitTime.accumulateAndGet(waited, Math::max);
+
+        Throwable trace = null;
+        if (settings.leakDetectionThreshold() > 0) {
+            trace = new Throwable("Connection leased by thread " + Thread.currentThread().getName());
+        }
+        return pc.lease(trace);
+    }
+
+    /**
+     * Drop the prepared statements of all connections, as each of them is next leased.
+     */
+    public void clearStatements() {
+        generation.incrementAndGet();
+    }
+
+    /**
+     * Close all idle connections, and the rest as they are returned.
+     */
+    public void close() {
+        List<PooledConnection> closing;
+        lock.lock();
+        try {
+            closed = true;
+            closing = new ArrayList<>(idle);
+            total -= idle.size();
+            idle.clear();
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        if (housekeeper != null) {
+            housekeeper.shutdownNow();
+        }
+        closing.forEach(PooledConnection::close);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        lock.lock();
+        try {
+            result.put("total", total);
+            result.put("idle", idle.size());
+            result.put("waiting", waiting);
+        } finally {
+            lock.unlock();
+        }
+        result.put("active", leased.size());
+        result.put("max", settings.maxConnections());
+
+        long count = acquired.sum();
+        result.put("acquired", count);
+        result.put("timeouts", timeouts.sum());
+        result.put("wait-time-avg-ms", count == 0 ? 0.0 : waitTime.sum() / (double) count / 1000000);
+        result.put("wait-time-max-ms", maxWaitTime.get() / 1000000.0);
+        result.put("leaks-detected", leaks.sum());
+        result.put("connections-opened", opened.sum());
+        result.put("connections-closed", closedConnections.sum());
+        result.put("statements-prepared", statementsPrepared.sum());
+        result.put("statements-reused", statementsReused.sum());
+        return result;
+    }
+
+    void release(PooledConnection pc) {
+        leased.remove(pc);
+        if (pc.reset()) {
+            lock.lock();
+            try {
+                if (!closed) {
+                    pc.idleSince(System.currentTimeMillis());
+                    idle.addFirst(pc);
+                    available.signal();
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        pc.close();
+        discarded();
+    }
+
+    void statementPrepared() {
+        statementsPrepared.increment();
+    }
+
+    void statementReused() {
+        statementsReused.increment();
+    }
+
+    private PooledConnection open() throws SQLException {
+        Connection connection = source.getConnection();
+        opened.increment();
+        return new PooledConnection(this, connection, settings.statementCacheSize(), generation.get());
+    }
+
+    /**
+     * Account for a connection which was closed, or could not be opened.
+     */
+    private void discarded() {
+        closedConnections.increment();
+        lock.lock();
+        try {
+            --total;
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void checkOpen() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool '" + name + "' is closed");
+        }
+    }
+
+    private void housekeep() {
+        try {
+            long now = System.currentTimeMillis();
+
+            long threshold = settings.leakDetectionThreshold();
+            if (threshold > 0) {
+                for (PooledConnection pc : leased) {
+                    if (!pc.leakReported() && now - pc.leasedAt() > threshold) {
+                        pc.leakReported(true);
+                        leaks.increment();
+                        log.warnf(pc.leaseTrace(), "A connection to '%s' has been held for %d ms, it may have been leaked",
+                                name, now - pc.leasedAt());
+                    }
+                }
+            }
+
+            List<PooledConnection> retired = new ArrayList<>();
+            int missing;
+            lock.lock();
+            try {
+                if (closed) {
+                    return;
+                }
+                // the least recently used are at the end
+                long idleTimeout = settings.idleTimeout();
+                while (idleTimeout > 0 && total > settings.initialConnections() && !idle.isEmpty()
+                        && now - idle.peekLast().idleSince() > idleTimeout) {
+                    retired.add(idle.pollLast());
+                    --total;
+                }
+                missing = settings.initialConnections() - total;
+                total += Math.max(0, missing);
+            } finally {
+                lock.unlock();
+            }
+
+            for (PooledConnection pc : retired) {
+                pc.close();
+                closedConnections.increment();
+            }
+            for (int i = 0; i < missing; ++i) {
+                PooledConnection pc;
+                try {
+                    pc = open();
+                } catch (SQLException e) {
+                    log.debug("Could not open a connection to '" + name + "'", e);
+                    discarded();
+                    continue;
+                }
+                release(pc);
+            }
+        } catch (RuntimeException e) {
+            log.error("Connection pool housekeeping failed", e);
+        }
+    }
+
+    private final String name;
+    private final DataSource source;
+    private final PoolSettings settings;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private final Deque<PooledConnection> idle = new ArrayDeque<>();
+    private final Set<PooledConnection> leased = ConcurrentHashMap.newKeySet();
+    private int total;
+    private int waiting;
+    private volatile boolean closed;
+
+    private final AtomicLong generation = new AtomicLong();
+    private ScheduledExecutorService housekeeper;
+
+    private final LongAdder acquired = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder waitTime = new LongAdder();
+    private final AtomicLong maxWaitTime = new AtomicLong();
+    private final LongAdder leaks = new LongAdder();
+    private final LongAdder opened = new LongAdder();
+    private final LongAdder closedConnections = new LongAdder();
+    private final LongAdder statementsPrepared = new LongAdder();
+    private final LongAdder statementsReused = new LongAdder();
+}
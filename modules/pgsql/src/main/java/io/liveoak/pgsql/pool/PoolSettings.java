@@ -0,0 +1,165 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.pgsql.pool;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import io.liveoak.spi.state.ResourceState;
+
+/**
+ * Sizing and timeouts of a {@link ConnectionPool}, as configured on the pgsql resource.
+ */
+public class PoolSettings {
+
+    public static final String MAX_CONNECTIONS = "max-connections";
+    public static final String INITIAL_CONNECTIONS = "initial-connections";
+    public static final String CONNECTION_TIMEOUT = "connection-timeout-ms";
+    public static final String IDLE_TIMEOUT = "idle-timeout-ms";
+    public static final String LEAK_DETECTION_THRESHOLD = "leak-detection-threshold-ms";
+    public static final String STATEMENT_CACHE_SIZE = "statement-cache-size";
+    public static final String PREPARE_THRESHOLD = "prepare-threshold";
+
+    public static final PoolSettings DEFAULT = new PoolSettings(10, 1, 30000, 600000, 0, 64, 1);
+
+    public PoolSettings(int maxConnections, int initialConnections, long connectionTimeout, long idleTimeout,
+                        long leakDetectionThreshold, int statementCacheSize, int prepareThreshold) {
+        if (maxConnections < 1) {
+            throw new IllegalArgumentException(MAX_CONNECTIONS + " must be at least 1: " + maxConnections);
+        }
+        this.maxConnections = maxConnections;
+        this.initialConnections = Math.max(0, Math.min(initialConnections, maxConnections));
+        this.connectionTimeout = connectionTimeout;
+        this.idleTimeout = idleTimeout;
+        this.leakDetectionThreshold = leakDetectionThreshold;
+        this.statementCacheSize = Math.max(0, statementCacheSize);
+        this.prepareThreshold = prepareThreshold;
+    }
+
+    public PoolSettings(ResourceState state) {
+        this(intValue(state, MAX_CONNECTIONS, DEFAULT.maxConnections),
+                intValue(state, INITIAL_CONNECTIONS, DEFAULT.initialConnections),
+                longValue(state, CONNECTION_TIMEOUT, DEFAULT.connectionTimeout),
+                longValue(state, IDLE_TIMEOUT, DEFAULT.idleTimeout),
+                longValue(state, LEAK_DETECTION_THRESHOLD, DEFAULT.leakDetectionThreshold),
+                intValue(state, STATEMENT_CACHE_SIZE, DEFAULT.statementCacheSize),
+                intValue(state, PREPARE_THRESHOLD, DEFAULT.prepareThreshold));
+    }
+
+    /**
+     * Most connections open at a time.
+     */
+    public int maxConnections() {
+        return maxConnections;
+    }
+
+    /**
+     * Connections opened up front, and kept open when idle.
+     */
+    public int initialConnections() {
+        return initialConnections;
+    }
+
+    /**
+     * How long to wait for a connection when all of them are in use, before failing.
+     */
+    public long connectionTimeout() {
+        return connectionTimeout;
+    }
+
+    /**
+     * How long a connection above {@link #initialConnections()} may stay idle before it is closed; 0 to never close it.
+     */
+    public long idleTimeout() {
+        return idleTimeout;
+    }
+
+    /**
+     * How long a connection may be held before it is reported as possibly leaked; 0 to not check.
+     */
+    public long leakDetectionThreshold() {
+        return leakDetectionThreshold;
+    }
+
+    /**
+     * Prepared statements kept open per connection; 0 to not keep any.
+     */
+    public int statementCacheSize() {
+        return statementCacheSize;
+    }
+
+    /**
+     * Executions of a statement after which the driver switches it to a server-side prepared statement.
+     */
+    public int prepareThreshold() {
+        return prepareThreshold;
+    }
+
+    public Map<String, Object> properties() {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put(MAX_CONNECTIONS, maxConnections);
+        properties.put(INITIAL_CONNECTIONS, initialConnections);
+        properties.put(CONNECTION_TIMEOUT, connectionTimeout);
+        properties.put(IDLE_TIMEOUT, idleTimeout);
+        properties.put(LEAK_DETECTION_THRESHOLD, leakDetectionThreshold);
+        properties.put(STATEMENT_CACHE_SIZE, statementCacheSize);
+        properties.put(PREPARE_THRESHOLD, prepareThreshold);
+        return properties;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PoolSettings)) {
+            return false;
+        }
+        PoolSettings other = (PoolSettings) o;
+        return maxConnections == other.maxConnections
+                && initialConnections == other.initialConnections
+                && connectionTimeout == other.connectionTimeout
+                && idleTimeout == other.idleTimeout
+                && leakDetectionThreshold == other.leakDetectionThreshold
+                && statementCacheSize == other.statementCacheSize
+                && prepareThreshold == other.prepareThreshold;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = maxConnections;
+        result = 31 * result + initialConnections;
+        result = 31 * result + (int) (connectionTimeout ^ (connectionTimeout >>> 32));
+        result = 31 * result + (int) (idleTimeout ^ (idleTimeout >>> 32));
+        result = 31 * result + (int) (leakDetectionThreshold ^ (leakDetectionThreshold >>> 32));
+        result = 31 * result + statementCacheSize;
+        result = 31 * result + prepareThreshold;
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "[PoolSettings: " + properties() + "]";
+    }
+
+    private static int intValue(ResourceState state, String name, int defaultValue) {
+        Integer value = state.getPropertyAsInteger(name);
+        return value != null ? value : defaultValue;
+    }
+
+    private static long longValue(ResourceState state, String name, long defaultValue) {
+        Long value = state.getPropertyAsLong(name);
+        return value != null ? value : defaultValue;
+    }
+
+    private final int maxConnections;
+    private final int initialConnections;
+    private final long connectionTimeout;
+    private final long idleTimeout;
+    private final long leakDetectionThreshold;
+    private final int statementCacheSize;
+    private final int prepareThreshold;
+}
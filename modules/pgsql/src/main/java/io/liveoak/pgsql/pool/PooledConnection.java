@@ -0,0 +1,333 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.pgsql.pool;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.jboss.logging.Logger;
+
+/**
+ * A physical connection of a {@link ConnectionPool}, along with the prepared statements kept open on it.
+ *
+ * <p>Users get a proxy of the connection for every lease. Closing the proxy hands the connection back to
+ * the pool, and closing a cached statement only resets it, so that the next request of the same shape
+ * skips parsing and planning on the server.</p>
+ */
+class PooledConnection {
+
+    private static final Logger log = Logger.getLogger(PooledConnection.class);
+
+    PooledConnection(ConnectionPool pool, Connection connection, int statementCacheSize, long generation) {
+        this.pool = pool;
+        this.connection = connection;
+        this.statementCacheSize = statementCacheSize;
+        this.generation = generation;
+        this.statements = new LinkedHashMap<String, CachedStatement>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+                if (size() > PooledConnection.this.statementCacheSize && !eldest.getValue().inUse) {
+                    eldest.getValue().closePhysical();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Hand out the connection.
+     *
+     * @param trace where the connection is leased from, if leaks are tracked
+     */
+    Connection lease(Throwable trace) {
+        this.leasedAt = System.currentTimeMillis();
+        this.leaseTrace = trace;
+        this.leakReported = false;
+        this.leaseProxy = (Connection) Proxy.newProxyInstance(PooledConnection.class.getClassLoader(),
+                new Class[] {Connection.class}, new Lease());
+        return this.leaseProxy;
+    }
+
+    /**
+     * Put the connection back into a state fit for the next lease.
+     *
+     * @return false if the connection is not usable any more
+     */
+    boolean reset() {
+        if (this.broken) {
+            return false;
+        }
+        try {
+            if (this.connection.isClosed()) {
+                return false;
+            }
+            // statements the user did not close
+            for (CachedStatement statement : new ArrayList<>(this.statements.values())) {
+                if (statement.inUse) {
+                    statement.inUse = false;
+                    statement.recycle();
+                }
+            }
+            if (!this.connection.getAutoCommit()) {
+                this.connection.rollback();
+                this.connection.setAutoCommit(true);
+            }
+            this.connection.clearWarnings();
+            return true;
+        } catch (SQLException e) {
+            log.debug("Discarding connection which could not be reset", e);
+            return false;
+        }
+    }
+
+    /**
+     * Drop the cached statements if they were prepared against an older schema.
+     */
+    void checkGeneration(long generation) {
+        if (this.generation != generation) {
+            closeStatements();
+            this.generation = generation;
+        }
+    }
+
+    boolean isValid(int timeoutSeconds) {
+        try {
+            return this.connection.isValid(timeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    void close() {
+        closeStatements();
+        try {
+            this.connection.close();
+        } catch (SQLException e) {
+            log.debug("[IGNORED] Exception while closing a connection: ", e);
+        }
+    }
+
+    long leasedAt() {
+        return this.leasedAt;
+    }
+
+    long idleSince() {
+        return this.idleSince;
+    }
+
+    void idleSince(long idleSince) {
+        this.idleSince = idleSince;
+    }
+
+    Throwable leaseTrace() {
+        return this.leaseTrace;
+    }
+
+    boolean leakReported() {
+        return this.leakReported;
+    }
+
+    void leakReported(boolean leakReported) {
+        this.leakReported = leakReported;
+    }
+
+    int cachedStatements() {
+        return this.statements.size();
+    }
+
+    private void closeStatements() {
+        Iterator<CachedStatement> it = this.statements.values().iterator();
+        while (it.hasNext()) {
+            CachedStatement statement = it.next();
+            if (!statement.inUse) {
+                statement.closePhysical();
+            }
+            it.remove();
+        }
+    }
+
+    private PreparedStatement prepareStatement(String sql) throws SQLException {
+        if (this.statementCacheSize == 0 || !cacheable(sql)) {
+            return this.connection.prepareStatement(sql);
+        }
+        CachedStatement cached = this.statements.get(sql);
+        if (cached != null && cached.inUse) {
+            // the same query is open twice on this connection
+            return this.connection.prepareStatement(sql);
+        }
+        if (cached == null) {
+            cached = new CachedStatement(sql, this.connection.prepareStatement(sql));
+            this.statements.put(sql, cached);
+            this.pool.statementPrepared();
+        } else {
+            this.pool.statementReused();
+        }
+        cached.inUse = true;
+        return cached.proxy;
+    }
+
+    private static boolean cacheable(String sql) {
+        String verb = sql.length() > 6 ? sql.substring(0, 6).toUpperCase(Locale.ENGLISH) : "";
+        return verb.equals("SELECT") || verb.equals("INSERT") || verb.equals("UPDATE") || verb.equals("DELETE");
+    }
+
+    private void checkBroken(SQLException e) {
+        // class 08 - connection exception
+        String state = e.getSQLState();
+        if (state != null && state.startsWith("08")) {
+            this.broken = true;
+        }
+    }
+
+    private Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) {
+                checkBroken((SQLException) cause);
+            }
+            throw cause;
+        }
+    }
+
+    /**
+     * The connection as seen by a single user.
+     */
+    private class Lease implements InvocationHandler {
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!this.closed) {
+                        this.closed = true;
+                        PooledConnection.this.leaseProxy = null;
+                        PooledConnection.this.pool.release(PooledConnection.this);
+                    }
+                    return null;
+                case "isClosed":
+                    return this.closed || PooledConnection.this.connection.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled connection wrapping " + PooledConnection.this.connection;
+                default:
+            }
+            if (this.closed) {
+                throw new SQLException("Connection is closed");
+            }
+            if ("prepareStatement".equals(method.getName()) && args.length == 1) {
+                return prepareStatement((String) args[0]);
+            }
+            return PooledConnection.this.invoke(PooledConnection.this.connection, method, args);
+        }
+
+        private boolean closed;
+    }
+
+    /**
+     * A prepared statement kept open for re-use.
+     */
+    private class CachedStatement implements InvocationHandler {
+
+        CachedStatement(String sql, PreparedStatement statement) {
+            this.sql = sql;
+            this.statement = statement;
+            this.proxy = (PreparedStatement) Proxy.newProxyInstance(PooledConnection.class.getClassLoader(),
+                    new Class[] {PreparedStatement.class}, this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (this.inUse) {
+                        this.inUse = false;
+                        if (PooledConnection.this.statements.get(this.sql) == this) {
+                            recycle();
+                        } else {
+                            // evicted while in use
+                            closePhysical();
+                        }
+                    }
+                    return null;
+                case "isClosed":
+                    return !this.inUse;
+                case "getConnection":
+                    return PooledConnection.this.leaseProxy;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return this.statement.toString();
+                default:
+            }
+            if (!this.inUse) {
+                throw new SQLException("Statement is closed");
+            }
+            return PooledConnection.this.invoke(this.statement, method, args);
+        }
+
+        void recycle() {
+            try {
+                ResultSet rs = this.statement.getResultSet();
+                if (rs != null) {
+                    rs.close();
+                }
+                this.statement.clearParameters();
+                this.statement.clearWarnings();
+                this.statement.setMaxRows(0);
+                this.statement.setFetchSize(0);
+            } catch (SQLException e) {
+                checkBroken(e);
+                PooledConnection.this.statements.remove(this.sql);
+                closePhysical();
+            }
+        }
+
+        void closePhysical() {
+            try {
+                this.statement.close();
+            } catch (SQLException e) {
+                log.debug("[IGNORED] Exception while closing a statement: ", e);
+            }
+        }
+
+        private final String sql;
+        private final PreparedStatement statement;
+        private final PreparedStatement proxy;
+        private boolean inUse;
+    }
+
+    private final ConnectionPool pool;
+    private final Connection connection;
+    private final int statementCacheSize;
+    private final Map<String, CachedStatement> statements;
+    private long generation;
+
+    private volatile long leasedAt;
+    private volatile Throwable leaseTrace;
+    private volatile boolean leakReported;
+    private long idleSince;
+    private boolean broken;
+    private Connection leaseProxy;
+}
@@ -160,6 +160,8 @@ public class BasePgSqlTest extends AbstractTestCaseWithTestApp {
         config.putProperty("password", password);
         config.putProperty("max-connections", maxConnections);
         config.putProperty("initial-connections", initialConnections);
+        // small enough for reads of test tables to take several round trips
+        config.putProperty("fetch-size", 2);
         config.putProperty("schemas", Arrays.asList(new String[]{schema, schema_two}));
         config.putProperty("default-schema", schema);
 
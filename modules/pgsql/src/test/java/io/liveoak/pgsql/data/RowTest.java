@@ -0,0 +1,57 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.pgsql.data;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.fest.assertions.Fail.fail;
+
+public class RowTest {
+
+    @Test
+    public void rowsShareColumns() {
+        Columns columns = new Columns(new String[] {"id", "name", "total"});
+        Row first = new Row(columns, new Object[] {1, "first", 10L});
+        Row second = new Row(columns, new Object[] {2, "second", null});
+
+        assertThat(first.columns()).isSameAs(second.columns());
+        assertThat(first.value("name")).isEqualTo("first");
+        assertThat(second.value(1)).isEqualTo("second");
+        assertThat(second.value("total")).isNull();
+        assertThat(first.valueAsInt(0)).isEqualTo(1);
+        assertThat(columns.indexOf("missing")).isEqualTo(-1);
+    }
+
+    @Test
+    public void asMapKeepsColumnOrder() {
+        Row row = new Row(Arrays.asList("id", "name"), Arrays.asList(1, "first"));
+        Map<String, Object> map = row.asMap();
+
+        assertThat(map.size()).isEqualTo(2);
+        assertThat(map.get("name")).isEqualTo("first");
+        assertThat(map.containsKey("id")).isTrue();
+        assertThat(map.containsKey("missing")).isFalse();
+
+        StringBuilder keys = new StringBuilder();
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            keys.append(entry.getKey()).append('=').append(entry.getValue()).append(';');
+        }
+        assertThat(keys.toString()).isEqualTo("id=1;name=first;");
+    }
+
+    @Test
+    public void valuesMustMatchColumns() {
+        try {
+            new Row(new Columns(new String[] {"id"}), new Object[] {1, 2});
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+}
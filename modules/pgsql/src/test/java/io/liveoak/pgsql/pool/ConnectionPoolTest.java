@@ -0,0 +1,173 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.pgsql.pool;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.fest.assertions.Fail.fail;
+
+public class ConnectionPoolTest {
+
+    private final AtomicInteger connections = new AtomicInteger();
+    private final AtomicInteger prepares = new AtomicInteger();
+    private final AtomicInteger rollbacks = new AtomicInteger();
+
+    private ConnectionPool pool;
+
+    @After
+    public void close() {
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    @Test
+    public void statementsAreReusedAcrossLeases() throws Exception {
+        pool = start(new PoolSettings(1, 1, 1000, 0, 0, 10, 1));
+
+        for (int i = 0; i < 3; i++) {
+            try (Connection c = pool.getConnection(); PreparedStatement ps = c.prepareStatement("SELECT * FROM t WHERE id=?")) {
+                ps.setInt(1, i);
+                ps.executeQuery();
+            }
+        }
+
+        assertThat(connections.get()).isEqualTo(1);
+        assertThat(prepares.get()).isEqualTo(1);
+        assertThat(pool.stats().get("statements-reused")).isEqualTo(2L);
+
+        // dropped once the tables change
+        pool.clearStatements();
+        try (Connection c = pool.getConnection(); PreparedStatement ps = c.prepareStatement("SELECT * FROM t WHERE id=?")) {
+            ps.executeQuery();
+        }
+        assertThat(prepares.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void ddlIsNotCached() throws Exception {
+        pool = start(new PoolSettings(1, 1, 1000, 0, 0, 10, 1));
+
+        for (int i = 0; i < 2; i++) {
+            try (Connection c = pool.getConnection(); PreparedStatement ps = c.prepareStatement("DROP TABLE t")) {
+                ps.execute();
+            }
+        }
+        assertThat(prepares.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void waitsForAConnectionAndTimesOut() throws Exception {
+        pool = start(new PoolSettings(1, 0, 100, 0, 0, 10, 1));
+
+        try (Connection held = pool.getConnection()) {
+            try {
+                pool.getConnection();
+                fail("Expected a timeout");
+            } catch (SQLTransientConnectionException expected) {
+            }
+            assertThat(pool.stats().get("timeouts")).isEqualTo(1L);
+            assertThat(pool.stats().get("active")).isEqualTo(1);
+        }
+
+        // returned, so available again
+        try (Connection c = pool.getConnection()) {
+            assertThat(c.isClosed()).isFalse();
+        }
+        assertThat(connections.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void transactionIsRolledBackOnRelease() throws Exception {
+        pool = start(new PoolSettings(1, 1, 1000, 0, 0, 10, 1));
+
+        Connection c = pool.getConnection();
+        c.setAutoCommit(false);
+        c.close();
+        assertThat(c.isClosed()).isTrue();
+        assertThat(rollbacks.get()).isEqualTo(1);
+
+        try (Connection c2 = pool.getConnection()) {
+            assertThat(c2.getAutoCommit()).isTrue();
+        }
+    }
+
+    @Test
+    public void leaksAreReported() throws Exception {
+        pool = start(new PoolSettings(2, 0, 1000, 0, 100, 10, 1));
+
+        try (Connection leaked = pool.getConnection()) {
+            long deadline = System.currentTimeMillis() + 5000;
+            while ((Long) pool.stats().get("leaks-detected") == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            assertThat(pool.stats().get("leaks-detected")).isEqualTo(1L);
+        }
+    }
+
+    private ConnectionPool start(PoolSettings settings) throws Exception {
+        DataSource source = (DataSource) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[] {DataSource.class}, (proxy, method, args) -> {
+            if (method.getName().equals("getConnection")) {
+                connections.incrementAndGet();
+                return connection();
+            }
+            throw new UnsupportedOperationException(method.getName());
+        });
+        ConnectionPool pool = new ConnectionPool("test", source, settings);
+        pool.start();
+        return pool;
+    }
+
+    private Connection connection() {
+        boolean[] autoCommit = {true};
+        boolean[] closed = {false};
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[] {Connection.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "prepareStatement":
+                    prepares.incrementAndGet();
+                    return statement();
+                case "getAutoCommit":
+                    return autoCommit[0];
+                case "setAutoCommit":
+                    autoCommit[0] = (Boolean) args[0];
+                    return null;
+                case "rollback":
+                    rollbacks.incrementAndGet();
+                    return null;
+                case "isClosed":
+                    return closed[0];
+                case "close":
+                    closed[0] = true;
+                    return null;
+                case "isValid":
+                    return !closed[0];
+                default:
+                    return null;
+            }
+        });
+    }
+
+    private PreparedStatement statement() {
+        return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[] {PreparedStatement.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "execute":
+                    return false;
+                default:
+                    return null;
+            }
+        });
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.scheduler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The most recent fires of a trigger, in a ring buffer of a fixed size.
+ *
+ * <p>Fires pushed out of the buffer are appended to a {@link FireLog}, if there is one.</p>
+ */
+public class FireHistory {
+
+    public FireHistory(int size, FireLog log) {
+        this.fires = new FireResource[size];
+        this.log = log;
+    }
+
+    public void add(FireResource fire) {
+        FireResource evicted = null;
+        synchronized (this) {
+            ++this.total;
+            if (this.fires.length == 0) {
+                evicted = fire;
+            } else {
+                evicted = this.fires[this.next];
+                this.fires[this.next] = fire;
+                this.next = (this.next + 1) % this.fires.length;
+                if (this.count < this.fires.length) {
+                    ++this.count;
+                }
+            }
+        }
+        if (evicted != null && this.log != null) {
+            this.log.append(evicted);
+        }
+    }
+
+    /**
+     * @return the fires kept, oldest first
+     */
+    public synchronized List<FireResource> fires() {
+        List<FireResource> result = new ArrayList<>(this.count);
+        int first = (this.next - this.count + this.fires.length) % Math.max(1, this.fires.length);
+        for (int i = 0; i < this.count; i++) {
+            result.add(this.fires[(first + i) % this.fires.length]);
+        }
+        return result;
+    }
+
+    /**
+     * @return how many times the trigger fired, including the fires no longer kept
+     */
+    public synchronized long total() {
+        return this.total;
+    }
+
+    /**
+     * Remove the log of fires, once the trigger is gone.
+     */
+    public void deleteLog() {
+        if (this.log != null) {
+            this.log.delete();
+        }
+    }
+
+    private final FireResource[] fires;
+    private final FireLog log;
+    private int next;
+    private int count;
+    private long total;
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.scheduler;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.jboss.logging.Logger;
+
+/**
+ * Append-only file of the fires of a trigger, as fixed fields in binary: fire time, scheduled fire time and
+ * fire instance id.
+ *
+ * <p>When the file grows over its maximum size it is renamed with a <code>.1</code> suffix, replacing the
+ * previous one, and a new file is started.</p>
+ */
+public class FireLog {
+
+    private static final Logger log = Logger.getLogger(FireLog.class);
+
+    public FireLog(File file, long maxBytes) {
+        this.file = file;
+        this.maxBytes = maxBytes;
+    }
+
+    public synchronized void append(FireResource fire) {
+        try {
+            if (this.file.length() >= this.maxBytes) {
+                roll();
+            }
+            File dir = this.file.getParentFile();
+            if (dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+                throw new IOException("Could not create directory: " + dir);
+            }
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(this.file, true)))) {
+                out.writeLong(fire.fireTime().getTime());
+                out.writeLong(fire.scheduledFireTime().getTime());
+                out.writeUTF(fire.id());
+            }
+        } catch (IOException e) {
+            log.warn("Could not log a fire to " + this.file, e);
+        }
+    }
+
+    /**
+     * @return fire times logged to the current file, oldest first
+     */
+    public synchronized List<Date> fireTimes() throws IOException {
+        List<Date> result = new ArrayList<>();
+        if (!this.file.exists()) {
+            return result;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(this.file)))) {
+            while (true) {
+                long fireTime = in.readLong();
+                in.readLong();
+                in.readUTF();
+                result.add(new Date(fireTime));
+            }
+        } catch (EOFException e) {
+            // end of the log, or a record cut short by a crash
+        }
+        return result;
+    }
+
+    public synchronized void delete() {
+        this.file.delete();
+        rolled().delete();
+    }
+
+    private void roll() throws IOException {
+        File rolled = rolled();
+        if (rolled.exists() && !rolled.delete()) {
+            throw new IOException("Could not delete " + rolled);
+        }
+        if (!this.file.renameTo(rolled)) {
+            throw new IOException("Could not rename " + this.file + " to " + rolled);
+        }
+    }
+
+    private File rolled() {
+        return new File(this.file.getPath() + ".1");
+    }
+
+    private final File file;
+    private final long maxBytes;
+}
@@ -36,6 +36,14 @@ public class FireResource implements Resource {
         sink.complete();
     }
 
+    Date fireTime() {
+        return this.fireTime;
+    }
+
+    Date scheduledFireTime() {
+        return this.scheduledFireTime;
+    }
+
     private TriggerResource parent;
     private String id;
 
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.scheduler;
+
+import org.quartz.CronScheduleBuilder;
+
+/**
+ * What a trigger does about fires it missed, because all worker threads were busy or the scheduler was down.
+ */
+public enum MisfirePolicy {
+
+    /**
+     * Quartz default, which for cron triggers is to fire once.
+     */
+    SMART("smart"),
+
+    /**
+     * Fire once now, then carry on with the schedule.
+     */
+    FIRE_ONCE("fire-once"),
+
+    /**
+     * Skip the missed fires.
+     */
+    SKIP("skip"),
+
+    /**
+     * Fire as many times as missed, as soon as possible.
+     */
+    FIRE_ALL("fire-all");
+
+    private final String name;
+
+    private MisfirePolicy(String name) {
+        this.name = name;
+    }
+
+    public CronScheduleBuilder apply(CronScheduleBuilder builder) {
+        switch (this) {
+            case FIRE_ONCE:
+                return builder.withMisfireHandlingInstructionFireAndProceed();
+            case SKIP:
+                return builder.withMisfireHandlingInstructionDoNothing();
+            case FIRE_ALL:
+                return builder.withMisfireHandlingInstructionIgnoreMisfires();
+            default:
+                return builder;
+        }
+    }
+
+    /**
+     * @return the policy, or null if there is no such policy
+     */
+    public static MisfirePolicy forName(String name) {
+        for (MisfirePolicy policy : values()) {
+            if (policy.name.equals(name)) {
+                return policy;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return this.name;
+    }
+}
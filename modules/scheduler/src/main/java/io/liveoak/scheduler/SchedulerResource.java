@@ -1,9 +1,16 @@
 package io.liveoak.scheduler;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 import io.liveoak.spi.RequestContext;
 import io.liveoak.spi.resource.RootResource;
@@ -28,9 +35,51 @@ import org.quartz.TriggerBuilder;
 public class SchedulerResource implements RootResource, SynchronousResource {
 
     public SchedulerResource(String id, Scheduler scheduler, Notifier notifier) {
+        this(id, scheduler, notifier, new SchedulerSettings(), null, null);
+    }
+
+    /**
+     * @param store where triggers are kept across restarts, or null to not keep them
+     * @param dir   directory for the fire logs of triggers
+     */
+    public SchedulerResource(String id, Scheduler scheduler, Notifier notifier, SchedulerSettings settings, TriggerStore store, File dir) {
         this.id = id;
         this.scheduler = scheduler;
         this.notifier = notifier;
+        this.settings = settings;
+        this.store = store;
+        this.dir = dir;
+    }
+
+    /**
+     * Schedule the stored triggers again, all at once.
+     *
+     * <p>Triggers start from when the store was closed, so those which should have fired while the
+     * scheduler was down are handled according to their misfire policy.</p>
+     */
+    public void start() throws Exception {
+        if (this.store == null) {
+            return;
+        }
+        List<TriggerStore.Entry> entries = this.store.open();
+        Date startAt = this.store.stoppedAt() != null ? this.store.stoppedAt() : new Date();
+
+        Map<JobDetail, Set<? extends Trigger>> jobs = new HashMap<>();
+        for (TriggerStore.Entry entry : entries) {
+            TriggerResource resource = createTrigger(entry.id(), entry.cron(), entry.misfire(), startAt);
+            jobs.put(jobDetail(resource), Collections.singleton(resource.trigger()));
+            this.children.put(entry.id(), resource);
+        }
+        if (!jobs.isEmpty()) {
+            this.scheduler.scheduleJobs(jobs, true);
+            log.debug("Restored " + jobs.size() + " triggers of " + this.id);
+        }
+    }
+
+    public void stop() {
+        if (this.store != null) {
+            this.store.close();
+        }
     }
 
     @Override
@@ -87,27 +136,77 @@ public class SchedulerResource implements RootResource, SynchronousResource {
     public void createMember(RequestContext ctx, ResourceState state, Responder responder) throws Exception {
 
         String id = UUID.randomUUID().toString();
+        String cron = (String) state.getProperty("cron");
+
+        MisfirePolicy misfire = MisfirePolicy.SMART;
+        Object misfireProperty = state.getProperty("misfire");
+        if (misfireProperty != null) {
+            misfire = MisfirePolicy.forName(misfireProperty.toString());
+            if (misfire == null) {
+                responder.invalidRequest("Unknown misfire policy: " + misfireProperty);
+                return;
+            }
+        }
 
+        TriggerResource resource = createTrigger(id, cron, misfire, null);
+
+        // persisted first, so a trigger which could not be stored never fires
+        if (this.store != null) {
+            this.store.add(new TriggerStore.Entry(id, cron, misfire));
+        }
+        try {
+            this.scheduler.scheduleJob(jobDetail(resource), resource.trigger());
+        } catch (Exception e) {
+            if (this.store != null) {
+                try {
+                    this.store.remove(id);
+                } catch (IOException removeFailure) {
+                    e.addSuppressed(removeFailure);
+                }
+            }
+            throw e;
+        }
+        this.children.put(id, resource);
+        responder.resourceCreated(resource);
+    }
+
+    void deleteTrigger(TriggerResource resource) throws Exception {
+        this.scheduler.unscheduleJob(resource.trigger().getKey());
+        this.children.remove(resource.id());
+        if (this.store != null) {
+            this.store.remove(resource.id());
+        }
+        resource.history().deleteLog();
+    }
+
+    private TriggerResource createTrigger(String id, String cron, MisfirePolicy misfire, Date startAt) {
         TriggerBuilder triggerBuilder = TriggerBuilder.newTrigger();
-        triggerBuilder.withSchedule(CronScheduleBuilder.cronSchedule((String) state.getProperty("cron")));
+        triggerBuilder.withSchedule(misfire.apply(CronScheduleBuilder.cronSchedule(cron)));
         triggerBuilder.withIdentity(id);
+        // the resource is identified by the job key, so it has to be set before the job is scheduled
+        triggerBuilder.forJob(id);
+        if (startAt != null) {
+            triggerBuilder.startAt(startAt);
+        }
         Trigger trigger = triggerBuilder.build();
 
-        TriggerResource resource = new TriggerResource(this, trigger);
+        FireLog fireLog = null;
+        if (this.dir != null && this.settings.fireLogMaxBytes() > 0) {
+            fireLog = new FireLog(new File(new File(this.dir, "fires"), id), this.settings.fireLogMaxBytes());
+        }
+        return new TriggerResource(this, trigger, misfire, new FireHistory(this.settings.fireHistorySize(), fireLog));
+    }
 
+    private static JobDetail jobDetail(TriggerResource resource) {
         JobDataMap dataMap = new JobDataMap();
         dataMap.put("resource", resource);
 
         JobBuilder jobBuilder = JobBuilder.newJob();
-        jobBuilder.withIdentity(id);
+        jobBuilder.withIdentity(resource.id());
         jobBuilder.ofType(LiveOakJob.class);
         jobBuilder.setJobData(dataMap);
 
-        JobDetail jobDetail = jobBuilder.build();
-
-        this.scheduler.scheduleJob(jobDetail, trigger);
-        this.children.put(id, resource);
-        responder.resourceCreated(resource);
+        return jobBuilder.build();
     }
 
     Notifier notifier() {
@@ -117,8 +216,11 @@ public class SchedulerResource implements RootResource, SynchronousResource {
     private Resource parent;
     private String id;
     private Scheduler scheduler;
-    private Map<String, TriggerResource> children = new HashMap<>();
+    private Map<String, TriggerResource> children = new ConcurrentHashMap<>();
     private Notifier notifier;
+    private SchedulerSettings settings;
+    private TriggerStore store;
+    private File dir;
 
     private static final Logger log = Logger.getLogger(SchedulerResource.class);
 
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.scheduler;
+
+import java.io.File;
+import java.util.Properties;
+
+/**
+ * Settings shared by all scheduler resources, read from <code>liveoak.scheduler.*</code> system properties.
+ *
+ * <p>Triggers are only persisted if <code>liveoak.scheduler.persistent</code> is true, which is the default
+ * when running in a server with a data directory.</p>
+ */
+public class SchedulerSettings {
+
+    public static final String PREFIX = "liveoak.scheduler.";
+
+    public static final int DEFAULT_THREAD_COUNT = 10;
+    public static final long DEFAULT_MISFIRE_THRESHOLD = 60000;
+    public static final int DEFAULT_FIRE_HISTORY_SIZE = 100;
+
+    public SchedulerSettings() {
+        this(System.getProperties());
+    }
+
+    public SchedulerSettings(Properties props) {
+        this(Integer.parseInt(props.getProperty(PREFIX + "thread-count", String.valueOf(DEFAULT_THREAD_COUNT))),
+                Long.parseLong(props.getProperty(PREFIX + "misfire-threshold-ms", String.valueOf(DEFAULT_MISFIRE_THRESHOLD))),
+                Integer.parseInt(props.getProperty(PREFIX + "fire-history-size", String.valueOf(DEFAULT_FIRE_HISTORY_SIZE))),
+                Long.parseLong(props.getProperty(PREFIX + "fire-log-max-bytes", "0")),
+                Boolean.parseBoolean(props.getProperty(PREFIX + "persistent",
+                        String.valueOf(props.getProperty("jboss.server.data.dir") != null))),
+                new File(props.getProperty(PREFIX + "data-dir", defaultDataDir(props))));
+    }
+
+    public SchedulerSettings(int threadCount, long misfireThreshold, int fireHistorySize, long fireLogMaxBytes,
+                             boolean persistent, File dataDir) {
+        this.threadCount = Math.max(1, threadCount);
+        this.misfireThreshold = misfireThreshold;
+        this.fireHistorySize = Math.max(0, fireHistorySize);
+        this.fireLogMaxBytes = fireLogMaxBytes;
+        this.persistent = persistent;
+        this.dataDir = dataDir;
+    }
+
+    private static String defaultDataDir(Properties props) {
+        String dataDir = props.getProperty("jboss.server.data.dir");
+        if (dataDir != null) {
+            return dataDir + File.separator + "scheduler";
+        }
+        return props.getProperty("java.io.tmpdir") + File.separator + "liveoak-scheduler";
+    }
+
+    /**
+     * Quartz worker threads of every scheduler.
+     */
+    public int threadCount() {
+        return this.threadCount;
+    }
+
+    /**
+     * How late a fire may be before the misfire policy of its trigger applies.
+     */
+    public long misfireThreshold() {
+        return this.misfireThreshold;
+    }
+
+    /**
+     * Most recent fires kept in memory per trigger.
+     */
+    public int fireHistorySize() {
+        return this.fireHistorySize;
+    }
+
+    /**
+     * Size at which the on-disk log of fires dropped from the history of a trigger is rolled over;
+     * 0 to not log them.
+     */
+    public long fireLogMaxBytes() {
+        return this.fireLogMaxBytes;
+    }
+
+    public boolean persistent() {
+        return this.persistent;
+    }
+
+    /**
+     * Directory of the files of a scheduler resource.
+     */
+    public File dataDir(String appId, String resourceId) {
+        return new File(new File(this.dataDir, appId), resourceId);
+    }
+
+    private final int threadCount;
+    private final long misfireThreshold;
+    private final int fireHistorySize;
+    private final long fireLogMaxBytes;
+    private final boolean persistent;
+    private final File dataDir;
+}
@@ -2,7 +2,6 @@ package io.liveoak.scheduler;
 
 import java.util.Collection;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.Map;
 
 import io.liveoak.common.DefaultResourceResponse;
@@ -10,6 +9,7 @@ import io.liveoak.spi.RequestContext;
 import io.liveoak.spi.ResourceResponse;
 import io.liveoak.spi.resource.SynchronousResource;
 import io.liveoak.spi.resource.async.Resource;
+import io.liveoak.spi.resource.async.Responder;
 import org.jboss.logging.Logger;
 import org.quartz.CronTrigger;
 import org.quartz.JobExecutionContext;
@@ -20,9 +20,11 @@ import org.quartz.Trigger;
  */
 public class TriggerResource implements SynchronousResource {
 
-    public TriggerResource(SchedulerResource parent, Trigger trigger) {
+    public TriggerResource(SchedulerResource parent, Trigger trigger, MisfirePolicy misfire, FireHistory history) {
         this.parent = parent;
         this.trigger = trigger;
+        this.misfire = misfire;
+        this.history = history;
     }
 
     @Override
@@ -42,17 +44,38 @@ public class TriggerResource implements SynchronousResource {
 
         Trigger.TriggerState state = this.parent.scheduler().getTriggerState(this.trigger.getKey());
         result.put("state", state.toString().toLowerCase());
+        if (this.misfire != MisfirePolicy.SMART) {
+            result.put("misfire", this.misfire.toString());
+        }
         return result;
     }
 
     @Override
     public Collection<? extends Resource> members(RequestContext ctx) throws Exception {
-        return this.fires;
+        return this.history.fires();
+    }
+
+    @Override
+    public void delete(RequestContext ctx, Responder responder) throws Exception {
+        this.parent.deleteTrigger(this);
+        responder.resourceDeleted(this);
+    }
+
+    public Trigger trigger() {
+        return this.trigger;
+    }
+
+    public MisfirePolicy misfire() {
+        return this.misfire;
+    }
+
+    public FireHistory history() {
+        return this.history;
     }
 
     public void createFire(JobExecutionContext context) {
         FireResource fireResource = new FireResource(this, context);
-        this.fires.add(fireResource);
+        this.history.add(fireResource);
 
         //TODO: maybe using ResourceResponse isn't the best solution here....
         ResourceResponse response = new DefaultResourceResponse(null, ResourceResponse.ResponseType.CREATED, fireResource);
@@ -63,7 +86,8 @@ public class TriggerResource implements SynchronousResource {
 
     private SchedulerResource parent;
     private Trigger trigger;
-    private LinkedList<FireResource> fires = new LinkedList<>();
+    private MisfirePolicy misfire;
+    private FireHistory history;
 
     private static final Logger log = Logger.getLogger(TriggerResource.class);
 }
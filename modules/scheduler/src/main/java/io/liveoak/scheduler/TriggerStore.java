@@ -0,0 +1,164 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.scheduler;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jboss.logging.Logger;
+
+/**
+ * Local store of the triggers of a scheduler resource, so they can be scheduled again after a restart.
+ *
+ * <p>Changes are appended to a journal, one line each. Opening the store reads the journal and rewrites it
+ * with only the triggers which still exist. When the store is closed, the time is recorded, so that triggers
+ * restored later know which fires they missed.</p>
+ */
+public class TriggerStore {
+
+    private static final Logger log = Logger.getLogger(TriggerStore.class);
+
+    private static final String ADD = "add";
+    private static final String REMOVE = "remove";
+    private static final String STOPPED = "stopped";
+
+    /**
+     * A stored trigger.
+     */
+    public static class Entry {
+
+        public Entry(String id, String cron, MisfirePolicy misfire) {
+            this.id = id;
+            this.cron = cron;
+            this.misfire = misfire;
+        }
+
+        public String id() {
+            return this.id;
+        }
+
+        public String cron() {
+            return this.cron;
+        }
+
+        public MisfirePolicy misfire() {
+            return this.misfire;
+        }
+
+        private final String id;
+        private final String cron;
+        private final MisfirePolicy misfire;
+    }
+
+    public TriggerStore(File dir) {
+        this.file = new File(dir, "triggers");
+    }
+
+    /**
+     * Read the stored triggers, and compact the journal.
+     */
+    public synchronized List<Entry> open() throws IOException {
+        Map<String, Entry> entries = new LinkedHashMap<>();
+        if (this.file.exists()) {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(this.file), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    // the cron expression goes last, as it contains spaces
+                    String[] fields = line.split(" ", 4);
+                    if (fields[0].equals(ADD) && fields.length == 4) {
+                        MisfirePolicy misfire = MisfirePolicy.forName(fields[2]);
+                        entries.put(fields[1], new Entry(fields[1], fields[3], misfire != null ? misfire : MisfirePolicy.SMART));
+                    } else if (fields[0].equals(REMOVE) && fields.length == 2) {
+                        entries.remove(fields[1]);
+                    } else if (fields[0].equals(STOPPED) && fields.length == 2) {
+                        this.stoppedAt = new Date(Long.parseLong(fields[1]));
+                    } else {
+                        // a line cut short by a crash
+                        log.warn("Ignoring invalid line in " + this.file + ": " + line);
+                    }
+                }
+            }
+        }
+
+        File dir = this.file.getParentFile();
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Could not create scheduler directory: " + dir);
+        }
+        File compacted = new File(dir, this.file.getName() + ".tmp");
+        try (Writer writer = writer(compacted, false)) {
+            for (Entry entry : entries.values()) {
+                writer.write(addLine(entry));
+            }
+        }
+        Files.move(compacted.toPath(), this.file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        this.journal = writer(this.file, true);
+        return new ArrayList<>(entries.values());
+    }
+
+    /**
+     * @return when the store was last closed, or null if it was not closed cleanly
+     */
+    public Date stoppedAt() {
+        return this.stoppedAt;
+    }
+
+    public synchronized void add(Entry entry) throws IOException {
+        append(addLine(entry));
+    }
+
+    public synchronized void remove(String id) throws IOException {
+        append(REMOVE + " " + id + "\n");
+    }
+
+    public synchronized void close() {
+        if (this.journal == null) {
+            return;
+        }
+        try {
+            append(STOPPED + " " + System.currentTimeMillis() + "\n");
+            this.journal.close();
+        } catch (IOException e) {
+            log.error("Could not close the trigger store " + this.file, e);
+        }
+        this.journal = null;
+    }
+
+    private void append(String line) throws IOException {
+        if (this.journal == null) {
+            throw new IOException("Trigger store is not open: " + this.file);
+        }
+        this.journal.write(line);
+        this.journal.flush();
+    }
+
+    private static String addLine(Entry entry) {
+        return ADD + " " + entry.id() + " " + entry.misfire() + " " + entry.cron() + "\n";
+    }
+
+    private static Writer writer(File file, boolean append) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, append), StandardCharsets.UTF_8));
+    }
+
+    private final File file;
+    private Writer journal;
+    private Date stoppedAt;
+}
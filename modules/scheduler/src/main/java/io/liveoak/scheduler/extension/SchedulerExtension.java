@@ -1,6 +1,7 @@
 package io.liveoak.scheduler.extension;
 
 import io.liveoak.scheduler.SchedulerServices;
+import io.liveoak.scheduler.SchedulerSettings;
 import io.liveoak.scheduler.service.SchedulerAdminResourceService;
 import io.liveoak.scheduler.service.SchedulerResourceService;
 import io.liveoak.scheduler.service.SchedulerService;
@@ -30,12 +31,14 @@ public class SchedulerExtension implements Extension {
 
         ServiceTarget target = context.target();
         ServiceName name = SchedulerServices.scheduler(appId, context.resourceId());
-        SchedulerService scheduler = new SchedulerService(appId + "/" + context.resourceId());
+        SchedulerSettings settings = new SchedulerSettings();
+        SchedulerService scheduler = new SchedulerService(appId + "/" + context.resourceId(), settings);
 
         target.addService(name, scheduler)
                 .install();
 
-        SchedulerResourceService publicResource = new SchedulerResourceService(context.resourceId());
+        SchedulerResourceService publicResource = new SchedulerResourceService(context.resourceId(), settings,
+                settings.dataDir(appId, context.resourceId()));
 
         target.addService(Services.resource(appId, context.resourceId()), publicResource)
                 .addDependency(Services.NOTIFIER, Notifier.class, publicResource.notifierInjector())
@@ -1,6 +1,10 @@
 package io.liveoak.scheduler.service;
 
+import java.io.File;
+
 import io.liveoak.scheduler.SchedulerResource;
+import io.liveoak.scheduler.SchedulerSettings;
+import io.liveoak.scheduler.TriggerStore;
 import io.liveoak.spi.resource.async.Notifier;
 import org.jboss.msc.inject.Injector;
 import org.jboss.msc.service.Service;
@@ -16,19 +20,41 @@ import org.quartz.Scheduler;
 public class SchedulerResourceService implements Service<SchedulerResource> {
 
     public SchedulerResourceService(String id) {
+        this(id, new SchedulerSettings(), null);
+    }
+
+    /**
+     * @param dir directory of the files of the resource, or null to not keep any
+     */
+    public SchedulerResourceService(String id, SchedulerSettings settings, File dir) {
         this.id = id;
+        this.settings = settings;
+        this.dir = dir;
     }
 
     @Override
     public void start(StartContext context) throws StartException {
+        TriggerStore store = null;
+        if (this.dir != null && this.settings.persistent()) {
+            store = new TriggerStore(this.dir);
+        }
         this.resource = new SchedulerResource(
                 this.id,
                 this.schedulerInjector.getValue(),
-                this.notifierInjector.getValue());
+                this.notifierInjector.getValue(),
+                this.settings,
+                store,
+                this.dir);
+        try {
+            this.resource.start();
+        } catch (Exception e) {
+            throw new StartException(e);
+        }
     }
 
     @Override
     public void stop(StopContext context) {
+        this.resource.stop();
         this.resource = null;
     }
 
@@ -46,6 +72,8 @@ public class SchedulerResourceService implements Service<SchedulerResource> {
     }
 
     private String id;
+    private SchedulerSettings settings;
+    private File dir;
 
     private InjectedValue<Scheduler> schedulerInjector = new InjectedValue<>();
     private InjectedValue<Notifier> notifierInjector = new InjectedValue<>();
@@ -2,6 +2,7 @@ package io.liveoak.scheduler.service;
 
 import java.util.Properties;
 
+import io.liveoak.scheduler.SchedulerSettings;
 import org.jboss.logging.Logger;
 import org.jboss.msc.service.Service;
 import org.jboss.msc.service.StartContext;
@@ -19,7 +20,12 @@ public class SchedulerService implements Service<Scheduler> {
     private static final Logger log = Logger.getLogger(SchedulerService.class);
 
     public SchedulerService(String name) {
+        this(name, new SchedulerSettings());
+    }
+
+    public SchedulerService(String name, SchedulerSettings settings) {
         this.name = name;
+        this.settings = settings;
     }
 
     @Override
@@ -57,12 +63,13 @@ public class SchedulerService implements Service<Scheduler> {
         props.setProperty("org.quartz.scheduler.wrapJobExecutionInUserTransaction", "false");
 
         props.setProperty("org.quartz.threadPool.class", "org.quartz.simpl.SimpleThreadPool");
-        props.setProperty("org.quartz.threadPool.threadCount", "10");
+        props.setProperty("org.quartz.threadPool.threadCount", String.valueOf(this.settings.threadCount()));
         props.setProperty("org.quartz.threadPool.threadPriority", "5");
         props.setProperty("org.quartz.threadPool.threadsInheritContextClassLoaderOfInitializingThread", "true");
 
-        props.setProperty("org.quartz.jobStore.misfireThreshold", "60000");
+        props.setProperty("org.quartz.jobStore.misfireThreshold", String.valueOf(this.settings.misfireThreshold()));
 
+        // triggers are persisted by the scheduler resource, see TriggerStore
         props.setProperty("org.quartz.jobStore.class", "org.quartz.simpl.RAMJobStore");
 
         return props;
@@ -70,6 +77,7 @@ public class SchedulerService implements Service<Scheduler> {
     }
 
     private String name;
+    private SchedulerSettings settings;
 
     private Scheduler scheduler;
 }
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.scheduler;
+
+import java.io.File;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Test;
+import org.quartz.JobExecutionContext;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class FireHistoryTest {
+
+    @Test
+    public void keepsMostRecentFires() {
+        FireHistory history = new FireHistory(3, null);
+        for (int i = 1; i <= 5; i++) {
+            history.add(fire(i));
+        }
+
+        assertThat(ids(history.fires())).isEqualTo(Arrays.asList("fire-3", "fire-4", "fire-5"));
+        assertThat(history.total()).isEqualTo(5L);
+    }
+
+    @Test
+    public void logsEvictedFires() throws Exception {
+        File dir = Files.createTempDirectory("fire-history").toFile();
+        FireLog log = new FireLog(new File(dir, "trigger"), 1024 * 1024);
+        FireHistory history = new FireHistory(2, log);
+        for (int i = 1; i <= 4; i++) {
+            history.add(fire(i));
+        }
+
+        assertThat(ids(history.fires())).isEqualTo(Arrays.asList("fire-3", "fire-4"));
+        assertThat(log.fireTimes()).isEqualTo(Arrays.asList(new Date(1000), new Date(2000)));
+
+        history.deleteLog();
+        assertThat(log.fireTimes().isEmpty()).isTrue();
+        dir.delete();
+    }
+
+    @Test
+    public void rollsLogOver() throws Exception {
+        File dir = Files.createTempDirectory("fire-log").toFile();
+        File file = new File(dir, "trigger");
+        // room for about one record
+        FireLog log = new FireLog(file, 20);
+        log.append(fire(1));
+        log.append(fire(2));
+        log.append(fire(3));
+
+        assertThat(log.fireTimes()).isEqualTo(Arrays.asList(new Date(3000)));
+        assertThat(new File(dir, "trigger.1").exists()).isTrue();
+
+        log.delete();
+        dir.delete();
+    }
+
+    private static FireResource fire(int i) {
+        JobExecutionContext context = (JobExecutionContext) Proxy.newProxyInstance(FireHistoryTest.class.getClassLoader(),
+                new Class[] {JobExecutionContext.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getFireInstanceId":
+                            return "fire-" + i;
+                        case "getFireTime":
+                        case "getScheduledFireTime":
+                            return new Date(i * 1000L);
+                        default:
+                            return null;
+                    }
+                });
+        return new FireResource(null, context);
+    }
+
+    private static List<String> ids(List<FireResource> fires) {
+        List<String> ids = new ArrayList<>();
+        for (FireResource fire : fires) {
+            ids.add(fire.id());
+        }
+        return ids;
+    }
+}
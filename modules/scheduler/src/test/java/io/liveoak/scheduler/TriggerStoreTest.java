@@ -0,0 +1,48 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.scheduler;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class TriggerStoreTest {
+
+    @Test
+    public void triggersSurviveRestart() throws Exception {
+        File dir = Files.createTempDirectory("trigger-store").toFile();
+
+        TriggerStore store = new TriggerStore(dir);
+        assertThat(store.open().isEmpty()).isTrue();
+        assertThat(store.stoppedAt()).isNull();
+        store.add(new TriggerStore.Entry("a", "* * * * * ?", MisfirePolicy.SMART));
+        store.add(new TriggerStore.Entry("b", "0 0/5 * * * ?", MisfirePolicy.SKIP));
+        store.add(new TriggerStore.Entry("c", "0 0 12 * * ?", MisfirePolicy.FIRE_ONCE));
+        store.remove("a");
+        store.close();
+
+        store = new TriggerStore(dir);
+        List<TriggerStore.Entry> entries = store.open();
+        assertThat(store.stoppedAt()).isNotNull();
+        assertThat(entries.size()).isEqualTo(2);
+        assertThat(entries.get(0).id()).isEqualTo("b");
+        assertThat(entries.get(0).cron()).isEqualTo("0 0/5 * * * ?");
+        assertThat(entries.get(0).misfire()).isEqualTo(MisfirePolicy.SKIP);
+        assertThat(entries.get(1).id()).isEqualTo("c");
+        assertThat(entries.get(1).misfire()).isEqualTo(MisfirePolicy.FIRE_ONCE);
+
+        // compacted to the remaining triggers
+        assertThat(Files.readAllLines(new File(dir, "triggers").toPath()).size()).isEqualTo(2);
+        store.close();
+
+        new File(dir, "triggers").delete();
+        dir.delete();
+    }
+}
@@ -17,10 +17,12 @@ public class ScheduledScriptManagerService implements Service<ScheduledScriptMan
     @Override
     public void start(StartContext startContext) throws StartException {
         this.manager = new ScheduledScriptManager(null, libraryManagerInjector.getValue());
+        this.manager.prewarm();
     }
 
     @Override
     public void stop(StopContext stopContext) {
+        manager.shutdown();
         manager = null;
     }
 
@@ -3,6 +3,7 @@ package io.liveoak.scripts.common;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.script.ScriptEngine;
 import javax.script.ScriptEngineFactory;
@@ -22,6 +23,10 @@ public abstract class Script {
     ByteBuf scriptBuffer;
     private List<Function> provides = new ArrayList<>();
     Integer timeout;
+    private volatile long version = VERSIONS.incrementAndGet();
+    private final ScriptMetrics metrics = new ScriptMetrics();
+
+    private static final AtomicLong VERSIONS = new AtomicLong();
 
     protected abstract Function[] getFunctions();
 
@@ -100,6 +105,19 @@ public abstract class Script {
         if (scriptBuffer != null) {
             analyseProvides();
         }
+        this.version = VERSIONS.incrementAndGet();
+    }
+
+    /**
+     * Identifies the current source of this script; changes whenever the source does, and is
+     * never shared with another script.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public ScriptMetrics getMetrics() {
+        return metrics;
     }
 
     public List<Function> getProvides() {
@@ -1,11 +1,8 @@
 package io.liveoak.scripts.common;
 
-import java.nio.charset.Charset;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
 import io.liveoak.common.DefaultResourceErrorResponse;
@@ -23,11 +20,8 @@ import io.liveoak.scripts.objects.impl.exception.LiveOakUpdateNotSupportedExcept
 import io.liveoak.scripts.objects.scripting.ScriptingResourceRequest;
 import io.liveoak.scripts.resource.ScriptConfig;
 import io.liveoak.spi.ResourceErrorResponse;
-import org.dynjs.Config;
 import org.dynjs.exception.ThrowException;
-import org.dynjs.runtime.DynJS;
 import org.dynjs.runtime.GlobalObject;
-import org.dynjs.runtime.Runner;
 import org.jboss.logging.Logger;
 
 /**
@@ -37,12 +31,14 @@ public class ScriptManager {
 
     LibraryManager libraryManager;
     ScriptConfig scriptConfig;
+    private final ScriptRuntime runtime;
 
     protected static final Logger log = Logger.getLogger("io.liveoak.scripts");
 
     public ScriptManager(ScriptConfig scriptConfig, LibraryManager libraryManager) {
         this.libraryManager = libraryManager;
         this.scriptConfig = scriptConfig;
+        this.runtime = new ScriptRuntime(this::configureGlobalObject);
     }
 
     protected Object getLibrary(Script script) {
@@ -56,102 +52,32 @@ public class ScriptManager {
     }
 
     protected Object runScript(String functionName, Script script, Object... functionArguments) throws Exception {
-        CompletableFuture<Object> future = new CompletableFuture<>();
-
-        Thread myThread = new Thread(new Runnable() {
-            @Override
-            public void run() {
-               try {
-                   future.complete(executeScript(functionName, script, functionArguments));
-                } catch (Exception e) {
-                   e.printStackTrace();
-                   future.complete(e);
-                }
-            }
-        });
-
-        myThread.start();
-
-        try {
-            Integer timeout = script.timeout;
-            if (timeout == null) {
-                //TODO: remove this once the script config is a separate service and not part of the main root resource
-                if (scriptConfig != null) {
-                    timeout = scriptConfig.getTimeout();
-                } else {
-                    timeout = ScriptConfig.DEFAULT_TIMEOUT;
-                }
-            }
-            return future.get(timeout, TimeUnit.MILLISECONDS);
-        } catch (InterruptedException e) {
-            return e;
-        } catch (ExecutionException e) {
-            if (e.getCause() != null && e.getCause() instanceof LiveOakException) {
-                return e.getCause();
+        Integer timeout = script.timeout;
+        if (timeout == null) {
+            //TODO: remove this once the script config is a separate service and not part of the main root resource
+            if (scriptConfig != null) {
+                timeout = scriptConfig.getTimeout();
             } else {
-                if (e.getCause() != null && e.getCause() instanceof Exception) {
-                    throw (Exception) e.getCause();
-                }
-                else {
-                    throw e;
-                }
-            }
-        } catch (TimeoutException e) {
-            // The script ran too long and we need to stop it.
-            // First try to interrupt the thread, then, if that doesn't
-            // work after another timeout, go nuclear and stop the thread itself.
-            future.cancel(true);
-            myThread.interrupt();
-            log.error("A script went over the timeout. Interrupting the thread.");
-            Long startTime = System.currentTimeMillis();
-            while (myThread.isAlive()) {
-                if (System.currentTimeMillis() - startTime >= 5000 ) {
-                    log.error("A resource based script did not terminate after the timeout. Killing the thread.");
-                    myThread.stop();
-                    break;
-                } else {
-                    Thread.sleep(10);
-                }
+                timeout = ScriptConfig.DEFAULT_TIMEOUT;
             }
+        }
 
-            return e;
+        Object result = runtime.call(script, functionName, timeout, functionArguments);
+        if (result instanceof Throwable && !(result instanceof Exception)) {
+            throw new ExecutionException((Throwable) result);
         }
+        return result;
     }
 
-    protected Object executeScript(String functionName, Script script, Object... functionArguments) {
-        Config config = new Config();
-        config.setCompileMode(Config.CompileMode.OFF); //TODO: probably shouldn't be needed, check with a newer version of DynJS
-
-        DynJS dynJS = new DynJS(config);
-
-        GlobalObject globalObject = dynJS.getDefaultExecutionContext().getGlobalObject();
-        configureGlobalObject(globalObject);
-
-        dynJS.evaluate(script.getScriptBuffer().toString(Charset.forName("UTF-8")));
-
-        String source = configureFunction(globalObject, functionName, functionArguments);
-        Runner runner = dynJS.newRunner();
-        runner.withSource(source);
-
-        return runner.evaluate();
+    /**
+     * Create the script engine contexts ahead of the first calls.
+     */
+    public void prewarm() {
+        runtime.prewarm();
     }
 
-    protected String configureFunction(GlobalObject globalObject, String functionName, Object... args) {
-        //TODO: figure out the right approach to adding parameters to functions
-        String prefix = "__liveoak_" + functionName;
-
-        String source = functionName + "(" ;
-        for (int i = 0; i< args.length; i++) {
-            String argString = prefix + "_" + i;
-            globalObject.put(argString, args[i]);
-
-            source += argString;
-            if (i + 1 < args.length) {
-                source += ", ";
-            }
-        }
-
-        return source + ")";
+    public void shutdown() {
+        runtime.shutdown();
     }
 
     protected void configureGlobalObject(GlobalObject globalObject) {
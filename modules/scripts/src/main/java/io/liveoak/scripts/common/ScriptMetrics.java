@@ -0,0 +1,117 @@
+package io.liveoak.scripts.common;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Call counts and a latency histogram for a single script.
+ *
+ * <p>Latencies are bucketed by upper bound in milliseconds; the last bucket takes everything above
+ * the largest bound.</p>
+ */
+public class ScriptMetrics {
+
+    public static final long[] BUCKETS = {1, 2, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000};
+
+    public ScriptMetrics() {
+        this.histogram = new LongAdder[BUCKETS.length + 1];
+        for (int i = 0; i < this.histogram.length; ++i) {
+            this.histogram[i] = new LongAdder();
+        }
+    }
+
+    void recordCompile(boolean cached) {
+        if (cached) {
+            this.compileHits.increment();
+        } else {
+            this.compileMisses.increment();
+        }
+    }
+
+    void recordCall(long nanos, boolean failed) {
+        this.calls.increment();
+        if (failed) {
+            this.errors.increment();
+        }
+        this.totalNanos.add(nanos);
+
+        long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+        int bucket = 0;
+        while (bucket < BUCKETS.length && millis > BUCKETS[bucket]) {
+            ++bucket;
+        }
+        this.histogram[bucket].increment();
+    }
+
+    void recordTimeout() {
+        this.timeouts.increment();
+    }
+
+    public long calls() {
+        return this.calls.sum();
+    }
+
+    public long errors() {
+        return this.errors.sum();
+    }
+
+    public long timeouts() {
+        return this.timeouts.sum();
+    }
+
+    public long compileHits() {
+        return this.compileHits.sum();
+    }
+
+    public long compileMisses() {
+        return this.compileMisses.sum();
+    }
+
+    /**
+     * Fraction of calls which found the script already compiled in their engine context.
+     */
+    public double compileHitRate() {
+        long hits = compileHits();
+        long total = hits + compileMisses();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    public long[] histogram() {
+        long[] counts = new long[this.histogram.length];
+        for (int i = 0; i < counts.length; ++i) {
+            counts[i] = this.histogram[i].sum();
+        }
+        return counts;
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        long calls = calls();
+        result.put("calls", calls);
+        result.put("errors", errors());
+        result.put("timeouts", timeouts());
+        result.put("compile-hits", compileHits());
+        result.put("compile-misses", compileMisses());
+        result.put("compile-hit-rate", compileHitRate());
+        result.put("mean-millis", calls == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(this.totalNanos.sum() / calls));
+
+        Map<String, Object> latency = new LinkedHashMap<>();
+        long[] counts = histogram();
+        for (int i = 0; i < BUCKETS.length; ++i) {
+            latency.put("le-" + BUCKETS[i], counts[i]);
+        }
+        latency.put("gt-" + BUCKETS[BUCKETS.length - 1], counts[BUCKETS.length]);
+        result.put("latency", latency);
+        return result;
+    }
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder compileHits = new LongAdder();
+    private final LongAdder compileMisses = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAdder[] histogram;
+}
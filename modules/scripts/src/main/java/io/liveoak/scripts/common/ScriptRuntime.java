@@ -0,0 +1,417 @@
+package io.liveoak.scripts.common;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import io.liveoak.scripts.objects.impl.exception.LiveOakException;
+import org.dynjs.Config;
+import org.dynjs.runtime.DynJS;
+import org.dynjs.runtime.ExecutionContext;
+import org.dynjs.runtime.GlobalObject;
+import org.jboss.logging.Logger;
+
+/**
+ * Runs script functions on a bounded pool of reusable engine contexts.
+ *
+ * <p>Each context is a configured DynJS runtime which parses a script's source the first time it is
+ * called with it, and again only when the source changes. The parsed script is kept as a function
+ * which runs the script's top-level code afresh on every call, so no call sees the variables of an
+ * earlier one, and the functions of one script never clash with those of another. After each call,
+ * globals the script left behind are removed and the configured globals are put back.</p>
+ *
+ * <p>There is one worker thread per context. On a timeout the caller stops waiting, the worker is
+ * interrupted and script calls back into LiveOak fail through {@link #checkDeadline()}. The context
+ * of the timed out call is poisoned and never reused. Its permit is given back and an extra worker
+ * takes its place, so other calls go on. A script which still runs after a grace period is stopped
+ * outright. While as many scripts as there are contexts are held that way, calls are refused.</p>
+ *
+ * <p>The pool size is read from the <code>liveoak.scripts.pool-size</code> system property and
+ * defaults to the number of processors. The grace period, in milliseconds, is read from
+ * <code>liveoak.scripts.stop-after</code> and defaults to 5000.</p>
+ */
+public class ScriptRuntime {
+
+    public static final String POOL_SIZE = "liveoak.scripts.pool-size";
+    public static final String STOP_AFTER = "liveoak.scripts.stop-after";
+
+    public static final long DEFAULT_STOP_AFTER = 5000;
+
+    public ScriptRuntime(Consumer<GlobalObject> globalConfigurer) {
+        this(Integer.getInteger(POOL_SIZE, Runtime.getRuntime().availableProcessors()), globalConfigurer);
+    }
+
+    public ScriptRuntime(int poolSize, Consumer<GlobalObject> globalConfigurer) {
+        this(poolSize, Long.getLong(STOP_AFTER, DEFAULT_STOP_AFTER), globalConfigurer);
+    }
+
+    public ScriptRuntime(int poolSize, long stopAfter, Consumer<GlobalObject> globalConfigurer) {
+        this.poolSize = poolSize;
+        this.stopAfter = stopAfter;
+        this.permits = new Semaphore(poolSize);
+        this.globalConfigurer = globalConfigurer;
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), (r) -> {
+            Thread thread = new Thread(r, "liveoak-scripts-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }) {
+            @Override
+            protected void afterExecute(Runnable r, Throwable t) {
+                // also reached when a stopped script's ThreadDeath escapes the call
+                if (r instanceof Call && ((Call) r).abandoned()) {
+                    poisoned.decrementAndGet();
+                    resize(-1);
+                }
+            }
+        };
+        this.stopper = Executors.newSingleThreadScheduledExecutor((r) -> {
+            Thread thread = new Thread(r, "liveoak-scripts-stopper");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Create the engine contexts up front, in the background, so the first calls do not pay for it.
+     */
+    public void prewarm() {
+        try {
+            this.executor.execute(() -> {
+                try {
+                    while (this.idle.size() < this.poolSize) {
+                        this.idle.add(new EngineContext());
+                    }
+                } catch (Throwable t) {
+                    log.debug("Could not prewarm script engine contexts", t);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // shut down
+        }
+    }
+
+    /**
+     * Call a function of a script. Failures, including timeouts, are returned rather than thrown.
+     */
+    public Object call(Script script, String functionName, long timeout, Object... args) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        if (this.poisoned.get() >= this.poolSize) {
+            return new RejectedExecutionException("Every script engine context is held by a script which went over its timeout");
+        }
+        try {
+            if (!this.permits.tryAcquire(timeout, TimeUnit.MILLISECONDS)) {
+                script.getMetrics().recordTimeout();
+                return new TimeoutException("No script engine became available within " + timeout + "ms");
+            }
+        } catch (InterruptedException e) {
+            return e;
+        }
+
+        Call call = new Call(script, functionName, args, deadline);
+        try {
+            this.executor.execute(call);
+        } catch (RejectedExecutionException e) {
+            this.permits.release();
+            return e;
+        }
+
+        try {
+            return call.result.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            if (call.abandon()) {
+                script.getMetrics().recordTimeout();
+                log.error("Script " + script.getId() + " went over its timeout of " + timeout + "ms. Interrupting it and poisoning its engine context.");
+                return e;
+            }
+            // it completed in the meantime
+            return call.result.getNow(e);
+        } catch (InterruptedException e) {
+            call.abandon();
+            return e;
+        } catch (ExecutionException e) {
+            return e.getCause();
+        }
+    }
+
+    /**
+     * Fail if the script running on this thread is past its deadline. Called from the objects which
+     * scripts use to call back into LiveOak.
+     */
+    public static void checkDeadline() throws LiveOakException {
+        Long deadline = DEADLINE.get();
+        if (deadline != null && (System.nanoTime() - deadline > 0 || Thread.currentThread().isInterrupted())) {
+            throw new LiveOakException("The script went over its timeout.");
+        }
+    }
+
+    public long abandoned() {
+        return this.abandoned.sum();
+    }
+
+    /**
+     * @return the number of contexts still held by scripts which went over their timeout
+     */
+    public int poisoned() {
+        return this.poisoned.get();
+    }
+
+    public int idle() {
+        return this.idle.size();
+    }
+
+    public void shutdown() {
+        this.executor.shutdownNow();
+        this.stopper.shutdownNow();
+        this.idle.clear();
+    }
+
+    /**
+     * Grow the pool by a worker for each script held past its timeout, and shrink it again once the
+     * script is gone.
+     */
+    private synchronized void resize(int delta) {
+        int size = this.executor.getMaximumPoolSize() + delta;
+        if (delta > 0) {
+            this.executor.setMaximumPoolSize(size);
+            this.executor.setCorePoolSize(size);
+        } else {
+            this.executor.setCorePoolSize(size);
+            this.executor.setMaximumPoolSize(size);
+        }
+    }
+
+    private String slot(Script script) {
+        return this.slots.computeIfAbsent(script.getId(), (id) -> "__liveoak_script_" + this.slotCounter.incrementAndGet());
+    }
+
+    private class Call implements Runnable {
+
+        Call(Script script, String functionName, Object[] args, long deadline) {
+            this.script = script;
+            this.functionName = functionName;
+            this.args = args;
+            this.deadline = deadline;
+        }
+
+        /**
+         * @return true if the call was abandoned, false if it had already completed.
+         */
+        boolean abandon() {
+            if (!this.state.compareAndSet(RUNNING, ABANDONED)) {
+                return false;
+            }
+            abandoned.increment();
+            // the worker and its context stay with the script until it returns, another worker takes its place
+            poisoned.incrementAndGet();
+            resize(1);
+            permits.release();
+            Thread thread = this.thread;
+            if (thread != null) {
+                thread.interrupt();
+            }
+            try {
+                stopper.schedule(this::stop, stopAfter, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // shut down
+            }
+            return true;
+        }
+
+        boolean abandoned() {
+            return this.state.get() == ABANDONED;
+        }
+
+        /**
+         * Stop the worker if the script is still running on it. The worker clears {@link #thread} while
+         * holding the same lock, so the worker is never stopped once it has left the script.
+         */
+        @SuppressWarnings("deprecation")
+        private synchronized void stop() {
+            Thread thread = this.thread;
+            if (thread != null) {
+                log.error("Script " + this.script.getId() + " did not stop " + stopAfter + "ms after its timeout. Stopping its thread.");
+                thread.stop();
+            }
+        }
+
+        @Override
+        public void run() {
+            if (this.state.get() != RUNNING) {
+                // abandoned before it started
+                return;
+            }
+            synchronized (this) {
+                this.thread = Thread.currentThread();
+            }
+            DEADLINE.set(this.deadline);
+
+            EngineContext context = null;
+            Object result;
+            long start = System.nanoTime();
+            boolean failed = false;
+            try {
+                context = idle.poll();
+                if (context == null) {
+                    context = new EngineContext();
+                }
+                result = context.call(this.script, this.functionName, this.args);
+            } catch (Throwable t) {
+                log.debug("Script " + this.script.getId() + " failed in " + this.functionName, t);
+                result = t;
+                failed = true;
+            } finally {
+                synchronized (this) {
+                    this.thread = null;
+                }
+                DEADLINE.remove();
+            }
+
+            if (this.state.compareAndSet(RUNNING, DONE)) {
+                this.script.getMetrics().recordCall(System.nanoTime() - start, failed);
+                if (context != null && idle.size() < poolSize) {
+                    idle.add(context);
+                }
+                permits.release();
+                this.result.complete(result);
+            }
+            // otherwise the poisoned context is dropped, a fresh one takes its place on the next call
+            // clear an interrupt aimed at this call before the thread is reused
+            Thread.interrupted();
+        }
+
+        private final Script script;
+        private final String functionName;
+        private final Object[] args;
+        private final long deadline;
+        private final AtomicInteger state = new AtomicInteger(RUNNING);
+        private volatile Thread thread;
+        final CompletableFuture<Object> result = new CompletableFuture<>();
+    }
+
+    private class EngineContext {
+
+        EngineContext() {
+            Config config = new Config();
+            config.setCompileMode(Config.CompileMode.OFF);
+
+            this.dynJS = new DynJS(config);
+            this.globalObject = this.dynJS.getDefaultExecutionContext().getGlobalObject();
+            configureGlobals();
+            this.configuredGlobals = new HashSet<>(this.globalObject.getOwnPropertyNames().toList());
+        }
+
+        Object call(Script script, String functionName, Object[] args) {
+            String slot = slot(script);
+            Long loaded = this.loaded.get(slot);
+            boolean cached = loaded != null && loaded == script.getVersion();
+            script.getMetrics().recordCompile(cached);
+            if (!cached) {
+                // record the version before evaluating, the source may change underneath us
+                long version = script.getVersion();
+                this.dynJS.evaluate(wrap(slot, script));
+                this.loaded.put(slot, version);
+            }
+
+            StringBuilder source = new StringBuilder(slot).append("().").append(functionName).append('(');
+            for (int i = 0; i < args.length; i++) {
+                String argName = "__liveoak_arg_" + i;
+                this.globalObject.put(argName, args[i]);
+                if (i > 0) {
+                    source.append(", ");
+                }
+                source.append(argName);
+            }
+            source.append(')');
+
+            try {
+                return this.dynJS.newRunner().withSource(source.toString()).evaluate();
+            } finally {
+                for (int i = 0; i < args.length; i++) {
+                    this.globalObject.put("__liveoak_arg_" + i, null);
+                }
+                resetGlobals();
+            }
+        }
+
+        private void configureGlobals() {
+            globalConfigurer.accept(this.globalObject);
+        }
+
+        /**
+         * Remove globals a script created by assigning to undeclared names, and put back the configured
+         * ones, so the next script run in this context sees none of the changes.
+         */
+        private void resetGlobals() {
+            ExecutionContext context = this.dynJS.getDefaultExecutionContext();
+            for (String name : this.globalObject.getOwnPropertyNames().toList()) {
+                if (!name.startsWith("__liveoak_") && !this.configuredGlobals.contains(name)) {
+                    this.globalObject.delete(context, name, false);
+                }
+            }
+            configureGlobals();
+        }
+
+        /**
+         * The script becomes the body of a function, called on every call, which returns the script's
+         * functions.
+         */
+        private String wrap(String slot, Script script) {
+            StringBuilder source = new StringBuilder("var ").append(slot).append(" = function() {\n");
+            source.append(script.getScriptBuffer().toString(StandardCharsets.UTF_8));
+            source.append("\n;\nreturn {");
+            boolean first = true;
+            for (Function function : script.getProvides()) {
+                String name = function.getFunctionName();
+                if (!first) {
+                    source.append(", ");
+                }
+                first = false;
+                source.append(name).append(": (typeof ").append(name).append(" === 'function' ? ").append(name).append(" : undefined)");
+            }
+            return source.append("};\n};").toString();
+        }
+
+        private final DynJS dynJS;
+        private final GlobalObject globalObject;
+        private final Set<String> configuredGlobals;
+        private final Map<String, Long> loaded = new HashMap<>();
+    }
+
+    private static final int RUNNING = 0;
+    private static final int DONE = 1;
+    private static final int ABANDONED = 2;
+
+    private static final ThreadLocal<Long> DEADLINE = new ThreadLocal<>();
+
+    private final int poolSize;
+    private final long stopAfter;
+    private final Semaphore permits;
+    private final Consumer<GlobalObject> globalConfigurer;
+    private final ThreadPoolExecutor executor;
+    private final ScheduledExecutorService stopper;
+    private final ConcurrentLinkedQueue<EngineContext> idle = new ConcurrentLinkedQueue<>();
+    private final Map<String, String> slots = new ConcurrentHashMap<>();
+    private final AtomicInteger slotCounter = new AtomicInteger();
+    private final LongAdder abandoned = new LongAdder();
+    private final AtomicInteger poisoned = new AtomicInteger();
+
+    private static final Logger log = Logger.getLogger("io.liveoak.scripts");
+}
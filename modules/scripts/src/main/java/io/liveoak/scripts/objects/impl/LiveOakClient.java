@@ -11,6 +11,7 @@ import io.liveoak.common.DefaultRequestContext;
 import io.liveoak.common.DefaultResourceParams;
 import io.liveoak.common.DefaultReturnFields;
 import io.liveoak.common.codec.DefaultResourceState;
+import io.liveoak.scripts.common.ScriptRuntime;
 import io.liveoak.scripts.objects.LocalClient;
 import io.liveoak.scripts.objects.Resource;
 import io.liveoak.scripts.objects.Util;
@@ -36,6 +37,7 @@ public class LiveOakClient implements LocalClient {
 
     @Override
     public Resource create(String path, Resource resource) throws Exception {
+        ScriptRuntime.checkDeadline();
         try {
             ResourceState resourceState = client.create(new DefaultRequestContext.Builder().build(), URLDecoder.decode(path, "UTF-8"), toResourceState(resource));
             return new LiveOakResource(resourceState);
@@ -46,6 +48,7 @@ public class LiveOakClient implements LocalClient {
 
     @Override
     public Resource read(String path) throws Exception {
+        ScriptRuntime.checkDeadline();
         try {
             ResourceState resourceState = client.read(new DefaultRequestContext.Builder().build(), URLDecoder.decode(path, "UTF-8"));
             return new LiveOakResource(resourceState);
@@ -59,6 +62,7 @@ public class LiveOakClient implements LocalClient {
 
     @Override
     public Resource update(String path, Resource resource) throws Exception {
+        ScriptRuntime.checkDeadline();
         try {
             ResourceState resourceState = client.update(new DefaultRequestContext.Builder().build(), URLDecoder.decode(path, "UTF-8"), toResourceState(resource));
             return new LiveOakResource(resourceState);
@@ -69,6 +73,7 @@ public class LiveOakClient implements LocalClient {
 
     @Override
     public Resource delete(String path) throws Exception {
+        ScriptRuntime.checkDeadline();
         try {
             ResourceState resourceState = client.delete(new DefaultRequestContext.Builder().build(), URLDecoder.decode(path, "UTF-8"));
             return new LiveOakResource(resourceState);
@@ -79,6 +84,7 @@ public class LiveOakClient implements LocalClient {
 
     @Override
     public Resource create(String path, Resource resource, Map<String, Object> parameters) throws Exception {
+        ScriptRuntime.checkDeadline();
         try {
             ResourceState resourceState = client.create(generateRequestContext(parameters), URLDecoder.decode(path, "UTF-8"), toResourceState(resource));
             return new LiveOakResource(resourceState);
@@ -89,6 +95,7 @@ public class LiveOakClient implements LocalClient {
 
     @Override
     public Resource read(String path, Map<String, Object> parameters) throws Exception {
+        ScriptRuntime.checkDeadline();
         try {
             ResourceState resourceState = client.read(generateRequestContext(parameters), URLDecoder.decode(path, "UTF-8"));
             return new LiveOakResource(resourceState);
@@ -102,6 +109,7 @@ public class LiveOakClient implements LocalClient {
 
     @Override
     public Resource update(String path, Resource resource, Map<String, Object> parameters) throws Exception {
+        ScriptRuntime.checkDeadline();
         try {
             ResourceState resourceState = client.update(generateRequestContext(parameters), URLDecoder.decode(path, "UTF-8"), toResourceState(resource));
             return new LiveOakResource(resourceState);
@@ -112,6 +120,7 @@ public class LiveOakClient implements LocalClient {
 
     @Override
     public Resource delete(String path, Map<String, Object> parameters) throws Exception {
+        ScriptRuntime.checkDeadline();
         try {
             ResourceState resourceState = client.delete(generateRequestContext(parameters), URLDecoder.decode(path, "UTF-8"));
             return new LiveOakResource(resourceState);
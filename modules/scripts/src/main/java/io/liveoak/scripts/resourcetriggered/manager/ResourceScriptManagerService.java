@@ -20,6 +20,7 @@ public class ResourceScriptManagerService implements Service<ResourceScriptManag
     @Override
     public void start(StartContext startContext) throws StartException {
         this.scriptManager = new ResourceScriptManager(scriptRegistryInjector.getValue(), scriptRootInjector.getValue().getScriptConfig(), libraryManagerInjector.getValue());
+        this.scriptManager.prewarm();
         // add the manager to the script interceptor
         interceptorInjector.getValue().addManager(applicationNameInjector.getValue(), this.scriptManager);
     }
@@ -28,6 +29,7 @@ public class ResourceScriptManagerService implements Service<ResourceScriptManag
     public void stop(StopContext stopContext) {
         // remove the manager from the script interceptor
         interceptorInjector.getValue().removeManager(applicationNameInjector.getValue());
+        this.scriptManager.shutdown();
         this.scriptManager = null;
     }
 
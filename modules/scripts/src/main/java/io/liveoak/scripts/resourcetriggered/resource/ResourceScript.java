@@ -32,6 +32,7 @@ public class ResourceScript implements Resource {
     protected static final String PRIORITY = "priority";
     protected static final String PROVIDES = "provides";
     protected static final String TIMEOUT = "timeout";
+    protected static final String METRICS = "metrics";
 
     private ResourceScripts parent;
 
@@ -156,6 +157,7 @@ public class ResourceScript implements Resource {
         sink.accept(LIBRARIES, script.getLibraries());
         sink.accept(PROVIDES, script.getProvides());
         sink.accept(TIMEOUT, script.getTimeout());
+        sink.accept(METRICS, script.getMetrics().toMap());
         sink.complete();
     }
 
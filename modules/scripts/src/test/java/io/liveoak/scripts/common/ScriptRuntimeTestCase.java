@@ -0,0 +1,136 @@
+package io.liveoak.scripts.common;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+
+import io.netty.buffer.Unpooled;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class ScriptRuntimeTestCase {
+
+    private ScriptRuntime runtime;
+
+    @Before
+    public void setUp() {
+        this.runtime = new ScriptRuntime(1, (globalObject) -> {});
+    }
+
+    @After
+    public void tearDown() {
+        this.runtime.shutdown();
+    }
+
+    @Test
+    public void testScriptIsEvaluatedOnce() throws Exception {
+        TestScript script = new TestScript("counter", "var count = 0; function execute(step) { count += step; return count; }");
+
+        // parsed once, but every call starts from the script's own top-level state
+        assertThat(((Number) this.runtime.call(script, "execute", 1000, 1)).intValue()).isEqualTo(1);
+        assertThat(((Number) this.runtime.call(script, "execute", 1000, 2)).intValue()).isEqualTo(2);
+
+        assertThat(script.getMetrics().compileMisses()).isEqualTo(1);
+        assertThat(script.getMetrics().compileHits()).isEqualTo(1);
+        assertThat(script.getMetrics().calls()).isEqualTo(2);
+    }
+
+    @Test
+    public void testChangedScriptIsReevaluated() throws Exception {
+        TestScript script = new TestScript("changing", "function execute() { return 'first'; }");
+        assertThat(this.runtime.call(script, "execute", 1000)).isEqualTo("first");
+
+        script.setScriptBuffer(Unpooled.copiedBuffer("function execute() { return 'second'; }".getBytes("UTF-8")));
+        assertThat(this.runtime.call(script, "execute", 1000)).isEqualTo("second");
+        assertThat(script.getMetrics().compileMisses()).isEqualTo(2);
+    }
+
+    @Test
+    public void testScriptsDoNotShareFunctions() throws Exception {
+        TestScript first = new TestScript("first", "function execute() { return 'first'; }");
+        TestScript second = new TestScript("second", "function execute() { return 'second'; }");
+
+        assertThat(this.runtime.call(first, "execute", 1000)).isEqualTo("first");
+        assertThat(this.runtime.call(second, "execute", 1000)).isEqualTo("second");
+        assertThat(this.runtime.call(first, "execute", 1000)).isEqualTo("first");
+    }
+
+    @Test
+    public void testTimedOutContextIsPoisoned() throws Exception {
+        TestScript slow = new TestScript("slow", "function execute() { var end = Date.now() + 1000; while (Date.now() < end) {} return 'late'; }");
+        assertThat(this.runtime.call(slow, "execute", 100)).isInstanceOf(TimeoutException.class);
+        assertThat(slow.getMetrics().timeouts()).isEqualTo(1);
+        assertThat(this.runtime.abandoned()).isEqualTo(1);
+
+        // the only context is held by the runaway script, so work is refused rather than queued
+        TestScript quick = new TestScript("quick", "function execute() { return 'done'; }");
+        assertThat(this.runtime.poisoned()).isEqualTo(1);
+        assertThat(this.runtime.call(quick, "execute", 1000)).isInstanceOf(RejectedExecutionException.class);
+
+        // once it returns, a fresh context takes its place
+        long deadline = System.currentTimeMillis() + 10000;
+        while (this.runtime.poisoned() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(this.runtime.poisoned()).isEqualTo(0);
+        assertThat(this.runtime.call(quick, "execute", 1000)).isEqualTo("done");
+        assertThat(this.runtime.idle()).isEqualTo(1);
+    }
+
+    @Test
+    public void testLeakedGlobalsAreCleared() throws Exception {
+        TestScript leaking = new TestScript("leaking", "function execute() { leaked = 'value'; return typeof leaked; }");
+        TestScript reading = new TestScript("reading", "function execute() { return typeof leaked; }");
+
+        assertThat(this.runtime.call(leaking, "execute", 1000)).isEqualTo("string");
+        assertThat(this.runtime.call(reading, "execute", 1000)).isEqualTo("undefined");
+    }
+
+    @Test
+    public void testConfiguredGlobalsAreRestored() throws Exception {
+        this.runtime.shutdown();
+        this.runtime = new ScriptRuntime(1, (globalObject) -> globalObject.put("configured", "value"));
+
+        TestScript overwriting = new TestScript("overwriting", "function execute() { configured = 'changed'; return configured; }");
+        TestScript reading = new TestScript("reading", "function execute() { return configured; }");
+
+        assertThat(this.runtime.call(overwriting, "execute", 1000)).isEqualTo("changed");
+        assertThat(this.runtime.call(reading, "execute", 1000)).isEqualTo("value");
+    }
+
+    @Test
+    public void testRunawayScriptIsStopped() throws Exception {
+        this.runtime.shutdown();
+        this.runtime = new ScriptRuntime(2, 200, (globalObject) -> {});
+
+        TestScript runaway = new TestScript("runaway", "function execute() { while (true) {} }");
+        TestScript quick = new TestScript("quick", "function execute() { return 'done'; }");
+        assertThat(this.runtime.call(runaway, "execute", 100)).isInstanceOf(TimeoutException.class);
+
+        // another worker takes the place of the one held by the runaway script
+        assertThat(this.runtime.poisoned()).isEqualTo(1);
+        assertThat(this.runtime.call(quick, "execute", 1000)).isEqualTo("done");
+
+        // and the runaway script is stopped once its grace period is over
+        long deadline = System.currentTimeMillis() + 10000;
+        while (this.runtime.poisoned() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(this.runtime.poisoned()).isEqualTo(0);
+        assertThat(this.runtime.call(quick, "execute", 1000)).isEqualTo("done");
+    }
+
+    private static class TestScript extends Script {
+
+        TestScript(String id, String source) throws Exception {
+            super(id, id, null, true, null, null, Unpooled.copiedBuffer(source.getBytes("UTF-8")));
+        }
+
+        @Override
+        protected Function[] getFunctions() {
+            return new Function[]{() -> "execute"};
+        }
+    }
+}
@@ -13,5 +13,7 @@ public class AclPolicyConstants {
 
     public static final String ATTR_CREATED_RESOURCE_RESPONSE = "ATTR_CREATED_RESOURCE_RESPONSE";
 
+    public static final String ATTR_BULK_ITEM_RESPONSES = "ATTR_BULK_ITEM_RESPONSES";
+
     public static final String RESOURCE_LISTENER_RESOURCE_ID = "resourceListener";
 }
@@ -0,0 +1,244 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package io.liveoak.security.policy.acl.impl;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.mongodb.DBObject;
+import io.liveoak.common.security.AuthzDecision;
+import io.liveoak.spi.RequestType;
+import io.liveoak.spi.security.SecurityContext;
+
+/**
+ * In-memory copy of the ACE collection, keyed by resource path and then by realm.
+ *
+ * <p>For every user and role the actions an ACE permits or denies are folded into a single
+ * <code>int</code>: bit <code>n</code> permits and bit <code>n + 16</code> denies the
+ * {@link RequestType} with ordinal <code>n</code>. Each indexed path holds every ACE stored for it,
+ * so a decision made from the index is the same as one made from Mongo.</p>
+ *
+ * <p>The index holds at most <code>liveoak.acl.index.max-entries</code> paths, evicting the least
+ * recently used. While nothing has been evicted and the collection was loaded in full, a path which
+ * is not indexed has no ACEs at all; otherwise {@link #decide} answers <code>null</code> and the
+ * caller has to go to Mongo.</p>
+ */
+public class AclIndex {
+
+    public static final String MAX_ENTRIES_PROPERTY = "liveoak.acl.index.max-entries";
+
+    public static final int DEFAULT_MAX_ENTRIES = 100000;
+
+    private static final int DENY_SHIFT = 16;
+
+    public AclIndex(int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<String, Aces>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Aces> eldest) {
+                if (size() > AclIndex.this.maxEntries) {
+                    AclIndex.this.complete = false;
+                    AclIndex.this.evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public static AclIndex fromProperties(Properties props) {
+        return new AclIndex(Integer.parseInt(props.getProperty(MAX_ENTRIES_PROPERTY, String.valueOf(DEFAULT_MAX_ENTRIES))));
+    }
+
+    /**
+     * Decision for a request from the indexed ACEs, or <code>null</code> if the path is not known to the index.
+     */
+    public synchronized AuthzDecision decide(String resourcePath, RequestType type, SecurityContext securityContext) {
+        Aces aces = this.entries.get(resourcePath);
+        if (aces == null) {
+            if (this.complete) {
+                this.hits.increment();
+                return AuthzDecision.IGNORE;
+            }
+            this.misses.increment();
+            return null;
+        }
+        this.hits.increment();
+        return aces.decide(type, securityContext);
+    }
+
+    /**
+     * Replace the whole index with the given ACEs, which must cover the complete collection unless
+     * <code>complete</code> is false.
+     */
+    public synchronized void reset(Map<String, Aces> loaded, boolean complete) {
+        this.entries.clear();
+        this.complete = true;
+        this.entries.putAll(loaded);
+        this.complete = this.complete && complete;
+        this.modifications++;
+    }
+
+    /**
+     * Counter of changes made through {@link #add} and {@link #remove}, to detect ACEs read from Mongo
+     * which may have gone stale in the meantime.
+     */
+    public synchronized long modifications() {
+        return this.modifications;
+    }
+
+    /**
+     * Index ACEs read from Mongo, unless the index changed since the read started.
+     */
+    public synchronized boolean putAll(Map<String, Aces> loaded, long modifications) {
+        if (this.modifications != modifications) {
+            return false;
+        }
+        loaded.forEach((path, aces) -> {
+            if (!this.entries.containsKey(path)) {
+                this.entries.put(path, aces);
+            }
+        });
+        return true;
+    }
+
+    public synchronized void add(DBObject ace) {
+        this.modifications++;
+        String path = (String) ace.get(AclPolicy.ACE_RESOURCE_PATH);
+        Aces aces = this.entries.get(path);
+        if (aces == null) {
+            if (!this.complete) {
+                // the path is loaded from Mongo, new ACE included, once it's asked for
+                return;
+            }
+            aces = new Aces();
+            this.entries.put(path, aces);
+        }
+        aces.add(ace);
+    }
+
+    public synchronized void remove(String resourcePath) {
+        this.modifications++;
+        this.entries.remove(resourcePath);
+    }
+
+    public synchronized void clear() {
+        this.modifications++;
+        this.entries.clear();
+        this.complete = false;
+    }
+
+    public synchronized int size() {
+        return this.entries.size();
+    }
+
+    public synchronized boolean isComplete() {
+        return this.complete;
+    }
+
+    public int maxEntries() {
+        return this.maxEntries;
+    }
+
+    public long hits() {
+        return this.hits.sum();
+    }
+
+    public long misses() {
+        return this.misses.sum();
+    }
+
+    public long evictions() {
+        return this.evictions.sum();
+    }
+
+    static int bit(String action) {
+        try {
+            return 1 << RequestType.valueOf(action).ordinal();
+        } catch (IllegalArgumentException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * All ACEs of a single resource path.
+     */
+    public static class Aces {
+
+        public void add(DBObject ace) {
+            int actions = 0;
+            Object value = ace.get(AclPolicy.ACE_ACTIONS);
+            if (value instanceof Object[]) {
+                for (Object action : (Object[]) value) {
+                    actions |= bit(String.valueOf(action));
+                }
+            } else if (value instanceof Collection) {
+                for (Object action : (Collection<?>) value) {
+                    actions |= bit(String.valueOf(action));
+                }
+            }
+            if (!Boolean.TRUE.equals(ace.get(AclPolicy.ACE_PERMITTED))) {
+                actions <<= DENY_SHIFT;
+            }
+
+            Principals principals = this.realms.computeIfAbsent((String) ace.get(AclPolicy.ACE_REALM), (realm) -> new Principals());
+            String userId = (String) ace.get(AclPolicy.ACE_USER_ID);
+            if (userId != null) {
+                principals.users.merge(userId, actions, (a, b) -> a | b);
+            }
+            String roleName = (String) ace.get(AclPolicy.ACE_ROLE_NAME);
+            if (roleName != null) {
+                principals.roles.merge(roleName, actions, (a, b) -> a | b);
+            }
+        }
+
+        public AuthzDecision decide(RequestType type, SecurityContext securityContext) {
+            Principals principals = this.realms.get(securityContext.getRealm());
+            if (principals == null) {
+                return AuthzDecision.IGNORE;
+            }
+
+            int actions = principals.users.getOrDefault(securityContext.getSubject(), 0);
+            if (securityContext.getRoles() != null) {
+                for (String role : securityContext.getRoles()) {
+                    actions |= principals.roles.getOrDefault(role, 0);
+                }
+            }
+
+            // For now, always merge. No rule priorities...
+            int bit = 1 << type.ordinal();
+            AuthzDecision decision = AuthzDecision.IGNORE;
+            if ((actions & bit) != 0) {
+                decision = decision.mergeDecision(AuthzDecision.ACCEPT);
+            }
+            if ((actions & (bit << DENY_SHIFT)) != 0) {
+                decision = decision.mergeDecision(AuthzDecision.REJECT);
+            }
+            return decision;
+        }
+
+        private final Map<String, Principals> realms = new HashMap<>(2);
+    }
+
+    private static class Principals {
+        final Map<String, Integer> users = new HashMap<>(2);
+        final Map<String, Integer> roles = new HashMap<>(2);
+    }
+
+    private final int maxEntries;
+    private final LinkedHashMap<String, Aces> entries;
+    private boolean complete;
+    private long modifications;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+}
@@ -6,8 +6,13 @@
 
 package io.liveoak.security.policy.acl.impl;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicReference;
 
 import com.mongodb.BasicDBObject;
@@ -16,8 +21,8 @@ import com.mongodb.DBCursor;
 import com.mongodb.DBObject;
 import io.liveoak.common.codec.DefaultResourceState;
 import io.liveoak.common.security.AuthzDecision;
+import io.liveoak.common.security.AuthzDecisionCache;
 import io.liveoak.spi.RequestContext;
-import io.liveoak.spi.RequestType;
 import io.liveoak.spi.ResourcePath;
 import io.liveoak.spi.ResourceResponse;
 import io.liveoak.spi.security.SecurityContext;
@@ -33,6 +38,7 @@ public class AclPolicy {
 
     private final AtomicReference<AclPolicyConfig> policyConfig = new AtomicReference<>();
     private DBCollection aclCollection;
+    private final AclIndex index;
 
     public static final String ACE_REALM = "realm";
     public static final String ACE_USER_ID = "userId";
@@ -41,12 +47,66 @@ public class AclPolicy {
     public static final String ACE_ACTIONS = "actions";
     public static final String ACE_PERMITTED = "permitted";
 
+    // Paths looked up in Mongo with a single query
+    private static final int LOAD_BATCH_SIZE = 500;
+
     public AclPolicy(DBCollection aclCollection) {
+        this(aclCollection, AclIndex.fromProperties(System.getProperties()));
+    }
+
+    public AclPolicy(DBCollection aclCollection, AclIndex index) {
         this.aclCollection = aclCollection;
+        this.index = index;
+    }
+
+    /**
+     * Fill the ACE index from the collection, as far as it fits.
+     */
+    public void loadIndex() {
+        this.aclCollection.ensureIndex(new BasicDBObject(ACE_RESOURCE_PATH, 1));
+
+        Map<String, AclIndex.Aces> loaded = new HashMap<>();
+        boolean complete = true;
+        String currentPath = null;
+        AclIndex.Aces current = null;
+
+        // Sorted by path, so a path is only indexed once all of its ACEs are read
+        DBCursor cursor = this.aclCollection.find().sort(new BasicDBObject(ACE_RESOURCE_PATH, 1));
+        try {
+            for (DBObject ace : cursor) {
+                String path = (String) ace.get(ACE_RESOURCE_PATH);
+                if (!path.equals(currentPath)) {
+                    if (current != null) {
+                        loaded.put(currentPath, current);
+                    }
+                    if (loaded.size() >= this.index.maxEntries()) {
+                        current = null;
+                        complete = false;
+                        break;
+                    }
+                    currentPath = path;
+                    current = new AclIndex.Aces();
+                }
+                current.add(ace);
+            }
+        } finally {
+            cursor.close();
+        }
+        if (current != null) {
+            loaded.put(currentPath, current);
+        }
+
+        this.index.reset(loaded, complete);
+        log.debugf("Loaded ACEs of %d resources, complete: %s", loaded.size(), complete);
+    }
+
+    public AclIndex index() {
+        return this.index;
     }
 
     public void setPolicyConfig(AclPolicyConfig policyConfig) {
         this.policyConfig.set(policyConfig);
+        AuthzDecisionCache.invalidateAll();
     }
 
     public ResourceState autocreateAce(ResourceResponse createdResourceResponse) {
@@ -77,22 +137,81 @@ public class AclPolicy {
         DBObject query = new BasicDBObject();
         query.put(ACE_RESOURCE_PATH, deletedResourcePath.toString());
         this.aclCollection.remove(query);
+        this.index.remove(deletedResourcePath.toString());
+        AuthzDecisionCache.invalidateAll();
 
         log.debugf("Deleted ACEs for path: %s", deletedResourcePath);
         return deletedEntries;
     }
 
+    /**
+     * Create and delete the ACEs of the items of a bulk request, with one write to the ACL collection for each.
+     */
+    public ResourceState updateAces(List<ResourceResponse> itemResponses) {
+        ResourceState createdEntries = new DefaultResourceState("createdEntries");
+
+        List<AutoRuleConfig> autoRules = this.policyConfig.get().getAutoRules();
+        List<DBObject> created = new ArrayList<>();
+        Set<String> deleted = new LinkedHashSet<>();
+        for (ResourceResponse response : itemResponses) {
+            if (response.responseType() == ResourceResponse.ResponseType.CREATED) {
+                String parentResourceURI = response.inReplyTo().resourcePath().toString();
+                String createdResourceURI = parentResourceURI + "/" + response.resource().id();
+                SecurityContext securityContext = response.inReplyTo().requestContext().securityContext();
+                for (AutoRuleConfig autoRule : autoRules) {
+                    if (autoRule.getResourcePath().equals(parentResourceURI)) {
+                        created.add(aceObject(createdResourceURI, securityContext, autoRule));
+                    }
+                }
+            } else if (response.responseType() == ResourceResponse.ResponseType.DELETED) {
+                String deletedResourceURI = response.inReplyTo().resourcePath().toString();
+                // deleted later in the same request
+                created.removeIf((ace) -> deletedResourceURI.equals(ace.get(ACE_RESOURCE_PATH)));
+                deleted.add(deletedResourceURI);
+            }
+        }
+
+        if (!deleted.isEmpty()) {
+            this.aclCollection.remove(new BasicDBObject(ACE_RESOURCE_PATH, new BasicDBObject("$in", new ArrayList<>(deleted))));
+            deleted.forEach(this.index::remove);
+            log.debugf("Deleted ACEs for %d paths", deleted.size());
+        }
+        if (!created.isEmpty()) {
+            this.aclCollection.insert(created);
+            created.forEach(this.index::add);
+            log.debugf("Created %d ACEs", created.size());
+        }
+        if (!deleted.isEmpty() || !created.isEmpty()) {
+            AuthzDecisionCache.invalidateAll();
+        }
+
+        for (DBObject ace : created) {
+            createdEntries.addMember(aceState(ace));
+        }
+        return createdEntries;
+    }
+
     private ResourceState createACE(String createdResourceURI, SecurityContext securityContext, AutoRuleConfig autoRuleConfig) {
+        DBObject dbObject = aceObject(createdResourceURI, securityContext, autoRuleConfig);
+        this.aclCollection.insert(dbObject);
+        this.index.add(dbObject);
+        AuthzDecisionCache.invalidateAll();
+
+        log.debug("Created ACE: " + dbObject);
+        return aceState(dbObject);
+    }
+
+    private DBObject aceObject(String createdResourceURI, SecurityContext securityContext, AutoRuleConfig autoRuleConfig) {
         DBObject dbObject = new BasicDBObject();
         dbObject.put(ACE_REALM, securityContext.getRealm());
         dbObject.put(ACE_USER_ID, securityContext.getSubject());
         dbObject.put(ACE_RESOURCE_PATH, createdResourceURI);
         dbObject.put(ACE_ACTIONS, autoRuleConfig.getAutoAddedOwnerPermissions().toArray());
         dbObject.put(ACE_PERMITTED, true);
-        this.aclCollection.insert(dbObject);
-
-        log.debug("Created ACE: " + dbObject);
+        return dbObject;
+    }
 
+    private ResourceState aceState(DBObject dbObject) {
         ResourceState createdState = new DefaultResourceState();
         for (String key : dbObject.keySet()) {
             createdState.putProperty(key, dbObject.get(key));
@@ -101,43 +220,78 @@ public class AclPolicy {
     }
 
     public AuthzDecision isAuthorized(RequestContext req) {
-        RequestType reqType = req.requestType();
-        ResourcePath resourcePath = req.resourcePath();
-        SecurityContext securityContext = req.securityContext();
-
-        BasicDBObject query = new BasicDBObject();
-        query.put(ACE_REALM, securityContext.getRealm());
-        query.put(ACE_RESOURCE_PATH, resourcePath.toString());
-        query.put(ACE_ACTIONS, reqType.toString());
-
-        // Pass if we find rule for either "userId" or some of his roles
-        List<DBObject> userRolesCondition = new LinkedList<>();
-        userRolesCondition.add(new BasicDBObject(ACE_USER_ID, securityContext.getSubject()));
-        if (securityContext.getRoles() != null) {
-            for (String role : securityContext.getRoles()) {
-                userRolesCondition.add(new BasicDBObject(ACE_ROLE_NAME, role));
+        return isAuthorized(Collections.singletonList(req)).get(0);
+    }
+
+    /**
+     * Decide on several requests at once. Paths not in the index are read from Mongo with as few queries as possible.
+     */
+    public List<AuthzDecision> isAuthorized(List<RequestContext> reqs) {
+        AuthzDecision[] decisions = new AuthzDecision[reqs.size()];
+        Set<String> missing = new LinkedHashSet<>();
+        for (int i = 0; i < decisions.length; ++i) {
+            RequestContext req = reqs.get(i);
+            decisions[i] = this.index.decide(req.resourcePath().toString(), req.requestType(), req.securityContext());
+            if (decisions[i] == null) {
+                missing.add(req.resourcePath().toString());
             }
         }
-        query.put("$or", userRolesCondition);
 
-        if (log.isTraceEnabled()) {
-            log.trace("Sending ACE query: " + query);
+        if (!missing.isEmpty()) {
+            long modifications = this.index.modifications();
+            Map<String, AclIndex.Aces> loaded = load(missing);
+            for (int i = 0; i < decisions.length; ++i) {
+                if (decisions[i] == null) {
+                    RequestContext req = reqs.get(i);
+                    decisions[i] = loaded.get(req.resourcePath().toString()).decide(req.requestType(), req.securityContext());
+                }
+            }
+            // Only once decided from, as indexed ACEs can change under the index lock
+            this.index.putAll(loaded, modifications);
         }
 
-        DBCursor results = this.aclCollection.find(query);
+        List<AuthzDecision> result = new ArrayList<>(decisions.length);
+        Collections.addAll(result, decisions);
+        return result;
+    }
 
-        AuthzDecision decision = AuthzDecision.IGNORE;
-        for (DBObject result : results) {
-            boolean currentDec = (Boolean) result.get(ACE_PERMITTED);
+    private Map<String, AclIndex.Aces> load(Set<String> paths) {
+        Map<String, AclIndex.Aces> loaded = new HashMap<>();
+        for (String path : paths) {
+            loaded.put(path, new AclIndex.Aces());
+        }
 
-            // For now, always merge. No rule priorities...
-            AuthzDecision currentDecision = currentDec ? AuthzDecision.ACCEPT : AuthzDecision.REJECT;
-            decision = decision.mergeDecision(currentDecision);
+        List<String> batch = new ArrayList<>(Math.min(paths.size(), LOAD_BATCH_SIZE));
+        for (String path : paths) {
+            batch.add(path);
+            if (batch.size() == LOAD_BATCH_SIZE) {
+                load(batch, loaded);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            load(batch, loaded);
+        }
+        return loaded;
+    }
 
-            if (log.isTraceEnabled()) {
-                log.trace("Found result: " + result);
+    private void load(List<String> paths, Map<String, AclIndex.Aces> loaded) {
+        DBObject query = new BasicDBObject(ACE_RESOURCE_PATH, new BasicDBObject("$in", paths));
+
+        if (log.isTraceEnabled()) {
+            log.trace("Sending ACE query: " + query);
+        }
+
+        DBCursor results = this.aclCollection.find(query);
+        try {
+            for (DBObject result : results) {
+                if (log.isTraceEnabled()) {
+                    log.trace("Found result: " + result);
+                }
+                loaded.get((String) result.get(ACE_RESOURCE_PATH)).add(result);
             }
+        } finally {
+            results.close();
         }
-        return decision;
     }
 }
@@ -6,6 +6,8 @@
 
 package io.liveoak.security.policy.acl.integration;
 
+import java.util.List;
+
 import io.liveoak.common.util.ResourceConversionUtils;
 import io.liveoak.security.policy.acl.AclPolicyConstants;
 import io.liveoak.security.policy.acl.impl.AclPolicy;
@@ -45,9 +47,12 @@ public class AclListenerResource implements Resource {
         try {
             if (policy != null) {
                 ResourceResponse resourceResponse = ctx.requestAttributes() != null ? ctx.requestAttributes().getAttribute(AclPolicyConstants.ATTR_CREATED_RESOURCE_RESPONSE, ResourceResponse.class) : null;
+                List<ResourceResponse> itemResponses = ctx.requestAttributes() != null ? ctx.requestAttributes().getAttribute(AclPolicyConstants.ATTR_BULK_ITEM_RESPONSES, List.class) : null;
                 ResourceState result = null;
 
-                if (resourceResponse == null) {
+                if (itemResponses != null) {
+                    result = policy.updateAces(itemResponses);
+                } else if (resourceResponse == null) {
                     responder.invalidRequest("Attribute with resource response of created resource not available");
                     return;
                 } else if (resourceResponse.responseType() == ResourceResponse.ResponseType.CREATED) {
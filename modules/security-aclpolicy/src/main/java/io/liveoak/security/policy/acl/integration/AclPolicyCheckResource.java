@@ -1,5 +1,8 @@
 package io.liveoak.security.policy.acl.integration;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import io.liveoak.common.security.AuthzConstants;
 import io.liveoak.common.security.AuthzDecision;
 import io.liveoak.security.policy.acl.impl.AclPolicy;
@@ -37,6 +40,12 @@ public class AclPolicyCheckResource implements Resource {
 
     @Override
     public void readProperties(RequestContext ctx, PropertySink sink) throws Exception {
+        List<RequestContext> reqCtxsToAuthorize = ctx.requestAttributes() != null ? ctx.requestAttributes().getAttribute(AuthzConstants.ATTR_REQUEST_CONTEXTS, List.class) : null;
+        if (reqCtxsToAuthorize != null) {
+            readBulkProperties(ctx, reqCtxsToAuthorize, sink);
+            return;
+        }
+
         AuthzDecision decision = null;
 
         try {
@@ -61,6 +70,29 @@ public class AclPolicyCheckResource implements Resource {
         }
 
         sink.accept(AuthzConstants.ATTR_AUTHZ_POLICY_RESULT, decision.toString());
+        sink.accept(AuthzConstants.ATTR_AUTHZ_POLICY_CACHEABLE, true);
+        sink.complete();
+    }
+
+    /**
+     * Decide on several requests at once, answering with one decision per request, in order.
+     */
+    protected void readBulkProperties(RequestContext ctx, List<RequestContext> reqCtxsToAuthorize, PropertySink sink) throws Exception {
+        List<String> results = new ArrayList<>(reqCtxsToAuthorize.size());
+        try {
+            if (policy != null) {
+                policy.isAuthorized(reqCtxsToAuthorize).forEach((decision) -> results.add(decision.toString()));
+            } else {
+                reqCtxsToAuthorize.forEach((reqCtx) -> results.add(AuthzDecision.IGNORE.toString()));
+            }
+        } catch (Throwable t) {
+            log.error("Error during authz check", t);
+            results.clear();
+            reqCtxsToAuthorize.forEach((reqCtx) -> results.add(AuthzDecision.REJECT.toString()));
+        }
+
+        sink.accept(AuthzConstants.ATTR_AUTHZ_POLICY_RESULTS, results);
+        sink.accept(AuthzConstants.ATTR_AUTHZ_POLICY_CACHEABLE, true);
         sink.complete();
     }
 }
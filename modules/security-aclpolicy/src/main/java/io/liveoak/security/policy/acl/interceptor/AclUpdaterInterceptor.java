@@ -6,6 +6,9 @@
 
 package io.liveoak.security.policy.acl.interceptor;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import io.liveoak.common.DefaultRequestAttributes;
 import io.liveoak.common.codec.DefaultResourceState;
 import io.liveoak.security.policy.acl.AclPolicyConstants;
@@ -17,6 +20,7 @@ import io.liveoak.spi.client.Client;
 import io.liveoak.spi.client.ClientResourceResponse;
 import io.liveoak.spi.container.interceptor.DefaultInterceptor;
 import io.liveoak.spi.container.interceptor.OutboundInterceptorContext;
+import io.liveoak.spi.resource.BulkResultResource;
 import org.jboss.logging.Logger;
 
 /**
@@ -45,25 +49,44 @@ public class AclUpdaterInterceptor extends DefaultInterceptor {
         ResourceResponse response = context.response();
 
         if (response.responseType() == ResourceResponse.ResponseType.CREATED || response.responseType() == ResourceResponse.ResponseType.DELETED) {
-            String prefix = getPrefix(context.request().resourcePath());
             RequestAttributes attribs = new DefaultRequestAttributes();
             attribs.setAttribute(AclPolicyConstants.ATTR_CREATED_RESOURCE_RESPONSE, context.response());
-            RequestContext aclUpdateRequest = new RequestContext.Builder().requestAttributes(attribs).build();
-
-            // TODO: For now it's hardcoded to 'acl-policy' . We should be able to handle the situation when resourceId is different
-            client.update(aclUpdateRequest, prefix + "/acl-policy/" + AclPolicyConstants.RESOURCE_LISTENER_RESOURCE_ID, new DefaultResourceState(), (updateResponse) -> {
-                if (updateResponse.responseType() == ClientResourceResponse.ResponseType.NO_SUCH_RESOURCE) {
-                    log.info("No acl-policy resource available. Listener ignored");
-                } else {
-                    log.debug("ACL Rules updated: " + updateResponse.state());
+            updateAcl(context, attribs);
+        } else if (response.resource() instanceof BulkResultResource) {
+            List<ResourceResponse> items = new ArrayList<>();
+            for (ResourceResponse item : ((BulkResultResource) response.resource()).itemResponses()) {
+                if (item.responseType() == ResourceResponse.ResponseType.CREATED || item.responseType() == ResourceResponse.ResponseType.DELETED) {
+                    items.add(item);
                 }
-
+            }
+            if (items.isEmpty()) {
                 context.forward();
-            });
+                return;
+            }
 
+            // one update for all the items
+            RequestAttributes attribs = new DefaultRequestAttributes();
+            attribs.setAttribute(AclPolicyConstants.ATTR_BULK_ITEM_RESPONSES, items);
+            updateAcl(context, attribs);
         } else {
             context.forward();
         }
     }
 
+    private void updateAcl(OutboundInterceptorContext context, RequestAttributes attribs) throws Exception {
+        String prefix = getPrefix(context.request().resourcePath());
+        RequestContext aclUpdateRequest = new RequestContext.Builder().requestAttributes(attribs).build();
+
+        // TODO: For now it's hardcoded to 'acl-policy' . We should be able to handle the situation when resourceId is different
+        client.update(aclUpdateRequest, prefix + "/acl-policy/" + AclPolicyConstants.RESOURCE_LISTENER_RESOURCE_ID, new DefaultResourceState(), (updateResponse) -> {
+            if (updateResponse.responseType() == ClientResourceResponse.ResponseType.NO_SUCH_RESOURCE) {
+                log.info("No acl-policy resource available. Listener ignored");
+            } else {
+                log.debug("ACL Rules updated: " + updateResponse.state());
+            }
+
+            context.forward();
+        });
+    }
+
 }
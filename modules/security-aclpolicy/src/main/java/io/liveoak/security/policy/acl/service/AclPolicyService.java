@@ -29,6 +29,7 @@ public class AclPolicyService implements Service<AclPolicy> {
         InternalStorage mongoStorage = this.mongoStorageInjector.getValue();
         DBCollection aclCollection = mongoStorage.getCollection();
         this.aclPolicy = new AclPolicy(aclCollection);
+        this.aclPolicy.loadIndex();
     }
 
     @Override
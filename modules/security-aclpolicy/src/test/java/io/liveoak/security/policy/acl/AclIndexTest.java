@@ -0,0 +1,108 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.security.policy.acl;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import io.liveoak.common.security.AuthzDecision;
+import io.liveoak.common.security.DefaultSecurityContext;
+import io.liveoak.security.policy.acl.impl.AclIndex;
+import io.liveoak.security.policy.acl.impl.AclPolicy;
+import io.liveoak.spi.RequestType;
+import io.liveoak.spi.security.SecurityContext;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AclIndexTest {
+
+    @Test
+    public void testDecisions() {
+        AclIndex index = new AclIndex(10);
+        index.reset(new HashMap<>(), true);
+
+        index.add(ace("/storage/todos/1", "john", null, true, "READ", "UPDATE"));
+        index.add(ace("/storage/todos/1", null, "admin", true, "DELETE"));
+        index.add(ace("/storage/todos/1", "john", null, false, "UPDATE"));
+
+        Assert.assertEquals(AuthzDecision.ACCEPT, index.decide("/storage/todos/1", RequestType.READ, securityContext("john")));
+        Assert.assertEquals(AuthzDecision.REJECT, index.decide("/storage/todos/1", RequestType.UPDATE, securityContext("john")));
+        Assert.assertEquals(AuthzDecision.IGNORE, index.decide("/storage/todos/1", RequestType.DELETE, securityContext("john")));
+        Assert.assertEquals(AuthzDecision.ACCEPT, index.decide("/storage/todos/1", RequestType.DELETE, securityContext("peter", "admin")));
+        Assert.assertEquals(AuthzDecision.IGNORE, index.decide("/storage/todos/1", RequestType.READ, securityContext("peter")));
+
+        // Complete index knows there are no ACEs for other paths
+        Assert.assertEquals(AuthzDecision.IGNORE, index.decide("/storage/todos/2", RequestType.READ, securityContext("john")));
+
+        index.remove("/storage/todos/1");
+        Assert.assertEquals(AuthzDecision.IGNORE, index.decide("/storage/todos/1", RequestType.READ, securityContext("john")));
+    }
+
+    @Test
+    public void testEviction() {
+        AclIndex index = new AclIndex(2);
+        index.reset(new HashMap<>(), true);
+
+        index.add(ace("/storage/todos/1", "john", null, true, "READ"));
+        index.add(ace("/storage/todos/2", "john", null, true, "READ"));
+        // Touch the first one, so the second is the least recently used
+        index.decide("/storage/todos/1", RequestType.READ, securityContext("john"));
+        index.add(ace("/storage/todos/3", "john", null, true, "READ"));
+
+        Assert.assertEquals(2, index.size());
+        Assert.assertEquals(1, index.evictions());
+        Assert.assertFalse(index.isComplete());
+        Assert.assertEquals(AuthzDecision.ACCEPT, index.decide("/storage/todos/1", RequestType.READ, securityContext("john")));
+        Assert.assertNull(index.decide("/storage/todos/2", RequestType.READ, securityContext("john")));
+
+        // Not indexed, so not worth indexing a single ACE of it
+        index.add(ace("/storage/todos/4", "john", null, true, "READ"));
+        Assert.assertNull(index.decide("/storage/todos/4", RequestType.READ, securityContext("john")));
+    }
+
+    @Test
+    public void testStaleLoadIsNotIndexed() {
+        AclIndex index = new AclIndex(10);
+
+        long modifications = index.modifications();
+        Map<String, AclIndex.Aces> loaded = new HashMap<>();
+        loaded.put("/storage/todos/1", new AclIndex.Aces());
+
+        index.remove("/storage/todos/1");
+        Assert.assertFalse(index.putAll(loaded, modifications));
+        Assert.assertEquals(0, index.size());
+
+        Assert.assertTrue(index.putAll(loaded, index.modifications()));
+        Assert.assertEquals(AuthzDecision.IGNORE, index.decide("/storage/todos/1", RequestType.READ, securityContext("john")));
+    }
+
+    private static DBObject ace(String path, String userId, String roleName, boolean permitted, String... actions) {
+        DBObject ace = new BasicDBObject();
+        ace.put(AclPolicy.ACE_REALM, "liveoak-apps");
+        if (userId != null) {
+            ace.put(AclPolicy.ACE_USER_ID, userId);
+        }
+        if (roleName != null) {
+            ace.put(AclPolicy.ACE_ROLE_NAME, roleName);
+        }
+        ace.put(AclPolicy.ACE_RESOURCE_PATH, path);
+        ace.put(AclPolicy.ACE_ACTIONS, Arrays.asList(actions));
+        ace.put(AclPolicy.ACE_PERMITTED, permitted);
+        return ace;
+    }
+
+    private static SecurityContext securityContext(String subject, String... roles) {
+        DefaultSecurityContext secCtx = new DefaultSecurityContext();
+        secCtx.setSubject(subject);
+        secCtx.setRoles(new HashSet<>(Arrays.asList(roles)));
+        secCtx.setRealm("liveoak-apps");
+        return secCtx;
+    }
+}
@@ -166,15 +166,51 @@ public class AclPolicyTestCase extends AbstractTestCase {
 
         testReq = createRequestContext("/storage/chat/789", "peter123", RequestType.READ);
         Assert.assertEquals(AuthzDecision.ACCEPT, aclPolicy.isAuthorized(testReq));
+
+
+        // Test #4 - Bulk check, with paths read from Mongo in one go
+        AclPolicy freshPolicy = new AclPolicy(db.getCollection("acl"));
+        List<AuthzDecision> decisions = freshPolicy.isAuthorized(Arrays.asList(
+                createRequestContext("/storage/todos/123", "john123", RequestType.READ),
+                createRequestContext("/storage/todos/789", "john123", RequestType.READ),
+                createRequestContext("/storage/chat/789", "peter123", RequestType.READ),
+                createRequestContext("/storage/chat/999", "peter123", RequestType.READ)));
+        Assert.assertEquals(Arrays.asList(AuthzDecision.ACCEPT, AuthzDecision.IGNORE, AuthzDecision.ACCEPT, AuthzDecision.IGNORE), decisions);
+        Assert.assertEquals(4, freshPolicy.index().size());
+
+        // Test #5 - Index loaded at startup, kept up to date on delete
+        freshPolicy.loadIndex();
+        Assert.assertTrue(freshPolicy.index().isComplete());
+        Assert.assertEquals(6, freshPolicy.index().size());
+        freshPolicy.deleteAce(createResourceResponse("/storage/todos/123", "123", "john123"));
+        testReq = createRequestContext("/storage/todos/123", "john123", RequestType.READ);
+        Assert.assertEquals(AuthzDecision.IGNORE, freshPolicy.isAuthorized(testReq));
+
+        // Test #6 - Bulk update, an ACE created and deleted within the same request is never written
+        ResourceState bulkState = aclPolicy.updateAces(Arrays.asList(
+                createResourceResponse("/storage/todos", "b1", "john123"),
+                createResourceResponse("/storage/todos", "b2", "john123"),
+                createResourceResponse(ResourceResponse.ResponseType.DELETED, "/storage/todos/b1", "b1", "john123")));
+        Assert.assertEquals(1, bulkState.members().size());
+        Assert.assertEquals("/storage/todos/b2", bulkState.members().get(0).getProperty(AclPolicy.ACE_RESOURCE_PATH));
+
+        testReq = createRequestContext("/storage/todos/b1", "john123", RequestType.READ);
+        Assert.assertEquals(AuthzDecision.IGNORE, aclPolicy.isAuthorized(testReq));
+        testReq = createRequestContext("/storage/todos/b2", "john123", RequestType.READ);
+        Assert.assertEquals(AuthzDecision.ACCEPT, aclPolicy.isAuthorized(testReq));
     }
 
     private ResourceResponse createResourceResponse(String parentResourcePath, String resourceId, String subject, String... roles) {
+        return createResourceResponse(ResourceResponse.ResponseType.CREATED, parentResourcePath, resourceId, subject, roles);
+    }
+
+    private ResourceResponse createResourceResponse(ResourceResponse.ResponseType responseType, String parentResourcePath, String resourceId, String subject, String... roles) {
         RequestContext reqContext = createRequestContext(parentResourcePath, subject, RequestType.CREATE, roles);
 
         ResourceRequest req = new DefaultResourceRequest.Builder(reqContext.requestType(), reqContext.resourcePath())
                 .requestContext(reqContext).build();
 
-        DefaultResourceResponse resourceResponse = new DefaultResourceResponse(req, ResourceResponse.ResponseType.CREATED, new Resource() {
+        DefaultResourceResponse resourceResponse = new DefaultResourceResponse(req, responseType, new Resource() {
 
             @Override
             public Resource parent() {
@@ -6,6 +6,9 @@
 
 package io.liveoak.security.policy.drools.integration;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import io.liveoak.common.security.AuthzConstants;
 import io.liveoak.common.security.AuthzDecision;
 import io.liveoak.security.policy.drools.impl.DroolsPolicy;
@@ -44,6 +47,12 @@ public class DroolsPolicyCheckResource implements Resource {
 
     @Override
     public void readProperties(RequestContext ctx, PropertySink sink) throws Exception {
+        List<RequestContext> reqCtxsToAuthorize = ctx.requestAttributes() != null ? ctx.requestAttributes().getAttribute(AuthzConstants.ATTR_REQUEST_CONTEXTS, List.class) : null;
+        if (reqCtxsToAuthorize != null) {
+            readBulkProperties(ctx, reqCtxsToAuthorize, sink);
+            return;
+        }
+
         AuthzDecision decision = null;
 
         try {
@@ -70,6 +79,33 @@ public class DroolsPolicyCheckResource implements Resource {
         }
 
         sink.accept(AuthzConstants.ATTR_AUTHZ_POLICY_RESULT, decision.toString());
+        sink.accept(AuthzConstants.ATTR_AUTHZ_POLICY_CACHEABLE, false);
+        sink.complete();
+    }
+
+    /**
+     * Decide on several requests at once, answering with one decision per request, in order.
+     */
+    protected void readBulkProperties(RequestContext ctx, List<RequestContext> reqCtxsToAuthorize, PropertySink sink) throws Exception {
+        List<ResourceState> reqResourceStates = ctx.requestAttributes().getAttribute(AuthzConstants.ATTR_REQUEST_RESOURCE_STATES, List.class);
+        List<ResourceState> respResourceStates = ctx.requestAttributes().getAttribute(AuthzConstants.ATTR_RESPONSE_RESOURCE_STATES, List.class);
+        List<String> results = new ArrayList<>(reqCtxsToAuthorize.size());
+        try {
+            for (int i = 0; i < reqCtxsToAuthorize.size(); i++) {
+                ResourceState reqResourceState = reqResourceStates != null ? reqResourceStates.get(i) : null;
+                ResourceState respResourceState = respResourceStates != null ? respResourceStates.get(i) : null;
+                AuthzDecision decision = policy != null ? policy.isAuthorized(reqCtxsToAuthorize.get(i), reqResourceState, respResourceState) : AuthzDecision.IGNORE;
+                results.add(decision.toString());
+            }
+        } catch (Throwable t) {
+            log.error("Error during authz check", t);
+            results.clear();
+            reqCtxsToAuthorize.forEach((reqCtx) -> results.add(AuthzDecision.REJECT.toString()));
+        }
+
+        sink.accept(AuthzConstants.ATTR_AUTHZ_POLICY_RESULTS, results);
+        // Rules may look at the resource state, which isn't part of the cache key
+        sink.accept(AuthzConstants.ATTR_AUTHZ_POLICY_CACHEABLE, false);
         sink.complete();
     }
 }
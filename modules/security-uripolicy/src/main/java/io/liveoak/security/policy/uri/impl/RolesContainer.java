@@ -111,19 +111,19 @@ public class RolesContainer {
     // GETTERS
 
     public Set<String> getAllowedRoles() {
-        return Collections.unmodifiableSet(allowedRoles);
+        return allowedRoles != null ? Collections.unmodifiableSet(allowedRoles) : Collections.emptySet();
     }
 
     public Set<String> getDeniedRoles() {
-        return Collections.unmodifiableSet(deniedRoles);
+        return deniedRoles != null ? Collections.unmodifiableSet(deniedRoles) : Collections.emptySet();
     }
 
     public Set<String> getAllowedUsers() {
-        return Collections.unmodifiableSet(allowedUsers);
+        return allowedUsers != null ? Collections.unmodifiableSet(allowedUsers) : Collections.emptySet();
     }
 
     public Set<String> getDeniedUsers() {
-        return Collections.unmodifiableSet(deniedUsers);
+        return deniedUsers != null ? Collections.unmodifiableSet(deniedUsers) : Collections.emptySet();
     }
 
     // CHECKS
@@ -6,13 +6,13 @@
 package io.liveoak.security.policy.uri.impl;
 
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicReference;
 
 import io.liveoak.common.security.AuthzDecision;
-import io.liveoak.common.util.ObjectsTree;
+import io.liveoak.common.security.AuthzDecisionCache;
 import io.liveoak.spi.RequestContext;
-import io.liveoak.spi.RequestType;
-import io.liveoak.spi.ResourcePath;
 import org.jboss.logging.Logger;
 
 /**
@@ -24,56 +24,30 @@ public class URIPolicy {
 
     private static final Logger log = Logger.getLogger(URIPolicy.class);
 
-    private final AtomicReference<ObjectsTree<URIPolicyRule>> rulesTree = new AtomicReference<>();
+    private final AtomicReference<URIPolicyMatcher> matcher = new AtomicReference<>();
 
     public AuthzDecision isAuthorized(RequestContext req) {
-        ResourcePath resourcePath = req.resourcePath();
-        DecisionHolder decisionHolder = new DecisionHolder();
-
-        rulesTree.get().objects(resourcePath).forEach((uriPolicyRule) -> {
-            ResourcePath currentRuleResourcePath = uriPolicyRule.getResourcePath();
-            if (decisionHolder.decision == null || currentRuleResourcePath.equals(decisionHolder.lastResourcePath)) {
-                AuthzDecision currentDecision = checkPermissions(uriPolicyRule, req);
-
-                if (log.isTraceEnabled()) {
-                    log.tracef("Checking resourcePath: %s, rule: %s, result: %s", resourcePath, uriPolicyRule.toString(), currentDecision.toString());
-                }
-
-                decisionHolder.lastResourcePath = currentRuleResourcePath;
-                if (decisionHolder.decision == null) {
-                    decisionHolder.decision = currentDecision;
-                } else {
-                    decisionHolder.decision = currentDecision.mergeDecision(decisionHolder.decision);
-                }
-            }
-        });
-
-        return decisionHolder.decision != null ? decisionHolder.decision : AuthzDecision.IGNORE;
-    }
-
-    public void setRulesTree(ObjectsTree<URIPolicyRule> rulesTree) {
-        this.rulesTree.set(rulesTree);
-    }
-
-    protected AuthzDecision checkPermissions(URIPolicyRule uriPolicyRule, RequestContext reqCtx) {
-        RequestType reqType = reqCtx.requestType();
-        boolean reqTypeMatches = false;
-        for (String currentReqType : uriPolicyRule.getRequestTypes()) {
-            if (reqType.matches(currentReqType)) {
-                reqTypeMatches = true;
-                break;
-            }
+        AuthzDecision decision = matcher.get().decide(req.resourcePath(), req.requestType(), req.securityContext());
+        if (log.isTraceEnabled()) {
+            log.tracef("Checking resourcePath: %s, requestType: %s, result: %s", req.resourcePath(), req.requestType(), decision);
         }
+        return decision;
+    }
 
-        if (reqTypeMatches) {
-            return uriPolicyRule.getRolesContainer().isRequestAllowed(reqCtx);
-        } else {
-            return AuthzDecision.IGNORE;
+    /**
+     * Decide on several requests at once, all against the same rules.
+     */
+    public List<AuthzDecision> isAuthorized(List<RequestContext> reqs) {
+        URIPolicyMatcher current = matcher.get();
+        List<AuthzDecision> decisions = new ArrayList<>(reqs.size());
+        for (RequestContext req : reqs) {
+            decisions.add(current.decide(req.resourcePath(), req.requestType(), req.securityContext()));
         }
+        return decisions;
     }
 
-    private static class DecisionHolder {
-        private AuthzDecision decision;
-        private ResourcePath lastResourcePath;
+    public void setMatcher(URIPolicyMatcher matcher) {
+        this.matcher.set(matcher);
+        AuthzDecisionCache.invalidateAll();
     }
 }
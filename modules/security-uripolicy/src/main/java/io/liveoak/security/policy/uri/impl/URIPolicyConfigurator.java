@@ -2,7 +2,6 @@ package io.liveoak.security.policy.uri.impl;
 
 import java.util.Collection;
 
-import io.liveoak.common.util.ObjectsTree;
 import io.liveoak.security.policy.uri.integration.URIPolicyConfig;
 import io.liveoak.security.policy.uri.integration.URIPolicyConfigRule;
 import io.liveoak.spi.ResourcePath;
@@ -14,10 +13,10 @@ import org.jboss.logging.Logger;
 public class URIPolicyConfigurator {
 
     private static final Logger log = Logger.getLogger(URIPolicyConfigurator.class);
-    private ObjectsTree<URIPolicyRule> rulesTree;
+    private URIPolicyMatcher.Builder rules;
 
     public void configure(URIPolicy policy, URIPolicyConfig uriPolicyConfig) {
-        this.rulesTree = new ObjectsTree<>();
+        this.rules = new URIPolicyMatcher.Builder();
 
         for (URIPolicyConfigRule cfgRule : uriPolicyConfig.getRules()) {
             addURIPolicyRule(new ResourcePath(cfgRule.getUriPattern()), cfgRule.getRequestTypes(),
@@ -25,7 +24,7 @@ public class URIPolicyConfigurator {
                     cfgRule.getAllowedUsers(), cfgRule.getDeniedUsers());
         }
 
-        policy.setRulesTree(this.rulesTree);
+        policy.setMatcher(this.rules.build());
         log.debug("URIPolicy configuration updated successfully");
     }
 
@@ -36,21 +35,8 @@ public class URIPolicyConfigurator {
                 .addAllAllowedUsers(allowedUsers).addAllDeniedUsers(deniedUsers);
         URIPolicyRule rule = new URIPolicyRule(resourcePath, requestTypes, rolesContainer);
 
-        // We want to support '/foo/bar*' which is mapped to both '/foo/bar' and '/foo/bar/*'
-        String tailName = resourcePath.tail().name();
-        if (tailName.endsWith("*") && !tailName.equals("*")) {
-            String lastSegment = tailName.substring(0, tailName.length() - 1);
-            resourcePath = resourcePath.parent();
-            resourcePath.appendSegment(lastSegment);
-
-            ResourcePath wildcardPath = new ResourcePath(resourcePath);
-            wildcardPath.appendSegment("*");
-
-            this.rulesTree.addObject(rule, resourcePath);
-            this.rulesTree.addObject(rule, wildcardPath);
-        } else {
-            this.rulesTree.addObject(rule, resourcePath);
-        }
+        // '/foo/bar*' is mapped to both '/foo/bar' and '/foo/bar/*'
+        this.rules.add(rule);
 
         log.debug("Added new URIPolicyRule for resourcePath " + resourcePath + ". Rule: " + rule);
     }
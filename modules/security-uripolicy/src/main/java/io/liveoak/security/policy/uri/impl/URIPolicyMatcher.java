@@ -0,0 +1,309 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.security.policy.uri.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import io.liveoak.common.security.AuthzDecision;
+import io.liveoak.spi.RequestType;
+import io.liveoak.spi.ResourcePath;
+import io.liveoak.spi.security.SecurityContext;
+
+/**
+ * Immutable, compiled form of the URI policy rules.
+ *
+ * <p>Rules live in a path trie whose segments are interned to integer ids. Each node holds a single
+ * decision table, folded from the rules which decide for that node: request types are bitmasks (bit
+ * <code>n</code> for the {@link RequestType} with ordinal <code>n</code>), users map to a mask and roles
+ * are resolved to integer ids with a mask each. Deciding a request walks the trie once and does not
+ * allocate.</p>
+ *
+ * <p>Decisions are the same as evaluating the rules one by one: the most specific node wins, exact
+ * segments before wildcards, and only the rules sharing the pattern of the first rule added to that node
+ * take part, merged with REJECT winning over ACCEPT.</p>
+ */
+public final class URIPolicyMatcher {
+
+    private static final String WILDCARD = "*";
+
+    private final Node root;
+    private final Map<String, Integer> segmentIds;
+    private final Map<String, Integer> roleIds;
+    private final int rules;
+
+    private URIPolicyMatcher(Node root, Map<String, Integer> segmentIds, Map<String, Integer> roleIds, int rules) {
+        this.root = root;
+        this.segmentIds = segmentIds;
+        this.roleIds = roleIds;
+        this.rules = rules;
+    }
+
+    public AuthzDecision decide(ResourcePath resourcePath, RequestType type, SecurityContext securityContext) {
+        Decisions decisions = find(this.root, resourcePath.segments(), 0);
+        if (decisions == null) {
+            return AuthzDecision.IGNORE;
+        }
+        return decisions.decide(1 << type.ordinal(), securityContext.getSubject(), securityContext.getRoles(), this.roleIds);
+    }
+
+    public int rules() {
+        return this.rules;
+    }
+
+    private Decisions find(Node node, List<ResourcePath.Segment> segments, int index) {
+        if (index == segments.size()) {
+            return node.decisions;
+        }
+
+        Integer id = this.segmentIds.get(segments.get(index).name());
+        Node child = id != null ? node.child(id) : null;
+        if (child != null) {
+            Decisions decisions = find(child, segments, index + 1);
+            if (decisions != null) {
+                return decisions;
+            }
+        }
+        return node.wildcard != null ? node.wildcard.decisions : null;
+    }
+
+    static int typeMask(Collection<String> requestTypes) {
+        int mask = 0;
+        if (requestTypes != null) {
+            for (String requestType : requestTypes) {
+                for (RequestType type : RequestType.values()) {
+                    if (type.matches(requestType)) {
+                        mask |= 1 << type.ordinal();
+                    }
+                }
+            }
+        }
+        return mask;
+    }
+
+    private static final class Node {
+
+        Node(int[] childIds, Node[] children, Node wildcard, Decisions decisions) {
+            this.childIds = childIds;
+            this.children = children;
+            this.wildcard = wildcard;
+            this.decisions = decisions;
+        }
+
+        Node child(int id) {
+            int index = Arrays.binarySearch(this.childIds, id);
+            return index >= 0 ? this.children[index] : null;
+        }
+
+        final int[] childIds;
+        final Node[] children;
+        final Node wildcard;
+        final Decisions decisions;
+    }
+
+    /**
+     * Decision table of one trie node. Every field is a mask of the request types it applies to.
+     */
+    private static final class Decisions {
+
+        AuthzDecision decide(int type, String subject, Collection<String> roles, Map<String, Integer> roleIds) {
+            boolean reject = false;
+            boolean accept = false;
+
+            // A role wildcard applies to any role, and to a security context without roles at all
+            if (roles == null || !roles.isEmpty()) {
+                reject = (this.deniedAnyRole & type) != 0;
+                accept = (this.allowedAnyRole & type) != 0;
+            }
+            if (roles != null) {
+                for (String role : roles) {
+                    Integer id = roleIds.get(role);
+                    if (id != null) {
+                        reject |= (mask(this.deniedRoleIds, this.deniedRoleTypes, id) & type) != 0;
+                        accept |= (mask(this.allowedRoleIds, this.allowedRoleTypes, id) & type) != 0;
+                    }
+                }
+            }
+
+            reject |= ((this.deniedAnyUser | this.deniedUsers.getOrDefault(subject, 0)) & type) != 0;
+            accept |= ((this.allowedAnyUser | this.allowedUsers.getOrDefault(subject, 0)) & type) != 0;
+
+            if (reject) {
+                return AuthzDecision.REJECT;
+            }
+            return accept ? AuthzDecision.ACCEPT : AuthzDecision.IGNORE;
+        }
+
+        private static int mask(int[] ids, int[] types, int id) {
+            int index = Arrays.binarySearch(ids, id);
+            return index >= 0 ? types[index] : 0;
+        }
+
+        int allowedAnyRole;
+        int deniedAnyRole;
+        int allowedAnyUser;
+        int deniedAnyUser;
+        int[] allowedRoleIds;
+        int[] allowedRoleTypes;
+        int[] deniedRoleIds;
+        int[] deniedRoleTypes;
+        Map<String, Integer> allowedUsers;
+        Map<String, Integer> deniedUsers;
+    }
+
+    public static class Builder {
+
+        /**
+         * Add a rule. A pattern like <code>/foo/bar*</code> is added for both <code>/foo/bar</code> and <code>/foo/bar/*</code>.
+         */
+        public Builder add(URIPolicyRule rule) {
+            ResourcePath resourcePath = rule.getResourcePath();
+            String tailName = resourcePath.isEmpty() ? null : resourcePath.tail().name();
+            if (tailName != null && tailName.endsWith(WILDCARD) && !tailName.equals(WILDCARD)) {
+                // parent() is a view of the rule's path, so copy it before appending
+                ResourcePath exactPath = new ResourcePath(resourcePath.parent());
+                exactPath.appendSegment(tailName.substring(0, tailName.length() - 1));
+
+                ResourcePath wildcardPath = new ResourcePath(exactPath);
+                wildcardPath.appendSegment(WILDCARD);
+
+                add(rule, exactPath);
+                add(rule, wildcardPath);
+            } else {
+                add(rule, resourcePath);
+            }
+            this.rules++;
+            return this;
+        }
+
+        private void add(URIPolicyRule rule, ResourcePath path) {
+            List<ResourcePath.Segment> segments = path.segments();
+            BuildNode node = this.root;
+            for (int i = 0; i < segments.size(); ++i) {
+                String name = segments.get(i).name();
+                // For now, support * just at the end
+                if (name.equals(WILDCARD) && i < segments.size() - 1) {
+                    throw new IllegalArgumentException("* supported just at the end. Remaining path is " + new ResourcePath(segments.subList(i + 1, segments.size())));
+                }
+                node = node.children.computeIfAbsent(name, (n) -> new BuildNode());
+            }
+            node.rules.add(rule);
+        }
+
+        public URIPolicyMatcher build() {
+            Map<String, Integer> segmentIds = new HashMap<>();
+            Map<String, Integer> roleIds = new HashMap<>();
+            Node root = compile(this.root, segmentIds, roleIds);
+            return new URIPolicyMatcher(root, Collections.unmodifiableMap(segmentIds), Collections.unmodifiableMap(roleIds), this.rules);
+        }
+
+        private static Node compile(BuildNode node, Map<String, Integer> segmentIds, Map<String, Integer> roleIds) {
+            TreeMap<Integer, Node> children = new TreeMap<>();
+            Node wildcard = null;
+            for (Map.Entry<String, BuildNode> entry : node.children.entrySet()) {
+                Node child = compile(entry.getValue(), segmentIds, roleIds);
+                if (entry.getKey().equals(WILDCARD)) {
+                    wildcard = child;
+                }
+                // '*' is also kept as a plain segment, for a request path which literally contains it
+                Integer id = segmentIds.computeIfAbsent(entry.getKey(), (name) -> segmentIds.size());
+                children.put(id, child);
+            }
+
+            int[] childIds = new int[children.size()];
+            Node[] childNodes = new Node[children.size()];
+            int i = 0;
+            for (Map.Entry<Integer, Node> entry : children.entrySet()) {
+                childIds[i] = entry.getKey();
+                childNodes[i] = entry.getValue();
+                ++i;
+            }
+            return new Node(childIds, childNodes, wildcard, compile(node.rules, roleIds));
+        }
+
+        private static Decisions compile(List<URIPolicyRule> rules, Map<String, Integer> roleIds) {
+            if (rules.isEmpty()) {
+                return null;
+            }
+
+            Decisions decisions = new Decisions();
+            Map<String, Integer> allowedRoles = new HashMap<>();
+            Map<String, Integer> deniedRoles = new HashMap<>();
+            Map<String, Integer> allowedUsers = new HashMap<>();
+            Map<String, Integer> deniedUsers = new HashMap<>();
+
+            // Rules with another pattern than the first one on this node never take part in a decision
+            ResourcePath decidingPath = rules.get(0).getResourcePath();
+            for (URIPolicyRule rule : rules) {
+                if (!rule.getResourcePath().equals(decidingPath)) {
+                    continue;
+                }
+                int types = typeMask(rule.getRequestTypes());
+                RolesContainer roles = rule.getRolesContainer();
+                decisions.allowedAnyRole |= collect(roles.getAllowedRoles(), types, allowedRoles);
+                decisions.deniedAnyRole |= collect(roles.getDeniedRoles(), types, deniedRoles);
+                decisions.allowedAnyUser |= collect(roles.getAllowedUsers(), types, allowedUsers);
+                decisions.deniedAnyUser |= collect(roles.getDeniedUsers(), types, deniedUsers);
+            }
+
+            int[][] allowed = resolveRoles(allowedRoles, roleIds);
+            decisions.allowedRoleIds = allowed[0];
+            decisions.allowedRoleTypes = allowed[1];
+            int[][] denied = resolveRoles(deniedRoles, roleIds);
+            decisions.deniedRoleIds = denied[0];
+            decisions.deniedRoleTypes = denied[1];
+            decisions.allowedUsers = allowedUsers.isEmpty() ? Collections.emptyMap() : allowedUsers;
+            decisions.deniedUsers = deniedUsers.isEmpty() ? Collections.emptyMap() : deniedUsers;
+            return decisions;
+        }
+
+        /**
+         * Merge the names into the per-name type masks, returning the types granted to the wildcard name.
+         */
+        private static int collect(Collection<String> names, int types, Map<String, Integer> masks) {
+            int wildcardTypes = 0;
+            if (names != null) {
+                for (String name : names) {
+                    if (WILDCARD.equals(name)) {
+                        wildcardTypes |= types;
+                    } else {
+                        masks.merge(name, types, (a, b) -> a | b);
+                    }
+                }
+            }
+            return wildcardTypes;
+        }
+
+        private static int[][] resolveRoles(Map<String, Integer> masks, Map<String, Integer> roleIds) {
+            TreeMap<Integer, Integer> byId = new TreeMap<>();
+            masks.forEach((role, types) -> byId.put(roleIds.computeIfAbsent(role, (r) -> roleIds.size()), types));
+
+            int[] ids = new int[byId.size()];
+            int[] types = new int[byId.size()];
+            int i = 0;
+            for (Map.Entry<Integer, Integer> entry : byId.entrySet()) {
+                ids[i] = entry.getKey();
+                types[i] = entry.getValue();
+                ++i;
+            }
+            return new int[][]{ids, types};
+        }
+
+        private static class BuildNode {
+            final Map<String, BuildNode> children = new HashMap<>();
+            final List<URIPolicyRule> rules = new ArrayList<>();
+        }
+
+        private final BuildNode root = new BuildNode();
+        private int rules;
+    }
+}
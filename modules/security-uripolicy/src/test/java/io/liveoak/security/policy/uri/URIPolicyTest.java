@@ -99,6 +99,33 @@ public class URIPolicyTest {
         Assert.assertTrue(uriPolicy.isAuthorized(req11) == AuthzDecision.ACCEPT);
     }
 
+    @Test
+    public void testMergedRules() {
+        List<URIPolicyConfigRule> rules = new ArrayList<>();
+        rules.add(createRule("/app/storage/*", Arrays.asList(RequestType.READ.toString(), RequestType.UPDATE.toString()), Arrays.asList("*"), null, null, null));
+        rules.add(createRule("/app/storage/*", Arrays.asList(RequestType.UPDATE.toString()), null, Arrays.asList("guest"), null, Arrays.asList("joe")));
+        // Same node as the rules above, but another pattern, so it never takes part
+        rules.add(createRule("/app/storage*", Arrays.asList("*"), null, null, Arrays.asList("*"), null));
+        rules.add(createRule("/app/*", Arrays.asList("*"), null, null, Arrays.asList("*"), null));
+
+        URIPolicyConfig config = new URIPolicyConfig();
+        config.setRules(rules);
+        URIPolicy policy = new URIPolicy();
+        new URIPolicyConfigurator().configure(policy, config);
+
+        Assert.assertEquals(AuthzDecision.ACCEPT, policy.isAuthorized(createRequestContext("/app/storage/todos", RequestType.READ, new String[]{"user"})));
+        Assert.assertEquals(AuthzDecision.IGNORE, policy.isAuthorized(createRequestContext("/app/storage/todos", RequestType.READ, new String[]{})));
+        Assert.assertEquals(AuthzDecision.REJECT, policy.isAuthorized(createRequestContext("/app/storage/todos", RequestType.UPDATE, new String[]{"user"})));
+        Assert.assertEquals(AuthzDecision.IGNORE, policy.isAuthorized(createRequestContext("/app/storage/todos", RequestType.CREATE, new String[]{"user"})));
+        Assert.assertEquals(AuthzDecision.ACCEPT, policy.isAuthorized(createRequestContext("/app/storage", RequestType.CREATE, new String[]{})));
+        Assert.assertEquals(AuthzDecision.ACCEPT, policy.isAuthorized(createRequestContext("/app/other/1", RequestType.DELETE, new String[]{})));
+
+        List<AuthzDecision> decisions = policy.isAuthorized(Arrays.asList(
+                createRequestContext("/app/storage/todos", RequestType.READ, new String[]{"user"}),
+                createRequestContext("/other", RequestType.READ, new String[]{"user"})));
+        Assert.assertEquals(Arrays.asList(AuthzDecision.ACCEPT, AuthzDecision.IGNORE), decisions);
+    }
+
     private RequestContext createRequestContext(String uri, RequestType reqType, String[] roles) {
         DefaultSecurityContext securityContext = new DefaultSecurityContext();
         securityContext.setSubject("joe");
@@ -6,14 +6,20 @@
 
 package io.liveoak.security.integration;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 
 import io.liveoak.common.DefaultRequestAttributes;
 import io.liveoak.common.security.AuthzConstants;
 import io.liveoak.common.security.AuthzDecision;
+import io.liveoak.common.security.AuthzDecisionCache;
 import io.liveoak.security.spi.AuthzPolicyEntry;
 import io.liveoak.spi.RequestAttributes;
 import io.liveoak.spi.RequestContext;
@@ -22,6 +28,7 @@ import io.liveoak.spi.client.Client;
 import io.liveoak.spi.client.ClientResourceResponse;
 import io.liveoak.spi.resource.async.PropertySink;
 import io.liveoak.spi.resource.async.Resource;
+import io.liveoak.spi.security.SecurityContext;
 import io.liveoak.spi.state.ResourceState;
 import org.jboss.logging.Logger;
 
@@ -35,6 +42,8 @@ public class AuthzCheckResource implements Resource {
     private final String id;
     private final AuthzServiceRootResource parent;
     private final Client client;
+    private final AuthzDecisionCache decisionCache = new AuthzDecisionCache();
+    private final Set<String> singleRequestPolicies = Collections.newSetFromMap(new ConcurrentHashMap<>());
 
     public AuthzCheckResource(AuthzServiceRootResource parent, String id, Client client) {
         this.id = id;
@@ -52,8 +61,18 @@ public class AuthzCheckResource implements Resource {
         return id;
     }
 
+    public AuthzDecisionCache getDecisionCache() {
+        return decisionCache;
+    }
+
     @Override
     public void readProperties(RequestContext ctx, PropertySink sink) throws Exception {
+        List<RequestContext> ctxsToAuthorize = ctx.requestAttributes() != null ? ctx.requestAttributes().getAttribute(AuthzConstants.ATTR_REQUEST_CONTEXTS, List.class) : null;
+        if (ctxsToAuthorize != null) {
+            readBulkProperties(ctx, ctxsToAuthorize, sink);
+            return;
+        }
+
         try {
             RequestContext ctxToAuthorize = ctx.requestAttributes().getAttribute(AuthzConstants.ATTR_REQUEST_CONTEXT, RequestContext.class);
             ResourceState reqStateToAuthorize = ctx.requestAttributes().getAttribute(AuthzConstants.ATTR_REQUEST_RESOURCE_STATE, ResourceState.class);
@@ -79,6 +98,12 @@ public class AuthzCheckResource implements Resource {
                 }
             }
 
+            Boolean cached = decisionCache.get(ctxToAuthorize);
+            if (cached != null) {
+                writeAuthzResponse(sink, cached);
+                return;
+            }
+
             PolicyHandler handler = new PolicyHandler(ctxToAuthorize, reqStateToAuthorize, respStateToAuthorize, sink);
             handler.next();
         } catch (Throwable t) {
@@ -87,6 +112,42 @@ public class AuthzCheckResource implements Resource {
         }
     }
 
+    /**
+     * Authorize several requests, usually the members of a collection, with one request per policy.
+     */
+    protected void readBulkProperties(RequestContext ctx, List<RequestContext> ctxsToAuthorize, PropertySink sink) throws Exception {
+        try {
+            List<ResourceState> reqStatesToAuthorize = ctx.requestAttributes().getAttribute(AuthzConstants.ATTR_REQUEST_RESOURCE_STATES, List.class);
+            List<ResourceState> respStatesToAuthorize = ctx.requestAttributes().getAttribute(AuthzConstants.ATTR_RESPONSE_RESOURCE_STATES, List.class);
+            if (ctxsToAuthorize.isEmpty()) {
+                writeBulkAuthzResponse(sink, new boolean[0]);
+                return;
+            }
+
+            // All members of the batch are requested by the same subject
+            SecurityContext securityContext = ctxsToAuthorize.get(0).securityContext();
+            if (securityContext != null && securityContext.getRealm() != null) {
+                String realm = securityContext.getRealm();
+                if (realm.equals("liveoak-admin") || realm.equals("master")) { // TODO: Hardcoded realms and 'admin' role is just temporary solution
+                    boolean[] results = new boolean[ctxsToAuthorize.size()];
+                    Arrays.fill(results, securityContext.getRoles().contains("admin"));
+                    writeBulkAuthzResponse(sink, results);
+                    return;
+                } else if (!realm.equals("liveoak-apps")) {
+                    log.error("Invalid realm " + realm);
+                    writeBulkAuthzResponse(sink, new boolean[ctxsToAuthorize.size()]);
+                    return;
+                }
+            }
+
+            BulkPolicyHandler handler = new BulkPolicyHandler(ctxsToAuthorize, reqStatesToAuthorize, respStatesToAuthorize, sink);
+            handler.next();
+        } catch (Throwable t) {
+            log.error("Failed to authorize requests", t);
+            writeBulkAuthzResponse(sink, new boolean[ctxsToAuthorize.size()]);
+        }
+    }
+
     private class PolicyHandler implements Consumer<ClientResourceResponse> {
 
         private final Queue<AuthzPolicyEntry> queue;
@@ -97,6 +158,7 @@ public class AuthzCheckResource implements Resource {
         private ResourceState respStateToAuthorize;
 
         private AuthzDecision decision = AuthzDecision.IGNORE;
+        private boolean cacheable = true;
 
         public PolicyHandler(RequestContext ctxToAuthorize, ResourceState reqStateToAuthorize, ResourceState respStateToAuthorize, PropertySink sink) {
             this.sink = sink;
@@ -115,12 +177,14 @@ public class AuthzCheckResource implements Resource {
         public void accept(ClientResourceResponse response) {
             if (response.state() == null || response.state().getProperty(AuthzConstants.ATTR_AUTHZ_POLICY_RESULT) == null) {
                 log.warn("State or policy result not available in response: " + response + ", path: " + response.path());
+                cacheable = false;
                 authorized(false);
                 return;
             }
 
             AuthzDecision result = AuthzDecision.valueOf((String) response.state().getProperty(AuthzConstants.ATTR_AUTHZ_POLICY_RESULT));
             decision = decision.mergeDecision(result);
+            cacheable &= Boolean.TRUE.equals(response.state().getProperty(AuthzConstants.ATTR_AUTHZ_POLICY_CACHEABLE));
 
             if (log.isTraceEnabled()) {
                 log.trace("Policy response for " + ctxToAuthorize.hashCode() + ", policy = " + response.path() + ", result = " + result + ", merged = " + decision);
@@ -160,6 +224,9 @@ public class AuthzCheckResource implements Resource {
                 log.trace("Completed for " + ctxToAuthorize.hashCode() + ", merged = " + decision);
             }
 
+            if (cacheable) {
+                decisionCache.put(ctxToAuthorize, accepted);
+            }
             writeAuthzResponse(sink, accepted);
         }
 
@@ -178,6 +245,180 @@ public class AuthzCheckResource implements Resource {
 
     }
 
+    /**
+     * Like {@link PolicyHandler}, for a batch of requests. Every policy is asked once, about all the
+     * requests it is mapped to which haven't been rejected yet.
+     */
+    private class BulkPolicyHandler implements Consumer<ClientResourceResponse> {
+
+        private final Queue<AuthzPolicyEntry> queue = new LinkedList<>();
+
+        private final PropertySink sink;
+        private final List<RequestContext> ctxsToAuthorize;
+        private final List<ResourceState> reqStatesToAuthorize;
+        private final List<ResourceState> respStatesToAuthorize;
+
+        private final AuthzDecision[] decisions;
+        private final boolean[] mapped;
+        private final boolean[] resolved;
+        private boolean cacheable = true;
+
+        // Current policy and indexes of the requests sent to it
+        private AuthzPolicyEntry current;
+        private List<Integer> pending;
+
+        public BulkPolicyHandler(List<RequestContext> ctxsToAuthorize, List<ResourceState> reqStatesToAuthorize, List<ResourceState> respStatesToAuthorize, PropertySink sink) {
+            this.sink = sink;
+            this.ctxsToAuthorize = ctxsToAuthorize;
+            this.reqStatesToAuthorize = reqStatesToAuthorize;
+            this.respStatesToAuthorize = respStatesToAuthorize;
+
+            int size = ctxsToAuthorize.size();
+            this.decisions = new AuthzDecision[size];
+            this.mapped = new boolean[size];
+            this.resolved = new boolean[size];
+            Arrays.fill(decisions, AuthzDecision.IGNORE);
+
+            for (int i = 0; i < size; i++) {
+                Boolean cached = decisionCache.get(ctxsToAuthorize.get(i));
+                if (cached != null) {
+                    resolved[i] = true;
+                    decisions[i] = cached ? AuthzDecision.ACCEPT : AuthzDecision.REJECT;
+                }
+            }
+
+            List<AuthzPolicyEntry> policies = parent.getConfig().getPolicies();
+            if (policies != null) {
+                queue.addAll(policies);
+            }
+        }
+
+        @Override
+        public void accept(ClientResourceResponse response) {
+            List<String> results = response.state() != null ? (List<String>) response.state().getProperty(AuthzConstants.ATTR_AUTHZ_POLICY_RESULTS) : null;
+            if (results == null || results.size() != pending.size()) {
+                // Policy doesn't understand bulk requests, ask it about each request on its own
+                if (log.isDebugEnabled()) {
+                    log.debug("Policy " + response.path() + " doesn't support bulk authorization, falling back to single requests");
+                }
+                singleRequestPolicies.add(current.getPolicyResourceEndpoint());
+                cacheable = false;
+                nextSingle(0);
+                return;
+            }
+
+            cacheable &= Boolean.TRUE.equals(response.state().getProperty(AuthzConstants.ATTR_AUTHZ_POLICY_CACHEABLE));
+            for (int i = 0; i < pending.size(); i++) {
+                int index = pending.get(i);
+                decisions[index] = decisions[index].mergeDecision(AuthzDecision.valueOf(results.get(i)));
+            }
+
+            next();
+        }
+
+        public void next() {
+            while ((current = queue.poll()) != null) {
+                pending = new ArrayList<>();
+                for (int i = 0; i < ctxsToAuthorize.size(); i++) {
+                    if (!resolved[i] && decisions[i] != AuthzDecision.REJECT && current.isResourceMapped(ctxsToAuthorize.get(i).resourcePath())) {
+                        mapped[i] = true;
+                        pending.add(i);
+                    }
+                }
+
+                if (!pending.isEmpty()) {
+                    if (log.isTraceEnabled()) {
+                        log.trace("Invoking policy " + current.getPolicyResourceEndpoint() + " for " + pending.size() + " requests");
+                    }
+                    if (singleRequestPolicies.contains(current.getPolicyResourceEndpoint())) {
+                        cacheable = false;
+                        nextSingle(0);
+                    } else {
+                        client.read(createPolicyReq(), current.getPolicyResourceEndpoint(), BulkPolicyHandler.this);
+                    }
+                    return;
+                }
+            }
+
+            completed();
+        }
+
+        private void nextSingle(int position) {
+            if (position == pending.size()) {
+                next();
+                return;
+            }
+
+            int index = pending.get(position);
+            RequestAttributes attribs = new DefaultRequestAttributes();
+            attribs.setAttribute(AuthzConstants.ATTR_REQUEST_CONTEXT, ctxsToAuthorize.get(index));
+            attribs.setAttribute(AuthzConstants.ATTR_REQUEST_RESOURCE_STATE, reqStatesToAuthorize != null ? reqStatesToAuthorize.get(index) : null);
+            attribs.setAttribute(AuthzConstants.ATTR_RESPONSE_RESOURCE_STATE, respStatesToAuthorize != null ? respStatesToAuthorize.get(index) : null);
+            RequestContext policyReq = new RequestContext.Builder().requestAttributes(attribs).build();
+
+            client.read(policyReq, current.getPolicyResourceEndpoint(), (response) -> {
+                if (response.state() == null || response.state().getProperty(AuthzConstants.ATTR_AUTHZ_POLICY_RESULT) == null) {
+                    log.warn("State or policy result not available in response: " + response + ", path: " + response.path());
+                    decisions[index] = AuthzDecision.REJECT;
+                } else {
+                    AuthzDecision result = AuthzDecision.valueOf((String) response.state().getProperty(AuthzConstants.ATTR_AUTHZ_POLICY_RESULT));
+                    decisions[index] = decisions[index].mergeDecision(result);
+                }
+                nextSingle(position + 1);
+            });
+        }
+
+        private RequestContext createPolicyReq() {
+            List<RequestContext> ctxs = new ArrayList<>(pending.size());
+            List<ResourceState> reqStates = reqStatesToAuthorize != null ? new ArrayList<>(pending.size()) : null;
+            List<ResourceState> states = respStatesToAuthorize != null ? new ArrayList<>(pending.size()) : null;
+            for (int index : pending) {
+                ctxs.add(ctxsToAuthorize.get(index));
+                if (reqStates != null) {
+                    reqStates.add(reqStatesToAuthorize.get(index));
+                }
+                if (states != null) {
+                    states.add(respStatesToAuthorize.get(index));
+                }
+            }
+
+            RequestAttributes attribs = new DefaultRequestAttributes();
+            attribs.setAttribute(AuthzConstants.ATTR_REQUEST_CONTEXTS, ctxs);
+            attribs.setAttribute(AuthzConstants.ATTR_REQUEST_RESOURCE_STATES, reqStates);
+            attribs.setAttribute(AuthzConstants.ATTR_RESPONSE_RESOURCE_STATES, states);
+            return new RequestContext.Builder().requestAttributes(attribs).build();
+        }
+
+        private void completed() {
+            boolean[] results = new boolean[ctxsToAuthorize.size()];
+            for (int i = 0; i < results.length; i++) {
+                if (resolved[i]) {
+                    results[i] = decisions[i] == AuthzDecision.ACCEPT;
+                } else {
+                    // Same as for a single request, nothing mapped means accepted. TODO This is temporary
+                    results[i] = !mapped[i] || decisions[i] == AuthzDecision.ACCEPT;
+                    if (cacheable) {
+                        decisionCache.put(ctxsToAuthorize.get(i), results[i]);
+                    }
+                }
+            }
+            writeBulkAuthzResponse(sink, results);
+        }
+    }
+
+    private void writeBulkAuthzResponse(PropertySink sink, boolean[] accepted) {
+        List<Boolean> results = new ArrayList<>(accepted.length);
+        for (boolean current : accepted) {
+            results.add(current);
+        }
+        sink.accept(AuthzConstants.ATTR_AUTHZ_RESULTS, results);
+        try {
+            sink.complete();
+        } catch (Exception e) {
+            log.error("", e);
+        }
+    }
+
     private void writeAuthzResponse(PropertySink sink, boolean accepted) {
         sink.accept(AuthzConstants.ATTR_AUTHZ_RESULT, accepted);
         try {
@@ -7,7 +7,6 @@ package io.liveoak.security.interceptor;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
 import io.liveoak.common.DefaultRequestAttributes;
@@ -120,75 +119,67 @@ public class AuthzInterceptor extends DefaultInterceptor {
     }
 
     protected void processMembers(ResourcePath currentResourcePath, ResourceState resourceState, SecurityContext securityContext, Consumer<ResourceState> callback) {
-        if (resourceState.members().isEmpty()) {
+        // Authorize all expanded members, at any depth, with a single bulk request
+        List<Member> members = new ArrayList<>();
+        collectMembers(currentResourcePath, resourceState, members);
+        if (members.isEmpty()) {
             callback.accept(resourceState);
             return;
         }
 
-        // First check all, which are going to be counted
-        final AtomicInteger pendingRequests = new AtomicInteger(resourceState.members().size());
+        List<RequestContext> reqsToAuthorize = new ArrayList<>(members.size());
+        List<ResourceState> statesToAuthorize = new ArrayList<>(members.size());
+        for (Member member : members) {
+            reqsToAuthorize.add(new RequestContext.Builder()
+                    .resourcePath(member.resourcePath)
+                    .requestType(RequestType.READ)
+                    .securityContext(securityContext));
+            // Use the state of the resource, which is going to be returned
+            statesToAuthorize.add(member.state);
+        }
 
-        // Copy to avoid concurrent modification
-        List<ResourceState> childResourcesCopy = new ArrayList<>(resourceState.members());
+        RequestAttributes attribs = new DefaultRequestAttributes();
+        attribs.setAttribute(AuthzConstants.ATTR_REQUEST_CONTEXTS, reqsToAuthorize);
+        attribs.setAttribute(AuthzConstants.ATTR_RESPONSE_RESOURCE_STATES, statesToAuthorize);
+        RequestContext authzRequest = new RequestContext.Builder().requestAttributes(attribs).build();
 
-        for (ResourceState childState : childResourcesCopy) {
-            if (!childState.getPropertyNames().isEmpty() || !childState.members().isEmpty()) {
-                // Send authz request now
-                ResourcePath childResourcePath = new ResourcePath(currentResourcePath);
-                childResourcePath.appendSegment(childState.id());
-                RequestContext reqToAuthorize = new RequestContext.Builder()
-                        .resourcePath(childResourcePath)
-                        .requestType(RequestType.READ)
-                        .securityContext(securityContext);
-                RequestAttributes attribs = new DefaultRequestAttributes();
-                attribs.setAttribute(AuthzConstants.ATTR_REQUEST_CONTEXT, reqToAuthorize);
-                // Use the state of the resource, which is going to be returned
-                attribs.setAttribute(AuthzConstants.ATTR_RESPONSE_RESOURCE_STATE, childState);
-                RequestContext authzRequest = new RequestContext.Builder().requestAttributes(attribs).build();
-
-                client.read(authzRequest, getPrefix(currentResourcePath) + "/authz/authzCheck", new Consumer<ClientResourceResponse>() {
-
-                    @Override
-                    public void accept(ClientResourceResponse authzResponse) {
-                        boolean authorized;
-                        if (authzResponse.responseType() == ClientResourceResponse.ResponseType.NO_SUCH_RESOURCE) {
-                            authorized = true;
-                        } else {
-                            ResourceState state = authzResponse.state();
-                            boolean authzResult = (Boolean) state.getProperty(AuthzConstants.ATTR_AUTHZ_RESULT);
-                            authorized = authzResult;
-                        }
+        client.read(authzRequest, getPrefix(currentResourcePath) + "/authz/authzCheck", new Consumer<ClientResourceResponse>() {
 
-                        if (authorized) {
-                            // Recursive call to check members of this one
-                            processMembers(childResourcePath, childState, securityContext, new Consumer<ResourceState>() {
+            @Override
+            public void accept(ClientResourceResponse authzResponse) {
+                if (authzResponse.responseType() == ClientResourceResponse.ResponseType.NO_SUCH_RESOURCE) {
+                    callback.accept(resourceState);
+                    return;
+                }
 
-                                @Override
-                                public void accept(ResourceState childState) {
-                                    checkAuthzFinished(pendingRequests, resourceState, callback);
-                                }
+                List<Boolean> results = authzResponse.state() != null ? (List<Boolean>) authzResponse.state().getProperty(AuthzConstants.ATTR_AUTHZ_RESULTS) : null;
+                if (results == null || results.size() != members.size()) {
+                    log.warn("Authorization results not available in response: " + authzResponse + ", removing all members");
+                }
 
-                            });
-                        } else {
-                            if (log.isTraceEnabled()) {
-                                log.tracef("Resource %s not authorized and removed from the response", childResourcePath);
-                            }
-                            notAuthorized(resourceState, childState);
-                            checkAuthzFinished(pendingRequests, resourceState, callback);
+                for (int i = 0; i < members.size(); i++) {
+                    if (results == null || results.size() != members.size() || !results.get(i)) {
+                        Member member = members.get(i);
+                        if (log.isTraceEnabled()) {
+                            log.tracef("Resource %s not authorized and removed from the response", member.resourcePath);
                         }
+                        notAuthorized(member.parentState, member.state);
                     }
-                });
-            } else {
-                checkAuthzFinished(pendingRequests, resourceState, callback);
-            }
-        }
+                }
 
+                callback.accept(resourceState);
+            }
+        });
     }
 
-    private void checkAuthzFinished(AtomicInteger pendingRequests, ResourceState resourceState, Consumer<ResourceState> callback) {
-        int current = pendingRequests.decrementAndGet();
-        if (current == 0) {
-            callback.accept(resourceState);
+    private void collectMembers(ResourcePath currentResourcePath, ResourceState resourceState, List<Member> members) {
+        for (ResourceState childState : resourceState.members()) {
+            if (!childState.getPropertyNames().isEmpty() || !childState.members().isEmpty()) {
+                ResourcePath childResourcePath = new ResourcePath(currentResourcePath);
+                childResourcePath.appendSegment(childState.id());
+                members.add(new Member(childResourcePath, childState, resourceState));
+                collectMembers(childResourcePath, childState, members);
+            }
         }
     }
 
@@ -196,4 +187,17 @@ public class AuthzInterceptor extends DefaultInterceptor {
         resourceState.members().remove(childState);
     }
 
+    private static class Member {
+
+        private final ResourcePath resourcePath;
+        private final ResourceState state;
+        private final ResourceState parentState;
+
+        private Member(ResourcePath resourcePath, ResourceState state, ResourceState parentState) {
+            this.resourcePath = resourcePath;
+            this.state = state;
+            this.parentState = parentState;
+        }
+    }
+
 }
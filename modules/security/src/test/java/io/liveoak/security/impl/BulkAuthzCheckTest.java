@@ -0,0 +1,131 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.security.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.liveoak.common.DefaultRequestAttributes;
+import io.liveoak.common.security.AuthzConstants;
+import io.liveoak.common.security.AuthzDecision;
+import io.liveoak.security.extension.SecurityExtension;
+import io.liveoak.security.integration.AuthzServiceConfigResource;
+import io.liveoak.spi.RequestAttributes;
+import io.liveoak.spi.RequestContext;
+import io.liveoak.spi.RequestType;
+import io.liveoak.spi.ResourcePath;
+import io.liveoak.spi.Services;
+import io.liveoak.spi.state.ResourceState;
+import io.liveoak.testtools.AbstractTestCaseWithTestApp;
+import io.liveoak.testtools.MockExtension;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Authorization of several requests at once, as the authz interceptor asks for collection members and bulk writes.
+ */
+public class BulkAuthzCheckTest extends AbstractTestCaseWithTestApp {
+
+    @BeforeClass
+    public static void loadExtensions() throws Exception {
+        loadExtension("authz", new SecurityExtension());
+        loadExtension("mock-policy", new MockExtension(MockAuthzRootPolicyResource.class));
+        installTestAppResource("authz", "authz", getSecurityConfig());
+        installTestAppResource("mock-policy", "mock-policy", JsonNodeFactory.instance.objectNode());
+    }
+
+    private static ObjectNode getSecurityConfig() throws Exception {
+        ObjectNode config = JsonNodeFactory.instance.objectNode();
+        ObjectNode policyConfig = JsonNodeFactory.instance.objectNode();
+        policyConfig.put("policyName", "Mock Policy");
+        policyConfig.put("policyResourceEndpoint", "/testApp/mock-policy");
+        config.putArray(AuthzServiceConfigResource.POLICIES_PROPERTY).add(policyConfig);
+        return config;
+    }
+
+    @Test
+    public void bulkAuthzCheck() throws Exception {
+        MockAuthzRootPolicyResource mockPolicy = (MockAuthzRootPolicyResource) system.service(Services.resource("testApp", "mock-policy"));
+
+        // Test #1 - A policy which understands bulk requests is asked once
+        mockPolicy.setBulkSupported(true);
+        mockPolicy.setAuthzDecision(AuthzDecision.ACCEPT);
+        mockPolicy.setRejectedPaths("/testApp/storage/b");
+        mockPolicy.drainRequests();
+
+        Assert.assertEquals(Arrays.asList(true, false, true), getBulkAuthzResults("/testApp/storage/a", "/testApp/storage/b", "/testApp/storage/c"));
+        Assert.assertEquals(1, mockPolicy.drainRequests());
+
+
+        // Test #2 - Cacheable decisions are not asked for again
+        mockPolicy.setCacheable(true);
+
+        Assert.assertEquals(Arrays.asList(true, false), getBulkAuthzResults("/testApp/storage/d", "/testApp/storage/b"));
+        Assert.assertEquals(1, mockPolicy.drainRequests());
+        Assert.assertEquals(Arrays.asList(true, false), getBulkAuthzResults("/testApp/storage/d", "/testApp/storage/b"));
+        Assert.assertEquals(0, mockPolicy.drainRequests());
+
+
+        // Test #3 - A policy response without a result rejects, but is not cached
+        mockPolicy.setAuthzDecision(null);
+        Assert.assertFalse(getAuthzResult("/testApp/storage/e"));
+
+        mockPolicy.setAuthzDecision(AuthzDecision.ACCEPT);
+        Assert.assertTrue(getAuthzResult("/testApp/storage/e"));
+
+
+        // Test #4 - A policy which doesn't understand bulk requests is asked about each request on its own
+        mockPolicy.setCacheable(false);
+        mockPolicy.setBulkSupported(false);
+        mockPolicy.setRejectedPaths("/testApp/storage/j");
+        mockPolicy.drainRequests();
+
+        Assert.assertEquals(Arrays.asList(true, false, true), getBulkAuthzResults("/testApp/storage/f", "/testApp/storage/j", "/testApp/storage/g"));
+        // the bulk request, then one for each
+        Assert.assertEquals(4, mockPolicy.drainRequests());
+
+        // and isn't sent bulk requests any more
+        Assert.assertEquals(Arrays.asList(true, true), getBulkAuthzResults("/testApp/storage/f", "/testApp/storage/g"));
+        Assert.assertEquals(2, mockPolicy.drainRequests());
+
+
+        // Test #5 - Single responses without a result reject, and are not cached either
+        mockPolicy.setCacheable(true);
+        mockPolicy.setAuthzDecision(null);
+        Assert.assertEquals(Arrays.asList(false, false), getBulkAuthzResults("/testApp/storage/h", "/testApp/storage/i"));
+
+        mockPolicy.setAuthzDecision(AuthzDecision.ACCEPT);
+        Assert.assertEquals(Arrays.asList(true, true), getBulkAuthzResults("/testApp/storage/h", "/testApp/storage/i"));
+    }
+
+    private boolean getAuthzResult(String path) throws Exception {
+        RequestAttributes attribs = new DefaultRequestAttributes();
+        attribs.setAttribute(AuthzConstants.ATTR_REQUEST_CONTEXT, request(path));
+        RequestContext reqCtx = new RequestContext.Builder().requestAttributes(attribs).build();
+        ResourceState state = client.read(reqCtx, "/testApp/authz/authzCheck");
+        return (Boolean) state.getProperty(AuthzConstants.ATTR_AUTHZ_RESULT);
+    }
+
+    private List<Boolean> getBulkAuthzResults(String... paths) throws Exception {
+        List<RequestContext> reqCtxsToCheck = new ArrayList<>();
+        for (String path : paths) {
+            reqCtxsToCheck.add(request(path));
+        }
+        RequestAttributes attribs = new DefaultRequestAttributes();
+        attribs.setAttribute(AuthzConstants.ATTR_REQUEST_CONTEXTS, reqCtxsToCheck);
+        RequestContext reqCtx = new RequestContext.Builder().requestAttributes(attribs).build();
+        ResourceState state = client.read(reqCtx, "/testApp/authz/authzCheck");
+        return (List<Boolean>) state.getProperty(AuthzConstants.ATTR_AUTHZ_RESULTS);
+    }
+
+    private static RequestContext request(String path) {
+        return new RequestContext.Builder().requestType(RequestType.READ).resourcePath(new ResourcePath(path));
+    }
+}
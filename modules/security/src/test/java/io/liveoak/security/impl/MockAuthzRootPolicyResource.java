@@ -7,8 +7,14 @@ import io.liveoak.spi.resource.RootResource;
 import io.liveoak.spi.resource.SynchronousResource;
 import io.liveoak.spi.resource.async.Resource;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.TimeUnit;
@@ -22,6 +28,9 @@ public class MockAuthzRootPolicyResource implements RootResource, SynchronousRes
     private String id;
     private BlockingQueue<RequestContext> requests = new LinkedBlockingDeque<>();
     private AuthzDecision authzDecision = AuthzDecision.IGNORE;
+    private Set<String> rejectedPaths = Collections.emptySet();
+    private boolean bulkSupported;
+    private boolean cacheable;
 
     public MockAuthzRootPolicyResource(String id) {
         this.id = id;
@@ -42,19 +51,71 @@ public class MockAuthzRootPolicyResource implements RootResource, SynchronousRes
         return id;
     }
 
+    /**
+     * @param authzDecision The decision to answer with, or null to answer without one
+     */
     public void setAuthzDecision(AuthzDecision authzDecision) {
         this.authzDecision = authzDecision;
     }
 
+    /**
+     * Paths which are rejected whatever the decision is.
+     */
+    public void setRejectedPaths(String... rejectedPaths) {
+        this.rejectedPaths = new HashSet<>(Arrays.asList(rejectedPaths));
+    }
+
+    public void setBulkSupported(boolean bulkSupported) {
+        this.bulkSupported = bulkSupported;
+    }
+
+    public void setCacheable(boolean cacheable) {
+        this.cacheable = cacheable;
+    }
+
     public RequestContext pollRequest(long timeout, TimeUnit timeUnit) throws InterruptedException {
         return requests.poll(timeout, timeUnit);
     }
 
+    /**
+     * @return The number of requests received since the last call
+     */
+    public int drainRequests() {
+        List<RequestContext> drained = new ArrayList<>();
+        requests.drainTo(drained);
+        return drained.size();
+    }
+
     @Override
     public Map<String, ?> properties(RequestContext ctx) throws Exception {
-        Map<String, String> result = new HashMap<>();
-        result.put(AuthzConstants.ATTR_AUTHZ_POLICY_RESULT, authzDecision.toString());
+        requests.add(ctx);
+        Map<String, Object> result = new HashMap<>();
+        if (authzDecision == null) {
+            return result;
+        }
+
+        List<RequestContext> ctxsToAuthorize = ctx.requestAttributes() != null ? ctx.requestAttributes().getAttribute(AuthzConstants.ATTR_REQUEST_CONTEXTS, List.class) : null;
+        if (ctxsToAuthorize != null && bulkSupported) {
+            List<String> results = new ArrayList<>();
+            for (RequestContext ctxToAuthorize : ctxsToAuthorize) {
+                results.add(decide(ctxToAuthorize).toString());
+            }
+            result.put(AuthzConstants.ATTR_AUTHZ_POLICY_RESULTS, results);
+        } else {
+            RequestContext ctxToAuthorize = ctx.requestAttributes() != null ? ctx.requestAttributes().getAttribute(AuthzConstants.ATTR_REQUEST_CONTEXT, RequestContext.class) : null;
+            result.put(AuthzConstants.ATTR_AUTHZ_POLICY_RESULT, decide(ctxToAuthorize).toString());
+        }
+        if (cacheable) {
+            result.put(AuthzConstants.ATTR_AUTHZ_POLICY_CACHEABLE, true);
+        }
         return result;
     }
 
+    private AuthzDecision decide(RequestContext ctxToAuthorize) {
+        if (ctxToAuthorize != null && ctxToAuthorize.resourcePath() != null && rejectedPaths.contains(ctxToAuthorize.resourcePath().toString())) {
+            return AuthzDecision.REJECT;
+        }
+        return authzDecision;
+    }
+
 }
@@ -26,6 +26,7 @@ public interface ClientResourceResponse {
         READ_NOT_SUPPORTED,
         UPDATE_NOT_SUPPORTED,
         DELETE_NOT_SUPPORTED,
+        SERVICE_UNAVAILABLE,
         INTERNAL_ERROR,
     }
 
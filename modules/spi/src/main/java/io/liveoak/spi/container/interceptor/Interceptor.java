@@ -12,4 +12,16 @@ public interface Interceptor {
     void onOutbound(OutboundInterceptorContext context) throws Exception;
 
     void onComplete(UUID requestId);
+
+    /**
+     * Whether this interceptor inspects the response state during {@link #onOutbound(OutboundInterceptorContext)}.
+     *
+     * <p>Interceptors which only forward outbound responses may return <code>false</code>, allowing
+     * the container to stream the response straight from the resource instead of building its state first.</p>
+     *
+     * @return <code>true</code> if the outbound response must carry a materialized state.
+     */
+    default boolean requiresResponseState() {
+        return true;
+    }
 }
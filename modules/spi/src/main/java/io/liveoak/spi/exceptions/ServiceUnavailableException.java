@@ -0,0 +1,27 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.spi.exceptions;
+
+import io.liveoak.spi.state.ResourceState;
+
+/**
+ * Thrown when a request cannot be processed because the container is out of capacity.
+ * The request may be retried later.
+ */
+public class ServiceUnavailableException extends ResourceException {
+
+    public ServiceUnavailableException(String path) {
+        super(path, "Service unavailable for '" + path + "'");
+    }
+
+    public ServiceUnavailableException(String path, String message) {
+        super(path, message);
+    }
+
+    public ServiceUnavailableException(String path, ResourceState state) {
+        super(path, state);
+    }
+}
@@ -0,0 +1,26 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.spi.resource;
+
+import java.util.List;
+
+import io.liveoak.spi.ResourceResponse;
+import io.liveoak.spi.resource.async.Resource;
+
+/**
+ * Result of a request which created, updated or deleted several resources at once.
+ *
+ * <p>The container treats each item response as if the resource had been changed by a request of its
+ * own: subscribers are notified of it, and outbound interceptors can look at the items to react to
+ * them in one go.</p>
+ */
+public interface BulkResultResource extends Resource {
+
+    /**
+     * Responses of the resources which were changed, in request order. Failed items are left out.
+     */
+    List<ResourceResponse> itemResponses();
+}
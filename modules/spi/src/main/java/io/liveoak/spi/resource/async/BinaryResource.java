@@ -5,9 +5,12 @@
  */
 package io.liveoak.spi.resource.async;
 
+import java.io.File;
+
 import io.liveoak.spi.MediaType;
 import io.liveoak.spi.RequestContext;
 import io.liveoak.spi.state.ResourceState;
+import io.netty.buffer.ByteBuf;
 
 /**
  * @author Bob McWhirter
@@ -29,6 +32,52 @@ public interface BinaryResource extends Resource {
      */
     long contentLength();
 
+    /**
+     * Retrieve the time the content was last modified.
+     *
+     * @return Milliseconds since the epoch, or 0 if not known
+     */
+    default long lastModified() {
+        return 0;
+    }
+
+    /**
+     * Retrieve a strong entity tag of the content, for conditional requests.
+     *
+     * <p>By default it is derived from the content length and the last modification time. The tag is that
+     * of the identity content; the container appends the content coding to it when it sends the content compressed.</p>
+     *
+     * @return The quoted entity tag, or null if the content cannot be validated
+     */
+    default String entityTag() {
+        long lastModified = lastModified();
+        if (lastModified <= 0) {
+            return null;
+        }
+        return "\"" + Long.toHexString(contentLength()) + "-" + Long.toHexString(lastModified) + "\"";
+    }
+
+    /**
+     * Retrieve the file holding the whole content, if any, so that it can be sent without copying it
+     * through user space.
+     *
+     * @return The file, or null if the content is only available through readContent()
+     */
+    default File contentFile() {
+        return null;
+    }
+
+    /**
+     * Retrieve the whole content already encoded with a content coding, so that it need not be
+     * compressed for every request.
+     *
+     * @param contentCoding The content coding, <code>gzip</code> or <code>deflate</code>
+     * @return The encoded content, or null if it is not available in that coding
+     */
+    default ByteBuf encodedContent(String contentCoding) {
+        return null;
+    }
+
     /**
      * Write the content of this object to the provided sink.
      *
@@ -9,6 +9,7 @@ import java.util.UUID;
 
 import io.liveoak.spi.security.SecurityContext;
 import io.liveoak.stomp.StompMessage;
+import io.netty.buffer.ByteBufAllocator;
 import io.netty.channel.Channel;
 
 /**
@@ -43,10 +44,21 @@ public class StompConnection {
         return this.securityContext;
     }
 
+    /**
+     * The allocator of the underlying channel, for encoding content which is sent on this connection.
+     */
+    public ByteBufAllocator allocator() {
+        return this.channel.alloc();
+    }
+
     public void send(StompMessage message) {
         this.channel.writeAndFlush(message);
     }
 
+    public void close() {
+        this.channel.close();
+    }
+
     private final String connectionId;
     private final Channel channel;
     private final String login;
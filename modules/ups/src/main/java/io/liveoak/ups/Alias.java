@@ -58,7 +58,7 @@ public class Alias {
     public void updateSubscription(UPSSubscription upsSubscription) {
         List<UPSSubscription> upsSubscriptions = getSubscriptions();
         for (UPSSubscription savedSubscription : upsSubscriptions) {
-            if (upsSubscription.id().equals(upsSubscription.id())) {
+            if (savedSubscription.id().equals(upsSubscription.id())) {
                 // remove the old subscription
                 upsSubscriptions.remove(savedSubscription);
                 // add the new one
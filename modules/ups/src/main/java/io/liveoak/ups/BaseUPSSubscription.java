@@ -1,13 +1,8 @@
 package io.liveoak.ups;
 
 import java.net.URI;
-import java.util.ArrayList;
 import java.util.List;
 
-import com.mongodb.BasicDBObject;
-import com.mongodb.DBCollection;
-import com.mongodb.DBCursor;
-import com.mongodb.DBObject;
 import io.liveoak.spi.ResourcePath;
 import io.liveoak.spi.ResourceResponse;
 import io.liveoak.spi.security.SecurityContext;
@@ -23,11 +18,11 @@ public class BaseUPSSubscription implements Subscription {
     private static final String ID = "ups-resources";
     private static final ResourcePath RESOURCE_PATH = new ResourcePath("/*");
 
-    DBCollection collection;
+    SubscriptionIndex index;
     UPS ups;
 
-    public BaseUPSSubscription(DBCollection collection, UPS ups) {
-        this.collection = collection;
+    public BaseUPSSubscription(SubscriptionIndex index, UPS ups) {
+        this.index = index;
         this.ups = ups;
     }
 
@@ -39,7 +34,7 @@ public class BaseUPSSubscription implements Subscription {
     @Override
     public ResourcePath resourcePath() {
         // the resources path matches everything "/*"
-        // This way we subscribe to everything and do the check in the datastore.
+        // This way we subscribe to everything and do the check in the subscription index.
         // The default ResourceManager doesn't support persistent data.
         return this.RESOURCE_PATH;
     }
@@ -81,47 +76,13 @@ public class BaseUPSSubscription implements Subscription {
 
 
     private void sendNotification(ResourceResponse resourceResponse, UPS.EventType eventType) {
-        URI resourceURI = resourceResponse.resource().uri();
-        List<UPSSubscription> subscriptions = getSubscriptions(resourceURI.toString());
-
-        for (UPSSubscription subscription : subscriptions) {
-            ups.send(resourceURI, eventType, subscription);
-        }
-    }
-
-    protected List<UPSSubscription> getSubscriptions(String uri) {
-        List<UPSSubscription> subscriptions = new ArrayList<>();
-
-        List<String> listenerPaths = generatePaths(uri);
-
-        DBObject query = new BasicDBObject();
-        query.put("resource-path", new BasicDBObject("$in", listenerPaths));
-        query.put("enabled", true);
-
-        DBCursor cursor = collection.find(query);
-        while (cursor.hasNext()) {
-            DBObject dbObject = cursor.next();
-            UPSSubscription subscription = UPSSubscription.create(dbObject);
-            if (subscription != null) {
-                subscriptions.add(subscription);
-            }
+        if (index.isEmpty()) {
+            return;
         }
-
-        return subscriptions;
-    }
-
-    // generates a list of paths which could be used to listen for this particular resources.
-    // the URI is /foo/bar/baz then the possible listeners could be registered on: /foo/bar/baz, /foo/bar/*, /foo/*, /*
-    protected List<String> generatePaths(String uri) {
-        List<String> paths = new ArrayList<>();
-
-        ResourcePath resourcePath = new ResourcePath(uri);
-        paths.add(resourcePath.toString());
-        while (!resourcePath.segments().isEmpty()) {
-            resourcePath = resourcePath.parent();
-            paths.add(resourcePath.toString() + "/*");
+        URI resourceURI = resourceResponse.resource().uri();
+        List<UPSSubscription> subscriptions = index.match(resourceURI.toString());
+        if (!subscriptions.isEmpty()) {
+            ups.send(resourceURI, eventType, subscriptions);
         }
-
-        return paths;
     }
 }
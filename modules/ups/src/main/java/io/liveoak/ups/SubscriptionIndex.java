@@ -0,0 +1,126 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package io.liveoak.ups;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.liveoak.spi.ResourcePath;
+
+/**
+ * In-memory index of the enabled {@link UPSSubscription}s of an application, by resource path.
+ *
+ * <p>Subscriptions are kept in a tree with a node per path segment. A subscription on <code>/foo/bar</code>
+ * matches only that resource, while one on <code>/foo/*</code> matches every resource below <code>/foo</code>,
+ * so finding the subscriptions for a resource takes a single walk down the tree along its path.</p>
+ *
+ * <p>Subscriptions change far less often than resources do, so every change builds a new tree, which is then
+ * published for lookups to use without locking.</p>
+ */
+public class SubscriptionIndex {
+
+    private static final String WILDCARD = "*";
+
+    /**
+     * Replace the contents of the index, as loaded from storage.
+     */
+    public synchronized void reset(Collection<UPSSubscription> subscriptions) {
+        this.subscriptions.clear();
+        for (UPSSubscription subscription : subscriptions) {
+            this.subscriptions.put(subscription.id(), subscription);
+        }
+        rebuild();
+    }
+
+    /**
+     * Add a subscription, or replace one with the same id.
+     */
+    public synchronized void put(UPSSubscription subscription) {
+        this.subscriptions.put(subscription.id(), subscription);
+        rebuild();
+    }
+
+    public synchronized void remove(String id) {
+        if (this.subscriptions.remove(id) != null) {
+            rebuild();
+        }
+    }
+
+    public synchronized void removeAll(Collection<UPSSubscription> subscriptions) {
+        boolean changed = false;
+        for (UPSSubscription subscription : subscriptions) {
+            changed |= this.subscriptions.remove(subscription.id()) != null;
+        }
+        if (changed) {
+            rebuild();
+        }
+    }
+
+    public boolean isEmpty() {
+        return this.root == null;
+    }
+
+    /**
+     * @return the enabled subscriptions to notify of a change to the resource at <code>uri</code>
+     */
+    public List<UPSSubscription> match(String uri) {
+        Node node = this.root;
+        if (node == null) {
+            return Collections.emptyList();
+        }
+
+        List<UPSSubscription> result = new ArrayList<>();
+        List<ResourcePath.Segment> segments = new ResourcePath(uri).segments();
+        for (ResourcePath.Segment segment : segments) {
+            result.addAll(node.wildcard);
+            node = node.children.get(segment.name());
+            if (node == null) {
+                return result;
+            }
+        }
+        result.addAll(node.exact);
+        return result;
+    }
+
+    private void rebuild() {
+        Node root = new Node();
+        boolean empty = true;
+        for (UPSSubscription subscription : this.subscriptions.values()) {
+            if (Boolean.FALSE.equals(subscription.enabled())) {
+                continue;
+            }
+            List<ResourcePath.Segment> segments = subscription.resourcePath().segments();
+            boolean wildcard = !segments.isEmpty() && segments.get(segments.size() - 1).name().equals(WILDCARD);
+            int depth = wildcard ? segments.size() - 1 : segments.size();
+
+            Node node = root;
+            for (int i = 0; i < depth; i++) {
+                node = node.children.computeIfAbsent(segments.get(i).name(), (name) -> new Node());
+            }
+            if (wildcard) {
+                node.wildcard.add(subscription);
+            } else {
+                node.exact.add(subscription);
+            }
+            empty = false;
+        }
+        this.root = empty ? null : root;
+    }
+
+    private static class Node {
+        final Map<String, Node> children = new HashMap<>();
+        final List<UPSSubscription> exact = new ArrayList<>();
+        final List<UPSSubscription> wildcard = new ArrayList<>();
+    }
+
+    private final Map<String, UPSSubscription> subscriptions = new LinkedHashMap<>();
+    private volatile Node root;
+}
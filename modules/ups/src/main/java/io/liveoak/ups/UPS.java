@@ -1,6 +1,18 @@
 package io.liveoak.ups;
 
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import io.liveoak.ups.resource.config.UPSRootConfigResource;
 import org.jboss.aerogear.unifiedpush.JavaSender;
@@ -12,6 +24,14 @@ import org.jboss.logging.Logger;
 /**
  * Handles the communication between the LiveOak instances and a UPS instance.
  *
+ * <p>Notifications are sent from a small pool of threads, through a single sender which is only rebuilt when
+ * the UPS server URL changes. Subscriptions notified of the same event with the same message and targeting,
+ * other than their aliases, are sent as one message to all of their aliases. A message which fails to reach
+ * UPS, or which UPS fails to process, is retried up to <code>liveoak.ups.max-retries</code> times (3 by default),
+ * waiting twice as long before every attempt, starting at <code>liveoak.ups.retry-backoff-ms</code>
+ * (1 second by default). The number of sending threads is set by <code>liveoak.ups.sender-threads</code>
+ * (2 by default).</p>
+ *
  * @author <a href="mailto:mwringe@redhat.com">Matt Wringe</a>
  */
 public class UPS {
@@ -23,6 +43,16 @@ public class UPS {
     public static final String LIVEOAK_RESOURCE_URL = "io.liveoak.push.url";
     public static final String LIVEOAK_RESOURCE_EVENT = "io.liveoak.push.event";
 
+    public static final String SENDER_THREADS_PROPERTY = "liveoak.ups.sender-threads";
+    public static final String MAX_RETRIES_PROPERTY = "liveoak.ups.max-retries";
+    public static final String RETRY_BACKOFF_PROPERTY = "liveoak.ups.retry-backoff-ms";
+
+    public static final int DEFAULT_SENDER_THREADS = 2;
+    public static final int DEFAULT_MAX_RETRIES = 3;
+    public static final long DEFAULT_RETRY_BACKOFF = 1000;
+
+    private static final long MAX_RETRY_BACKOFF = 60000;
+
     /**
      * The type of resource event.
      */
@@ -46,9 +76,23 @@ public class UPS {
     UPSRootConfigResource upsRootConfigResource;
 
     public UPS(UPSRootConfigResource upsRootConfigResource) {
-        this.upsRootConfigResource = upsRootConfigResource;
+        this(upsRootConfigResource, Integer.getInteger(SENDER_THREADS_PROPERTY, DEFAULT_SENDER_THREADS),
+                Integer.getInteger(MAX_RETRIES_PROPERTY, DEFAULT_MAX_RETRIES),
+                Long.getLong(RETRY_BACKOFF_PROPERTY, DEFAULT_RETRY_BACKOFF));
     }
 
+    public UPS(UPSRootConfigResource upsRootConfigResource, int senderThreads, int maxRetries, long retryBackoff) {
+        this.upsRootConfigResource = upsRootConfigResource;
+        this.maxRetries = maxRetries;
+        this.retryBackoff = retryBackoff;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ScheduledThreadPoolExecutor(Math.max(1, senderThreads), (r) -> {
+            Thread thread = new Thread(r, "liveoak-ups-sender-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
 
     /**
      * Sends a message to the UPS instance to send out push notifications to registered applications
@@ -58,8 +102,69 @@ public class UPS {
      * @param subscription The object containing the message and specified recipients
      */
     public void send(URI URI, EventType eventType, UPSSubscription subscription) {
-        SenderClient sender = SenderClient.withRootServerURL(upsRootConfigResource.getUPSServerURL()).build();
+        send(URI, eventType, Arrays.asList(subscription));
+    }
+
+    /**
+     * Sends the push notifications of all the subscriptions matching an event, merging those which only differ
+     * by their aliases into one message.
+     *
+     * <p>Messages are sent asynchronously, so this method does not wait for UPS.</p>
+     *
+     * @param URI           The URI of the updated resource
+     * @param eventType     The type of event which occurred
+     * @param subscriptions The subscriptions matching the resource
+     */
+    public void send(URI URI, EventType eventType, List<UPSSubscription> subscriptions) {
+        Map<List<Object>, Batch> batches = new LinkedHashMap<>();
+        List<UnifiedMessage> messages = new ArrayList<>();
 
+        for (UPSSubscription subscription : subscriptions) {
+            if (subscription.simplePush() != null) {
+                // the simple-push version is specific to the subscription, so it cannot share a message
+                UnifiedMessage.Builder builder = builder(URI, eventType, subscription);
+                builder.aliases(subscription.aliases());
+                builder.simplePush(subscription.simplePush().toString());
+
+                //increment the simplePush value, otherwise next time the simple-push server will ignore the notification
+                subscription.simplePush(subscription.simplePush() + 1);
+                messages.add(builder.build());
+                continue;
+            }
+
+            List<String> aliases = subscription.aliases();
+            List<Object> key = Arrays.asList(aliases == null, subscription.variants(), subscription.categories(),
+                    subscription.deviceTypes(), subscription.message());
+            Batch batch = batches.get(key);
+            if (batch == null) {
+                batch = new Batch(subscription);
+                batches.put(key, batch);
+            }
+            if (aliases != null) {
+                batch.aliases.addAll(aliases);
+            }
+        }
+
+        for (Batch batch : batches.values()) {
+            UnifiedMessage.Builder builder = builder(URI, eventType, batch.subscription);
+            // no aliases means every device of the application
+            builder.aliases(batch.subscription.aliases() == null ? null : new ArrayList<>(batch.aliases));
+            messages.add(builder.build());
+        }
+
+        for (UnifiedMessage message : messages) {
+            deliver(message, 0);
+        }
+    }
+
+    /**
+     * Stop sending, dropping messages waiting to be retried.
+     */
+    public void close() {
+        this.executor.shutdownNow();
+    }
+
+    private UnifiedMessage.Builder builder(URI URI, EventType eventType, UPSSubscription subscription) {
         // setup the application specifics
         UnifiedMessage.Builder builder = new UnifiedMessage.Builder()
                 .pushApplicationId(upsRootConfigResource.getApplicationId())
@@ -67,38 +172,86 @@ public class UPS {
 
         // setup who is to receive the message
         builder.variants(subscription.variants());
-        builder.aliases(subscription.aliases());
         builder.categories(subscription.categories());
         builder.deviceType(subscription.deviceTypes());
 
-        if (subscription.simplePush() != null) {
-            builder.simplePush(subscription.simplePush().toString());
-
-            //increment the simplePush value, otherwise next time the simple-push server will ignore the notification
-            subscription.simplePush(subscription.simplePush() + 1);
-        }
-
         //setup the message itself
 
         builder.attributes(subscription.message());
         // specify the liveoak specifics of the message, overwrite if needed.
         builder.attribute(LIVEOAK_RESOURCE_URL, URI.toString());
         builder.attribute(LIVEOAK_RESOURCE_EVENT, eventType.toString());
+        return builder;
+    }
 
+    private void deliver(UnifiedMessage message, int attempt) {
+        try {
+            this.executor.execute(() -> {
+                try {
+                    sender().send(message, new MessageResponseCallback() {
+                        @Override
+                        public void onComplete(int status) {
+                            if (status >= 500) {
+                                retry(message, attempt, "UPS server responded with status " + status, null);
+                            } else if (status >= 400) {
+                                // retrying will not help
+                                log.error("UPS server rejected a notification with status " + status);
+                            }
+                        }
 
-        sender.send(builder.build(), new MessageResponseCallback() {
-            @Override
-            public void onComplete(int i) {
-                //do nothing for now
-            }
+                        @Override
+                        public void onError(Throwable throwable) {
+                            retry(message, attempt, "Error trying to send notification to UPS server", throwable);
+                        }
+                    });
+                } catch (RuntimeException e) {
+                    // the executor would swallow it
+                    log.error("Error trying to send notification to UPS server", e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.debug("Dropping a notification, UPS sender was closed");
+        }
+    }
 
-            @Override
-            public void onError(Throwable throwable) {
-                //TODO: how to handle when there is an error between LiveOak and UPS?
-                // should we just log the error, try again after x many seconds and y many retries?
-                log.error("Error trying to send notification to UPS server", throwable);
-            }
-        });
+    private void retry(UnifiedMessage message, int attempt, String reason, Throwable throwable) {
+        if (attempt >= this.maxRetries) {
+            log.error(reason + ", giving up after " + (attempt + 1) + " attempts", throwable);
+            return;
+        }
+        long delay = Math.min(this.retryBackoff << attempt, MAX_RETRY_BACKOFF);
+        log.debug(reason + ", retrying in " + delay + " ms", throwable);
+        try {
+            this.executor.schedule(() -> deliver(message, attempt + 1), delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            log.debug("Dropping a notification, UPS sender was closed");
+        }
+    }
+
+    private synchronized SenderClient sender() {
+        String url = upsRootConfigResource.getUPSServerURL();
+        if (this.sender == null || !Objects.equals(url, this.senderURL)) {
+            this.sender = SenderClient.withRootServerURL(url).build();
+            this.senderURL = url;
+        }
+        return this.sender;
+    }
+
+    /**
+     * Subscriptions sharing a message, and all of their aliases.
+     */
+    private static class Batch {
+        final UPSSubscription subscription;
+        final Set<String> aliases = new LinkedHashSet<>();
+
+        Batch(UPSSubscription subscription) {
+            this.subscription = subscription;
+        }
     }
 
+    private final ScheduledThreadPoolExecutor executor;
+    private final int maxRetries;
+    private final long retryBackoff;
+    private SenderClient sender;
+    private String senderURL;
 }
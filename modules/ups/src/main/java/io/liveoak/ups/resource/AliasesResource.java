@@ -2,6 +2,7 @@ package io.liveoak.ups.resource;
 
 import java.util.Collection;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.UUID;
 
 import com.mongodb.BasicDBObject;
@@ -15,6 +16,8 @@ import io.liveoak.spi.resource.async.Resource;
 import io.liveoak.spi.resource.async.Responder;
 import io.liveoak.spi.state.ResourceState;
 import io.liveoak.ups.Alias;
+import io.liveoak.ups.SubscriptionIndex;
+import io.liveoak.ups.UPSSubscription;
 
 /**
  * @author <a href="mailto:mwringe@redhat.com">Matt Wringe</a>
@@ -23,12 +26,14 @@ public class AliasesResource implements SynchronousResource {
 
     private UPSRootResource parent;
     private DBCollection collection;
+    private SubscriptionIndex index;
 
     public static final String ID = "aliases";
 
-    public AliasesResource(UPSRootResource parent, DBCollection collection) {
+    public AliasesResource(UPSRootResource parent, DBCollection collection, SubscriptionIndex index) {
         this.parent = parent;
         this.collection = collection;
+        this.index = index;
     }
 
     @Override
@@ -100,6 +105,15 @@ public class AliasesResource implements SynchronousResource {
         return null;
     }
 
+    public List<UPSSubscription> loadSubscriptions() {
+        List<UPSSubscription> subscriptions = new LinkedList<>();
+        DBCursor cursor = collection.find(new BasicDBObject("subscriptions", new BasicDBObject("$exists", true)));
+        while (cursor.hasNext()) {
+            subscriptions.addAll(Alias.create(cursor.next()).getSubscriptions());
+        }
+        return subscriptions;
+    }
+
     public void saveAlias(Alias alias) {
         collection.save(alias.dbObject());
     }
@@ -108,6 +122,11 @@ public class AliasesResource implements SynchronousResource {
         DBObject dbObject = collection.findOne(new BasicDBObject("_id", id));
         if (dbObject != null) {
             collection.remove(dbObject);
+            index.removeAll(Alias.create(dbObject).getSubscriptions());
         }
     }
+
+    SubscriptionIndex subscriptionIndex() {
+        return index;
+    }
 }
@@ -2,6 +2,7 @@ package io.liveoak.ups.resource;
 
 import java.util.Collection;
 import java.util.LinkedList;
+import java.util.List;
 
 import com.mongodb.BasicDBObject;
 import com.mongodb.DBCollection;
@@ -12,6 +13,7 @@ import io.liveoak.spi.RequestContext;
 import io.liveoak.spi.resource.async.Resource;
 import io.liveoak.spi.resource.async.Responder;
 import io.liveoak.spi.state.ResourceState;
+import io.liveoak.ups.SubscriptionIndex;
 import io.liveoak.ups.UPSSubscription;
 
 /**
@@ -23,10 +25,12 @@ public class SubscriptionsResource implements SubscriptionResourceParent {
 
     private UPSRootResource parent;
     private DBCollection collection;
+    private SubscriptionIndex index;
 
-    public SubscriptionsResource(UPSRootResource parent, DBCollection collection) {
+    public SubscriptionsResource(UPSRootResource parent, DBCollection collection, SubscriptionIndex index) {
         this.parent = parent;
         this.collection = collection;
+        this.index = index;
     }
 
     @Override
@@ -42,16 +46,24 @@ public class SubscriptionsResource implements SubscriptionResourceParent {
     @Override
     public Collection<? extends Resource> members(RequestContext ctx) throws Exception {
         LinkedList<Resource> members = new LinkedList<>();
+        for (UPSSubscription subscription : loadSubscriptions()) {
+            members.add(new SubscriptionResource(this, subscription));
+        }
+        return members;
+    }
+
+    public List<UPSSubscription> loadSubscriptions() {
+        List<UPSSubscription> subscriptions = new LinkedList<>();
 
         DBCursor cursor = collection.find();
         while (cursor.hasNext()) {
             DBObject dbObject = cursor.next();
             UPSSubscription subscription = UPSSubscription.create(dbObject);
             if (subscription != null) {
-                members.add(new SubscriptionResource(this, subscription));
+                subscriptions.add(subscription);
             }
         }
-        return members;
+        return subscriptions;
     }
 
     @Override
@@ -71,6 +83,7 @@ public class SubscriptionsResource implements SubscriptionResourceParent {
         UPSSubscription subscription = UPSSubscription.create(state);
         if (subscription != null) {
             this.collection.insert(subscription.dbObject());
+            this.index.put(subscription);
             responder.resourceCreated(new SubscriptionResource(this, subscription));
         } else {
             responder.invalidRequest("Cannot create a UPS Subscription without a resource-path specified");
@@ -80,9 +93,11 @@ public class SubscriptionsResource implements SubscriptionResourceParent {
     public void updateSubscription(UPSSubscription subscription) {
         String id = subscription.id();
         WriteResult wr = this.collection.save(subscription.dbObject());
+        this.index.put(subscription);
     }
 
     public void deleteSubscription(String id) {
         collection.remove(new BasicDBObject("_id", id));
+        this.index.remove(id);
     }
 }
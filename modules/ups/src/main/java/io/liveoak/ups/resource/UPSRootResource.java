@@ -1,7 +1,9 @@
 package io.liveoak.ups.resource;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.LinkedList;
+import java.util.List;
 
 import com.mongodb.BasicDBObject;
 import com.mongodb.DBCollection;
@@ -11,9 +13,10 @@ import io.liveoak.spi.container.SubscriptionManager;
 import io.liveoak.spi.resource.RootResource;
 import io.liveoak.spi.resource.SynchronousResource;
 import io.liveoak.spi.resource.async.Resource;
-import io.liveoak.ups.AliasUPSSubscription;
 import io.liveoak.ups.BaseUPSSubscription;
+import io.liveoak.ups.SubscriptionIndex;
 import io.liveoak.ups.UPS;
+import io.liveoak.ups.UPSSubscription;
 import io.liveoak.ups.resource.config.UPSRootConfigResource;
 
 /**
@@ -28,6 +31,8 @@ public class UPSRootResource implements RootResource, SynchronousResource {
     private AliasesResource aliasesResource;
     private SubscriptionsResource subscriptionsResource;
     private InternalStorage internalStorage;
+    private SubscriptionIndex subscriptionIndex;
+    private BaseUPSSubscription subscription;
 
     private UPS upsService;
 
@@ -40,20 +45,33 @@ public class UPSRootResource implements RootResource, SynchronousResource {
         //setup the service to handle communication with a UPS instance
         upsService = new UPS(configResource);
 
+        // every resource change is matched against the subscriptions in memory, which are kept in sync
+        // as subscriptions and aliases are changed through this resource
+        this.subscriptionIndex = new SubscriptionIndex();
+
         DBCollection subscriptionsCollections = internalStorage.getCollection("subscriptions");
         subscriptionsCollections.ensureIndex(new BasicDBObject("resource-path", 1));
-        subscriptionManager.addSubscription(new BaseUPSSubscription(subscriptionsCollections, upsService));
-
-        this.subscriptionsResource = new SubscriptionsResource(this, subscriptionsCollections);
+        this.subscriptionsResource = new SubscriptionsResource(this, subscriptionsCollections, subscriptionIndex);
 
         DBCollection aliasesCollection = internalStorage.getCollection("aliases");
         // adds the index if it doesn't already exist
         aliasesCollection.ensureIndex(new BasicDBObject("subscriptions.resource-path", 1));
+        this.aliasesResource = new AliasesResource(this, aliasesCollection, subscriptionIndex);
 
-        subscriptionManager.addSubscription(new AliasUPSSubscription(aliasesCollection, upsService));
+        List<UPSSubscription> subscriptions = new ArrayList<>(subscriptionsResource.loadSubscriptions());
+        subscriptions.addAll(aliasesResource.loadSubscriptions());
+        subscriptionIndex.reset(subscriptions);
 
-        this.aliasesResource = new AliasesResource(this, aliasesCollection);
+        this.subscription = new BaseUPSSubscription(subscriptionIndex, upsService);
+        subscriptionManager.addSubscription(this.subscription);
+    }
 
+    /**
+     * Stop notifying UPS of resource changes.
+     */
+    public void stop() {
+        subscriptionManager.removeSubscription(this.subscription);
+        upsService.close();
     }
 
     @Override
@@ -0,0 +1,64 @@
+package io.liveoak.ups;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.mongodb.BasicDBObject;
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class SubscriptionIndexTest {
+
+    @Test
+    public void matchesExactAndWildcardPaths() {
+        SubscriptionIndex index = new SubscriptionIndex();
+        index.reset(Arrays.asList(
+                subscription("all", "/*", true),
+                subscription("app", "/testApp/*", true),
+                subscription("collection", "/testApp/storage/people/*", true),
+                subscription("exact", "/testApp/storage/people/bob", true),
+                subscription("other", "/testApp/storage/places/*", true),
+                subscription("disabled", "/testApp/storage/people/*", false)));
+
+        assertThat(ids(index.match("/testApp/storage/people/bob"))).isEqualTo(Arrays.asList("all", "app", "collection", "exact"));
+        assertThat(ids(index.match("/testApp/storage/people/alice"))).isEqualTo(Arrays.asList("all", "app", "collection"));
+        // a wildcard only matches below its path
+        assertThat(ids(index.match("/testApp/storage/people"))).isEqualTo(Arrays.asList("all", "app"));
+        assertThat(ids(index.match("/otherApp/storage"))).isEqualTo(Arrays.asList("all"));
+    }
+
+    @Test
+    public void keptInSyncWithChanges() {
+        SubscriptionIndex index = new SubscriptionIndex();
+        assertThat(index.isEmpty()).isTrue();
+
+        index.put(subscription("a", "/testApp/storage/people/*", true));
+        assertThat(index.isEmpty()).isFalse();
+        assertThat(ids(index.match("/testApp/storage/people/bob"))).isEqualTo(Arrays.asList("a"));
+
+        // moved to another path
+        index.put(subscription("a", "/testApp/storage/places/*", true));
+        assertThat(index.match("/testApp/storage/people/bob").isEmpty()).isTrue();
+        assertThat(ids(index.match("/testApp/storage/places/home"))).isEqualTo(Arrays.asList("a"));
+
+        index.remove("a");
+        assertThat(index.isEmpty()).isTrue();
+        assertThat(index.match("/testApp/storage/places/home").isEmpty()).isTrue();
+    }
+
+    private static UPSSubscription subscription(String id, String resourcePath, boolean enabled) {
+        return UPSSubscription.create(new BasicDBObject("_id", id)
+                .append("resource-path", resourcePath)
+                .append("enabled", enabled));
+    }
+
+    private static List<String> ids(List<UPSSubscription> subscriptions) {
+        List<String> ids = new ArrayList<>();
+        for (UPSSubscription subscription : subscriptions) {
+            ids.add(subscription.id());
+        }
+        return ids;
+    }
+}